@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.benchmark;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>基准测试参数, 命令行格式: key1=value1 key2=value2 ...</p>
+ *
+ * <p>scenarios: 执行的场景, 逗号分隔, 默认全部: sync,async,faulty,blocking,churn,selection</p>
+ * <p>jvmWarmup: 执行所有场景前的JVM预热时间(秒, 同步/异步各一半, 不计入结果), 默认10, 0不预热. 不预热时第一个场景受JIT影响明显偏低</p>
+ * <p>warmup: 每个场景的预热时间(秒), 默认3</p>
+ * <p>duration: 每个场景的测量时间(秒), 默认10</p>
+ * <p>threads: 同步线程数/异步在途请求数, 默认32</p>
+ * <p>servers: 模拟服务端数量, 默认3 (churn场景至少4个)</p>
+ * <p>latency: 模拟服务端处理耗时分布, 默认lognormal:2:0.5, 格式见LatencyDistribution</p>
+ * <p>responseSize: 响应体大小(字节), 默认128</p>
+ * <p>errorRate: faulty场景的服务端错误率, 默认0.01</p>
+ * <p>stallRate: faulty场景的服务端卡住概率, 默认0.002</p>
+ * <p>stallMillis: faulty场景的服务端卡住时间(ms), 默认1000 (客户端读超时为其1/4)</p>
+ * <p>strategy: 负载均衡策略(GlaciHttpClient#setHostSelectionStrategy), 默认不设置</p>
+ * <p>output: 结果输出文件(Properties), 可作为下次的基线, 默认不输出</p>
+ * <p>baseline: 基线文件(Properties), 设置后与基线比较, 退化时进程返回1, 默认不比较</p>
+ * <p>tolerance: 允许的退化比例, 默认0.15</p>
+ *
+ * @author shepherdviolet
+ */
+public class BenchmarkOptions {
+
+    private final Map<String, String> values = new LinkedHashMap<>();
+
+    public BenchmarkOptions(String[] args) {
+        for (String arg : args) {
+            if (arg == null || arg.trim().isEmpty()) {
+                continue;
+            }
+            int index = arg.indexOf('=');
+            if (index <= 0) {
+                throw new IllegalArgumentException("Invalid argument '" + arg + "', format: key=value");
+            }
+            values.put(arg.substring(0, index).trim(), arg.substring(index + 1).trim());
+        }
+    }
+
+    private BenchmarkOptions(Map<String, String> values) {
+        this.values.putAll(values);
+    }
+
+    /**
+     * 复制一份参数, 并覆盖部分参数
+     * @param overrides key=value
+     */
+    public BenchmarkOptions copy(String... overrides) {
+        BenchmarkOptions options = new BenchmarkOptions(values);
+        options.values.putAll(new BenchmarkOptions(overrides).values);
+        return options;
+    }
+
+    public List<String> getScenarios() {
+        return Arrays.asList(getString("scenarios", "sync,async,faulty,blocking,churn,selection").split(","));
+    }
+
+    public long getJvmWarmupMillis() {
+        return getLong("jvmWarmup", 10) * 1000L;
+    }
+
+    public long getWarmupMillis() {
+        return getLong("warmup", 3) * 1000L;
+    }
+
+    public long getDurationMillis() {
+        return getLong("duration", 10) * 1000L;
+    }
+
+    public int getThreads() {
+        return (int) getLong("threads", 32);
+    }
+
+    public int getServers() {
+        return (int) getLong("servers", 3);
+    }
+
+    public LatencyDistribution getLatency() {
+        return LatencyDistribution.parse(getString("latency", "lognormal:2:0.5"));
+    }
+
+    public int getResponseSize() {
+        return (int) getLong("responseSize", 128);
+    }
+
+    public double getErrorRate() {
+        return getDouble("errorRate", 0.01);
+    }
+
+    public double getStallRate() {
+        return getDouble("stallRate", 0.002);
+    }
+
+    public long getStallMillis() {
+        return getLong("stallMillis", 1000);
+    }
+
+    public String getStrategy() {
+        return getString("strategy", null);
+    }
+
+    public String getOutput() {
+        return getString("output", null);
+    }
+
+    public String getBaseline() {
+        return getString("baseline", null);
+    }
+
+    public double getTolerance() {
+        return getDouble("tolerance", 0.15);
+    }
+
+    private String getString(String key, String defaultValue) {
+        String value = values.get(key);
+        return value == null || value.isEmpty() ? defaultValue : value;
+    }
+
+    private long getLong(String key, long defaultValue) {
+        String value = getString(key, null);
+        try {
+            return value == null ? defaultValue : Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid argument " + key + "=" + value + ", must be an integer", e);
+        }
+    }
+
+    private double getDouble(String key, double defaultValue) {
+        String value = getString(key, null);
+        try {
+            return value == null ? defaultValue : Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid argument " + key + "=" + value + ", must be a number", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return values.toString();
+    }
+
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.benchmark;
+
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.metrics.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * <p>单个场景的测试结果: 吞吐量, 耗时百分位, 失败数(按异常类型), 以及场景自定义指标(例如恢复时间)</p>
+ *
+ * <p>结果可以写入Properties文件, 作为下次测试的基线(baseline), 用于判断性能是否退化.</p>
+ *
+ * @author shepherdviolet
+ */
+public class BenchmarkResult {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p999"};
+
+    private final String scenario;
+    private final long durationMillis;
+    private final long succeeded;
+    private final long failed;
+    private final Map<String, Long> failures;
+    private final LatencyHistogram.Snapshot latency;
+    private final Map<String, Long> extras = new LinkedHashMap<>();
+
+    public BenchmarkResult(String scenario, long durationMillis, long succeeded, long failed,
+                           Map<String, Long> failures, LatencyHistogram.Snapshot latency) {
+        this.scenario = scenario;
+        this.durationMillis = Math.max(1, durationMillis);
+        this.succeeded = succeeded;
+        this.failed = failed;
+        this.failures = failures;
+        this.latency = latency;
+    }
+
+    /**
+     * 添加场景自定义指标, 只做报告, 不参与基线比较
+     */
+    public BenchmarkResult putExtra(String name, long value) {
+        extras.put(name, value);
+        return this;
+    }
+
+    /**
+     * @return 吞吐量(成功+失败), 次/秒
+     */
+    public double getThroughput() {
+        return (succeeded + failed) * 1000.0 / durationMillis;
+    }
+
+    /**
+     * @return 失败率, [0, 1]
+     */
+    public double getErrorRate() {
+        long total = succeeded + failed;
+        return total > 0 ? (double) failed / total : 0.0;
+    }
+
+    /**
+     * 写入Properties(作为基线)
+     */
+    public void writeTo(Properties properties) {
+        properties.setProperty(scenario + ".throughput", String.format("%.1f", getThroughput()));
+        properties.setProperty(scenario + ".errorRate", String.format("%.5f", getErrorRate()));
+        for (int i = 0 ; i < PERCENTILES.length ; i++) {
+            properties.setProperty(scenario + "." + PERCENTILE_NAMES[i] + "Micros", String.valueOf(latency.getValueAtPercentile(PERCENTILES[i])));
+        }
+    }
+
+    /**
+     * 与基线比较
+     *
+     * @param baseline 基线, 没有该场景的数据时不比较
+     * @param tolerance 允许的退化比例, 例如0.15: 吞吐量下降超过15%, 或p50/p99上涨超过15%视为退化
+     * @return 退化项, 空表示没有退化
+     */
+    public List<String> compareTo(Properties baseline, double tolerance) {
+        List<String> regressions = new ArrayList<>();
+        String baseThroughput = baseline.getProperty(scenario + ".throughput");
+        if (baseThroughput != null) {
+            double base = Double.parseDouble(baseThroughput);
+            if (getThroughput() < base * (1.0 - tolerance)) {
+                regressions.add(String.format("%s throughput %.1f/s < baseline %.1f/s", scenario, getThroughput(), base));
+            }
+        }
+        //p90/p999样本少时抖动大, 只比较p50/p99
+        for (int i : new int[]{0, 2}) {
+            String baseValue = baseline.getProperty(scenario + "." + PERCENTILE_NAMES[i] + "Micros");
+            if (baseValue == null) {
+                continue;
+            }
+            long base = Long.parseLong(baseValue);
+            long current = latency.getValueAtPercentile(PERCENTILES[i]);
+            //1ms以内的差异不计(分桶误差和调度抖动)
+            if (current > base * (1.0 + tolerance) && current - base > 1000L) {
+                regressions.add(String.format("%s %s %sms > baseline %sms", scenario, PERCENTILE_NAMES[i], toMillis(current), toMillis(base)));
+            }
+        }
+        return regressions;
+    }
+
+    public String getScenario() {
+        return scenario;
+    }
+
+    public long getSucceeded() {
+        return succeeded;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public LatencyHistogram.Snapshot getLatency() {
+        return latency;
+    }
+
+    public Map<String, Long> getExtras() {
+        return extras;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder stringBuilder = new StringBuilder(String.format("%-10s throughput=%.1f/s, succeeded=%d, failed=%d, errorRate=%.3f%%",
+                scenario, getThroughput(), succeeded, failed, getErrorRate() * 100));
+        stringBuilder.append(", latency(ms): mean=").append(toMillis(latency.getMean()));
+        for (int i = 0 ; i < PERCENTILES.length ; i++) {
+            stringBuilder.append(", ").append(PERCENTILE_NAMES[i]).append('=').append(toMillis(latency.getValueAtPercentile(PERCENTILES[i])));
+        }
+        stringBuilder.append(", max=").append(toMillis(latency.getMax()));
+        if (!failures.isEmpty()) {
+            stringBuilder.append(", failures=").append(failures);
+        }
+        if (!extras.isEmpty()) {
+            stringBuilder.append(", ").append(extras);
+        }
+        return stringBuilder.toString();
+    }
+
+    private static String toMillis(long micros) {
+        return String.format("%.2f", micros / 1000.0);
+    }
+
+}
@@ -0,0 +1,339 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.benchmark;
+
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.LoadBalancedHostManager;
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.GlaciHttpClient;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>基准测试场景</p>
+ *
+ * <p>sync: 同步请求, 稳态吞吐量和耗时</p>
+ * <p>async: 异步请求(sendForBytesAsync), 稳态吞吐量和耗时</p>
+ * <p>faulty: 服务端按比例返回500/卡住, 客户端读超时+被动阻断, 观察长尾和失败</p>
+ * <p>blocking: 测量期1/3处停止一个服务端, 2/3处恢复, 观察阻断期间的失败数和恢复时间(主动探测+被动阻断)</p>
+ * <p>churn: 每100ms修改一次后端列表(setHostList), 观察后端频繁变化时的吞吐量和失败</p>
+ * <p>selection: 不发请求, 只测LoadBalancedHostManager选择后端+反馈的吞吐量</p>
+ *
+ * @author shepherdviolet
+ */
+public abstract class BenchmarkScenario {
+
+    private static final Map<String, BenchmarkScenario> SCENARIOS = new LinkedHashMap<>();
+
+    static {
+        register(new Sync());
+        register(new Async());
+        register(new Faulty());
+        register(new Blocking());
+        register(new Churn());
+        register(new Selection());
+    }
+
+    private final String name;
+
+    protected BenchmarkScenario(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 执行场景
+     */
+    public abstract BenchmarkResult run(BenchmarkOptions options) throws Exception;
+
+    /**
+     * @param name 场景名
+     * @return 场景, 不存在时返回null
+     */
+    public static BenchmarkScenario get(String name) {
+        return SCENARIOS.get(name);
+    }
+
+    public static List<String> getNames() {
+        return new ArrayList<>(SCENARIOS.keySet());
+    }
+
+    private static void register(BenchmarkScenario scenario) {
+        SCENARIOS.put(scenario.getName(), scenario);
+    }
+
+    /**
+     * 启动模拟服务端
+     */
+    protected static List<MockServer> startServers(BenchmarkOptions options, int count) throws IOException {
+        List<MockServer> servers = new ArrayList<>(count);
+        for (int i = 0 ; i < count ; i++) {
+            servers.add(new MockServer("s" + i, 0)
+                    .setLatency(options.getLatency())
+                    .setResponseSize(options.getResponseSize())
+                    .start());
+        }
+        return servers;
+    }
+
+    protected static void closeServers(List<MockServer> servers) {
+        for (MockServer server : servers) {
+            server.close();
+        }
+    }
+
+    protected static List<String> urlsOf(List<MockServer> servers) {
+        List<String> urls = new ArrayList<>(servers.size());
+        for (MockServer server : servers) {
+            urls.add(server.getUrl());
+        }
+        return urls;
+    }
+
+    /**
+     * 创建客户端, 连接池/线程数与压测并发匹配, 关闭请求日志(日志输出对吞吐量影响巨大)
+     */
+    protected static GlaciHttpClient newClient(BenchmarkOptions options, List<MockServer> servers) {
+        int threads = options.getThreads();
+        GlaciHttpClient client = new GlaciHttpClient()
+                .setHostList(urlsOf(servers))
+                .setInitiativeInspectInterval(0)
+                .setMaxThreads(Math.max(threads, 64))
+                .setMaxThreadsPerHost(Math.max(threads, 64))
+                .setMaxIdleConnections(threads)
+                .setConnectTimeout(1000L)
+                .setReadTimeout(5000L)
+                .setLogPrintUrl(false)
+                .setLogPrintBlock(false)
+                .setLogPrintPayload(false)
+                .setLogPrintStatusCode(false)
+                .setLogPrintInputs(false);
+        if (options.getStrategy() != null) {
+            client.setHostSelectionStrategy(options.getStrategy());
+        }
+        return client;
+    }
+
+    private static class Sync extends BenchmarkScenario {
+
+        private Sync() {
+            super("sync");
+        }
+
+        @Override
+        public BenchmarkResult run(BenchmarkOptions options) throws Exception {
+            List<MockServer> servers = startServers(options, options.getServers());
+            GlaciHttpClient client = newClient(options, servers);
+            try {
+                return new LoadDriver(getName(), options.getWarmupMillis(), options.getDurationMillis())
+                        .runSync(options.getThreads(), () -> client.get("/sync").sendForBytes());
+            } finally {
+                client.close();
+                closeServers(servers);
+            }
+        }
+
+    }
+
+    private static class Async extends BenchmarkScenario {
+
+        private Async() {
+            super("async");
+        }
+
+        @Override
+        public BenchmarkResult run(BenchmarkOptions options) throws Exception {
+            List<MockServer> servers = startServers(options, options.getServers());
+            GlaciHttpClient client = newClient(options, servers);
+            try {
+                return new LoadDriver(getName(), options.getWarmupMillis(), options.getDurationMillis())
+                        .runAsync(options.getThreads(), () -> client.get("/async").sendForBytesAsync());
+            } finally {
+                client.close();
+                closeServers(servers);
+            }
+        }
+
+    }
+
+    private static class Faulty extends BenchmarkScenario {
+
+        private Faulty() {
+            super("faulty");
+        }
+
+        @Override
+        public BenchmarkResult run(BenchmarkOptions options) throws Exception {
+            List<MockServer> servers = startServers(options, options.getServers());
+            for (MockServer server : servers) {
+                server.setErrorRate(options.getErrorRate())
+                        .setStall(options.getStallRate(), options.getStallMillis());
+            }
+            GlaciHttpClient client = newClient(options, servers)
+                    .setReadTimeout(Math.max(1L, options.getStallMillis() / 4))
+                    .setPassiveBlockDuration(1000L);
+            try {
+                BenchmarkResult result = new LoadDriver(getName(), options.getWarmupMillis(), options.getDurationMillis())
+                        .runSync(options.getThreads(), () -> client.get("/faulty").sendForBytes());
+                long stalls = 0;
+                for (MockServer server : servers) {
+                    stalls += server.getStalls();
+                }
+                return result.putExtra("serverStalls", stalls);
+            } finally {
+                client.close();
+                closeServers(servers);
+            }
+        }
+
+    }
+
+    private static class Blocking extends BenchmarkScenario {
+
+        private Blocking() {
+            super("blocking");
+        }
+
+        @Override
+        public BenchmarkResult run(BenchmarkOptions options) throws Exception {
+            List<MockServer> servers = startServers(options, Math.max(2, options.getServers()));
+            MockServer victim = servers.get(servers.size() - 1);
+            GlaciHttpClient client = newClient(options, servers)
+                    .setInitiativeInspectInterval(1000L)
+                    .setPassiveBlockDuration(3000L);
+            AtomicLong recoveryMillis = new AtomicLong(-1);
+            AtomicLong requestsWhileDown = new AtomicLong(0);
+            long duration = options.getDurationMillis();
+            try {
+                BenchmarkResult result = new LoadDriver(getName(), options.getWarmupMillis(), duration)
+                        .schedule(duration / 3, "stop " + victim.getName(), victim::stop)
+                        .schedule(duration * 2 / 3, "restart " + victim.getName(), () -> {
+                            long before = victim.getRequests();
+                            try {
+                                victim.start();
+                            } catch (IOException e) {
+                                throw new RuntimeException("Failed to restart " + victim.getName(), e);
+                            }
+                            long restartAt = System.currentTimeMillis();
+                            Thread watcher = new Thread(() -> {
+                                while (System.currentTimeMillis() - restartAt < duration) {
+                                    if (victim.getRequests() > before) {
+                                        recoveryMillis.set(System.currentTimeMillis() - restartAt);
+                                        return;
+                                    }
+                                    try {
+                                        Thread.sleep(10L);
+                                    } catch (InterruptedException e) {
+                                        return;
+                                    }
+                                }
+                            }, "Benchmark-blocking-watcher");
+                            watcher.setDaemon(true);
+                            watcher.start();
+                        })
+                        .runSync(options.getThreads(), () -> client.get("/blocking").sendForBytes());
+                //-1表示测量期内没有恢复
+                return result.putExtra("recoveryMillis", recoveryMillis.get());
+            } finally {
+                client.close();
+                closeServers(servers);
+            }
+        }
+
+    }
+
+    private static class Churn extends BenchmarkScenario {
+
+        private Churn() {
+            super("churn");
+        }
+
+        @Override
+        public BenchmarkResult run(BenchmarkOptions options) throws Exception {
+            List<MockServer> servers = startServers(options, Math.max(4, options.getServers()));
+            List<String> urls = urlsOf(servers);
+            GlaciHttpClient client = newClient(options, servers);
+            AtomicLong changes = new AtomicLong(0);
+            AtomicBoolean running = new AtomicBoolean(true);
+            Thread churner = new Thread(() -> {
+                List<String> shuffled = new ArrayList<>(urls);
+                while (running.get()) {
+                    Collections.shuffle(shuffled);
+                    int size = ThreadLocalRandom.current().nextInt(2, shuffled.size() + 1);
+                    client.setHostList(new ArrayList<>(shuffled.subList(0, size)));
+                    changes.incrementAndGet();
+                    try {
+                        Thread.sleep(100L);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }, "Benchmark-churn");
+            churner.setDaemon(true);
+            churner.start();
+            try {
+                BenchmarkResult result = new LoadDriver(getName(), options.getWarmupMillis(), options.getDurationMillis())
+                        .runSync(options.getThreads(), () -> client.get("/churn").sendForBytes());
+                return result.putExtra("hostListChanges", changes.get());
+            } finally {
+                running.set(false);
+                churner.interrupt();
+                client.close();
+                closeServers(servers);
+            }
+        }
+
+    }
+
+    private static class Selection extends BenchmarkScenario {
+
+        private Selection() {
+            super("selection");
+        }
+
+        @Override
+        public BenchmarkResult run(BenchmarkOptions options) throws Exception {
+            List<String> hosts = new ArrayList<>();
+            for (int i = 0 ; i < Math.max(8, options.getServers()) ; i++) {
+                hosts.add("http://127.0.0.1:" + (20000 + i));
+            }
+            LoadBalancedHostManager manager = new LoadBalancedHostManager().setHostList(hosts);
+            if (options.getStrategy() != null) {
+                manager.setSelectionStrategy(options.getStrategy());
+            }
+            return new LoadDriver(getName(), options.getWarmupMillis(), options.getDurationMillis())
+                    .runSync(options.getThreads(), () -> {
+                        LoadBalancedHostManager.Host host = manager.nextHost();
+                        host.feedback(true, 0L, 1, host.onRequestStart());
+                    });
+        }
+
+    }
+
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.benchmark;
+
+import ch.qos.logback.classic.Level;
+import com.github.shepherdviolet.glacimon.java.helper.logback.LogbackHelper;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * <p>GlaciHttpClient / LoadBalancedHostManager 性能基准测试</p>
+ *
+ * <p>在进程内启动多个模拟服务端(MockServer), 依次执行各场景(BenchmarkScenario), 输出吞吐量和耗时百分位.
+ * 不依赖外部网络和服务, 可以在普通Linux机器上离线执行. 参数见BenchmarkOptions.</p>
+ *
+ * <p>用法:</p>
+ * <p>gradlew :glacispring-httpclient-benchmark:benchmark -Pargs="duration=10 output=build/benchmark.properties"</p>
+ * <p>gradlew :glacispring-httpclient-benchmark:benchmark -Pargs="baseline=build/benchmark.properties tolerance=0.15"</p>
+ *
+ * <p>退出码: 0正常, 1与基线相比有退化, 2参数错误或执行异常</p>
+ *
+ * <p>注意: 结果受机器负载影响, 基线请在同一台机器上生成, 比较前关闭其他耗CPU的程序.</p>
+ *
+ * @author shepherdviolet
+ */
+public class HttpClientBenchmark {
+
+    public static void main(String[] args) {
+        int exitCode;
+        try {
+            exitCode = run(new BenchmarkOptions(args));
+        } catch (Throwable t) {
+            t.printStackTrace();
+            exitCode = 2;
+        }
+        //客户端和模拟服务端会遗留非守护线程
+        System.exit(exitCode);
+    }
+
+    private static int run(BenchmarkOptions options) throws Exception {
+        //日志输出对吞吐量影响巨大, 只保留错误日志
+        LogbackHelper.setLevel("com.github.shepherdviolet.glacimon", Level.ERROR);
+        System.setProperty("glacispring.loadbalance.warndisabled", "true");
+
+        List<BenchmarkScenario> scenarios = new ArrayList<>();
+        for (String name : options.getScenarios()) {
+            BenchmarkScenario scenario = BenchmarkScenario.get(name.trim());
+            if (scenario == null) {
+                throw new IllegalArgumentException("Undefined scenario '" + name + "', supported: " + BenchmarkScenario.getNames());
+            }
+            scenarios.add(scenario);
+        }
+
+        System.out.println("Benchmark | options: " + options + ", java " + System.getProperty("java.version") +
+                ", cpus " + Runtime.getRuntime().availableProcessors());
+
+        long jvmWarmupSeconds = options.getJvmWarmupMillis() / 1000L;
+        if (jvmWarmupSeconds > 0) {
+            System.out.println("Benchmark | warming up jvm ...");
+            long half = Math.max(1L, jvmWarmupSeconds / 2);
+            BenchmarkScenario.get("sync").run(options.copy("warmup=" + half, "duration=0"));
+            BenchmarkScenario.get("async").run(options.copy("warmup=" + half, "duration=0"));
+        }
+
+        List<BenchmarkResult> results = new ArrayList<>(scenarios.size());
+        for (BenchmarkScenario scenario : scenarios) {
+            System.out.println("Benchmark | running " + scenario.getName() + " ...");
+            BenchmarkResult result = scenario.run(options);
+            System.out.println("Benchmark | " + result);
+            results.add(result);
+        }
+
+        System.out.println();
+        System.out.println("Benchmark | ================================ report ================================");
+        for (BenchmarkResult result : results) {
+            System.out.println("Benchmark | " + result);
+        }
+
+        if (options.getOutput() != null) {
+            Properties properties = new Properties();
+            for (BenchmarkResult result : results) {
+                result.writeTo(properties);
+            }
+            File file = new File(options.getOutput());
+            File parent = file.getAbsoluteFile().getParentFile();
+            if (parent != null && !parent.exists() && !parent.mkdirs()) {
+                throw new IllegalStateException("Failed to create directory " + parent);
+            }
+            try (OutputStream outputStream = new FileOutputStream(file)) {
+                properties.store(outputStream, "glacispring-httpclient benchmark, options: " + options);
+            }
+            System.out.println("Benchmark | results saved to " + file.getAbsolutePath());
+        }
+
+        if (options.getBaseline() != null) {
+            Properties baseline = new Properties();
+            try (InputStream inputStream = new FileInputStream(options.getBaseline())) {
+                baseline.load(inputStream);
+            }
+            List<String> regressions = new ArrayList<>();
+            for (BenchmarkResult result : results) {
+                regressions.addAll(result.compareTo(baseline, options.getTolerance()));
+            }
+            if (!regressions.isEmpty()) {
+                System.out.println("Benchmark | REGRESSION (tolerance " + options.getTolerance() + "):");
+                for (String regression : regressions) {
+                    System.out.println("Benchmark |   " + regression);
+                }
+                return 1;
+            }
+            System.out.println("Benchmark | no regression against baseline " + options.getBaseline() + " (tolerance " + options.getTolerance() + ")");
+        }
+        return 0;
+    }
+
+}
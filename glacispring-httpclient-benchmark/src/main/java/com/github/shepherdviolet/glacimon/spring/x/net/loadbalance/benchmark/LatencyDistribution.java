@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * <p>模拟服务端的处理耗时分布</p>
+ *
+ * <p>格式(单位ms):</p>
+ * <p>fixed:5 固定5ms</p>
+ * <p>uniform:2-20 2~20ms均匀分布</p>
+ * <p>exponential:5 均值5ms的指数分布(长尾)</p>
+ * <p>lognormal:5:0.8 中位数5ms, sigma=0.8的对数正态分布(接近真实服务的耗时分布)</p>
+ *
+ * @author shepherdviolet
+ */
+public abstract class LatencyDistribution {
+
+    /**
+     * @return 下一个耗时, us, >= 0
+     */
+    public abstract long nextMicros();
+
+    /**
+     * 解析耗时分布
+     * @param description 格式见类注释, 为空时返回固定0ms
+     */
+    public static LatencyDistribution parse(String description) {
+        if (description == null || description.trim().isEmpty()) {
+            return fixed(0);
+        }
+        String[] items = description.trim().split(":");
+        try {
+            switch (items[0]) {
+                case "fixed":
+                    return fixed(Double.parseDouble(items[1]));
+                case "uniform":
+                    String[] range = items[1].split("-");
+                    return uniform(Double.parseDouble(range[0]), Double.parseDouble(range[1]));
+                case "exponential":
+                    return exponential(Double.parseDouble(items[1]));
+                case "lognormal":
+                    return lognormal(Double.parseDouble(items[1]), items.length > 2 ? Double.parseDouble(items[2]) : 0.5);
+                default:
+                    break;
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid latency distribution '" + description + "'", e);
+        }
+        throw new IllegalArgumentException("Invalid latency distribution '" + description + "', supported: fixed:<ms> / uniform:<min>-<max> / exponential:<mean> / lognormal:<median>:<sigma>");
+    }
+
+    public static LatencyDistribution fixed(double millis) {
+        final long micros = toMicros(millis);
+        return new LatencyDistribution() {
+            @Override
+            public long nextMicros() {
+                return micros;
+            }
+            @Override
+            public String toString() {
+                return "fixed:" + millis;
+            }
+        };
+    }
+
+    public static LatencyDistribution uniform(double minMillis, double maxMillis) {
+        if (maxMillis < minMillis) {
+            throw new IllegalArgumentException("max < min");
+        }
+        final long min = toMicros(minMillis);
+        final long max = toMicros(maxMillis);
+        return new LatencyDistribution() {
+            @Override
+            public long nextMicros() {
+                return min == max ? min : ThreadLocalRandom.current().nextLong(min, max + 1);
+            }
+            @Override
+            public String toString() {
+                return "uniform:" + minMillis + "-" + maxMillis;
+            }
+        };
+    }
+
+    public static LatencyDistribution exponential(double meanMillis) {
+        final double mean = toMicros(meanMillis);
+        return new LatencyDistribution() {
+            @Override
+            public long nextMicros() {
+                return (long) (-mean * Math.log(1.0 - ThreadLocalRandom.current().nextDouble()));
+            }
+            @Override
+            public String toString() {
+                return "exponential:" + meanMillis;
+            }
+        };
+    }
+
+    public static LatencyDistribution lognormal(double medianMillis, double sigma) {
+        if (sigma < 0) {
+            throw new IllegalArgumentException("sigma < 0");
+        }
+        final double median = toMicros(medianMillis);
+        return new LatencyDistribution() {
+            @Override
+            public long nextMicros() {
+                return (long) (median * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian()));
+            }
+            @Override
+            public String toString() {
+                return "lognormal:" + medianMillis + ":" + sigma;
+            }
+        };
+    }
+
+    private static long toMicros(double millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("latency < 0");
+        }
+        return (long) (millis * 1000);
+    }
+
+}
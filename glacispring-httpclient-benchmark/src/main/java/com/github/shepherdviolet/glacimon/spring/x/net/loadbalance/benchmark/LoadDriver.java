@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.benchmark;
+
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.metrics.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>负载驱动: 预热(warmup)后在测量窗口(duration)内持续发起请求, 只统计测量窗口内发起的请求</p>
+ *
+ * <p>与LoadRunner不同, 这里是闭环压测(每个线程/并发槽位收到响应后立即发起下一个请求), 吞吐量和耗时在同一负载下测得,
+ * 结果可重复, 适合做版本间的比较.</p>
+ *
+ * @author shepherdviolet
+ */
+public class LoadDriver {
+
+    private final String scenario;
+    private final long warmupMillis;
+    private final long durationMillis;
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+    private final List<Event> events = new ArrayList<>();
+
+    private volatile long measureStartNanos;
+    private volatile long measureEndNanos;
+
+    /**
+     * @param scenario 场景名
+     * @param warmupMillis 预热时间, ms
+     * @param durationMillis 测量时间, ms
+     */
+    public LoadDriver(String scenario, long warmupMillis, long durationMillis) {
+        this.scenario = scenario;
+        this.warmupMillis = warmupMillis;
+        this.durationMillis = durationMillis;
+    }
+
+    /**
+     * 在测量开始后的指定时间执行事件(例如停止某个服务端), 在run之前调用
+     *
+     * @param delayMillis 相对测量开始的延迟, ms
+     * @param name 事件名(打印用)
+     * @param task 事件
+     */
+    public LoadDriver schedule(long delayMillis, String name, Runnable task) {
+        events.add(new Event(delayMillis, name, task));
+        return this;
+    }
+
+    /**
+     * 同步压测: threads个线程各自循环调用task
+     */
+    public BenchmarkResult runSync(int threads, SyncTask task) throws InterruptedException {
+        start();
+        List<Thread> workers = new ArrayList<>(threads);
+        for (int i = 0 ; i < threads ; i++) {
+            Thread worker = new Thread(() -> {
+                long nanos;
+                while ((nanos = System.nanoTime()) < measureEndNanos) {
+                    try {
+                        task.run();
+                        record(nanos, null);
+                    } catch (Throwable t) {
+                        record(nanos, t);
+                    }
+                }
+            }, "Benchmark-" + scenario + "-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+        runEvents();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return result();
+    }
+
+    /**
+     * 异步压测: 保持concurrency个请求在途, 完成一个发起一个
+     */
+    public BenchmarkResult runAsync(int concurrency, AsyncTask task) throws InterruptedException {
+        start();
+        Semaphore permits = new Semaphore(concurrency);
+        Thread issuer = new Thread(() -> {
+            while (System.nanoTime() < measureEndNanos) {
+                try {
+                    if (!permits.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+                        continue;
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                final long nanos = System.nanoTime();
+                CompletableFuture<?> future;
+                try {
+                    future = task.run();
+                } catch (Throwable t) {
+                    record(nanos, t);
+                    permits.release();
+                    continue;
+                }
+                future.whenComplete((result, throwable) -> {
+                    record(nanos, throwable);
+                    permits.release();
+                });
+            }
+        }, "Benchmark-" + scenario + "-issuer");
+        issuer.start();
+        runEvents();
+        issuer.join();
+        //等在途请求完成
+        if (!permits.tryAcquire(concurrency, 30, TimeUnit.SECONDS)) {
+            System.err.println("Benchmark | " + scenario + ": " + (concurrency - permits.availablePermits()) + " requests are still in flight after 30s");
+        }
+        return result();
+    }
+
+    private void start() {
+        long now = System.nanoTime();
+        measureStartNanos = now + TimeUnit.MILLISECONDS.toNanos(warmupMillis);
+        measureEndNanos = measureStartNanos + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+    }
+
+    private void runEvents() throws InterruptedException {
+        events.sort((a, b) -> Long.compare(a.delayMillis, b.delayMillis));
+        for (Event event : events) {
+            long wait = TimeUnit.NANOSECONDS.toMillis(measureStartNanos - System.nanoTime()) + event.delayMillis;
+            if (wait > 0) {
+                Thread.sleep(wait);
+            }
+            System.out.println("Benchmark | " + scenario + ": " + event.name);
+            event.task.run();
+        }
+    }
+
+    private void record(long startNanos, Throwable throwable) {
+        if (startNanos < measureStartNanos || startNanos >= measureEndNanos) {
+            return;
+        }
+        if (throwable == null) {
+            histogram.record((System.nanoTime() - startNanos) / 1000L);
+            succeeded.increment();
+            return;
+        }
+        if (throwable instanceof CompletionException && throwable.getCause() != null) {
+            throwable = throwable.getCause();
+        }
+        failed.increment();
+        failures.computeIfAbsent(throwable.getClass().getSimpleName(), k -> new LongAdder()).increment();
+    }
+
+    private BenchmarkResult result() {
+        Map<String, Long> failureCounts = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : failures.entrySet()) {
+            failureCounts.put(entry.getKey(), entry.getValue().sum());
+        }
+        return new BenchmarkResult(scenario, durationMillis, succeeded.sum(), failed.sum(), failureCounts, histogram.snapshot());
+    }
+
+    /**
+     * @return 测量开始时间(System.nanoTime)
+     */
+    public long getMeasureStartNanos() {
+        return measureStartNanos;
+    }
+
+    public interface SyncTask {
+        void run() throws Exception;
+    }
+
+    public interface AsyncTask {
+        CompletableFuture<?> run() throws Exception;
+    }
+
+    private static final class Event {
+
+        private final long delayMillis;
+        private final String name;
+        private final Runnable task;
+
+        private Event(long delayMillis, String name, Runnable task) {
+            this.delayMillis = delayMillis;
+            this.name = name;
+            this.task = task;
+        }
+
+    }
+
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.benchmark;
+
+import com.github.shepherdviolet.glacimon.java.concurrent.ThreadPoolExecutorUtils;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>进程内模拟服务端(基于JDK自带的HttpServer, 无需网络和第三方依赖)</p>
+ *
+ * <p>1.每个请求按耗时分布(LatencyDistribution)模拟处理耗时</p>
+ * <p>2.按errorRate返回500</p>
+ * <p>3.按stallRate卡住stallMillis后才响应(模拟后端假死, 用于触发客户端读超时)</p>
+ * <p>4.stop()后端口拒绝连接(模拟后端宕机), start()在同一端口恢复</p>
+ * <p>5.HEALTH_PATH不模拟耗时/错误, 供HTTP-GET主动探测使用</p>
+ *
+ * <p>以上参数均可在运行中修改.</p>
+ *
+ * @author shepherdviolet
+ */
+public class MockServer implements Closeable {
+
+    public static final String HEALTH_PATH = "/health";
+
+    static {
+        //JDK HttpServer分开写响应头和响应体, 不开TCP_NODELAY时会碰上Nagle+延迟ACK, 耗时出现40ms左右的毛刺.
+        //必须在HttpServer相关类加载前设置
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final String name;
+    private volatile int port;
+    private volatile HttpServer server;
+    private final ExecutorService executor;
+
+    private volatile LatencyDistribution latency = LatencyDistribution.fixed(0);
+    private volatile double errorRate = 0.0;
+    private volatile double stallRate = 0.0;
+    private volatile long stallMillis = 0L;
+    private volatile byte[] responseBody = new byte[128];
+
+    private final AtomicLong requests = new AtomicLong(0);
+    private final AtomicLong errors = new AtomicLong(0);
+    private final AtomicLong stalls = new AtomicLong(0);
+
+    /**
+     * @param name 名称(用于报告)
+     * @param port 端口, 0表示随机端口
+     */
+    public MockServer(String name, int port) {
+        this.name = name;
+        this.port = port;
+        this.executor = ThreadPoolExecutorUtils.createCached(0, Integer.MAX_VALUE, 60, "MockServer-" + name + "-%s");
+    }
+
+    /**
+     * 启动(或恢复), 端口不变
+     */
+    public synchronized MockServer start() throws IOException {
+        if (server != null) {
+            return this;
+        }
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        this.port = server.getAddress().getPort();
+        this.server = server;
+        return this;
+    }
+
+    /**
+     * 停止(模拟宕机), 端口拒绝连接, 已建立的连接被关闭
+     */
+    public synchronized MockServer stop() {
+        HttpServer server = this.server;
+        this.server = null;
+        if (server != null) {
+            server.stop(0);
+        }
+        return this;
+    }
+
+    @Override
+    public void close() {
+        stop();
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            //读完请求体, 保证连接可复用
+            InputStream inputStream = exchange.getRequestBody();
+            byte[] buffer = new byte[4096];
+            while (inputStream.read(buffer) >= 0) {
+                //discard
+            }
+            if (HEALTH_PATH.equals(exchange.getRequestURI().getPath())) {
+                respond(exchange, 200, new byte[0]);
+                return;
+            }
+            requests.incrementAndGet();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long delayMicros = latency.nextMicros();
+            if (stallRate > 0 && random.nextDouble() < stallRate) {
+                stalls.incrementAndGet();
+                delayMicros += TimeUnit.MILLISECONDS.toMicros(stallMillis);
+            }
+            if (delayMicros > 0) {
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(delayMicros));
+            }
+            if (errorRate > 0 && random.nextDouble() < errorRate) {
+                errors.incrementAndGet();
+                respond(exchange, 500, new byte[0]);
+                return;
+            }
+            respond(exchange, 200, responseBody);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void respond(HttpExchange exchange, int code, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(code, body.length > 0 ? body.length : -1);
+        if (body.length > 0) {
+            OutputStream outputStream = exchange.getResponseBody();
+            outputStream.write(body);
+        }
+    }
+
+    /**
+     * 清空计数器
+     */
+    public void resetCounters() {
+        requests.set(0);
+        errors.set(0);
+        stalls.set(0);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * @return http://127.0.0.1:port
+     */
+    public String getUrl() {
+        return "http://127.0.0.1:" + port;
+    }
+
+    public boolean isRunning() {
+        return server != null;
+    }
+
+    public MockServer setLatency(LatencyDistribution latency) {
+        this.latency = latency != null ? latency : LatencyDistribution.fixed(0);
+        return this;
+    }
+
+    public MockServer setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    /**
+     * @param stallRate 卡住的概率
+     * @param stallMillis 卡住的时间, ms
+     */
+    public MockServer setStall(double stallRate, long stallMillis) {
+        this.stallRate = stallRate;
+        this.stallMillis = stallMillis;
+        return this;
+    }
+
+    public MockServer setResponseSize(int responseSize) {
+        this.responseBody = new byte[Math.max(0, responseSize)];
+        return this;
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getErrors() {
+        return errors.get();
+    }
+
+    public long getStalls() {
+        return stalls.get();
+    }
+
+    @Override
+    public String toString() {
+        return name + "{url=" + getUrl() +
+                ", running=" + isRunning() +
+                ", latency=" + latency +
+                ", errorRate=" + errorRate +
+                ", stallRate=" + stallRate +
+                ", stallMillis=" + stallMillis +
+                ", responseSize=" + responseBody.length +
+                ", requests=" + requests.get() +
+                ", errors=" + errors.get() +
+                ", stalls=" + stalls.get() +
+                '}';
+    }
+
+}
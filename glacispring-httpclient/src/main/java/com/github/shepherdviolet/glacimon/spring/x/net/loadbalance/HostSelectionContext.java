@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>负载均衡--远端选择上下文</p>
+ *
+ * <p>每个LoadBalancedHostManager持有一个实例, 用于保存HostSelectionStrategy需要的状态(策略实现本身是无状态的).</p>
+ *
+ * @author shepherdviolet
+ */
+public final class HostSelectionContext {
+
+    private static final int[] EMPTY_SCHEDULE = new int[0];
+
+    private final AtomicInteger mainCounter;
+    private volatile int[] weightedSchedule = EMPTY_SCHEDULE;
+
+    HostSelectionContext(AtomicInteger mainCounter) {
+        this.mainCounter = mainCounter;
+    }
+
+    /**
+     * @return 主计数器自增, 返回非负数
+     */
+    public int nextCount() {
+        return mainCounter.getAndIncrement() & Integer.MAX_VALUE;
+    }
+
+    /**
+     * @return 加权轮询表, 元素为远端下标, 由LoadBalancedHostManager在设置远端/权重时生成(非请求线程). 未生成时返回空数组.
+     */
+    public int[] getWeightedSchedule() {
+        return weightedSchedule;
+    }
+
+    void setWeightedSchedule(int[] weightedSchedule) {
+        this.weightedSchedule = weightedSchedule != null ? weightedSchedule : EMPTY_SCHEDULE;
+    }
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance;
+
+import com.github.shepherdviolet.glacimon.java.spi.api.annotation.MultipleServiceInterface;
+
+/**
+ * <p>负载均衡--远端选择策略 扩展点</p>
+ *
+ * <p>LoadBalancedHostManager#nextHost通过本策略选出首选远端, 若首选远端被阻断, 则由LoadBalancedHostManager按原有的
+ * 避难计数器(refugeCounter)轮询选择其他可用远端. 内置实现:</p>
+ *
+ * <p>round-robin: 轮询(默认)</p>
+ * <p>weighted-round-robin: 加权轮询, 权重由LoadBalancedHostManager#setHostWeights设置</p>
+ * <p>least-outstanding: 最少未完成请求数</p>
+ * <p>p2c-ewma: 随机选两个远端, 取 EWMA响应时间*(未完成请求数+1) 较小的一个</p>
+ *
+ * <p>注意: 实现类由GlacimonSpi创建, 所有LoadBalancedHostManager共享同一个实例, 因此实现类必须是无状态的, 状态请保存在
+ * HostSelectionContext或Host中. select方法在请求线程中执行, 必须线程安全, 无锁, 且不要在方法中创建对象.</p>
+ *
+ * <p>使用扩展点之前, 请先仔细阅读文档: https://github.com/shepherdviolet/glacimon/blob/master/docs/spi/index.md</p>
+ *
+ * @see LoadBalancedHostManager#setSelectionStrategy(String)
+ * @author shepherdviolet
+ */
+@MultipleServiceInterface
+public interface HostSelectionStrategy {
+
+    /**
+     * 选择一个远端
+     *
+     * @param hosts 远端列表, 长度大于1
+     * @param context 选择上下文(计数器/加权轮询表等)
+     * @param currentTimeMillis 当前时间戳
+     * @return 选中远端在hosts中的下标
+     */
+    int select(LoadBalancedHostManager.Host[] hosts, HostSelectionContext context, long currentTimeMillis);
+
+}
@@ -19,6 +19,8 @@
 
 package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance;
 
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.inspector.NioInspectEngine;
+
 import java.io.Closeable;
 
 /**
@@ -37,8 +39,47 @@ public interface LoadBalanceInspector extends Closeable {
      */
     boolean inspect(String url);
 
+    /**
+     * <p>异步探测, LoadBalancedInspectManager使用该方法探测. 探测完毕后必须回调callback, 且只能回调一次.</p>
+     *
+     * <p>默认实现: 在共享探测引擎(NioInspectEngine)的工作线程中调用inspect(url). 内置的探测器均实现了非阻塞探测.</p>
+     *
+     * @param url 远端url
+     * @param callback 回调
+     */
+    default void inspect(String url, Callback callback) {
+        NioInspectEngine.getInstance().execute(() -> {
+            boolean available;
+            try {
+                available = inspect(url);
+            } catch (Throwable t) {
+                callback.onError(t);
+                return;
+            }
+            callback.onInspected(available);
+        });
+    }
+
     void setTimeout(long timeout);
 
     void refreshSettings();
 
+    /**
+     * 异步探测回调, 可能在NioInspectEngine的IO线程中被调用, 不允许阻塞
+     */
+    interface Callback {
+
+        /**
+         * @param available true:网络正常 false:网络异常
+         */
+        void onInspected(boolean available);
+
+        /**
+         * 探测器抛出异常
+         * @param t 异常
+         */
+        void onError(Throwable t);
+
+    }
+
 }
@@ -24,9 +24,20 @@ import org.slf4j.LoggerFactory;
 import com.github.shepherdviolet.glacimon.java.concurrent.ThreadPoolExecutorUtils;
 import com.github.shepherdviolet.glacimon.java.misc.CheckUtils;
 import com.github.shepherdviolet.glacimon.java.reflect.MethodCaller;
-
+import com.github.shepherdviolet.glacimon.java.spi.GlacimonSpi;
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.consistenthash.ConsistentHashRing;
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.limiter.ConcurrencyLimiter;
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.limiter.ConcurrencyLimiterFactory;
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.outlier.OutlierDetector;
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.outlier.OutlierWindow;
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.strategy.RoundRobinHostSelectionStrategy;
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.strategy.WeightedRoundRobinHostSelectionStrategy;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
 import java.util.*;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -46,6 +57,22 @@ import java.util.concurrent.atomic.AtomicReference;
  *              });
  * }</pre>
  *
+ * <p>分层(优先级)远端: 远端列表中用'|'分隔层级, 例如"http://local1,http://local2|http://region1|http://remote1".
+ * 请求优先发往第一层, 当该层健康远端的比例低于setTierFailoverThreshold设置的阈值时, 按比例溢出到下一层. 每层独立选择远端,
+ * 选中的远端不可用时先在同层寻找(避难计数器), 同层都不可用时再找下一层.</p>
+ *
+ * <p>远端选择策略: 默认轮询, 可以通过setSelectionStrategy切换为加权轮询/最少未完成请求数/P2C+EWMA, 或通过GlacimonSpi扩展,
+ * 详见HostSelectionStrategy.</p>
+ *
+ * <p>一致性哈希: nextHost(routingKey)按路由键选择远端, 相同的路由键总是落到同一个远端, 适用于后端有本地缓存(按键分片)的场合.
+ * 增加/删除远端只影响约1/N的路由键, 远端不可用时沿哈希环确定性地选择下一个远端, 详见setConsistentHashVirtualNodes.</p>
+ *
+ * <p>自适应并发限制: 通过setConcurrencyLimit开启后, 每个远端有独立的并发上限(根据RTT/失败率自动调整), 达到上限的远端视为暂时
+ * 不可用, nextHost会选择其他远端, 详见ConcurrencyLimiterFactory.</p>
+ *
+ * <p>离群检测: 通过setOutlierDetection开启后, 请求失败不再立即阻断远端, 而是按滑动窗口的失败率/平均耗时与其他远端比较,
+ * 驱逐(阻断)明显偏离的远端, 详见OutlierDetector.</p>
+ *
  * @author shepherdviolet
  */
 public class LoadBalancedHostManager {
@@ -54,6 +81,14 @@ public class LoadBalancedHostManager {
     private static final long WARNING_THRESHOLD = 4L;
     private static final boolean WARNING_DISABLED;
 
+    private static final HostSelectionStrategy DEFAULT_SELECTION_STRATEGY = new RoundRobinHostSelectionStrategy();
+    private static final int MAX_WEIGHT = 100;
+    private static final int MAX_WEIGHTED_SCHEDULE_LENGTH = 4096;
+    private static final String TIER_SEPARATOR = "|";
+    private static final long TIER_LOAD_COMPUTE_INTERVAL = 100L;
+    private static final int DEFAULT_VIRTUAL_NODES = 160;
+    private static final int MAX_VIRTUAL_NODES = 1000;
+
     static {
         WARNING_DISABLED = "true".equals(System.getProperty("glacispring.loadbalance.warndisabled", "false"));
     }
@@ -65,10 +100,23 @@ public class LoadBalancedHostManager {
     private AtomicInteger refugeCounter = new AtomicInteger(0);
 
     private volatile Host[] hostArray = new Host[0];
+    private volatile HostTiers hostTiers;
+    private volatile double tierFailoverThreshold = 0.7D;
     private Map<String, Integer> hostIndexMap = new HashMap<>(0);
 
     private boolean returnNullIfAllBlocked = false;
 
+    private volatile HostSelectionStrategy selectionStrategy = DEFAULT_SELECTION_STRATEGY;
+    private final HostSelectionContext selectionContext = new HostSelectionContext(mainCounter);
+    private volatile Map<String, Integer> hostWeights = new HashMap<>(0);
+    private volatile int virtualNodes = DEFAULT_VIRTUAL_NODES;
+    private volatile HashRouting hashRouting;
+    private volatile ConcurrencyLimiterFactory concurrencyLimiterFactory;
+    private volatile OutlierDetector outlierDetector;
+    private final AtomicLong nextOutlierDetectTime = new AtomicLong(0);
+    private volatile boolean outlierDetectionEffective = false;
+    private volatile HostOnlineListener hostOnlineListener;
+
     private ThreadLocal<Long> hostChangeTime = new ThreadLocal<>();
 
     /**
@@ -79,6 +127,11 @@ public class LoadBalancedHostManager {
 
         check();
 
+        HostTiers hostTiers = this.hostTiers;
+        if (hostTiers != null) {
+            return nextTieredHost(hostTiers);
+        }
+
         Host[] hostArray = this.hostArray;
 
         if (hostArray.length <= 0){
@@ -88,18 +141,21 @@ public class LoadBalancedHostManager {
         }
 
         long currentTimeMillis = System.currentTimeMillis();
-        int mainCount = mainCounter.getAndIncrement() % hostArray.length;
+        int mainCount = selectionStrategy.select(hostArray, selectionContext, currentTimeMillis);
+        if (mainCount < 0 || mainCount >= hostArray.length) {
+            mainCount = (mainCount & Integer.MAX_VALUE) % hostArray.length;
+        }
         Host host = hostArray[mainCount];
 
-        if (!host.isBlocked(currentTimeMillis)) {
+        if (!host.isSaturated() && !host.isBlocked(currentTimeMillis)) {
             return host;
         }
 
-        int refugeCount = refugeCounter.getAndIncrement() % hostArray.length;
+        int refugeCount = (refugeCounter.getAndIncrement() & Integer.MAX_VALUE) % hostArray.length;
 
         for (int i = 0 ; i < hostArray.length ; i++) {
             host = hostArray[refugeCount];
-            if (!host.isBlocked(currentTimeMillis)) {
+            if (!host.isSaturated() && !host.isBlocked(currentTimeMillis)) {
                 return host;
             }
             refugeCount = (refugeCount + 1) % hostArray.length;
@@ -109,6 +165,110 @@ public class LoadBalancedHostManager {
 
     }
 
+    /**
+     * [线程安全的]
+     * 按路由键选择远端(一致性哈希), 远端列表不变且该远端可用时, 相同的路由键总是落到同一个远端.
+     * 远端不可用(阻断/达到并发上限)时, 沿哈希环顺时针选择下一个可用远端. 分层远端时每层一个哈希环, 依次在每一层中寻找,
+     * 前面的层有可用远端时不会溢出到后面的层(不按setTierFailoverThreshold比例溢出, 以保证路由稳定).
+     *
+     * @param routingKey 路由键, 为空或关闭了一致性哈希(setConsistentHashVirtualNodes)时等同于nextHost()
+     * @return 获取一个远端
+     */
+    public Host nextHost(String routingKey) {
+        return nextHost(routingKey, null);
+    }
+
+    /**
+     * [线程安全的]
+     * 按路由键选择远端(一致性哈希), 并排除指定的远端(例如重试时排除已尝试过的远端, 仍然是确定性的), 见nextHost(String)
+     *
+     * @param routingKey 路由键, 为空或关闭了一致性哈希(setConsistentHashVirtualNodes)时等同于nextHost()(excludedUrls无效)
+     * @param excludedUrls 排除的远端URL, 可为空. 所有远端都被排除时返回null
+     * @return 获取一个远端
+     */
+    public Host nextHost(String routingKey, Collection<String> excludedUrls) {
+
+        HashRouting hashRouting = this.hashRouting;
+        if (routingKey == null || hashRouting == null) {
+            return nextHost();
+        }
+
+        check();
+
+        long currentTimeMillis = System.currentTimeMillis();
+        long keyHash = ConsistentHashRing.hash(routingKey);
+        Host fallbackHost = null;
+
+        for (int tier = 0 ; tier < hashRouting.tiers.length ; tier++) {
+            Host[] hostArray = hashRouting.tiers[tier];
+            ConsistentHashRing ring = hashRouting.rings[tier];
+            int size = ring.size();
+            int position = ring.locate(keyHash);
+            for (int i = 0 ; i < size ; i++) {
+                Host host = hostArray[ring.hostIndexAt(position)];
+                if (excludedUrls == null || !excludedUrls.contains(host.getUrl())) {
+                    if (!host.isSaturated() && !host.isBlocked(currentTimeMillis)) {
+                        return host;
+                    }
+                    if (fallbackHost == null) {
+                        fallbackHost = host;
+                    }
+                }
+                position = position + 1 < size ? position + 1 : 0;
+            }
+        }
+
+        return returnNullIfAllBlocked ? null : fallbackHost;
+
+    }
+
+    /**
+     * 分层选择: 按各层的流量比例随机选择一层, 层内按策略选择, 不可用时在同层避难, 同层都不可用时依次尝试其他层
+     */
+    private Host nextTieredHost(HostTiers hostTiers) {
+        long currentTimeMillis = System.currentTimeMillis();
+        Host[][] tiers = hostTiers.tiers;
+        double[] cumulativeLoads = hostTiers.getCumulativeLoads(currentTimeMillis, tierFailoverThreshold);
+        double random = ThreadLocalRandom.current().nextDouble();
+        int selectedTier = 0;
+        while (selectedTier < tiers.length - 1 && random >= cumulativeLoads[selectedTier]) {
+            selectedTier++;
+        }
+
+        Host firstHost = null;
+        for (int i = 0 ; i < tiers.length ; i++) {
+            int tier = (selectedTier + i) % tiers.length;
+            Host[] hostArray = tiers[tier];
+            int mainCount = 0;
+            if (hostArray.length > 1) {
+                mainCount = selectionStrategy.select(hostArray, hostTiers.selectionContexts[tier], currentTimeMillis);
+                if (mainCount < 0 || mainCount >= hostArray.length) {
+                    mainCount = (mainCount & Integer.MAX_VALUE) % hostArray.length;
+                }
+            }
+            Host host = hostArray[mainCount];
+            if (firstHost == null) {
+                firstHost = host;
+            }
+
+            if (!host.isSaturated() && !host.isBlocked(currentTimeMillis)) {
+                return host;
+            }
+
+            int refugeCount = (hostTiers.refugeCounters[tier].getAndIncrement() & Integer.MAX_VALUE) % hostArray.length;
+
+            for (int j = 0 ; j < hostArray.length ; j++) {
+                host = hostArray[refugeCount];
+                if (!host.isSaturated() && !host.isBlocked(currentTimeMillis)) {
+                    return host;
+                }
+                refugeCount = (refugeCount + 1) % hostArray.length;
+            }
+        }
+
+        return returnNullIfAllBlocked ? null : firstHost;
+    }
+
     private void check() {
         if (WARNING_DISABLED) {
             return;
@@ -151,7 +311,8 @@ public class LoadBalancedHostManager {
      * [线程安全/异步生效/可运行时修改]
      * 设置/刷新远端列表, 该方法可以反复调用设置新的后端(但不是同步生效)
      *
-     * @param hosts 远端列表, 格式:"http://127.0.0.1:8081/,http://127.0.0.1:8082/"
+     * @param hosts 远端列表, 格式:"http://127.0.0.1:8081/,http://127.0.0.1:8082/",
+     *              分层格式(用'|'分隔层级, 优先使用第一层):"http://127.0.0.1:8081/,http://127.0.0.1:8082/|http://10.0.0.1:8081/"
      */
     public LoadBalancedHostManager setHosts(String hosts){
         if (CheckUtils.isEmptyOrBlank(hosts)){
@@ -181,7 +342,7 @@ public class LoadBalancedHostManager {
      * [线程安全/异步生效/可运行时修改]
      * 设置/刷新远端列表, 该方法可以反复调用设置新的后端(但不是同步生效)
      *
-     * @param hosts 远端列表
+     * @param hosts 远端列表, 元素中的'|'(或单独的"|"元素)表示开始下一层级, 见setHosts
      */
     public LoadBalancedHostManager setHostList(List<String> hosts){
         if (hosts == null){
@@ -218,6 +379,33 @@ public class LoadBalancedHostManager {
         return this;
     }
 
+    /**
+     * [可运行时修改]
+     * 分层远端: 当一层中健康(未阻断且不在恢复期)远端的比例低于该阈值时, 按比例将流量溢出到下一层, 默认0.7.
+     * 例如阈值0.7, 第一层健康比例为0.35时, 第一层承担50%的流量, 其余的流量按同样的规则交给后面的层级.
+     * 所有层级都不够健康时, 按各层的健康程度分配流量.
+     *
+     * @param tierFailoverThreshold 阈值(0, 1]
+     */
+    public LoadBalancedHostManager setTierFailoverThreshold(double tierFailoverThreshold) {
+        if (tierFailoverThreshold <= 0D || tierFailoverThreshold > 1D) {
+            throw new IllegalArgumentException("tierFailoverThreshold must be in (0, 1]");
+        }
+        this.tierFailoverThreshold = tierFailoverThreshold;
+        return this;
+    }
+
+    /**
+     * [可运行时修改]
+     * 设置远端上线监听器(新增远端, 或被阻断的远端通过恢复期后恢复), 用于连接预热等
+     *
+     * @param hostOnlineListener 监听器, 为空时不监听
+     */
+    public LoadBalancedHostManager setHostOnlineListener(HostOnlineListener hostOnlineListener) {
+        this.hostOnlineListener = hostOnlineListener;
+        return this;
+    }
+
     /**
      * [可运行时修改]
      * 如果设置为false(默认), 当所有远端都被阻断时, nextHost方法返回一个后端.
@@ -228,6 +416,156 @@ public class LoadBalancedHostManager {
         return this;
     }
 
+    /**
+     * [可运行时修改]
+     * 设置远端选择策略, 默认round-robin. 内置: round-robin / weighted-round-robin / least-outstanding / p2c-ewma,
+     * 也可以通过GlacimonSpi扩展HostSelectionStrategy, 此处填写实现类的@ImplementationName.
+     *
+     * @param strategyName 策略名称, 为空时使用round-robin
+     * @throws IllegalArgumentException 策略不存在
+     */
+    public LoadBalancedHostManager setSelectionStrategy(String strategyName) {
+        if (CheckUtils.isEmptyOrBlank(strategyName) || RoundRobinHostSelectionStrategy.NAME.equals(strategyName.trim())) {
+            return setSelectionStrategy(DEFAULT_SELECTION_STRATEGY);
+        }
+        HostSelectionStrategy strategy = GlacimonSpi.loadMultipleService(HostSelectionStrategy.class).get(strategyName.trim());
+        if (strategy == null) {
+            throw new IllegalArgumentException("No HostSelectionStrategy named '" + strategyName +
+                    "', see HostSelectionStrategy and docs/spi/index.md");
+        }
+        return setSelectionStrategy(strategy);
+    }
+
+    /**
+     * [可运行时修改]
+     * 设置远端选择策略, 默认轮询
+     *
+     * @param selectionStrategy 策略实例(必须无状态, 线程安全), 为空时使用轮询
+     */
+    public LoadBalancedHostManager setSelectionStrategy(HostSelectionStrategy selectionStrategy) {
+        this.selectionStrategy = selectionStrategy != null ? selectionStrategy : DEFAULT_SELECTION_STRATEGY;
+        if (logger.isInfoEnabled()) {
+            logger.info(tag + "Host selection strategy: " + this.selectionStrategy);
+        }
+        return this;
+    }
+
+    /**
+     * [可运行时修改]
+     * 设置远端权重, 仅在weighted-round-robin策略下有效, 未设置的远端权重为1, 权重范围[0, 100], 0表示不分配流量(仍可作为避难远端).
+     *
+     * @param hostWeights 远端权重, 格式:"http://127.0.0.1:8081=3,http://127.0.0.1:8082=1", URL需与setHosts中的一致
+     */
+    public LoadBalancedHostManager setHostWeights(String hostWeights) {
+        if (CheckUtils.isEmptyOrBlank(hostWeights)) {
+            return setHostWeights(new HashMap<String, Integer>(0));
+        }
+        Map<String, Integer> weights = new HashMap<>();
+        for (String entry : hostWeights.split(",")) {
+            if (CheckUtils.isEmptyOrBlank(entry)) {
+                continue;
+            }
+            int index = entry.lastIndexOf('=');
+            if (index <= 0 || index >= entry.length() - 1) {
+                throw new IllegalArgumentException("Invalid host weights '" + hostWeights + "', correct format: " +
+                        "http://127.0.0.1:8081=3,http://127.0.0.1:8082=1");
+            }
+            try {
+                weights.put(entry.substring(0, index).trim(), Integer.parseInt(entry.substring(index + 1).trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid host weights '" + hostWeights + "', weight must be integer", e);
+            }
+        }
+        return setHostWeights(weights);
+    }
+
+    /**
+     * [可运行时修改]
+     * 设置远端权重, 仅在weighted-round-robin策略下有效, 未设置的远端权重为1, 权重范围[0, 100], 0表示不分配流量(仍可作为避难远端).
+     *
+     * @param hostWeights 远端权重, Key为URL(需与setHosts中的一致), Value为权重
+     */
+    public LoadBalancedHostManager setHostWeights(Map<String, Integer> hostWeights) {
+        Map<String, Integer> weights = new HashMap<>(hostWeights != null ? hostWeights.size() : 0);
+        if (hostWeights != null) {
+            for (Map.Entry<String, Integer> entry : hostWeights.entrySet()) {
+                if (entry.getKey() == null || entry.getValue() == null) {
+                    continue;
+                }
+                weights.put(entry.getKey().trim(), Math.max(0, Math.min(MAX_WEIGHT, entry.getValue())));
+            }
+        }
+        this.hostWeights = weights;
+        rebuildWeightedSchedule(this.hostArray, this.hostTiers);
+        return this;
+    }
+
+    /**
+     * [可运行时修改]
+     * 设置一致性哈希(nextHost(routingKey))每个远端的虚拟节点数, 默认160, 最大1000. 虚拟节点越多, 路由键在远端间分布越均匀,
+     * 哈希环占用的内存越多(每个节点12字节). 哈希环在设置远端/本参数时生成, 不在请求线程生成. 远端权重(setHostWeights)对一致性哈希无效.
+     *
+     * @param virtualNodes 虚拟节点数, 小于等于0时关闭一致性哈希(nextHost(routingKey)等同于nextHost())
+     */
+    public LoadBalancedHostManager setConsistentHashVirtualNodes(int virtualNodes) {
+        this.virtualNodes = Math.min(virtualNodes, MAX_VIRTUAL_NODES);
+        rebuildHashRouting(this.hostArray, this.hostTiers);
+        return this;
+    }
+
+    /**
+     * [可运行时修改]
+     * 设置自适应并发限制(每个远端独立), 默认关闭. 达到上限的远端视为暂时不可用, nextHost会选择其他远端, 所有远端都达到上限时,
+     * 由GlaciHttpClient拒绝请求(HostOverloadException). 修改配置后所有远端的并发上限重新开始计算.
+     *
+     * @param concurrencyLimitDescription 配置, 为空关闭, 格式见ConcurrencyLimiterFactory, 例如: algorithm=aimd,initialLimit=20,maxLimit=200
+     * @throws IllegalArgumentException 配置错误
+     */
+    public LoadBalancedHostManager setConcurrencyLimit(String concurrencyLimitDescription) {
+        ConcurrencyLimiterFactory factory = CheckUtils.isEmptyOrBlank(concurrencyLimitDescription) ?
+                null : new ConcurrencyLimiterFactory(concurrencyLimitDescription);
+        this.concurrencyLimiterFactory = factory;
+        for (Host host : this.hostArray) {
+            host.statistic.limiter = factory != null ? factory.newLimiter() : null;
+        }
+        if (logger.isInfoEnabled()) {
+            logger.info(tag + (factory != null ? "Concurrency limit: " + factory : "Concurrency limit disabled"));
+        }
+        return this;
+    }
+
+    /**
+     * [可运行时修改]
+     * 设置离群检测, 默认关闭. 开启后, 请求失败(feedback带requestStartNanos的方法)不再立即阻断远端(恢复期内的失败除外), 而是记录到
+     * 远端的滑动窗口中, 失败率/平均耗时明显偏离所有远端中位数的远端会被阻断(驱逐), 阻断的远端数不超过指定比例. 主动探测(feedback
+     * 不带requestStartNanos的方法)不受影响. 修改配置后所有远端重新开始统计.
+     * 以下情况仍然立即阻断: 连接失败(ConnectException/NoRouteToHostException), 参与检测的远端数不足minHosts(例如只有两个远端),
+     * 该远端窗口内的请求数不足minRequests(例如流量很小).
+     *
+     * @param outlierDetectionDescription 配置, 为空关闭, 格式见OutlierDetector, 例如: minRequests=20,errorRateFactor=2,maxEjectionPercent=50
+     * @throws IllegalArgumentException 配置错误
+     */
+    public LoadBalancedHostManager setOutlierDetection(String outlierDetectionDescription) {
+        OutlierDetector detector = CheckUtils.isEmptyOrBlank(outlierDetectionDescription) ?
+                null : new OutlierDetector(outlierDetectionDescription);
+        this.outlierDetector = detector;
+        this.outlierDetectionEffective = false;
+        for (Host host : this.hostArray) {
+            host.statistic.outlierWindow = detector != null ? detector.newWindow() : null;
+        }
+        if (logger.isInfoEnabled()) {
+            logger.info(tag + (detector != null ? "Outlier detection: " + detector : "Outlier detection disabled"));
+        }
+        return this;
+    }
+
+    /**
+     * @return true: 已开启离群检测
+     */
+    public boolean isOutlierDetectionEnabled() {
+        return outlierDetector != null;
+    }
+
     /**
      * 设置客户端的标识
      * @param tag 标识
@@ -282,16 +620,40 @@ public class LoadBalancedHostManager {
 
         long currentTimeMillis = System.currentTimeMillis();
 
+        int tier = 0;
         for (Host host : hostArray) {
+            if (host.getTier() != tier) {
+                tier = host.getTier();
+                stringBuilder.append(" ").append(TIER_SEPARATOR);
+            }
             stringBuilder.append(" ")
                     .append(host.getUrl())
                     .append("(")
-                    .append(host.getState(currentTimeMillis).toString())
-                    .append(")");
+                    .append(host.getState(currentTimeMillis).toString());
+            int limit = host.getConcurrencyLimit();
+            if (limit > 0) {
+                stringBuilder.append(" ")
+                        .append(host.getOutstanding())
+                        .append("/")
+                        .append(limit);
+            }
+            stringBuilder.append(")");
         }
         return stringBuilder.toString();
     }
 
+    /**
+     * 获得当前远端的并发情况(自适应并发限制), Key为URL, Value为{未完成请求数, 并发上限}, 未开启并发限制时并发上限为-1
+     */
+    public Map<String, int[]> getHostsConcurrency(){
+        Host[] hostArray = this.hostArray;
+        Map<String, int[]> concurrency = new HashMap<>(hostArray.length);
+        for (Host host : hostArray){
+            concurrency.put(host.getUrl(), new int[]{host.getOutstanding(), host.getConcurrencyLimit()});
+        }
+        return concurrency;
+    }
+
     /**
      * 如果有一个或一个以上的Host被阻断(包括恢复期), 则返回true
      */
@@ -331,48 +693,265 @@ public class LoadBalancedHostManager {
 
         Host[] hostArray = LoadBalancedHostManager.this.hostArray;
 
-        int newSize = newSettings.size();
+        //解析层级
+        List<String> newUrls = new ArrayList<>(newSettings.size());
+        List<Integer> newTiers = new ArrayList<>(newSettings.size());
+        int currentTier = 0;
+        boolean currentTierUsed = false;
+        for (String entry : newSettings) {
+            String[] parts = entry.split("\\" + TIER_SEPARATOR, -1);
+            for (int i = 0 ; i < parts.length ; i++) {
+                if (i > 0 && currentTierUsed) {
+                    currentTier++;
+                    currentTierUsed = false;
+                }
+                if (CheckUtils.isEmptyOrBlank(parts[i])) {
+                    continue;
+                }
+                newUrls.add(parts[i]);
+                newTiers.add(currentTier);
+                currentTierUsed = true;
+            }
+        }
+
+        int newSize = newUrls.size();
         Host[] newHostArray = new Host[newSize];
         Map<String, Integer> newHostIndexMap = new HashMap<>(newSize);
+        ConcurrencyLimiterFactory concurrencyLimiterFactory = this.concurrencyLimiterFactory;
+        OutlierDetector outlierDetector = this.outlierDetector;
+        List<Host> newHosts = null;
 
         for (int i = 0 ; i < newSize ; i++){
 
             //trim
-            String newUrl = newSettings.get(i).trim();
+            String newUrl = newUrls.get(i).trim();
+            int newTier = newTiers.get(i);
             Integer oldIndex = hostIndexMap.get(newUrl);
 
             if (oldIndex != null){
                 try {
-                    newHostArray[i] = new Host(newUrl, hostArray[oldIndex].blockUntil, hostArray[oldIndex].recoveryUntil, hostArray[oldIndex].recoveryGate);
+                    newHostArray[i] = new Host(this, newUrl, newTier, hostArray[oldIndex].blockUntil, hostArray[oldIndex].recoveryUntil, hostArray[oldIndex].recoveryGate, hostArray[oldIndex].statistic);
                 } catch (Throwable ignore){
-                    newHostArray[i] = new Host(newUrl, new AtomicLong(0), new AtomicLong(0), new AtomicInteger(0));
+                    newHostArray[i] = new Host(this, newUrl, newTier, new AtomicLong(0), new AtomicLong(0), new AtomicInteger(0), new Statistic());
                 }
             } else {
-                newHostArray[i] = new Host(newUrl, new AtomicLong(0), new AtomicLong(0), new AtomicInteger(0));
+                newHostArray[i] = new Host(this, newUrl, newTier, new AtomicLong(0), new AtomicLong(0), new AtomicInteger(0), new Statistic());
+                if (newHosts == null) {
+                    newHosts = new ArrayList<>();
+                }
+                newHosts.add(newHostArray[i]);
+            }
+            if (newHostArray[i].statistic.limiter == null && concurrencyLimiterFactory != null) {
+                newHostArray[i].statistic.limiter = concurrencyLimiterFactory.newLimiter();
+            }
+            if (newHostArray[i].statistic.outlierWindow == null && outlierDetector != null) {
+                newHostArray[i].statistic.outlierWindow = outlierDetector.newWindow();
             }
 
             newHostIndexMap.put(newUrl, i);
 
         }
 
+        HostTiers newHostTiers = currentTier > 0 ? new HostTiers(newHostArray, currentTier + 1) : null;
+        rebuildWeightedSchedule(newHostArray, newHostTiers);
+        rebuildHashRouting(newHostArray, newHostTiers);
+        LoadBalancedHostManager.this.hostTiers = newHostTiers;
         LoadBalancedHostManager.this.hostArray = newHostArray;
         hostIndexMap = newHostIndexMap;
 
         updating = false;
+
+        //通知新增远端上线
+        if (newHosts != null) {
+            for (Host host : newHosts) {
+                onHostOnline(host);
+            }
+        }
+    }
+
+    /**
+     * 离群检测, 由反馈请求结果的线程触发, 每隔intervalMillis最多执行一次(抢到的线程执行)
+     */
+    private void detectOutliers(OutlierDetector detector, long currentTimeMillis) {
+        long next = nextOutlierDetectTime.get();
+        if (currentTimeMillis < next || !nextOutlierDetectTime.compareAndSet(next, currentTimeMillis + detector.getIntervalMillis())) {
+            return;
+        }
+        Host[] hostArray = this.hostArray;
+        if (hostArray.length <= 1) {
+            outlierDetectionEffective = false;
+            return;
+        }
+        OutlierWindow.Snapshot[] snapshots = new OutlierWindow.Snapshot[hostArray.length];
+        boolean[] blocked = new boolean[hostArray.length];
+        for (int i = 0 ; i < hostArray.length ; i++) {
+            OutlierWindow window = hostArray[i].statistic.outlierWindow;
+            snapshots[i] = window != null ? window.snapshot(currentTimeMillis) : OutlierWindow.Snapshot.EMPTY;
+            blocked[i] = hostArray[i].getState(currentTimeMillis) == HostState.BLOCKED;
+        }
+        //远端数/流量不足时离群检测不生效, 请求失败照常立即阻断
+        outlierDetectionEffective = detector.isEffective(snapshots, blocked);
+        for (int index : detector.detect(snapshots, blocked)) {
+            Host host = hostArray[index];
+            host.block(detector.getEjectionDuration(), detector.getRecoveryCoefficient());
+            OutlierWindow window = host.statistic.outlierWindow;
+            if (window != null) {
+                window.reset();
+            }
+            if (logger.isWarnEnabled()) {
+                logger.warn(tag + "Outlier: Bad host " + host.getUrl() + " (" + snapshots[index] + "), block for " +
+                        detector.getEjectionDuration() + " ms, recovery period (half-open) " +
+                        (detector.getEjectionDuration() * detector.getRecoveryCoefficient()) + " ms (Outlier ejection)");
+            }
+        }
+    }
+
+    /**
+     * @return true: 连接失败(远端不可达), 离群检测开启时也立即阻断
+     */
+    private static boolean isConnectFailure(Throwable cause) {
+        for (int i = 0 ; cause != null && i < 5 ; i++) {
+            if (cause instanceof ConnectException || cause instanceof NoRouteToHostException) {
+                return true;
+            }
+            cause = cause.getCause();
+        }
+        return false;
+    }
+
+    private void onHostOnline(Host host) {
+        HostOnlineListener hostOnlineListener = this.hostOnlineListener;
+        if (hostOnlineListener == null) {
+            return;
+        }
+        try {
+            hostOnlineListener.onHostOnline(host);
+        } catch (Throwable t) {
+            logger.warn(tag + "Error while notifying host online: " + host.getUrl(), t);
+        }
+    }
+
+    /**
+     * 生成加权轮询表(平滑加权轮询, 远端交错排列), 在设置远端/权重时执行, 不在请求线程执行. 分层时每层一个轮询表.
+     */
+    private synchronized void rebuildWeightedSchedule(Host[] hostArray, HostTiers hostTiers) {
+        Map<String, Integer> hostWeights = this.hostWeights;
+        selectionContext.setWeightedSchedule(buildWeightedSchedule(hostArray, hostWeights));
+        if (hostTiers != null) {
+            for (int i = 0 ; i < hostTiers.tiers.length ; i++) {
+                hostTiers.selectionContexts[i].setWeightedSchedule(buildWeightedSchedule(hostTiers.tiers[i], hostWeights));
+            }
+        }
+    }
+
+    private int[] buildWeightedSchedule(Host[] hostArray, Map<String, Integer> hostWeights) {
+        int size = hostArray.length;
+        if (size <= 1 || hostWeights.isEmpty()) {
+            return null;
+        }
+
+        int[] weights = new int[size];
+        int gcd = 0;
+        for (int i = 0 ; i < size ; i++) {
+            Integer weight = hostWeights.get(hostArray[i].getUrl());
+            weights[i] = weight != null ? weight : 1;
+            gcd = gcd(gcd, weights[i]);
+        }
+        if (gcd <= 0) {
+            //权重全为0, 等同于轮询
+            return null;
+        }
+
+        int total = 0;
+        for (int i = 0 ; i < size ; i++) {
+            weights[i] = weights[i] / gcd;
+            total += weights[i];
+        }
+        //轮询表长度有上限, 超出时等比缩小(权重非0的远端至少保留1)
+        if (total > MAX_WEIGHTED_SCHEDULE_LENGTH) {
+            int newTotal = 0;
+            for (int i = 0 ; i < size ; i++) {
+                if (weights[i] > 0) {
+                    weights[i] = Math.max(1, (int) ((long) weights[i] * MAX_WEIGHTED_SCHEDULE_LENGTH / total));
+                }
+                newTotal += weights[i];
+            }
+            total = newTotal;
+        }
+
+        int[] schedule = new int[total];
+        int[] current = new int[size];
+        for (int n = 0 ; n < total ; n++) {
+            int selected = -1;
+            for (int i = 0 ; i < size ; i++) {
+                current[i] += weights[i];
+                if (weights[i] > 0 && (selected < 0 || current[i] > current[selected])) {
+                    selected = i;
+                }
+            }
+            current[selected] -= total;
+            schedule[n] = selected;
+        }
+
+        if (selectionStrategy instanceof WeightedRoundRobinHostSelectionStrategy && logger.isDebugEnabled()) {
+            logger.debug(tag + "Weighted schedule rebuilt, length: " + total);
+        }
+        return schedule;
+    }
+
+    /**
+     * 生成一致性哈希环, 在设置远端/虚拟节点数时执行, 不在请求线程执行. 分层时每层一个哈希环.
+     */
+    private synchronized void rebuildHashRouting(Host[] hostArray, HostTiers hostTiers) {
+        int virtualNodes = this.virtualNodes;
+        if (virtualNodes <= 0 || hostArray.length <= 0) {
+            this.hashRouting = null;
+            return;
+        }
+        Host[][] tiers = hostTiers != null ? hostTiers.tiers : new Host[][]{hostArray};
+        ConsistentHashRing[] rings = new ConsistentHashRing[tiers.length];
+        for (int i = 0 ; i < tiers.length ; i++) {
+            String[] urls = new String[tiers[i].length];
+            for (int j = 0 ; j < urls.length ; j++) {
+                urls[j] = tiers[i][j].getUrl();
+            }
+            rings[i] = new ConsistentHashRing(urls, virtualNodes);
+        }
+        this.hashRouting = new HashRouting(tiers, rings);
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
     }
 
     public static class Host {
 
+        /**
+         * 没有请求开始时间(requestStartNanos), 不记录响应时间样本. System.nanoTime()可以是0或负数, 不能用符号判断
+         */
+        public static final long NO_START_TIME = Long.MIN_VALUE;
+
+        private LoadBalancedHostManager manager;
         private String url;//URL
+        private int tier;//层级, 0为最优先
         private AtomicLong blockUntil;//阻断至
         private AtomicLong recoveryUntil;//恢复期至
         private AtomicInteger recoveryGate;//恢复期限流
+        private Statistic statistic;//统计(未完成请求数/EWMA响应时间), 供选择策略使用
 
-        private Host(String url, AtomicLong blockUntil, AtomicLong recoveryUntil, AtomicInteger recoveryGate) {
+        private Host(LoadBalancedHostManager manager, String url, int tier, AtomicLong blockUntil, AtomicLong recoveryUntil, AtomicInteger recoveryGate, Statistic statistic) {
+            this.manager = manager;
             this.url = url;
+            this.tier = tier;
             this.blockUntil = blockUntil;
             this.recoveryUntil = recoveryUntil;
             this.recoveryGate = recoveryGate;
+            this.statistic = statistic;
         }
 
         /**
@@ -382,6 +961,13 @@ public class LoadBalancedHostManager {
             return url;
         }
 
+        /**
+         * @return 层级, 0为最优先, 未分层时均为0
+         */
+        public int getTier() {
+            return tier;
+        }
+
         /**
          * 反馈后端健康状态(无阻断恢复期)
          * @param isOk true:后端健康 false:后端异常(需要阻断)
@@ -405,12 +991,122 @@ public class LoadBalancedHostManager {
             }
         }
 
+        /**
+         * 反馈后端健康状态, 同时结束一次请求的统计(未完成请求数减一, 成功时记录EWMA响应时间).
+         * 必须与onRequestStart成对调用.
+         * @param isOk true:后端健康 false:后端异常(需要阻断)
+         * @param blockDuration (后端异常时)阻断时长, ms
+         * @param recoveryCoefficient 阻断后的恢复期系数, 修复期时长 = blockDuration * recoveryCoefficient, 设置1则无恢复期
+         * @param requestStartNanos onRequestStart的返回值, 没有时传NO_START_TIME(不记录响应时间样本)
+         */
+        public void feedback(boolean isOk, long blockDuration, int recoveryCoefficient, long requestStartNanos) {
+            feedback(isOk, blockDuration, recoveryCoefficient, requestStartNanos, null);
+        }
+
+        /**
+         * 反馈后端健康状态, 同时结束一次请求的统计(未完成请求数减一, 成功时记录EWMA响应时间).
+         * 必须与onRequestStart成对调用.
+         * @param isOk true:后端健康 false:后端异常(需要阻断)
+         * @param blockDuration (后端异常时)阻断时长, ms
+         * @param recoveryCoefficient 阻断后的恢复期系数, 修复期时长 = blockDuration * recoveryCoefficient, 设置1则无恢复期
+         * @param requestStartNanos onRequestStart的返回值, 没有时传NO_START_TIME(不记录响应时间样本)
+         * @param cause nullable, (后端异常时)导致失败的异常, 开启离群检测时, 连接失败仍然立即阻断
+         * @return true: 后端异常且已阻断, false: 后端健康, 或者失败只记录到离群检测的窗口中(未阻断)
+         */
+        public boolean feedback(boolean isOk, long blockDuration, int recoveryCoefficient, long requestStartNanos, Throwable cause) {
+            statistic.end(isOk, requestStartNanos);
+            OutlierDetector outlierDetector = manager.outlierDetector;
+            if (outlierDetector == null) {
+                feedback(isOk, blockDuration, recoveryCoefficient);
+                return !isOk;
+            }
+            //离群检测: 失败时不立即阻断(恢复期/阻断期内的失败除外), 由离群检测决定是否驱逐.
+            //离群检测覆盖不到的失败(连接失败, 远端数/流量不足)照常立即阻断
+            long currentTimeMillis = System.currentTimeMillis();
+            boolean blocked = false;
+            if (isOk || getState(currentTimeMillis) != HostState.OK || isConnectFailure(cause) ||
+                    !manager.outlierDetectionEffective || !isCoveredByOutlierDetection(outlierDetector, currentTimeMillis)) {
+                feedback(isOk, blockDuration, recoveryCoefficient);
+                blocked = !isOk;
+            }
+            manager.detectOutliers(outlierDetector, currentTimeMillis);
+            return blocked;
+        }
+
+        private boolean isCoveredByOutlierDetection(OutlierDetector outlierDetector, long currentTimeMillis) {
+            OutlierWindow window = statistic.outlierWindow;
+            return window != null && outlierDetector.isCovered(window.snapshot(currentTimeMillis));
+        }
+
+        /**
+         * 请求开始(未完成请求数加一), 必须与feedback(isOk, blockDuration, recoveryCoefficient, requestStartNanos)
+         * 或onRequestAbort成对调用. 不受并发上限限制, 需要限制时请使用tryAcquire.
+         * @return 请求开始时间, System.nanoTime()
+         */
+        public long onRequestStart() {
+            return statistic.start();
+        }
+
+        /**
+         * 在并发上限内占用一个请求名额(未完成请求数加一), 未开启自适应并发限制时总是成功. 成功时必须与
+         * feedback(isOk, blockDuration, recoveryCoefficient, requestStartNanos)或onRequestAbort成对调用.
+         * @return true:成功 false:达到并发上限
+         */
+        public boolean tryAcquire() {
+            return statistic.tryAcquire();
+        }
+
+        /**
+         * @return true:达到并发上限(未开启自适应并发限制时总是false)
+         */
+        public boolean isSaturated() {
+            ConcurrencyLimiter limiter = statistic.limiter;
+            return limiter != null && statistic.outstanding.get() >= limiter.getLimit();
+        }
+
+        /**
+         * @return 当前并发上限, 未开启自适应并发限制时返回-1
+         */
+        public int getConcurrencyLimit() {
+            ConcurrencyLimiter limiter = statistic.limiter;
+            return limiter != null ? limiter.getLimit() : -1;
+        }
+
+        /**
+         * 请求未发出就终止(未完成请求数减一, 不记录响应时间, 不影响阻断状态)
+         */
+        public void onRequestAbort() {
+            statistic.abort();
+        }
+
+        /**
+         * @return 未完成请求数(已发出但未反馈)
+         */
+        public int getOutstanding() {
+            return statistic.outstanding.get();
+        }
+
+        /**
+         * @param currentTimeMillis 当前时间戳
+         * @return EWMA响应时间, ns, 没有样本时为0. 长时间没有新样本会逐渐衰减.
+         */
+        public long getEwmaResponseTime(long currentTimeMillis) {
+            return statistic.getEwma(currentTimeMillis);
+        }
+
         /**
          * 放行
          */
         private void release(){
+            //阻断期内的成功反馈来自阻断前已发出的请求, 不能说明远端已恢复, 忽略
+            if (System.currentTimeMillis() < this.blockUntil.get()) {
+                return;
+            }
             //解除阻断恢复期的流量限制
-            this.recoveryGate.set(Integer.MIN_VALUE);
+            //阻断期已过, 恢复期流量控制未解除(>=0)且曾经被阻断过, 说明远端刚刚恢复, 通知上线
+            if (this.recoveryGate.getAndSet(Integer.MIN_VALUE) >= 0 && this.recoveryUntil.get() > 0) {
+                manager.onHostOnline(this);
+            }
         }
 
         /**
@@ -488,6 +1184,172 @@ public class LoadBalancedHostManager {
         }
     }
 
+    /**
+     * 分层远端(远端列表含有两个及以上层级时才创建), 与hostArray一起在设置远端时整体替换
+     */
+    private static final class HostTiers {
+
+        private final Host[][] tiers;
+        private final HostSelectionContext[] selectionContexts;
+        private final AtomicInteger[] refugeCounters;
+        private final AtomicLong nextComputeTime = new AtomicLong(0);
+        private volatile double[] cumulativeLoads;
+
+        private HostTiers(Host[] hostArray, int tierCount) {
+            int[] sizes = new int[tierCount];
+            for (Host host : hostArray) {
+                sizes[host.tier]++;
+            }
+            tiers = new Host[tierCount][];
+            selectionContexts = new HostSelectionContext[tierCount];
+            refugeCounters = new AtomicInteger[tierCount];
+            for (int i = 0 ; i < tierCount ; i++) {
+                tiers[i] = new Host[sizes[i]];
+                selectionContexts[i] = new HostSelectionContext(new AtomicInteger(0));
+                refugeCounters[i] = new AtomicInteger(0);
+                sizes[i] = 0;
+            }
+            for (Host host : hostArray) {
+                tiers[host.tier][sizes[host.tier]++] = host;
+            }
+            double[] cumulativeLoads = new double[tierCount];
+            Arrays.fill(cumulativeLoads, 1D);
+            this.cumulativeLoads = cumulativeLoads;
+        }
+
+        /**
+         * @return 各层的累计流量比例, 每隔TIER_LOAD_COMPUTE_INTERVAL重新计算一次(抢到的线程计算), 其余时间返回缓存值
+         */
+        private double[] getCumulativeLoads(long currentTimeMillis, double failoverThreshold) {
+            long next = nextComputeTime.get();
+            if (currentTimeMillis < next || !nextComputeTime.compareAndSet(next, currentTimeMillis + TIER_LOAD_COMPUTE_INTERVAL)) {
+                return cumulativeLoads;
+            }
+            int tierCount = tiers.length;
+            double[] loads = new double[tierCount];
+            double remaining = 1D;
+            double total = 0D;
+            for (int i = 0 ; i < tierCount ; i++) {
+                int healthy = 0;
+                for (Host host : tiers[i]) {
+                    if (host.getState(currentTimeMillis) == HostState.OK) {
+                        healthy++;
+                    }
+                }
+                //健康比例达到阈值时承担全部剩余流量, 否则按比例
+                double capacity = Math.min(1D, (double) healthy / tiers[i].length / failoverThreshold);
+                loads[i] = Math.min(remaining, capacity);
+                remaining -= loads[i];
+                total += loads[i];
+            }
+            double[] cumulativeLoads = new double[tierCount];
+            double cumulative = 0D;
+            for (int i = 0 ; i < tierCount ; i++) {
+                //所有层级都不够健康时, 按比例放大; 全部不可用时都发往第一层(由避难逻辑处理)
+                cumulative += total > 0D ? loads[i] / total : (i == 0 ? 1D : 0D);
+                cumulativeLoads[i] = cumulative;
+            }
+            cumulativeLoads[tierCount - 1] = 1D;
+            this.cumulativeLoads = cumulativeLoads;
+            return cumulativeLoads;
+        }
+
+    }
+
+    /**
+     * 一致性哈希路由表, 远端和哈希环放在一起发布, 保证下标对应
+     */
+    private static final class HashRouting {
+
+        private final Host[][] tiers;
+        private final ConsistentHashRing[] rings;
+
+        private HashRouting(Host[][] tiers, ConsistentHashRing[] rings) {
+            this.tiers = tiers;
+            this.rings = rings;
+        }
+
+    }
+
+    /**
+     * 远端统计(含自适应并发限制/离群检测窗口), 远端列表刷新时保留(与阻断状态一样按URL继承)
+     */
+    private static class Statistic {
+
+        //EWMA平滑系数 1/2^EWMA_SHIFT
+        private static final int EWMA_SHIFT = 3;
+        //没有新样本时, EWMA每隔该时间减半, ms
+        private static final long EWMA_DECAY_PERIOD = 5000L;
+
+        private final AtomicInteger outstanding = new AtomicInteger(0);
+        private final AtomicLong ewma = new AtomicLong(0);
+        private volatile long lastSampleTime = 0;
+        private volatile ConcurrencyLimiter limiter;
+        private volatile OutlierWindow outlierWindow;
+
+        private long start() {
+            outstanding.incrementAndGet();
+            return System.nanoTime();
+        }
+
+        private boolean tryAcquire() {
+            ConcurrencyLimiter limiter = this.limiter;
+            if (limiter == null) {
+                outstanding.incrementAndGet();
+                return true;
+            }
+            int current;
+            do {
+                current = outstanding.get();
+                if (current >= limiter.getLimit()) {
+                    return false;
+                }
+            } while (!outstanding.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        private void abort() {
+            outstanding.decrementAndGet();
+        }
+
+        private void end(boolean isOk, long requestStartNanos) {
+            int inFlight = outstanding.getAndDecrement();
+            boolean hasStartTime = requestStartNanos != Host.NO_START_TIME;
+            long elapsed = hasStartTime ? Math.max(System.nanoTime() - requestStartNanos, 0L) : 0L;
+            //没有开始时间时没有响应时间样本, 不能把0当作RTT交给并发限制算法(会把最小RTT拉到0)
+            ConcurrencyLimiter limiter = this.limiter;
+            if (limiter != null && hasStartTime) {
+                limiter.onSample(elapsed, inFlight, isOk);
+            }
+            OutlierWindow outlierWindow = this.outlierWindow;
+            if (outlierWindow != null && hasStartTime) {
+                outlierWindow.record(isOk, elapsed, System.currentTimeMillis());
+            }
+            //失败的响应时间不可信(可能是快速失败), 交给阻断机制处理
+            if (!isOk || !hasStartTime) {
+                return;
+            }
+            long previous;
+            long next;
+            do {
+                previous = ewma.get();
+                next = previous <= 0 ? elapsed : previous + ((elapsed - previous) >> EWMA_SHIFT);
+            } while (!ewma.compareAndSet(previous, next));
+            lastSampleTime = System.currentTimeMillis();
+        }
+
+        private long getEwma(long currentTimeMillis) {
+            long value = ewma.get();
+            long idle = currentTimeMillis - lastSampleTime;
+            if (value <= 0 || idle < EWMA_DECAY_PERIOD) {
+                return value;
+            }
+            long halves = idle / EWMA_DECAY_PERIOD;
+            return halves >= 63 ? 0L : value >> halves;
+        }
+
+    }
+
     /**
      * 后端状态
      */
@@ -508,4 +1370,19 @@ public class LoadBalancedHostManager {
         BLOCKED
     }
 
+    /**
+     * 远端上线监听器
+     */
+    public interface HostOnlineListener {
+
+        /**
+         * 远端上线: 新增远端(设置远端列表时), 或被阻断的远端通过恢复期后恢复(首次反馈健康时). 在设置远端的线程或请求线程中
+         * 同步回调, 实现必须快速返回(不要阻塞, 耗时操作请交给其他线程).
+         *
+         * @param host 远端
+         */
+        void onHostOnline(Host host);
+
+    }
+
 }
@@ -19,12 +19,11 @@
 
 package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance;
 
-import com.github.shepherdviolet.glacimon.java.concurrent.GuavaThreadFactoryBuilder;
-import com.github.shepherdviolet.glacimon.java.concurrent.ThreadPoolExecutorUtils;
 import com.github.shepherdviolet.glacimon.java.misc.CloseableUtils;
 import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.GlaciHttpClient;
 import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.inspector.EmptyLoadBalanceInspector;
 import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.inspector.HttpGetLoadBalanceInspector;
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.inspector.NioInspectEngine;
 import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.inspector.TelnetLoadBalanceInspector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,13 +31,15 @@ import org.slf4j.LoggerFactory;
 import java.io.Closeable;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * <p>均衡负载--网络状态探测管理器</p>
  *
- * <p>请在服务停止的时候调用close()方法销毁本实例, 以释放线程池.</p>
+ * <p>请在服务停止的时候调用close()方法销毁本实例, 以停止探测.</p>
+ *
+ * <p>所有实例共用一个非阻塞探测引擎(NioInspectEngine): 探测间隔由时间轮调度, TELNET/HTTP GET探测由一个Selector线程完成,
+ * 实例本身不持有线程.</p>
  *
  * <pre>{@code
  *      //实例化
@@ -50,7 +51,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * }</pre>
  *
  * <pre>{@code
- *      //重要:关闭探测器(停止线程)
+ *      //重要:关闭探测器(停止探测)
  *      inspectManager.close();
  * }</pre>
  *
@@ -79,10 +80,9 @@ public class LoadBalancedInspectManager implements Closeable {
     private long inspectTimeout = DEFAULT_INSPECT_INTERVAL / 2;
     private long blockDuration = DEFAULT_INSPECT_INTERVAL * 4;
 
-    private ExecutorService dispatchThreadPool = ThreadPoolExecutorUtils.createFixed(1,
-            new GuavaThreadFactoryBuilder().setNameFormat("Glacispring-LBInspect-Dispatch-%s").setDaemon(true).build());
-    private ExecutorService inspectThreadPool = ThreadPoolExecutorUtils.createCached(0,
-            Integer.MAX_VALUE, 60, "Glacispring-LBInspect-Inspect-%s");
+    private final NioInspectEngine engine = NioInspectEngine.getInstance();
+    private NioInspectEngine.ScheduledTask dispatchTask;
+    private volatile boolean dispatchStarted = false;
     private Map<String, AtomicBoolean> inspectionFlags = new ConcurrentHashMap<>();
 
     private final Object intervalLock = new Object();
@@ -117,14 +117,15 @@ public class LoadBalancedInspectManager implements Closeable {
         if (!closed.compareAndSet(false, true)) {
             return;
         }
-        started.set(true);
-        try {
-            dispatchThreadPool.shutdownNow();
-        } catch (Throwable ignore){
+        boolean wasStarted = started.getAndSet(true);
+        synchronized (intervalLock) {
+            if (dispatchTask != null) {
+                dispatchTask.cancel();
+                dispatchTask = null;
+            }
         }
-        try {
-            inspectThreadPool.shutdownNow();
-        } catch (Throwable ignore){
+        if (wasStarted && logger.isInfoEnabled()) {
+            logger.info(tag + "InspectManager Closed: " + LoadBalancedInspectManager.this);
         }
         CloseableUtils.closeQuiet(emptyInspector);
         CloseableUtils.closeQuiet(telnetInspector);
@@ -186,8 +187,9 @@ public class LoadBalancedInspectManager implements Closeable {
         telnetInspector.setTimeout(inspectTimeout);
         httpGetInspector.setTimeout(inspectTimeout);
 
-        synchronized (intervalLock) {
-            intervalLock.notifyAll();
+        //按新的间隔重新调度(立即生效)
+        if (started.get()) {
+            scheduleDispatch();
         }
 
         return this;
@@ -237,16 +239,39 @@ public class LoadBalancedInspectManager implements Closeable {
     }
 
     /**
-     * 调度线程启动
+     * 调度启动
      */
     private void dispatchStart() {
-        dispatchThreadPool.execute(new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    Thread.sleep(inspectInterval);
-                } catch (InterruptedException ignored) {
-                }
+        scheduleDispatch();
+    }
+
+    /**
+     * 在inspectInterval后执行一次调度(共享时间轮), 取消之前的调度
+     */
+    private void scheduleDispatch() {
+        synchronized (intervalLock) {
+            if (dispatchTask != null) {
+                dispatchTask.cancel();
+            }
+            if (closed.get()) {
+                dispatchTask = null;
+                return;
+            }
+            dispatchTask = engine.schedule(this::dispatch, inspectInterval);
+        }
+    }
+
+    /**
+     * 调度(NioInspectEngine的IO线程, 不允许阻塞), 执行完毕后调度下一次
+     */
+    private void dispatch() {
+        if (closed.get()) {
+            return;
+        }
+        try {
+            if (!dispatchStarted) {
+                //第一次调度只打印日志, 与原先启动时先等待一个间隔的行为一致
+                dispatchStarted = true;
                 if (logger.isInfoEnabled()) {
                     logger.info(tag + "InspectManager Start: " + LoadBalancedInspectManager.this);
                 }
@@ -255,116 +280,112 @@ public class LoadBalancedInspectManager implements Closeable {
                         logger.warn(tag + "InspectManager has no hostManager, unable to inspect hosts");
                     }
                 }
-                LoadBalancedHostManager hostManager;
-                LoadBalancedHostManager.Host[] hostArray;
-                while (!closed.get()){
-                    //间隔
-                    synchronized (intervalLock) {
-                        try {
-                            intervalLock.wait(inspectInterval);
-                        } catch (InterruptedException ignored) {}
-                    }
-                    // 暂停(间隔<=0) 或 禁用 时不继续执行
-                    if (pause || "+disable+".equals(inspectMode)) {
-                        continue;
-                    }
-                    //持有当前的hostManager
-                    hostManager = LoadBalancedInspectManager.this.hostManager;
-                    //检查是否配置
-                    if (hostManager == null){
-                        if (logger.isTraceEnabled()) {
-                            logger.trace(tag + "InspectManager has no hostManager, skip inspect");
-                        }
-                        continue;
-                    }
-                    //获取远端列表
-                    hostArray = hostManager.getHostArray();
-                    if (hostArray.length <= 0){
-                        if (logger.isTraceEnabled()) {
-                            logger.trace(tag + "InspectManager has no hosts, skip inspect");
-                        }
-                        continue;
-                    }
-                    //打印当前远端状态
-                    if (logger.isTraceEnabled()) {
-                        logger.trace(hostManager.printHostsStatus(tag + "Hosts status (before inspect):"));
-                    } else if (logger.isInfoEnabled() && hostManager.hasBlockedHost()) {
-                        logger.info(hostManager.printHostsStatus(tag + "Hosts status (before inspect):"));
-                    }
-                    //探测所有远端
-                    for (LoadBalancedHostManager.Host host : hostArray){
-                        inspect(host);
-                    }
+                return;
+            }
+            // 暂停(间隔<=0) 或 禁用 时不继续执行
+            if (pause || "+disable+".equals(inspectMode)) {
+                return;
+            }
+            //持有当前的hostManager
+            LoadBalancedHostManager hostManager = this.hostManager;
+            //检查是否配置
+            if (hostManager == null){
+                if (logger.isTraceEnabled()) {
+                    logger.trace(tag + "InspectManager has no hostManager, skip inspect");
                 }
-                if (logger.isInfoEnabled()) {
-                    logger.info(tag + "InspectManager Closed: " + LoadBalancedInspectManager.this);
+                return;
+            }
+            //获取远端列表
+            LoadBalancedHostManager.Host[] hostArray = hostManager.getHostArray();
+            if (hostArray.length <= 0){
+                if (logger.isTraceEnabled()) {
+                    logger.trace(tag + "InspectManager has no hosts, skip inspect");
                 }
+                return;
+            }
+            //打印当前远端状态
+            if (logger.isTraceEnabled()) {
+                logger.trace(hostManager.printHostsStatus(tag + "Hosts status (before inspect):"));
+            } else if (logger.isInfoEnabled() && hostManager.hasBlockedHost()) {
+                logger.info(hostManager.printHostsStatus(tag + "Hosts status (before inspect):"));
             }
-        });
+            //探测所有远端
+            for (LoadBalancedHostManager.Host host : hostArray){
+                inspect(host);
+            }
+        } finally {
+            scheduleDispatch();
+        }
     }
 
     /**
      * 开始异步探测
      */
     private void inspect(final LoadBalancedHostManager.Host host) {
-        // 同一个url同时只能有一个线程做探测
+        // 同一个url同时只能有一个探测
         AtomicBoolean inspectionFlag = inspectionFlags.computeIfAbsent(host.getUrl(), k -> new AtomicBoolean(false));
         if (!inspectionFlag.compareAndSet(false, true)){
             return;
         }
-        inspectThreadPool.execute(new Runnable() {
+        if (logger.isTraceEnabled()) {
+            logger.trace(tag + "Inspect: inspecting " + host.getUrl());
+        }
+        //持有探测器
+        final LoadBalanceInspector inspector;
+        if ("+disable+".equals(inspectMode)) {
+            inspector = emptyInspector;
+        } else if ("+telnet+".equals(inspectMode)) {
+            inspector = telnetInspector;
+        } else {
+            inspector = httpGetInspector;
+        }
+        /*
+         * 探测
+         * 注意:探测器必须在指定的timeout时间内回调, 回调可能在共享的IO线程中执行, 不要阻塞,
+         * 尽量处理掉所有异常, 如果抛出异常, 视为探测失败, 阻断远端
+         */
+        LoadBalanceInspector.Callback callback = new LoadBalanceInspector.Callback() {
             @Override
-            public void run() {
+            public void onInspected(boolean available) {
                 try {
-                    doInspect();
+                    //阻断(无恢复期)
+                    if (!available) {
+                        block(host);
+                    }
+                    if (logger.isTraceEnabled()) {
+                        logger.trace(tag + "Inspect: inspected " + host.getUrl());
+                    }
                 } finally {
-                    inspectionFlags.computeIfAbsent(host.getUrl(), k -> new AtomicBoolean(false)).set(false);
+                    inspectionFlag.set(false);
                 }
             }
 
-            private void doInspect() {
-                if (logger.isTraceEnabled()) {
-                    logger.trace(tag + "Inspect: inspecting " + host.getUrl());
-                }
-                //持有探测器
-                LoadBalanceInspector inspector;
-                if ("+disable+".equals(inspectMode)) {
-                    inspector = emptyInspector;
-                } else if ("+telnet+".equals(inspectMode)) {
-                    inspector = telnetInspector;
-                } else {
-                    inspector = httpGetInspector;
-                }
-                /*
-                 * 探测
-                 * 注意:探测器必须在指定的timeout时间内探测完毕, 不要过久的占用线程,
-                 * 尽量处理掉所有异常, 如果抛出异常, 视为探测失败, 阻断远端
-                 */
-                boolean block = false;
+            @Override
+            public void onError(Throwable t) {
                 try {
-                    if (!inspector.inspect(host.getUrl())) {
-                        block = true;
-                    }
-                } catch (Throwable t) {
                     if (logger.isErrorEnabled()) {
                         logger.error(tag + "Inspect: Un-captured error occurred while inspecting, url " + host.getUrl() + ", in " + inspector.getClass(), t);
                     }
                     if (isBlockIfInspectorError()) {
-                        block = true;
-                    }
-                }
-                //阻断(无恢复期)
-                if (block){
-                    host.feedback(false, blockDuration, 1);
-                    if (logger.isWarnEnabled()) {
-                        logger.warn(tag + "Inspect: Bad host " + host.getUrl() + ", block for " + blockDuration + " ms (Initiative block)");
+                        block(host);
                     }
-                }
-                if (logger.isTraceEnabled()) {
-                    logger.trace(tag + "Inspect: inspected " + host.getUrl());
+                } finally {
+                    inspectionFlag.set(false);
                 }
             }
-        });
+        };
+        try {
+            inspector.inspect(host.getUrl(), callback);
+        } catch (Throwable t) {
+            callback.onError(t);
+        }
+    }
+
+    private void block(LoadBalancedHostManager.Host host) {
+        host.feedback(false, blockDuration, 1);
+        if (logger.isWarnEnabled()) {
+            logger.warn(tag + "Inspect: Bad host " + host.getUrl() + ", block for " + blockDuration + " ms (Initiative block)");
+        }
     }
 
 }
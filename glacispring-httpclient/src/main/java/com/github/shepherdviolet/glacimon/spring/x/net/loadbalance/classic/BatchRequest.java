@@ -0,0 +1,566 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * <p>批量请求(扇出/聚合), 由GlaciHttpClient#batch()创建, 该对象非线程安全, 请勿多线程操作同一个对象</p>
+ *
+ * <p>一次发出多个请求, 全部完成(或达到quorum, 或总超时)后一次性返回每个请求的结果(按添加顺序), 部分请求失败不影响其他请求.
+ * 请求用OkHttp的Dispatcher异步发送, 批量本身不占用线程(超时由客户端共用的调度线程触发), 同步方法只阻塞调用者线程.</p>
+ *
+ * <p>1.totalTimeout: 整批的总超时, 每个请求发出时用剩余时间限制它的总超时(Request#totalTimeout, 取较小值),
+ * 到期时取消未完成的请求, 状态为TIMEOUT</p>
+ * <p>2.maxConcurrency: 该批同时在途的请求数上限, 完成一个发出一个(在OkHttp的Dispatcher线程中发出)</p>
+ * <p>3.quorum: 成功数达到quorum后立即返回, 取消其余请求(状态为CANCELLED, 被取消的请求不影响后端健康状态);
+ * 失败数多到不可能达到quorum时也立即返回</p>
+ *
+ * <pre>
+ *  BatchRequest.Result&lt;byte[]&gt; result = client.batch()
+ *          .add(client.get("/a"))
+ *          .add(client.post("/b").body(data))
+ *          .totalTimeout(500)
+ *          .maxConcurrency(8)
+ *          .quorum(1)
+ *          .sendForBytes();
+ * </pre>
+ *
+ * <p>注意: Request只能发送一次, 不要把已经发送的请求加入批量. 请求可以来自不同的GlaciHttpClient.</p>
+ *
+ * @author shepherdviolet
+ */
+public final class BatchRequest {
+
+    private final List<GlaciHttpClient.Request> requests = new ArrayList<>();
+    private long totalTimeout = -1;
+    private int maxConcurrency = 0;
+    private int quorum = 0;
+    private boolean isSend = false;
+
+    BatchRequest() {
+    }
+
+    /**
+     * <p>[配置]添加请求</p>
+     */
+    public BatchRequest add(GlaciHttpClient.Request request) {
+        if (request == null) {
+            throw new IllegalArgumentException("request is null");
+        }
+        requests.add(request);
+        return this;
+    }
+
+    /**
+     * <p>[配置]添加请求</p>
+     */
+    public BatchRequest addAll(Collection<GlaciHttpClient.Request> requests) {
+        if (requests != null) {
+            for (GlaciHttpClient.Request request : requests) {
+                add(request);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * <p>[配置]整批的总超时, 单位ms, 默认不限制(由每个请求各自的超时限制). 到期时未完成的请求被取消(TIMEOUT), 结果立即返回.</p>
+     */
+    public BatchRequest totalTimeout(long totalTimeout) {
+        this.totalTimeout = totalTimeout;
+        return this;
+    }
+
+    /**
+     * <p>[配置]该批同时在途的请求数上限, 默认不限制(仍受客户端的maxThreads/maxThreadsPerHost限制)</p>
+     */
+    public BatchRequest maxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+        return this;
+    }
+
+    /**
+     * <p>[配置]成功数达到quorum后立即返回并取消其余请求, 默认0: 等待所有请求完成</p>
+     */
+    public BatchRequest quorum(int quorum) {
+        this.quorum = quorum;
+        return this;
+    }
+
+    /**
+     * <p>[请求发送]同步批量请求, 每个请求获取byte[]返回, 阻塞到全部完成/达到quorum/总超时.
+     * 如果响应码不为2XX, 该请求的结果为FAILED(HttpRejectException)</p>
+     *
+     * @throws InterruptedException 等待时被中断, 会取消整批请求
+     */
+    public Result<byte[]> sendForBytes() throws InterruptedException {
+        return await(sendForBytesAsync());
+    }
+
+    /**
+     * <p>[请求发送]同步批量请求, 每个请求获取JavaBean返回, 见sendForBytes()<br>
+     * 注意: 必须配置DataConverter, 否则对应请求的结果为FAILED</p>
+     *
+     * @throws InterruptedException 等待时被中断, 会取消整批请求
+     */
+    public <T> Result<T> sendForBean(Class<T> type) throws InterruptedException {
+        return await(sendForBeanAsync(type));
+    }
+
+    /**
+     * <p>[请求发送]异步批量请求, 每个请求获取byte[]返回. Future在全部完成/达到quorum/总超时后完成, 不会异常完成(取消除外),
+     * 每个请求的成功/失败见Result.</p>
+     *
+     * <p>Future在最后一个完成的请求所在的OkHttp Dispatcher线程(或超时调度线程)中完成, 后续回调较重时请用thenApplyAsync等方法
+     * 切换线程池. 调用Future的cancel方法会取消所有未完成的请求.</p>
+     */
+    public CompletableFuture<Result<byte[]>> sendForBytesAsync() {
+        return send(GlaciHttpClient.Request::sendForBytesAsync);
+    }
+
+    /**
+     * <p>[请求发送]异步批量请求, 每个请求获取JavaBean返回, 见sendForBytesAsync()<br>
+     * 注意: 必须配置DataConverter, 否则对应请求的结果为FAILED</p>
+     */
+    public <T> CompletableFuture<Result<T>> sendForBeanAsync(Class<T> type) {
+        if (type == null) {
+            throw new IllegalArgumentException("type is null");
+        }
+        return send(request -> request.sendForBeanAsync(type));
+    }
+
+    private <T> CompletableFuture<Result<T>> send(Function<GlaciHttpClient.Request, CompletableFuture<T>> sender) {
+        if (isSend) {
+            throw new IllegalStateException("BatchRequest can only send once!");
+        }
+        isSend = true;
+        Execution<T> execution = new Execution<>(new ArrayList<>(requests), sender, totalTimeout, maxConcurrency, quorum);
+        execution.start();
+        return execution.future;
+    }
+
+    private static <T> Result<T> await(CompletableFuture<Result<T>> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            //Execution不会异常完成
+            throw new IllegalStateException("Unexpected batch failure", e.getCause());
+        }
+    }
+
+    /**
+     * 一次批量请求的执行过程, 状态变更在锁内, 发送请求/取消请求/完成Future在锁外
+     */
+    private static final class Execution<T> {
+
+        private final List<Item<T>> items;
+        private final Function<GlaciHttpClient.Request, CompletableFuture<T>> sender;
+        private final long deadline;
+        private final int maxConcurrency;
+        private final int quorum;
+        private final long startTime = System.currentTimeMillis();
+        private final BatchFuture<T> future = new BatchFuture<>(this);
+
+        private final Object lock = new Object();
+        private final AtomicInteger drainWip = new AtomicInteger(0);
+        private int nextIndex = 0;
+        private int inFlight = 0;
+        private int succeeded = 0;
+        private int failed = 0;
+        private boolean done = false;
+        private volatile ScheduledFuture<?> timeoutFuture;
+
+        private Execution(List<GlaciHttpClient.Request> requests, Function<GlaciHttpClient.Request, CompletableFuture<T>> sender,
+                          long totalTimeout, int maxConcurrency, int quorum) {
+            this.items = new ArrayList<>(requests.size());
+            for (GlaciHttpClient.Request request : requests) {
+                items.add(new Item<>(request));
+            }
+            this.sender = sender;
+            this.deadline = totalTimeout > 0 ? startTime + totalTimeout : 0;
+            this.maxConcurrency = maxConcurrency > 0 ? maxConcurrency : Integer.MAX_VALUE;
+            this.quorum = Math.min(Math.max(quorum, 0), items.size());
+        }
+
+        private void start() {
+            if (items.isEmpty()) {
+                finish(Item.State.CANCELLED, false);
+                return;
+            }
+            if (deadline > 0) {
+                timeoutFuture = GlaciHttpClient.schedule(() -> finish(Item.State.TIMEOUT, true), deadline - startTime);
+            }
+            drain();
+        }
+
+        /**
+         * 在并发上限内发出请求. 请求可能在发送方法中同步完成(例如NoHostException)并回到这里, 用drainWip避免递归
+         */
+        private void drain() {
+            if (drainWip.getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                Item<T> item;
+                while ((item = next()) != null) {
+                    send(item);
+                }
+            } while (drainWip.decrementAndGet() != 0);
+        }
+
+        private Item<T> next() {
+            synchronized (lock) {
+                if (done || nextIndex >= items.size() || inFlight >= maxConcurrency) {
+                    return null;
+                }
+                inFlight++;
+                return items.get(nextIndex++);
+            }
+        }
+
+        private void send(Item<T> item) {
+            CompletableFuture<T> future;
+            try {
+                if (deadline > 0) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        //已到期, 不再发送, 超时任务马上会结束整批
+                        synchronized (lock) {
+                            inFlight--;
+                        }
+                        return;
+                    }
+                    item.request.limitTotalTimeout(remaining);
+                }
+                future = sender.apply(item.request);
+            } catch (Throwable t) {
+                onComplete(item, null, t);
+                return;
+            }
+            synchronized (lock) {
+                item.future = future;
+            }
+            future.whenComplete((result, throwable) -> onComplete(item, result, throwable));
+            //发送过程中批量已结束(其他请求达到quorum/超时)
+            boolean cancel;
+            synchronized (lock) {
+                cancel = done;
+            }
+            if (cancel) {
+                future.cancel(true);
+            }
+        }
+
+        private void onComplete(Item<T> item, T result, Throwable throwable) {
+            boolean finish = false;
+            synchronized (lock) {
+                inFlight--;
+                if (done || item.state != Item.State.PENDING) {
+                    return;
+                }
+                if (throwable instanceof CompletionException && throwable.getCause() != null) {
+                    throwable = throwable.getCause();
+                }
+                if (throwable == null) {
+                    item.state = Item.State.SUCCEEDED;
+                    item.result = result;
+                    succeeded++;
+                } else {
+                    item.state = Item.State.FAILED;
+                    item.error = throwable;
+                    failed++;
+                }
+                item.elapsed = System.currentTimeMillis() - startTime;
+                if (succeeded + failed >= items.size() ||
+                        (quorum > 0 && (succeeded >= quorum || items.size() - failed < quorum))) {
+                    finish = true;
+                }
+            }
+            if (finish) {
+                finish(Item.State.CANCELLED, false);
+            } else {
+                drain();
+            }
+        }
+
+        /**
+         * @param unfinishedState 未完成的请求的状态
+         * @param timedOut 是否因超时结束
+         */
+        private void finish(Item.State unfinishedState, boolean timedOut) {
+            List<CompletableFuture<T>> cancels = new ArrayList<>();
+            Result<T> result;
+            synchronized (lock) {
+                if (done) {
+                    return;
+                }
+                done = true;
+                for (Item<T> item : items) {
+                    if (item.state == Item.State.PENDING) {
+                        item.state = unfinishedState;
+                        if (item.future != null) {
+                            cancels.add(item.future);
+                        }
+                    }
+                }
+                result = new Result<>(Collections.unmodifiableList(new ArrayList<>(items)), succeeded, failed,
+                        quorum > 0 && succeeded >= quorum, timedOut, System.currentTimeMillis() - startTime);
+            }
+            ScheduledFuture<?> timeoutFuture = this.timeoutFuture;
+            if (timeoutFuture != null) {
+                timeoutFuture.cancel(false);
+            }
+            for (CompletableFuture<T> future : cancels) {
+                future.cancel(true);
+            }
+            future.complete(result);
+        }
+
+    }
+
+    /**
+     * 批量请求的Future, cancel时取消所有未完成的请求
+     */
+    private static final class BatchFuture<T> extends CompletableFuture<Result<T>> {
+
+        private final Execution<T> execution;
+
+        private BatchFuture(Execution<T> execution) {
+            this.execution = execution;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                execution.finish(Item.State.CANCELLED, false);
+            }
+            return cancelled;
+        }
+
+    }
+
+    /**
+     * 批量请求的结果
+     */
+    public static final class Result<T> {
+
+        private final List<Item<T>> items;
+        private final int succeededCount;
+        private final int failedCount;
+        private final boolean quorumReached;
+        private final boolean timedOut;
+        private final long elapsed;
+
+        private Result(List<Item<T>> items, int succeededCount, int failedCount, boolean quorumReached, boolean timedOut, long elapsed) {
+            this.items = items;
+            this.succeededCount = succeededCount;
+            this.failedCount = failedCount;
+            this.quorumReached = quorumReached;
+            this.timedOut = timedOut;
+            this.elapsed = elapsed;
+        }
+
+        /**
+         * @return 每个请求的结果, 与添加顺序一致
+         */
+        public List<Item<T>> getItems() {
+            return items;
+        }
+
+        /**
+         * @param index 添加顺序
+         */
+        public Item<T> get(int index) {
+            return items.get(index);
+        }
+
+        /**
+         * @return 成功的结果(按添加顺序), 结果可能为null
+         */
+        public List<T> getSucceededResults() {
+            List<T> results = new ArrayList<>(succeededCount);
+            for (Item<T> item : items) {
+                if (item.isSucceeded()) {
+                    results.add(item.result);
+                }
+            }
+            return results;
+        }
+
+        public int getSucceededCount() {
+            return succeededCount;
+        }
+
+        public int getFailedCount() {
+            return failedCount;
+        }
+
+        /**
+         * @return 未完成的请求数(超时/取消)
+         */
+        public int getUnfinishedCount() {
+            return items.size() - succeededCount - failedCount;
+        }
+
+        /**
+         * @return true: 全部成功
+         */
+        public boolean isAllSucceeded() {
+            return succeededCount == items.size();
+        }
+
+        /**
+         * @return true: 设置了quorum, 且成功数达到quorum
+         */
+        public boolean isQuorumReached() {
+            return quorumReached;
+        }
+
+        /**
+         * @return true: 因总超时结束
+         */
+        public boolean isTimedOut() {
+            return timedOut;
+        }
+
+        /**
+         * @return 整批耗时, ms
+         */
+        public long getElapsed() {
+            return elapsed;
+        }
+
+        @Override
+        public String toString() {
+            return "BatchRequest.Result{" +
+                    "total=" + items.size() +
+                    ", succeeded=" + succeededCount +
+                    ", failed=" + failedCount +
+                    ", unfinished=" + getUnfinishedCount() +
+                    ", quorumReached=" + quorumReached +
+                    ", timedOut=" + timedOut +
+                    ", elapsed=" + elapsed +
+                    '}';
+        }
+
+    }
+
+    /**
+     * 批量中单个请求的结果
+     */
+    public static final class Item<T> {
+
+        /**
+         * 请求状态
+         */
+        public enum State {
+            /**
+             * 未完成(仅在批量执行中出现)
+             */
+            PENDING,
+            /**
+             * 成功
+             */
+            SUCCEEDED,
+            /**
+             * 失败, 见getError()
+             */
+            FAILED,
+            /**
+             * 整批总超时时未完成(已取消或未发送)
+             */
+            TIMEOUT,
+            /**
+             * 达到quorum/不可能达到quorum/整批被取消时未完成(已取消或未发送)
+             */
+            CANCELLED
+        }
+
+        private final GlaciHttpClient.Request request;
+        private CompletableFuture<T> future;
+        private State state = State.PENDING;
+        private T result;
+        private Throwable error;
+        private long elapsed = -1;
+
+        private Item(GlaciHttpClient.Request request) {
+            this.request = request;
+        }
+
+        public GlaciHttpClient.Request getRequest() {
+            return request;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public boolean isSucceeded() {
+            return state == State.SUCCEEDED;
+        }
+
+        /**
+         * @return 结果, 成功时有效(可能为null)
+         */
+        public T getResult() {
+            return result;
+        }
+
+        /**
+         * @return 失败原因, 失败时有效
+         */
+        public Throwable getError() {
+            return error;
+        }
+
+        /**
+         * @return 从整批开始到该请求完成的耗时, ms, 未完成时为-1
+         */
+        public long getElapsed() {
+            return elapsed;
+        }
+
+        @Override
+        public String toString() {
+            return "Item{" +
+                    "state=" + state +
+                    ", elapsed=" + elapsed +
+                    (error != null ? ", error=" + error : "") +
+                    ", request=" + request +
+                    '}';
+        }
+
+    }
+
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic;
+
+import java.io.Closeable;
+
+/**
+ * <p>截止时间预算: 调用链上游给出的绝对截止时间, 本服务发出的HTTP请求不应该比它等得更久</p>
+ *
+ * <p>1.通过attach绑定到当前线程(ThreadLocal), 之后在该线程中创建的请求(GlaciHttpClient#get/post)自动带上预算,
+ * 也可以用Request#deadlineBudget为单个请求指定</p>
+ * <p>2.发送前预算已耗尽: 直接抛出DeadlineExceededException(异步为onErrorBeforeSend), 请求不发出, 不影响后端健康状态</p>
+ * <p>3.发送时: 与Request#totalTimeout取较早者, 作为该请求(含重试/对冲)的截止时间, connect/write/read超时不超过剩余时间,
+ * 因截止时间到期导致的超时不阻断后端</p>
+ * <p>4.可选: 配置GlaciHttpClient#setDeadlineBudgetHeader后, 剩余时间(ms)通过请求头传给下游, 下游用fromHeader解析后attach</p>
+ *
+ * <pre>
+ *  //上游给了800ms
+ *  try (DeadlineBudget.Scope scope = DeadlineBudget.attach(DeadlineBudget.ofTimeout(800))) {
+ *      byte[] a = client.get("/a").sendForBytes();
+ *      byte[] b = client.post("/b").body(a).sendForBytes(); //只剩800ms减去/a的耗时
+ *  }
+ *
+ *  //下游(例如Filter): 从请求头恢复预算
+ *  try (DeadlineBudget.Scope scope = DeadlineBudget.attach(DeadlineBudget.fromHeader(httpRequest.getHeader("X-Deadline-Budget")))) {
+ *      chain.doFilter(request, response);
+ *  }
+ * </pre>
+ *
+ * <p>预算的字符串形式(toHeader/fromHeader)是剩余毫秒数, 不依赖服务器之间的时钟同步, 也可以放进链路追踪的数据中传递
+ * (例如glacijava-trace的Trace#setData), 但不包含传递过程本身的耗时.</p>
+ *
+ * @author shepherdviolet
+ */
+public final class DeadlineBudget {
+
+    private static final ThreadLocal<DeadlineBudget> CURRENT = new ThreadLocal<>();
+
+    private final long deadline;
+
+    private DeadlineBudget(long deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * @param deadline 绝对截止时间, System.currentTimeMillis()
+     */
+    public static DeadlineBudget ofDeadline(long deadline) {
+        return new DeadlineBudget(deadline);
+    }
+
+    /**
+     * @param timeout 从现在开始的剩余时间, ms
+     */
+    public static DeadlineBudget ofTimeout(long timeout) {
+        return new DeadlineBudget(System.currentTimeMillis() + Math.max(timeout, 0L));
+    }
+
+    /**
+     * 解析请求头/链路数据中的剩余时间
+     * @param remainingMillis 剩余时间(ms)的字符串形式, 见toHeader
+     * @return 为空或格式错误时返回null(不限制)
+     */
+    public static DeadlineBudget fromHeader(String remainingMillis) {
+        if (remainingMillis == null) {
+            return null;
+        }
+        try {
+            return ofTimeout(Long.parseLong(remainingMillis.trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return 当前线程的预算, 没有时返回null
+     */
+    public static DeadlineBudget current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * <p>将预算绑定到当前线程, 用完必须关闭Scope(恢复原来的预算), 建议使用try-with-resources.</p>
+     *
+     * <p>当前线程已有预算时, 取较早的截止时间(内层不能放宽外层的预算).</p>
+     *
+     * @param budget 预算, 为空时不改变当前线程的预算
+     */
+    public static Scope attach(DeadlineBudget budget) {
+        DeadlineBudget previous = CURRENT.get();
+        if (budget != null && (previous == null || budget.deadline < previous.deadline)) {
+            CURRENT.set(budget);
+        }
+        return new Scope(previous);
+    }
+
+    /**
+     * @return 绝对截止时间, System.currentTimeMillis()
+     */
+    public long getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * @return 剩余时间, ms, 已耗尽时为0
+     */
+    public long getRemaining() {
+        return Math.max(deadline - System.currentTimeMillis(), 0L);
+    }
+
+    /**
+     * @return true: 已耗尽
+     */
+    public boolean isExpired() {
+        return System.currentTimeMillis() >= deadline;
+    }
+
+    /**
+     * @return 剩余时间(ms)的字符串形式, 用于请求头/链路数据, 见fromHeader
+     */
+    public String toHeader() {
+        return String.valueOf(getRemaining());
+    }
+
+    @Override
+    public String toString() {
+        return "DeadlineBudget{remaining=" + getRemaining() + "ms}";
+    }
+
+    /**
+     * 预算的作用范围, 关闭时恢复原来的预算
+     */
+    public static final class Scope implements Closeable {
+
+        private final DeadlineBudget previous;
+
+        private Scope(DeadlineBudget previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+
+    }
+
+}
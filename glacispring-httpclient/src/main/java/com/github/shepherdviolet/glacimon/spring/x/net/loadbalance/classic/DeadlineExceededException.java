@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic;
+
+/**
+ * 截止时间预算(DeadlineBudget)在发送前已耗尽, 请求未发出(网络请求发送前的异常, 准备阶段异常)
+ *
+ * @author shepherdviolet
+ */
+public class DeadlineExceededException extends RequestBuildException {
+
+    private static final long serialVersionUID = 6120598317542196031L;
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+
+}
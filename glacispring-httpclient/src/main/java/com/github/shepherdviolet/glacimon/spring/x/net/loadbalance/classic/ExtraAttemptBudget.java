@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>额外请求预算(令牌桶), 用于限制对冲请求/重试等"额外请求"占正常请求的比例, 防止后端故障时流量被放大.</p>
+ *
+ * <p>每个正常请求存入 percent/100 个令牌, 每个额外请求消耗1个令牌, 令牌不足时不允许发起额外请求.
+ * 令牌数有上限(maxBurst), 避免空闲一段时间后突发大量额外请求. 初始令牌数为上限的1/10, 保证启动后少量额外请求可用. 无锁, 线程安全.</p>
+ *
+ * @author shepherdviolet
+ */
+public class ExtraAttemptBudget {
+
+    private static final long UNIT = 100L;
+
+    private final int percent;
+    private final long maxBalance;
+    private final AtomicLong balance = new AtomicLong(0);
+
+    /**
+     * @param percent 额外请求最多占正常请求的百分比, <=0 时不允许额外请求
+     * @param maxBurst 令牌上限(最多连续发起的额外请求数)
+     */
+    public ExtraAttemptBudget(int percent, int maxBurst) {
+        this.percent = Math.max(percent, 0);
+        this.maxBalance = Math.max(maxBurst, 1) * UNIT;
+        this.balance.set(this.percent > 0 ? maxBalance / 10 : 0);
+    }
+
+    /**
+     * 正常请求存入令牌
+     */
+    public void deposit() {
+        if (percent <= 0) {
+            return;
+        }
+        long current;
+        long next;
+        do {
+            current = balance.get();
+            if (current >= maxBalance) {
+                return;
+            }
+            next = Math.min(current + percent, maxBalance);
+        } while (!balance.compareAndSet(current, next));
+    }
+
+    /**
+     * 额外请求消耗令牌
+     * @return true:允许发起额外请求 false:预算不足
+     */
+    public boolean tryWithdraw() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < UNIT) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - UNIT));
+        return true;
+    }
+
+    /**
+     * 归还令牌(消耗令牌后没有真正发起额外请求)
+     */
+    public void refund() {
+        balance.addAndGet(UNIT);
+    }
+
+    public int getPercent() {
+        return percent;
+    }
+
+    @Override
+    public String toString() {
+        return "ExtraAttemptBudget{" +
+                "percent=" + percent +
+                ", balance=" + (balance.get() / (double) UNIT) +
+                '}';
+    }
+
+}
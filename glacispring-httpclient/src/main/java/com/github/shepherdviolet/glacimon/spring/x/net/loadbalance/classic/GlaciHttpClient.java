@@ -19,19 +19,38 @@
 
 package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic;
 
+import com.github.shepherdviolet.glacimon.java.concurrent.GuavaThreadFactoryBuilder;
+import com.github.shepherdviolet.glacimon.java.concurrent.ThreadPoolExecutorUtils;
 import com.github.shepherdviolet.glacimon.java.conversion.ByteUtils;
 import com.github.shepherdviolet.glacimon.java.conversion.SimpleKeyValueEncoder;
 import com.github.shepherdviolet.glacimon.java.misc.CheckUtils;
 import com.github.shepherdviolet.glacimon.java.misc.CloseableUtils;
 import com.github.shepherdviolet.glacimon.java.net.HttpHeaders;
+import com.github.shepherdviolet.glacimon.java.spi.GlacimonSpi;
 import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.LoadBalancedHostManager;
 import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.LoadBalancedInspectManager;
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.cache.CachedResponse;
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.cache.DiskResponseCacheStore;
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.cache.MemoryResponseCacheStore;
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.cache.ResponseCache;
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.compression.RequestCompressor;
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.connect.HappyEyeballsConnector;
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.connect.ResourceGroupRegistry;
 import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.dns.BackgroundUpdatingDns;
 import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.dns.DnsBackgroundUpdater;
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.metrics.HttpClientMetrics;
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.metrics.HttpClientMetricsFactory;
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.metrics.HttpClientMetricsSnapshot;
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.metrics.MetricType;
 import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.ssl.*;
 import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.statistics.NoDepTxTimerProxy;
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.statistics.UrlLatencyTracker;
 import okhttp3.*;
+import okhttp3.EventListener;
 import okio.BufferedSink;
+import okio.ForwardingSink;
+import okio.Okio;
+import okio.Source;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.DisposableBean;
@@ -39,20 +58,34 @@ import org.springframework.beans.factory.InitializingBean;
 
 import javax.net.ssl.HostnameVerifier;
 import java.io.Closeable;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.UnsupportedEncodingException;
 import java.lang.ref.WeakReference;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.net.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.Key;
 import java.security.cert.X509Certificate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * <p>GlaciHttpClient</p>
@@ -109,6 +142,12 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
     private static final String ENCODE = "utf-8";
     private static final String TXTIMER_GROUP_SEND = "GlaciHttpClient-Send-";
     private static final String TXTIMER_GROUP_CONNECT = "GlaciHttpClient-Connect-";
+    private static final int HEDGE_BUDGET_PERCENT = 10;
+    private static final int HEDGE_BUDGET_MAX_BURST = 100;
+    private static final int HEDGE_DELAY_PERCENTILE = 95;
+    private static final int RETRY_BUDGET_PERCENT = 10;
+    private static final int RETRY_BUDGET_MAX_BURST = 100;
+    private static final int HTTP_NOT_MODIFIED = 304;
 
     ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
     ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -118,11 +157,34 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
 
     private static final Logger logger = LoggerFactory.getLogger(GlaciHttpClient.class);
     private static final AtomicInteger requestCounter = new AtomicInteger(0);
+    private static final SingleFlight NO_SINGLE_FLIGHT = new SingleFlight("");
+    /*
+     * 所有客户端共用的调度线程: 对冲请求定时, 旧连接池延迟清理, 合并请求等待超时, 批量请求总超时.
+     * 进程级共用不会关闭, 必须是守护线程, 否则会阻止JVM退出; JVM退出时未执行的任务(例如旧连接池清理)直接丢弃, 不影响
+     */
+    private static final ScheduledExecutorService scheduler = ThreadPoolExecutorUtils.createScheduled(1,
+            new GuavaThreadFactoryBuilder().setNameFormat("Glacispring-HttpClient-Scheduler-%s").setDaemon(true).build());
 
     private volatile OkHttpClient okHttpClient;
+    private volatile OkHttpClient baseClient;
+    private int baseClientMaxIdleConnections = -1;
+    private String baseClientResourceGroup;
+    private volatile ResourceGroupRegistry.Lease resourceGroupLease;
     private final LoadBalancedHostManager hostManager;
     private final LoadBalancedInspectManager inspectManager;
     private final DnsBackgroundUpdater dnsBackgroundUpdater;
+    private BackgroundUpdatingDns ownedDns;
+    private final UrlLatencyTracker hedgeLatencyTracker = new UrlLatencyTracker(HEDGE_DELAY_PERCENTILE);
+    private volatile ExtraAttemptBudget hedgeBudget = new ExtraAttemptBudget(HEDGE_BUDGET_PERCENT, HEDGE_BUDGET_MAX_BURST);
+    private volatile ExtraAttemptBudget retryBudget = new ExtraAttemptBudget(RETRY_BUDGET_PERCENT, RETRY_BUDGET_MAX_BURST);
+    private final ExecutorService preWarmThreadPool = ThreadPoolExecutorUtils.createLazy(60L, "Glacispring-HttpClient-PreWarm-%s");
+    private final Set<String> preWarmPendingHosts = ConcurrentHashMap.newKeySet();
+    private volatile HttpClientMetrics metrics;
+    private final ConcurrentHashMap<String, SingleFlight> singleFlights = new ConcurrentHashMap<>();
+    private volatile ResponseCache responseCache;
+    private final EventListener metricsEventListener = new MetricsEventListener();
+    private final HappyEyeballsConnector happyEyeballsConnector = new HappyEyeballsConnector();
+    private volatile SslContextRegistry.Lease sslContextLease;
 
     private Settings settings = new Settings();
     private volatile boolean refreshSettings = false;
@@ -139,6 +201,7 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
 
     public GlaciHttpClient() {
         hostManager = new LoadBalancedHostManager();
+        hostManager.setHostOnlineListener(host -> preWarm(host.getUrl()));
         inspectManager = new LoadBalancedInspectManager(hostManager, settings);
         dnsBackgroundUpdater = new DnsBackgroundUpdater();
     }
@@ -170,6 +233,17 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
     public void close() {
         CloseableUtils.closeQuiet(inspectManager);
         CloseableUtils.closeQuiet(dnsBackgroundUpdater);
+        try {
+            settingsSpinLock.lock();
+            replaceOwnedDns(null);
+        } finally {
+            settingsSpinLock.unlock();
+        }
+        CloseableUtils.closeQuiet(sslContextLease);
+        CloseableUtils.closeQuiet(resourceGroupLease);
+        //放弃等待中的预热, 中断进行中的预热
+        preWarmPendingHosts.clear();
+        preWarmThreadPool.shutdownNow();
     }
 
     /**
@@ -218,6 +292,23 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
                 settings.requestTraceEnabled ? requestCounter.getAndIncrement() & 0x00000FFF : Integer.MAX_VALUE);
     }
 
+    /**
+     * <p>创建批量请求(扇出/聚合), 一次发出多个请求, 全部完成(或达到quorum, 或总超时)后一次性返回每个请求的结果,
+     * 详见BatchRequest. 批量请求创建过程非线程安全, 请勿多线程操作同一个批量请求</p>
+     *
+     * <p>https://github.com/shepherdviolet/glacimon/blob/master/docs/loadbalance/invoke-async.md</p>
+     */
+    public BatchRequest batch() {
+        return new BatchRequest();
+    }
+
+    /**
+     * 在客户端共用的调度线程中执行延时任务(任务必须很轻)
+     */
+    static ScheduledFuture<?> schedule(Runnable task, long delayMillis) {
+        return scheduler.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
     /**
      * 请求(该对象非线程安全, 请勿多线程操作同一个对象)
      */
@@ -239,6 +330,7 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
         private Map<String, Object> formBody;
         private Object beanBody;
         private RequestBody customBody;
+        private RequestBody streamBody;
 
         //senior
         private boolean autoClose = true;
@@ -246,13 +338,28 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
         private String mediaType;
         private String encode;
         private DataConverter dataConverter;
+        private long hedgeDelay = -1;
+        private int maxRetries = -1;
+        private Boolean idempotent;
+        private long totalTimeout = -1;
+        private DeadlineBudget deadlineBudget;
+        private boolean singleFlight = false;
+        private Boolean compress;
+        private String routingKey;
         private Stub stub = new Stub();
 
+        //runtime
+        private long deadline = 0;
+        private Set<String> triedHosts;
+        //带验证请求头(If-None-Match/If-Modified-Since)的请求(响应缓存), 304视为成功
+        private boolean conditional = false;
+
         private Request(GlaciHttpClient client, String urlSuffix, boolean isPost, int requestId) {
             this.clientReference = new WeakReference<>(client);
             this.urlSuffix = urlSuffix;
             this.isPost = isPost;
             this.requestId = requestId;
+            this.deadlineBudget = DeadlineBudget.current();
         }
 
         /**
@@ -285,6 +392,66 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
             this.formBody = null;
             this.beanBody = null;
             this.customBody = null;
+            this.streamBody = null;
+            return this;
+        }
+
+        /**
+         * <p>[配置]POST请求专用: 请求报文体, 输入流(流式发送, 不读入内存)</p>
+         *
+         * <p>输入流只能读取一次, 因此请求只能发送一次: 只会在连接阶段失败(请求未发出)时重试. 请求结束后输入流会被关闭.</p>
+         *
+         * @param inputStream 输入流
+         * @param contentLength 数据长度, 未知时设置-1(分块传输)
+         */
+        public Request body(InputStream inputStream, long contentLength) {
+            if (inputStream == null) {
+                throw new IllegalArgumentException("inputStream is null");
+            }
+            return streamBody(new InputStreamRequestBody(inputStream, contentLength));
+        }
+
+        /**
+         * <p>[配置]POST请求专用: 请求报文体, 文件(流式发送, 不读入内存)</p>
+         */
+        public Request body(File file) {
+            if (file == null) {
+                throw new IllegalArgumentException("file is null");
+            }
+            return streamBody(RequestBody.create(null, file));
+        }
+
+        /**
+         * <p>[配置]POST请求专用: 请求报文体, 文件(流式发送, 不读入内存)</p>
+         */
+        public Request body(Path path) {
+            if (path == null) {
+                throw new IllegalArgumentException("path is null");
+            }
+            return streamBody(new PathRequestBody(path));
+        }
+
+        /**
+         * <p>[配置]POST请求专用: 请求报文体, 由回调方法直接写入OkHttp的输出流(分块传输, 不在内存中生成完整报文)</p>
+         *
+         * <p>重试时回调方法会被调用多次, 每次都必须写入完整的报文.</p>
+         */
+        public Request body(BodyWriter bodyWriter) {
+            if (bodyWriter == null) {
+                throw new IllegalArgumentException("bodyWriter is null");
+            }
+            return streamBody(new BodyWriterRequestBody(bodyWriter));
+        }
+
+        private Request streamBody(RequestBody streamBody) {
+            if (!isPost) {
+                throw new IllegalArgumentException("You can not set body in GET request");
+            }
+            this.body = null;
+            this.formBody = null;
+            this.beanBody = null;
+            this.customBody = null;
+            this.streamBody = streamBody;
             return this;
         }
 
@@ -299,6 +466,7 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
             this.formBody = formBody;
             this.beanBody = null;
             this.customBody = null;
+            this.streamBody = null;
             return this;
         }
 
@@ -314,6 +482,7 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
             this.formBody = null;
             this.beanBody = beanBody;
             this.customBody = null;
+            this.streamBody = null;
             return this;
         }
 
@@ -344,6 +513,7 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
             this.formBody = null;
             this.beanBody = null;
             this.customBody = customBody;
+            this.streamBody = null;
             return this;
         }
 
@@ -430,6 +600,114 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
             return this;
         }
 
+        /**
+         * <p>[配置]GET请求专用: 开启对冲请求(Hedged request), 仅适用于幂等的请求</p>
+         *
+         * <p>请求发出后, 若超过指定延迟仍未响应, 则向另一个后端再发送一次相同的请求, 取先成功的响应, 并取消另一个请求.
+         * 用于降低个别慢后端造成的长尾延迟. 对冲请求数受客户端的对冲预算限制(GlaciHttpClient#setHedgeBudgetPercent),
+         * 预算不足或没有其他可用后端时不对冲. 第一个请求在对冲前就失败的, 直接返回失败(不对冲).</p>
+         *
+         * @param delayMillis 对冲延迟ms. 大于0: 固定延迟; 等于0: 使用该urlSuffix近期响应时间的P95
+         *                    (不小于GlaciHttpClient#setHedgeMinDelay, 样本不足时不对冲); 小于0: 关闭对冲(默认)
+         */
+        public Request hedge(long delayMillis) {
+            if (isPost) {
+                throw new IllegalArgumentException("Hedged request is only supported for GET (idempotent) request");
+            }
+            this.hedgeDelay = delayMillis;
+            return this;
+        }
+
+        /**
+         * <p>[配置]该次请求的最大重试次数, 客户端配置和此处配置的均生效(此处配置优先), 见GlaciHttpClient#setMaxRetries</p>
+         *
+         * <p>重试会选择一个未尝试过的后端, 仅在以下情况重试: 1.连接阶段失败(请求未发出, 任何请求都可以重试);
+         * 2.幂等请求(见idempotent)发生需要阻断的网络异常或HTTP返回码(httpCodeNeedBlock/throwableNeedBlock).
+         * 重试次数受客户端的重试预算限制(GlaciHttpClient#setRetryBudgetPercent), 且不会超过totalTimeout.</p>
+         *
+         * @param maxRetries 最大重试次数, 0不重试
+         */
+        public Request maxRetries(int maxRetries) {
+            this.maxRetries = Math.max(maxRetries, 0);
+            return this;
+        }
+
+        /**
+         * <p>[配置]该次请求是否幂等(重复发送无副作用), 默认: GET幂等, POST不幂等.
+         * 非幂等的请求只在连接阶段失败(请求未发出)时重试.</p>
+         */
+        public Request idempotent(boolean idempotent) {
+            this.idempotent = idempotent;
+            return this;
+        }
+
+        /**
+         * <p>[配置]该次请求的总超时(包含重试/对冲), 单位ms, 默认不限制(由connectTimeout/writeTimeout/readTimeout分别限制).
+         * 设置后每次尝试的OkHttp Call超时为剩余时间, 剩余时间不足时不再重试.</p>
+         */
+        public Request totalTimeout(long totalTimeout) {
+            this.totalTimeout = totalTimeout;
+            return this;
+        }
+
+        /**
+         * <p>[配置]该次请求的截止时间预算, 默认为创建请求时当前线程的预算(DeadlineBudget#attach), 设置为null则不限制.
+         * 发送前已耗尽时抛出DeadlineExceededException, 发送时与totalTimeout取较早者, 详见DeadlineBudget.</p>
+         */
+        public Request deadlineBudget(DeadlineBudget deadlineBudget) {
+            this.deadlineBudget = deadlineBudget;
+            return this;
+        }
+
+        /**
+         * 批量请求(BatchRequest): 用整批的剩余时间限制总超时, 与已设置的totalTimeout取较小值
+         */
+        void limitTotalTimeout(long remaining) {
+            this.totalTimeout = totalTimeout > 0 ? Math.min(totalTimeout, remaining) : remaining;
+        }
+
+        /**
+         * <p>[配置]POST请求专用: 是否压缩请求报文体, 优先于客户端的urlSuffix配置(GlaciHttpClient#setRequestCompressionUrlSuffixes).
+         * true: 报文体超过阈值时压缩; false: 不压缩. 客户端未开启压缩(GlaciHttpClient#setRequestCompression)时无效.</p>
+         */
+        public Request compress(boolean compress) {
+            if (!isPost) {
+                throw new IllegalArgumentException("You can not compress body in GET request");
+            }
+            this.compress = compress;
+            return this;
+        }
+
+        /**
+         * <p>[配置]路由键, 设置后按一致性哈希选择后端(LoadBalancedHostManager#nextHost(String)), 相同的路由键总是发往同一个后端,
+         * 用于后端有本地缓存(按键分片)的场合, 例如用户ID/商品ID. 后端不可用或重试时, 沿哈希环确定性地选择下一个后端.
+         * 对冲请求同样发往哈希环上的下一个后端. 默认为空(按选择策略选择后端).</p>
+         */
+        public Request routingKey(String routingKey) {
+            this.routingKey = routingKey;
+            return this;
+        }
+
+        /**
+         * <p>[配置]GET请求专用: 合并相同的并发请求(single-flight), 仅适用于幂等的请求, 默认false</p>
+         *
+         * <p>开启后, 若已有一个相同的请求(urlSuffix/urlParams/httpHeaders相同)正在进行中, 则不再发送新的请求, 而是等待它的结果,
+         * 每个等待者获得各自的一份响应数据(byte[]复制). 用于缓存失效时大量相同请求同时到达的场合, 降低后端压力.
+         * 等待者数量上限见GlaciHttpClient#setSingleFlightMaxWaiters(超出上限的请求单独发送), 超时见
+         * GlaciHttpClient#setSingleFlightLeaderTimeout/setSingleFlightFollowerTimeout.</p>
+         *
+         * <p>注意: 1.实际发出的请求(第一个请求)的配置(超时/重试/对冲等)对所有等待者生效, 失败时所有等待者收到同样的异常.
+         * 2.响应体会被完整读入内存(受maxReadLength限制), 不适合大报文. 3.异步方式的等待者在第一个请求的回调线程中依次回调,
+         * 若回调逻辑较重, 请使用sendForBytesAsync等方法并指定完成线程池.</p>
+         */
+        public Request singleFlight(boolean singleFlight) {
+            if (isPost) {
+                throw new IllegalArgumentException("Single-flight is only supported for GET (idempotent) request");
+            }
+            this.singleFlight = singleFlight;
+            return this;
+        }
+
         /**
          * <p>[配置]该次请求的连接超时, 单位ms</p>
          */
@@ -460,7 +738,7 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
          * 注意: 必须配置DataConverter, 否则会报错</p>
          *
          * @return 响应, 可能为null
-         * @throws NoHostException       当前没有可发送的后端(网络请求发送前的异常, 准备阶段异常)
+         * @throws NoHostException       当前没有可发送的后端(网络请求发送前的异常, 准备阶段异常), 所有后端达到并发上限时为HostOverloadException
          * @throws RequestBuildException 请求初始化异常(通常是网络请求发送前的异常, 准备阶段异常)
          * @throws IOException           网络通讯异常(通常是网络请求发送中的异常), 包括SocketTimeoutException和ConnectException
          * @throws HttpRejectException   Http请求拒绝异常(网络请求发送后的异常, HTTP响应码不为2XX)
@@ -478,7 +756,7 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
          * 如果响应码不为2XX, 会抛出HttpRejectException异常
          *
          * @return 响应, 可能为null
-         * @throws NoHostException       当前没有可发送的后端(网络请求发送前的异常, 准备阶段异常)
+         * @throws NoHostException       当前没有可发送的后端(网络请求发送前的异常, 准备阶段异常), 所有后端达到并发上限时为HostOverloadException
          * @throws RequestBuildException 请求初始化异常(通常是网络请求发送前的异常, 准备阶段异常)
          * @throws IOException           网络通讯异常(通常是网络请求发送中的异常), 包括SocketTimeoutException和ConnectException
          * @throws HttpRejectException   Http请求拒绝异常(网络请求发送后的异常, HTTP响应码不为2XX)
@@ -496,7 +774,7 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
          * 如果响应码不为2XX, 会抛出HttpRejectException异常
          *
          * @return 响应, 可能为null, InputStream用完后必须手动关闭!!!
-         * @throws NoHostException       当前没有可发送的后端(网络请求发送前的异常, 准备阶段异常)
+         * @throws NoHostException       当前没有可发送的后端(网络请求发送前的异常, 准备阶段异常), 所有后端达到并发上限时为HostOverloadException
          * @throws RequestBuildException 请求初始化异常(通常是网络请求发送前的异常, 准备阶段异常)
          * @throws IOException           网络通讯异常(通常是网络请求发送中的异常), 包括SocketTimeoutException和ConnectException
          * @throws HttpRejectException   Http请求拒绝异常(网络请求发送后的异常, HTTP响应码不为2XX)
@@ -514,7 +792,7 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
          * 如果响应码不为2XX, 会抛出HttpRejectException异常,
          * 该方法不会根据maxReadLength限定最大读取长度
          * @return 响应, 可能为null, ResponsePackage用完后必须手动关闭!!!
-         * @throws NoHostException       当前没有可发送的后端(网络请求发送前的异常, 准备阶段异常)
+         * @throws NoHostException       当前没有可发送的后端(网络请求发送前的异常, 准备阶段异常), 所有后端达到并发上限时为HostOverloadException
          * @throws RequestBuildException 请求初始化异常(通常是网络请求发送前的异常, 准备阶段异常)
          * @throws IOException           网络通讯异常(通常是网络请求发送中的异常), 包括SocketTimeoutException和ConnectException
          * @throws HttpRejectException   Http请求拒绝异常(网络请求发送后的异常, HTTP响应码不为2XX)
@@ -574,6 +852,93 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
             return stub;
         }
 
+        /**
+         * <p>[请求发送]异步请求并获取ResponsePackage返回,
+         * 如果响应码不为2XX, Future会以HttpRejectException异常完成,
+         * 该方法不会根据maxReadLength限定最大读取长度</p>
+         *
+         * <p>调用Future的cancel方法会取消OkHttp请求(Call#cancel), 被取消的请求不影响后端健康状态. 注意: thenApply等方法返回的
+         * 新Future被取消时, 不会传递到本Future.</p>
+         *
+         * <p>Future默认在OkHttp的Dispatcher线程中完成(后续的thenApply等回调也在该线程中执行), 若回调逻辑较重, 请用
+         * sendAsync(Executor)指定完成线程池, 或使用GlaciHttpClient#setAsyncCompletionExecutor设置默认线程池.</p>
+         *
+         * @return Future, 结果可能为null, ResponsePackage用完后必须手动关闭!!! (本方法强制autoClose=false)
+         */
+        public CompletableFuture<ResponsePackage> sendAsync() {
+            return sendAsync(null);
+        }
+
+        /**
+         * <p>[请求发送]异步请求并获取ResponsePackage返回, 见sendAsync()</p>
+         *
+         * @param completionExecutor Future完成(及后续回调)的线程池, 为空时使用GlaciHttpClient#setAsyncCompletionExecutor设置的默认线程池
+         */
+        public CompletableFuture<ResponsePackage> sendAsync(Executor completionExecutor) {
+            //Future的使用者负责关闭ResponsePackage
+            this.autoClose = false;
+            ResponsePackageFutureCallback callback = new ResponsePackageFutureCallback();
+            return sendFuture(callback, callback.future, completionExecutor);
+        }
+
+        /**
+         * <p>[请求发送]异步请求并获取byte[]返回,
+         * 如果响应码不为2XX, Future会以HttpRejectException异常完成. 取消及完成线程池见sendAsync()</p>
+         *
+         * @return Future, 结果可能为null
+         */
+        public CompletableFuture<byte[]> sendForBytesAsync() {
+            return sendForBytesAsync(null);
+        }
+
+        /**
+         * <p>[请求发送]异步请求并获取byte[]返回, 见sendForBytesAsync()</p>
+         *
+         * @param completionExecutor Future完成(及后续回调)的线程池, 为空时使用GlaciHttpClient#setAsyncCompletionExecutor设置的默认线程池
+         */
+        public CompletableFuture<byte[]> sendForBytesAsync(Executor completionExecutor) {
+            BytesFutureCallback callback = new BytesFutureCallback();
+            return sendFuture(callback, callback.future, completionExecutor);
+        }
+
+        /**
+         * <p>[请求发送]异步请求并获取JavaBean返回,
+         * 如果响应码不为2XX, Future会以HttpRejectException异常完成. 取消及完成线程池见sendAsync()<br>
+         * 注意: 必须配置DataConverter, 否则会报错</p>
+         *
+         * @return Future, 结果可能为null
+         */
+        public <T> CompletableFuture<T> sendForBeanAsync(Class<T> type) {
+            return sendForBeanAsync(type, null);
+        }
+
+        /**
+         * <p>[请求发送]异步请求并获取JavaBean返回, 见sendForBeanAsync(Class)</p>
+         *
+         * @param completionExecutor Future完成(及后续回调)的线程池, 为空时使用GlaciHttpClient#setAsyncCompletionExecutor设置的默认线程池
+         */
+        public <T> CompletableFuture<T> sendForBeanAsync(Class<T> type, Executor completionExecutor) {
+            if (type == null) {
+                throw new IllegalArgumentException("type is null");
+            }
+            BeanFutureCallback<T> callback = new BeanFutureCallback<>(type);
+            return sendFuture(callback, callback.future, completionExecutor);
+        }
+
+        private <T> CompletableFuture<T> sendFuture(ResponsePackageCallback callback, ResponseFuture<T> future, Executor completionExecutor) {
+            future.completionExecutor = completionExecutor;
+            GlaciHttpClient client = getClient();
+            if (client == null) {
+                future.completeExceptionally(new RequestBuildException("Missing GlaciHttpClient instance, has been destroyed (cleaned by gc)"));
+                return future;
+            }
+            if (future.completionExecutor == null) {
+                future.completionExecutor = client.settings.asyncCompletionExecutor;
+            }
+            client.requestEnqueue(this, callback);
+            return future;
+        }
+
         private GlaciHttpClient getClient(){
             GlaciHttpClient client = clientReference.get();
             if (client == null) {
@@ -593,10 +958,19 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
                     ", formBody=" + formBody +
                     ", beanBody=" + beanBody +
                     ", customBody=" + customBody +
+                    ", streamBody=" + streamBody +
                     ", passiveBlockDuration=" + passiveBlockDuration +
                     ", mediaType='" + mediaType + '\'' +
                     ", encode='" + encode + '\'' +
                     ", dataConverter=" + dataConverter +
+                    ", hedgeDelay=" + hedgeDelay +
+                    ", maxRetries=" + maxRetries +
+                    ", idempotent=" + idempotent +
+                    ", totalTimeout=" + totalTimeout +
+                    ", deadlineBudget=" + deadlineBudget +
+                    ", singleFlight=" + singleFlight +
+                    ", compress=" + compress +
+                    ", routingKey='" + routingKey + '\'' +
                     '}';
         }
     }
@@ -609,6 +983,31 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
         private int connectTimeout = -1;
         private int writeTimeout = -1;
         private int readTimeout = -1;
+        //截止时间(Request#totalTimeout/DeadlineBudget), connect/write/read超时不超过剩余时间
+        private long deadline = 0;
+
+        //耗时统计(HttpClientMetrics), 由MetricsEventListener在OkHttp线程中读写, 同一时间只有一个OkHttp请求使用
+        private String hostUrl;
+        private String urlSuffix;
+        private long callStartNanos;
+        private long dnsStartNanos;
+        private long connectStartNanos;
+        private long secureConnectStartNanos;
+        private long requestHeadersStartNanos;
+
+        /**
+         * 复制超时配置, 用于同时发出的第二个请求(对冲请求), 避免耗时统计互相覆盖
+         */
+        private Stub copy(String hostUrl) {
+            Stub stub = new Stub();
+            stub.connectTimeout = connectTimeout;
+            stub.writeTimeout = writeTimeout;
+            stub.readTimeout = readTimeout;
+            stub.deadline = deadline;
+            stub.hostUrl = hostUrl;
+            stub.urlSuffix = urlSuffix;
+            return stub;
+        }
 
     }
 
@@ -617,24 +1016,17 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
             throw new IllegalStateException("GlaciHttpClient.Request can only send once!");
         }
         request.isSend = true;
+        checkDeadlineBudget(request);
 
         if (settings.txTimerEnabled) {
             Object timerContext = NoDepTxTimerProxy.entry(TXTIMER_GROUP_SEND + settings.tag, request.urlSuffix);
             try {
-                if (request.isPost) {
-                    return syncPost(request);
-                } else {
-                    return syncGet(request);
-                }
+                return syncDispatch(request);
             } finally {
                 NoDepTxTimerProxy.exit(timerContext);
             }
         } else {
-            if (request.isPost) {
-                return syncPost(request);
-            } else {
-                return syncGet(request);
-            }
+            return syncDispatch(request);
         }
     }
 
@@ -643,9 +1035,47 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
             throw new IllegalStateException("GlaciHttpClient.Request can only send once!");
         }
         request.isSend = true;
+        try {
+            checkDeadlineBudget(request);
+        } catch (DeadlineExceededException e) {
+            callback.onErrorBeforeSend(e);
+            return;
+        }
+        initDeadline(request);
+
+        if (settings.txTimerEnabled) {
+            callback = new TimedCallback(callback, NoDepTxTimerProxy.entry(TXTIMER_GROUP_SEND + settings.tag, request.urlSuffix));
+        }
 
         if (request.isPost) {
             asyncPost(request, callback);
+            return;
+        }
+        ResponseCache responseCache = this.responseCache;
+        if (responseCache != null) {
+            cacheEnqueue(request, callback, responseCache);
+        } else {
+            asyncDispatchGet(request, callback);
+        }
+    }
+
+    private ResponsePackage syncDispatch(Request request) throws NoHostException, RequestBuildException, IOException, HttpRejectException {
+        if (!request.isPost) {
+            ResponseCache responseCache = this.responseCache;
+            if (responseCache != null) {
+                return cacheSend(request, responseCache);
+            }
+        }
+        return syncDispatchNetwork(request);
+    }
+
+    private ResponsePackage syncDispatchNetwork(Request request) throws NoHostException, RequestBuildException, IOException, HttpRejectException {
+        return request.singleFlight ? singleFlightSend(request) : syncSend(request);
+    }
+
+    private void asyncDispatchGet(Request request, ResponsePackageCallback callback) {
+        if (request.singleFlight) {
+            singleFlightEnqueue(request, callback);
         } else {
             asyncGet(request, callback);
         }
@@ -669,6 +1099,10 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
             }
             throw new RequestConvertException("No DataConverter set, you must set dataConverter before sendForBean()");
         }
+        //流式解析, 不生成完整的byte[] (打印报文日志时除外)
+        if (dataConverter instanceof StreamingDataConverter && !(logger.isInfoEnabled() && settings.logPrintPayload)) {
+            return responseToBeanStreaming(responsePackage, type, (StreamingDataConverter) dataConverter);
+        }
         byte[] responseData = responseToBytes(responsePackage, request);
         printResponseBodyLog(request, responseData);
         try {
@@ -678,6 +1112,44 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
         }
     }
 
+    private <T> T responseToBeanStreaming(ResponsePackage responsePackage, Class<T> type, StreamingDataConverter dataConverter) throws IOException, ResponseConvertException {
+        //返回空
+        if (responsePackage == null || responsePackage.body() == null) {
+            return null;
+        }
+        try {
+            //限定读取长度
+            if (settings.maxReadLength > 0 && responsePackage.body().contentLength() > settings.maxReadLength){
+                throw new IOException("Response contentLength is out of limit, contentLength:" + responsePackage.body().contentLength() + ", limit:" + settings.maxReadLength);
+            }
+            return convertStreaming(responsePackage, type, dataConverter, settings);
+        } finally {
+            //返回JavaBean类型时自动关闭
+            try {
+                responsePackage.close();
+            } catch (Throwable ignore) {
+            }
+        }
+    }
+
+    /**
+     * 从响应输入流解析JavaBean, 读取长度超过maxReadLength时抛出IOException
+     */
+    private static <T> T convertStreaming(ResponsePackage responsePackage, Class<T> type, StreamingDataConverter dataConverter, Settings settings) throws IOException, ResponseConvertException {
+        if (responsePackage.body().contentLength() == 0) {
+            return null;
+        }
+        InputStream inputStream = new LimitedInputStream(responsePackage.body().byteStream(), settings.maxReadLength);
+        try {
+            return dataConverter.convert(inputStream, type);
+        } catch (IOException e) {
+            //读取失败(网络异常/超过长度限制)
+            throw e;
+        } catch (Exception e) {
+            throw new ResponseConvertException("Error while convert InputStream to bean", e);
+        }
+    }
+
     private byte[] responseToBytes(ResponsePackage responsePackage, Request request) throws NoHostException, RequestBuildException, IOException, HttpRejectException {
         //返回空
         if (responsePackage == null || responsePackage.body() == null) {
@@ -718,9 +1190,85 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
         return responsePackage.body().byteStream();
     }
 
+    /**
+     * 同步请求(含重试)
+     */
+    private ResponsePackage syncSend(Request request) throws NoHostException, RequestBuildException, IOException, HttpRejectException {
+        int maxRetries = request.maxRetries >= 0 ? request.maxRetries : settings.maxRetries;
+        initDeadline(request);
+        if (maxRetries <= 0) {
+            return request.isPost ? syncPost(request) : syncGet(request);
+        }
+
+        request.triedHosts = new HashSet<>(maxRetries * 2 + 2);
+        ExtraAttemptBudget retryBudget = this.retryBudget;
+        Exception lastError = null;
+        for (int attempt = 0 ; ; attempt++) {
+            try {
+                ResponsePackage responsePackage = request.isPost ? syncPost(request) : syncGet(request);
+                retryBudget.deposit();
+                return responsePackage;
+            } catch (NoHostException e) {
+                //没有其他后端可以重试, 抛出上一次的异常
+                if (lastError != null) {
+                    retryBudget.refund();
+                    if (logger.isInfoEnabled()) {
+                        logger.info(genLogPrefix(settings.tag, request) + "Retry abandoned, no other host available");
+                    }
+                    if (lastError instanceof HttpRejectException) {
+                        throw (HttpRejectException) lastError;
+                    }
+                    throw (IOException) lastError;
+                }
+                throw e;
+            } catch (RequestBuildException e) {
+                throw e;
+            } catch (IOException | HttpRejectException e) {
+                lastError = e;
+                if (attempt >= maxRetries || !needRetry(e, request)) {
+                    throw e;
+                }
+                if (request.deadline > 0 && System.currentTimeMillis() >= request.deadline) {
+                    throw e;
+                }
+                if (!retryBudget.tryWithdraw()) {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug(genLogPrefix(settings.tag, request) + "Retry skipped, out of retry budget");
+                    }
+                    throw e;
+                }
+                if (logger.isInfoEnabled()) {
+                    logger.info(genLogPrefix(settings.tag, request) + "Retry (" + (attempt + 1) + "/" + maxRetries +
+                            ") on another host, tried " + request.triedHosts + ", cause: " + e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 判断请求失败后是否需要重试(换一个后端)
+     */
+    protected boolean needRetry(Exception e, Request request) {
+        //连接阶段失败, 请求未发出, 任何请求都可以重试
+        if (e instanceof ConnectException || e instanceof NoRouteToHostException || e instanceof UnknownHostException) {
+            return true;
+        }
+        //超过总超时
+        if (e instanceof InterruptedIOException && !(e instanceof SocketTimeoutException)) {
+            return false;
+        }
+        //只能发送一次的报文体(输入流), 无法重发
+        if (request.streamBody != null && request.streamBody.isOneShot()) {
+            return false;
+        }
+        //幂等请求, 需要阻断的异常/返回码
+        boolean idempotent = request.idempotent != null ? request.idempotent : !request.isPost;
+        return idempotent && needBlock(e, settings);
+    }
+
     private ResponsePackage syncPost(Request request) throws NoHostException, RequestBuildException, IOException, HttpRejectException {
         //获取远端
-        LoadBalancedHostManager.Host host = fetchHost();
+        LoadBalancedHostManager.Host host = fetchHost(request);
 
         printPostInputsLog(request, host);
 
@@ -729,10 +1277,12 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
         try {
             okRequest = buildPostRequest(host.getUrl(), request, settings);
         } catch (Throwable t) {
+            host.onRequestAbort();
             printRawUrlLog(request, host);
             throw new RequestBuildException("Error while building request", t);
         }
         if (okRequest == null) {
+            host.onRequestAbort();
             printRawUrlLog(request, host);
             throw new RequestBuildException("Null request built");
         }
@@ -744,8 +1294,13 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
     }
 
     private ResponsePackage syncGet(Request request) throws NoHostException, RequestBuildException, IOException, HttpRejectException {
+        //对冲请求
+        if (request.hedgeDelay >= 0) {
+            return new HedgedCall(request, null).execute();
+        }
+
         //获取远端
-        LoadBalancedHostManager.Host host = fetchHost();
+        LoadBalancedHostManager.Host host = fetchHost(request);
 
         printGetInputsLog(request, host);
 
@@ -754,10 +1309,12 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
         try {
             okRequest = buildGetRequest(host.getUrl(), request, settings);
         } catch (Throwable t) {
+            host.onRequestAbort();
             printRawUrlLog(request, host);
             throw new RequestBuildException("Error while building request", t);
         }
         if (okRequest == null) {
+            host.onRequestAbort();
             printRawUrlLog(request, host);
             throw new RequestBuildException("Null request built");
         }
@@ -771,8 +1328,12 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
     private ResponsePackage syncCall(LoadBalancedHostManager.Host host, okhttp3.Request okRequest, Request request) throws RequestBuildException, IOException, HttpRejectException {
         //后端是否健康
         boolean isOk = true;
+        //导致后端异常的错误
+        Throwable failure = null;
         //被动阻断时长
         long passiveBlockDuration = request.passiveBlockDuration >= 0 ? request.passiveBlockDuration : settings.passiveBlockDuration;
+        //请求开始时间(未完成请求数已在fetchHost中统计)
+        long requestStartNanos = System.nanoTime();
         try {
             //同步请求
             Call call;
@@ -781,24 +1342,21 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
             } catch (Throwable t) {
                 throw new RequestBuildException("Error while building request", t);
             }
+            applyDeadline(call, request);
             Response response = call.execute();
             printResponseCodeLog(request, response);
             //Http拒绝
-            if (!isSucceed(response)) {
+            if (!isSucceed(response, request)) {
                 CloseableUtils.closeQuiet(response);
                 throw new HttpRejectException(response.code(), response.message());
             }
             //报文体
             return ResponsePackage.newInstance(request, response);
         } catch (Throwable t) {
-            if (needBlock(t, settings)) {
+            if (needBlock(t, request, settings)) {
                 //网络故障阻断后端
                 isOk = false;
-                if (logger.isInfoEnabled() && settings.logPrintBlock){
-                    logger.info(genLogPrefix(settings.tag, request) + "Bad host " + host.getUrl() + ", block for " + passiveBlockDuration +
-                            " ms, recovery period (half-open) " + (passiveBlockDuration * settings.recoveryCoefficient) +
-                            " ms. Passive block, recoveryCoefficient " + settings.recoveryCoefficient);
-                }
+                failure = t;
             }
             if (t instanceof  IOException ||
                     t instanceof HttpRejectException ||
@@ -809,7 +1367,10 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
             }
         } finally {
             //反馈健康状态
-            host.feedback(isOk, passiveBlockDuration, settings.recoveryCoefficient);
+            boolean blocked = host.feedback(isOk, passiveBlockDuration, settings.recoveryCoefficient, requestStartNanos, failure);
+            if (!isOk) {
+                printPassiveBlockLog(settings, request, host, passiveBlockDuration, blocked);
+            }
         }
     }
 
@@ -827,7 +1388,7 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
 
         try {
             //获取远端
-            LoadBalancedHostManager.Host host = fetchHost();
+            LoadBalancedHostManager.Host host = fetchHost(request);
 
             printPostInputsLog(request, host);
 
@@ -836,10 +1397,12 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
             try {
                 okRequest = buildPostRequest(host.getUrl(), request, settings);
             } catch (Throwable t) {
+                host.onRequestAbort();
                 printRawUrlLog(request, host);
                 throw new RequestBuildException("Error while building request", t);
             }
             if (okRequest == null) {
+                host.onRequestAbort();
                 printRawUrlLog(request, host);
                 throw new RequestBuildException("Null request built");
             }
@@ -857,9 +1420,19 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
 
         callback.setContext(settings, request);
 
+        //对冲请求
+        if (request.hedgeDelay >= 0) {
+            try {
+                new HedgedCall(request, callback).enqueue();
+            } catch (NoHostException | RequestBuildException e) {
+                callback.onErrorBeforeSend(e);
+            }
+            return;
+        }
+
         try {
             //获取远端
-            LoadBalancedHostManager.Host host = fetchHost();
+            LoadBalancedHostManager.Host host = fetchHost(request);
 
             printGetInputsLog(request, host);
 
@@ -868,10 +1441,12 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
             try {
                 okRequest = buildGetRequest(host.getUrl(), request, settings);
             } catch (Throwable t) {
+                host.onRequestAbort();
                 printRawUrlLog(request, host);
                 throw new RequestBuildException("Error while building request", t);
             }
             if (okRequest == null) {
+                host.onRequestAbort();
                 printRawUrlLog(request, host);
                 throw new RequestBuildException("Null request built");
             }
@@ -886,14 +1461,19 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
     }
 
     private void asyncCall(final LoadBalancedHostManager.Host host, okhttp3.Request okRequest, final Request request, final ResponsePackageCallback callback)  {
+        //请求开始时间(未完成请求数已在fetchHost中统计)
+        final long requestStartNanos = System.nanoTime();
         //异步请求
         try {
-            getOkHttpClient().newCall(okRequest).enqueue(new Callback() {
+            Call call = getOkHttpClient().newCall(okRequest);
+            applyDeadline(call, request);
+            callback.bindCall(call);
+            call.enqueue(new Callback() {
                 @Override
                 public void onResponse(Call call, Response response) throws IOException {
                     printResponseCodeLog(request, response);
                     //Http拒绝
-                    if (!isSucceed(response)) {
+                    if (!isSucceed(response, request)) {
                         CloseableUtils.closeQuiet(response);
                         Exception exception = new HttpRejectException(response.code(), response.message());
                         tryBlock(exception);
@@ -901,7 +1481,7 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
                         return;
                     }
                     //反馈健康(反馈健康无需计算阻断时长)
-                    host.feedback(true, 0);
+                    host.feedback(true, 0, 1, requestStartNanos);
                     //报文体
                     try {
                         callback.onSucceed(ResponsePackage.newInstance(request, response));
@@ -918,27 +1498,29 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
                 }
                 @Override
                 public void onFailure(Call call, IOException e) {
-                    tryBlock(e);
+                    if (call.isCanceled()) {
+                        //调用方取消的请求, 不影响后端健康状态
+                        host.onRequestAbort();
+                    } else {
+                        tryBlock(e);
+                    }
                     callback.onErrorAfterSend(e);
                 }
                 private void tryBlock(Exception e){
-                    if (needBlock(e, settings)) {
+                    if (needBlock(e, request, settings)) {
                         //网络故障阻断后端
                         long passiveBlockDuration = request.passiveBlockDuration >= 0 ? request.passiveBlockDuration : settings.passiveBlockDuration;
                         //反馈异常
-                        host.feedback(false, passiveBlockDuration, settings.recoveryCoefficient);
-                        if (logger.isInfoEnabled() && settings.logPrintBlock) {
-                            logger.info(genLogPrefix(settings.tag, request) + "Bad host " + host.getUrl() + ", block for " + passiveBlockDuration +
-                                    " ms, recovery period (half-open) " + (passiveBlockDuration * settings.recoveryCoefficient) +
-                                    " ms. Passive block, recoveryCoefficient " + settings.recoveryCoefficient);
-                        }
+                        boolean blocked = host.feedback(false, passiveBlockDuration, settings.recoveryCoefficient, requestStartNanos, e);
+                        printPassiveBlockLog(settings, request, host, passiveBlockDuration, blocked);
                     } else {
                         //反馈健康(反馈健康无需计算阻断时长)
-                        host.feedback(true, 0);
+                        host.feedback(true, 0, 1, requestStartNanos);
                     }
                 }
             });
         } catch (Exception t) {
+            host.onRequestAbort();
             callback.onErrorBeforeSend(new RequestBuildException("Error while building request", t));
         }
     }
@@ -946,807 +1528,2776 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
 
     ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
     ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
-    // 公共请求逻辑
+    // 对冲请求逻辑
     ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
     ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
 
 
-    private LoadBalancedHostManager.Host fetchHost() throws NoHostException {
-        LoadBalancedHostManager.Host host = hostManager.nextHost();
-        if (host == null){
-            throw new NoHostException("No host");
+    /**
+     * 对冲请求(仅GET): 第一个请求超过延迟未响应时, 向另一个后端发送第二个请求, 取先成功的响应, 取消另一个请求.
+     * 两个请求都用OkHttp异步发送, 同步方式由调用线程等待结果.
+     */
+    private final class HedgedCall {
+
+        private final Request request;
+        private final ResponsePackageCallback callback;
+        private final long passiveBlockDuration;
+        private final long hedgeDelay;
+
+        private final Call[] calls = new Call[2];
+        private final LoadBalancedHostManager.Host[] hosts = new LoadBalancedHostManager.Host[2];
+        private int started = 0;
+        private int finished = 0;
+        private boolean done = false;
+        private Response winner;
+        private Exception error;
+
+        private HedgedCall(Request request, ResponsePackageCallback callback) {
+            this.request = request;
+            this.callback = callback;
+            this.passiveBlockDuration = request.passiveBlockDuration >= 0 ? request.passiveBlockDuration : settings.passiveBlockDuration;
+            this.hedgeDelay = resolveHedgeDelay(request);
+            hedgeBudget.deposit();
         }
-        return host;
-    }
 
-    private OkHttpClient getOkHttpClient(){
-        //自动启动
-        start();
-        //客户端创建错误后, 不再重试
-        if (clientCreateException != null) {
-            throw new IllegalStateException("Client create error", clientCreateException);
+        /**
+         * 同步执行
+         */
+        private ResponsePackage execute() throws NoHostException, RequestBuildException, IOException, HttpRejectException {
+            launch(0, fetchHost(request));
+            try {
+                if (hedgeDelay > 0) {
+                    long deadline = System.currentTimeMillis() + hedgeDelay;
+                    synchronized (this) {
+                        long remaining;
+                        while (!done && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                            wait(remaining);
+                        }
+                    }
+                    hedge();
+                }
+                synchronized (this) {
+                    while (!done) {
+                        wait();
+                    }
+                }
+            } catch (InterruptedException e) {
+                cancelAll();
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for hedged request");
+            }
+            if (winner != null) {
+                return ResponsePackage.newInstance(request, winner);
+            }
+            if (error instanceof IOException) {
+                throw (IOException) error;
+            } else if (error instanceof HttpRejectException) {
+                throw (HttpRejectException) error;
+            }
+            throw new IOException("Error while requesting", error);
         }
-        //一次检查
-        while (okHttpClient == null || refreshSettings) {
-            //自旋锁
-            if (!settingsLock.get() && settingsLock.compareAndSet(false, true)) {
+
+        /**
+         * 异步执行
+         */
+        private void enqueue() throws NoHostException, RequestBuildException {
+            launch(0, fetchHost(request));
+            if (hedgeDelay > 0) {
                 try {
-                    //二次检查e
-                    if (okHttpClient == null || refreshSettings) {
-                        OkHttpClient client = createOkHttpClient(settings);
-                        okHttpClient = client;
-                        refreshSettings = false;
-                        //跳出循环, 避免因为refreshSettings反复被改为true反复由同一个线程创建客户端
-                        break;
-                    }
+                    scheduler.schedule(this::hedge, hedgeDelay, TimeUnit.MILLISECONDS);
                 } catch (Exception e) {
-                    clientCreateException = e;
-                    throw e;
-                } finally {
-                    //解锁
-                    settingsLock.set(false);
+                    logger.warn(genLogPrefix(settings.tag, request) + "Hedge request can not be scheduled", e);
                 }
-            } else {
-                Thread.yield();
             }
         }
-        return okHttpClient;
-    }
-
-    /**
-     * 初始化OkHttpClient实例(复写本方法实现自定义的逻辑)
-     * @return OkHttpClient实例
-     */
-    @SuppressWarnings("deprecation")
-    protected OkHttpClient createOkHttpClient(Settings settings){
 
-        Dispatcher dispatcher = new Dispatcher();
-        dispatcher.setMaxRequests(settings.maxThreads);
-        dispatcher.setMaxRequestsPerHost(settings.maxThreadsPerHost);
+        private void launch(int index, LoadBalancedHostManager.Host host) throws RequestBuildException {
+            printGetInputsLog(request, host);
+            okhttp3.Request okRequest;
+            try {
+                okRequest = buildGetRequest(host.getUrl(), request, settings);
+            } catch (Throwable t) {
+                host.onRequestAbort();
+                printRawUrlLog(request, host);
+                throw new RequestBuildException("Error while building request", t);
+            }
+            if (okRequest == null) {
+                host.onRequestAbort();
+                printRawUrlLog(request, host);
+                throw new RequestBuildException("Null request built");
+            }
+            printRealUrlLog(request, okRequest);
 
-        ConnectionPool connectionPool = new ConnectionPool(settings.maxIdleConnections, 5, TimeUnit.MINUTES);
+            Call call;
+            try {
+                if (index > 0 && okRequest.tag() instanceof Stub) {
+                    //对冲请求与第一个请求同时进行, 使用独立的Stub
+                    okRequest = okRequest.newBuilder().tag(((Stub) okRequest.tag()).copy(host.getUrl())).build();
+                }
+                call = getOkHttpClient().newCall(okRequest);
+                applyDeadline(call, request);
+            } catch (Throwable t) {
+                host.onRequestAbort();
+                throw new RequestBuildException("Error while building request", t);
+            }
+            synchronized (this) {
+                if (done) {
+                    host.onRequestAbort();
+                    return;
+                }
+                calls[index] = call;
+                hosts[index] = host;
+                started++;
+            }
+            if (callback != null) {
+                callback.bindCall(call);
+            }
+            try {
+                call.enqueue(new AttemptCallback(host, System.nanoTime()));
+            } catch (Throwable t) {
+                host.onRequestAbort();
+                synchronized (this) {
+                    started--;
+                    calls[index] = null;
+                }
+                throw new RequestBuildException("Error while building request", t);
+            }
+        }
 
-        OkHttpClient.Builder builder = new OkHttpClient.Builder()
-                .connectTimeout(settings.connectTimeout, TimeUnit.MILLISECONDS)
-                .writeTimeout(settings.writeTimeout, TimeUnit.MILLISECONDS)
-                .readTimeout(settings.readTimeout, TimeUnit.MILLISECONDS)
-                .connectionPool(connectionPool)
-                .dispatcher(dispatcher);
+        /**
+         * 延迟到期, 发起对冲请求
+         */
+        private void hedge() {
+            LoadBalancedHostManager.Host primary;
+            synchronized (this) {
+                if (done || started != 1) {
+                    return;
+                }
+                primary = hosts[0];
+            }
+            LoadBalancedHostManager.Host host = fetchHedgeHost(primary);
+            if (host == null) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug(genLogPrefix(settings.tag, request) + "Hedge skipped, no other available host");
+                }
+                return;
+            }
+            if (!hedgeBudget.tryWithdraw()) {
+                host.onRequestAbort();
+                if (logger.isDebugEnabled()) {
+                    logger.debug(genLogPrefix(settings.tag, request) + "Hedge skipped, out of hedge budget");
+                }
+                return;
+            }
+            try {
+                launch(1, host);
+                if (logger.isInfoEnabled() && settings.logPrintUrl) {
+                    logger.info(genLogPrefix(settings.tag, request) + "Hedge request to " + host.getUrl() + ", primary " +
+                            primary.getUrl() + " not responding in " + hedgeDelay + " ms");
+                }
+            } catch (RequestBuildException e) {
+                hedgeBudget.refund();
+                logger.warn(genLogPrefix(settings.tag, request) + "Hedge request build failed", e);
+            }
+        }
 
-        builder.addInterceptor(new Interceptor(){
-            @Override
-            public Response intercept(Chain chain) throws IOException {
-                okhttp3.Request request = chain.request();
-                if (request.tag() instanceof Stub) {
-                    Stub stub = (Stub) request.tag();
-                    if (stub.connectTimeout > 0) {
-                        chain = chain.withConnectTimeout(stub.connectTimeout, TimeUnit.MILLISECONDS);
-                    }
-                    if (stub.writeTimeout > 0) {
-                        chain = chain.withWriteTimeout(stub.writeTimeout, TimeUnit.MILLISECONDS);
-                    }
-                    if (stub.readTimeout > 0) {
-                        chain = chain.withReadTimeout(stub.readTimeout, TimeUnit.MILLISECONDS);
-                    }
+        private LoadBalancedHostManager.Host fetchHedgeHost(LoadBalancedHostManager.Host primary) {
+            if (request.routingKey != null) {
+                LoadBalancedHostManager.Host host = hostManager.nextHost(request.routingKey, Collections.singleton(primary.getUrl()));
+                if (host == null || host.getUrl().equals(primary.getUrl())) {
+                    return null;
                 }
-                return chain.proceed(request);
+                return host.tryAcquire() ? host : null;
             }
-        });
+            for (int i = 0 ; i < 3 ; i++) {
+                LoadBalancedHostManager.Host host = hostManager.nextHost();
+                if (host == null) {
+                    return null;
+                }
+                if (!host.getUrl().equals(primary.getUrl())) {
+                    return host.tryAcquire() ? host : null;
+                }
+            }
+            return null;
+        }
 
-        if (settings.cookieJar != null) {
-            builder.cookieJar(settings.cookieJar);
+        private void cancelAll() {
+            Call[] calls;
+            synchronized (this) {
+                done = true;
+                calls = this.calls.clone();
+            }
+            for (Call call : calls) {
+                if (call != null) {
+                    call.cancel();
+                }
+            }
         }
-        if (settings.proxy != null) {
-            builder.proxy(settings.proxy);
+
+        private void onAttemptSucceed(Call call, Response response) {
+            Call loser = null;
+            synchronized (this) {
+                if (done) {
+                    //已有结果(另一个请求先成功, 或调用方中断), 丢弃
+                    CloseableUtils.closeQuiet(response);
+                    return;
+                }
+                done = true;
+                winner = response;
+                for (Call c : calls) {
+                    if (c != null && c != call) {
+                        loser = c;
+                    }
+                }
+                notifyAll();
+            }
+            if (loser != null) {
+                loser.cancel();
+            }
+            if (callback == null) {
+                return;
+            }
+            try {
+                callback.onSucceed(ResponsePackage.newInstance(request, response));
+                //自动关闭
+                if (request.autoClose) {
+                    CloseableUtils.closeQuiet(response);
+                }
+            } catch (Exception e) {
+                //处理onSucceed
+                callback.errorOnSucceedProcessing(e);
+                //强制关闭
+                CloseableUtils.closeQuiet(response);
+            }
         }
-        if (settings.dns != null) {
-            builder.dns(settings.dns);
+
+        private void onAttemptFailed(Exception e) {
+            synchronized (this) {
+                finished++;
+                if (error == null) {
+                    error = e;
+                }
+                //所有已发出的请求都失败了(第一个请求在对冲前失败, 直接失败)
+                if (done || finished < started) {
+                    return;
+                }
+                done = true;
+                notifyAll();
+            }
+            if (callback != null) {
+                callback.onErrorAfterSend(error);
+            }
         }
 
-        if (settings.sslConfigSupplier != null){
-            SslConfig sslConfig = settings.sslConfigSupplier.getSslConfig();
-            if (sslConfig != null && sslConfig.getSslSocketFactory() != null) {
-                if (sslConfig.getTrustManager() != null) {
-                    // 最好两个都有, 不然OkHttp3会用反射的方式清理证书链
-                    builder.sslSocketFactory(sslConfig.getSslSocketFactory(), sslConfig.getTrustManager());
+        private final class AttemptCallback implements Callback {
+
+            private final LoadBalancedHostManager.Host host;
+            private final long requestStartNanos;
+
+            private AttemptCallback(LoadBalancedHostManager.Host host, long requestStartNanos) {
+                this.host = host;
+                this.requestStartNanos = requestStartNanos;
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                printResponseCodeLog(request, response);
+                //Http拒绝
+                if (!isSucceed(response, request)) {
+                    CloseableUtils.closeQuiet(response);
+                    Exception exception = new HttpRejectException(response.code(), response.message());
+                    tryBlock(exception);
+                    onAttemptFailed(exception);
+                    return;
+                }
+                //反馈健康(反馈健康无需计算阻断时长)
+                host.feedback(true, 0, 1, requestStartNanos);
+                hedgeLatencyTracker.record(request.urlSuffix, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - requestStartNanos));
+                onAttemptSucceed(call, response);
+            }
+
+            @Override
+            public void onFailure(Call call, IOException e) {
+                if (call.isCanceled()) {
+                    //被对冲取消的请求, 不影响后端健康状态
+                    host.onRequestAbort();
+                } else {
+                    tryBlock(e);
+                }
+                onAttemptFailed(e);
+            }
+
+            private void tryBlock(Exception e){
+                if (needBlock(e, request, settings)) {
+                    //网络故障阻断后端
+                    boolean blocked = host.feedback(false, passiveBlockDuration, settings.recoveryCoefficient, requestStartNanos, e);
+                    printPassiveBlockLog(settings, request, host, passiveBlockDuration, blocked);
                 } else {
-                    builder.sslSocketFactory(sslConfig.getSslSocketFactory());
+                    //反馈健康(反馈健康无需计算阻断时长)
+                    host.feedback(true, 0, 1, requestStartNanos);
                 }
             }
-        }
 
-        if (settings.hostnameVerifier != null) {
-            builder.hostnameVerifier(settings.hostnameVerifier);
         }
 
-        return builder.build();
     }
 
     /**
-     * 根据URL和报文体组POST请求(复写本方法实现自定义的逻辑)
-     * @param url 由LoadBalancedHostManager选择出的远端url(前缀)
-     * @param request 请求参数
-     * @param settings 客户端配置
-     * @return Request
-     * @throws RequestBuildException 构建异常
+     * @return 对冲延迟ms, <=0 不对冲
      */
-    protected okhttp3.Request buildPostRequest(String url, Request request, Settings settings) throws RequestBuildException{
-        if (request.urlSuffix == null) {
-            request.urlSuffix = "";
+    private long resolveHedgeDelay(Request request) {
+        if (request.hedgeDelay > 0) {
+            return request.hedgeDelay;
         }
-        HttpUrl httpUrl = HttpUrl.parse(url + request.urlSuffix);
-        if (httpUrl == null){
-            throw new RequestBuildException("Invalid url:" + url + request.urlSuffix);
+        long percentileValue = hedgeLatencyTracker.getPercentileValue(request.urlSuffix);
+        if (percentileValue < 0) {
+            //样本不足
+            return -1L;
         }
+        return Math.max(percentileValue, settings.hedgeMinDelay);
+    }
 
-        String encode = request.encode != null ? request.encode : settings.encode;
 
-        if (request.urlParams != null){
-            HttpUrl.Builder httpUrlBuilder = httpUrl.newBuilder();
-            for (Map.Entry<String, Object> param : request.urlParams.entrySet()) {
-                try {
-                    httpUrlBuilder.addEncodedQueryParameter(param.getKey(),
-                            URLEncoder.encode(param.getValue() != null ? param.getValue().toString() : "", encode));
-                } catch (UnsupportedEncodingException e) {
-                    throw new RequestBuildException("Error while encode urlParams to url format", e);
-                }
-            }
-            httpUrl = httpUrlBuilder.build();
+    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // 合并请求逻辑(single-flight)
+    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+    /**
+     * 一组合并的请求: 第一个请求(leader)实际发送, 其他相同的请求(follower)等待它的结果
+     */
+    private static final class SingleFlight {
+
+        private final String key;
+        private final AtomicInteger followers = new AtomicInteger(0);
+        private final CompletableFuture<SingleFlight> done = new CompletableFuture<>();
+
+        //结果, 在done完成前写入
+        private ResponsePackage response;
+        private byte[] bodyData;
+        private Exception error;
+
+        private SingleFlight(String key) {
+            this.key = key;
         }
 
-        RequestBody requestBody;
-        if (request.body != null) {
-            //bytes
-            printPostRequestBodyLog(request, null);
-            requestBody = RequestBody.create(getMediaType(request, settings, null), request.body);
-        } else if (request.formBody != null) {
-            //form
-            printPostRequestBodyLog(request, null);
-            FormBody.Builder formBuilder = new FormBody.Builder();
-            for (Map.Entry<String, Object> param : request.formBody.entrySet()) {
-                try {
-                    formBuilder.addEncoded(param.getKey(),
-                            URLEncoder.encode(param.getValue() != null ? param.getValue().toString() : "", encode));
-                } catch (UnsupportedEncodingException e) {
-                    throw new RequestBuildException("Error while encode formBody to url format", e);
+        /**
+         * 获取一份结果(同步方式)
+         * @param isLeader true: leader自己获取结果(原异常实例), false: 等待者获取结果(每个等待者一个新的异常实例)
+         */
+        private ResponsePackage result(Request request, boolean isLeader) throws NoHostException, RequestBuildException, IOException, HttpRejectException {
+            Exception error = isLeader ? this.error : copyError(this.error);
+            if (error != null) {
+                if (error instanceof IOException) {
+                    throw (IOException) error;
+                } else if (error instanceof HttpRejectException) {
+                    throw (HttpRejectException) error;
+                } else if (error instanceof NoHostException) {
+                    throw (NoHostException) error;
+                } else if (error instanceof RequestBuildException) {
+                    throw (RequestBuildException) error;
                 }
+                throw new IOException("Error while requesting", error);
             }
-            requestBody = new RequestBodyWrapper(formBuilder.build(), getMediaType(request, settings, MEDIA_TYPE_FORM));
-        } else if (request.beanBody != null) {
-            //bean
-            DataConverter dataConverter = request.dataConverter != null ? request.dataConverter : settings.dataConverter;
-            if (dataConverter == null) {
-                throw new RequestConvertException("No DataConverter set, you must set dataConverter before send/enqueue a beanBody");
-            }
-            byte[] requestBodyBytes;
-            try {
-                requestBodyBytes = dataConverter.convert(request.beanBody);
-            } catch (Exception e) {
-                throw new RequestConvertException("Error while convert bean to byte[]", e);
-            }
-            printPostRequestBodyLog(request, requestBodyBytes);
-            requestBody = RequestBody.create(getMediaType(request, settings, null), requestBodyBytes);
-        } else if (request.customBody != null) {
-            //custom
-            printPostRequestBodyLog(request, null);
-            requestBody = request.customBody;
-        }else {
-            //null
-            requestBody = RequestBody.create(getMediaType(request, settings, null), new byte[0]);
+            return response != null ? new ResponsePackage(response, request, bodyData) : null;
         }
 
-        okhttp3.Request.Builder builder = new okhttp3.Request.Builder()
-                .url(httpUrl)
-                .post(requestBody)
-                .tag(request.stub);
-
-        HttpHeaders headers = settings.headers;
-        if (headers != null){
-            headers.traverse(builder::addHeader);
+        /**
+         * 获取一份结果(异步方式)
+         * @param isLeader true: leader自己获取结果(原异常实例), false: 等待者获取结果(每个等待者一个新的异常实例)
+         */
+        private void deliver(Request request, ResponsePackageCallback callback, boolean isLeader) {
+            if (error != null) {
+                deliverError(callback, isLeader ? error : copyError(error));
+                return;
+            }
+            deliverResponse(request, callback, response != null ? new ResponsePackage(response, request, bodyData) : null);
         }
 
-        headers = request.headers;
-        if (headers != null){
-            headers.traverse(builder::addHeader);
+        /**
+         * 复制leader的异常给等待者(类型不变, 原异常作为cause), 避免多个线程抛出同一个异常实例(堆栈/addSuppressed互相干扰)
+         */
+        private static Exception copyError(Exception error) {
+            if (error == null) {
+                return null;
+            }
+            Exception copy;
+            if (error instanceof HttpRejectException) {
+                HttpRejectException rejectException = (HttpRejectException) error;
+                copy = new HttpRejectException(rejectException.getResponseCode(), rejectException.getResponseMessage());
+            } else if (error instanceof HostOverloadException) {
+                copy = new HostOverloadException(error.getMessage());
+            } else if (error instanceof NoHostException) {
+                copy = new NoHostException(error.getMessage());
+            } else if (error instanceof DeadlineExceededException) {
+                copy = new DeadlineExceededException(error.getMessage());
+            } else if (error instanceof RequestBuildException) {
+                return new RequestBuildException(error.getMessage(), error);
+            } else if (error instanceof SocketTimeoutException) {
+                copy = new SocketTimeoutException(error.getMessage());
+            } else if (error instanceof InterruptedIOException) {
+                copy = new InterruptedIOException(error.getMessage());
+            } else if (error instanceof ConnectException) {
+                copy = new ConnectException(error.getMessage());
+            } else if (error instanceof IOException) {
+                return new IOException(error.getMessage(), error);
+            } else {
+                return new IOException("Error while requesting", error);
+            }
+            copy.initCause(error);
+            return copy;
         }
 
-        return builder.build();
     }
 
     /**
-     * 根据URL和报文体组GET请求(复写本方法实现自定义的逻辑)
-     * @param url 由LoadBalancedHostManager选择出的远端url(前缀)
-     * @param request 请求参数
-     * @param settings 客户端配置
-     * @return Request
-     * @throws RequestBuildException 构建异常
+     * 回调内存中的响应(合并请求/响应缓存), 回调方式与asyncCall相同
      */
-    protected okhttp3.Request buildGetRequest(String url, Request request, Settings settings) throws RequestBuildException{
-        if (request.urlSuffix == null) {
-            request.urlSuffix = "";
-        }
-        HttpUrl httpUrl = HttpUrl.parse(url + request.urlSuffix);
-        if (httpUrl == null){
-            throw new RequestBuildException("Invalid url:" + url + request.urlSuffix);
+    private static void deliverResponse(Request request, ResponsePackageCallback callback, ResponsePackage responsePackage) {
+        try {
+            callback.onSucceed(responsePackage);
+            //自动关闭
+            if (request.autoClose) {
+                CloseableUtils.closeQuiet(responsePackage);
+            }
+        } catch (Exception e) {
+            //处理onSucceed
+            callback.errorOnSucceedProcessing(e);
+            //强制关闭
+            CloseableUtils.closeQuiet(responsePackage);
         }
+    }
 
-        String encode = request.encode != null ? request.encode : settings.encode;
+    /**
+     * 回调异常(合并请求/响应缓存), 按异常类型区分请求前/请求后
+     */
+    private static void deliverError(ResponsePackageCallback callback, Exception error) {
+        if (error instanceof NoHostException || error instanceof RequestBuildException) {
+            callback.onErrorBeforeSend(error);
+        } else {
+            callback.onErrorAfterSend(error);
+        }
+    }
 
-        if (request.urlParams != null){
-            HttpUrl.Builder httpUrlBuilder = httpUrl.newBuilder();
-            for (Map.Entry<String, Object> param : request.urlParams.entrySet()) {
-                try {
-                    httpUrlBuilder.addEncodedQueryParameter(param.getKey(),
-                            URLEncoder.encode(param.getValue() != null ? param.getValue().toString() : "", encode));
-                } catch (UnsupportedEncodingException e) {
-                    throw new RequestBuildException("Error while encode to url format", e);
-                }
+    /**
+     * 将响应体完整读入内存并关闭响应(合并请求/响应缓存), 受maxReadLength限制
+     */
+    private byte[] bufferResponseBody(ResponsePackage responsePackage) throws IOException {
+        try {
+            //限定读取长度
+            if (settings.maxReadLength > 0 && responsePackage.body().contentLength() > settings.maxReadLength) {
+                throw new IOException("Response contentLength is out of limit, contentLength:" + responsePackage.body().contentLength() + ", limit:" + settings.maxReadLength);
             }
-            httpUrl = httpUrlBuilder.build();
+            if (responsePackage.body().contentLength() < 0) {
+                //长度未知(分块传输)
+                return Okio.buffer(Okio.source(new LimitedInputStream(responsePackage.body().byteStream(), settings.maxReadLength))).readByteArray();
+            }
+            return responsePackage.body().bytes();
+        } finally {
+            responsePackage.close();
         }
+    }
 
-        okhttp3.Request.Builder builder = new okhttp3.Request.Builder()
-                .url(httpUrl)
-                .get()
-                .tag(request.stub);
-
-        HttpHeaders headers = settings.headers;
-        if (headers != null){
-            headers.traverse(builder::addHeader);
+    /**
+     * 合并请求/响应缓存的KEY: routingKey + urlSuffix + urlParams + httpHeaders (同一个客户端的远端/客户端请求头相同),
+     * routingKey不同的请求可能被路由到不同的后端(一致性哈希), 不能合并/共用缓存
+     */
+    private String requestKey(Request request) {
+        StringBuilder stringBuilder = new StringBuilder(128);
+        if (request.routingKey != null) {
+            stringBuilder.append(request.routingKey).append('@');
         }
-
-        headers = request.headers;
-        if (headers != null){
-            headers.traverse(builder::addHeader);
+        stringBuilder.append(request.urlSuffix);
+        if (request.urlParams != null && request.urlParams.size() > 0) {
+            Map<String, String> sorted = new TreeMap<>();
+            for (Map.Entry<String, Object> entry : request.urlParams.entrySet()) {
+                sorted.put(entry.getKey(), String.valueOf(entry.getValue()));
+            }
+            stringBuilder.append('?').append(sorted);
         }
-
-        return builder.build();
+        if (request.headers != null) {
+            stringBuilder.append('#').append(new TreeMap<>(request.headers.toMultiValueMap()));
+        }
+        return stringBuilder.toString();
     }
 
     /**
-     * 判断该异常是否需要阻断后端, 返回true阻断
+     * 加入正在进行中的合并请求
+     * @return 加入的合并请求, 没有进行中的请求时返回null(由调用者发送), 等待者达到上限时返回NO_SINGLE_FLIGHT(单独发送)
      */
-    protected boolean needBlock(Throwable t, Settings settings) {
-        if (t == null) {
-            return false;
+    private SingleFlight joinSingleFlight(Request request, SingleFlight newFlight) {
+        SingleFlight flight = singleFlights.putIfAbsent(newFlight.key, newFlight);
+        if (flight == null) {
+            //成为leader
+            if (settings.singleFlightLeaderTimeout > 0) {
+                request.totalTimeout = request.totalTimeout > 0 ?
+                        Math.min(request.totalTimeout, settings.singleFlightLeaderTimeout) : settings.singleFlightLeaderTimeout;
+            }
+            return null;
         }
-        if (settings.throwableNeedBlock.contains(t.getClass())) {
-            return true;
+        if (flight.followers.incrementAndGet() > settings.singleFlightMaxWaiters) {
+            //等待者达到上限, 单独发送
+            return NO_SINGLE_FLIGHT;
         }
-        return t instanceof SocketException || // 包含ConnectException
-                t instanceof SocketTimeoutException || // 超时
-                t instanceof TimeoutException || // 异步超时
-                t instanceof UnknownHostException ||
-                (t instanceof HttpRejectException && settings.httpCodeNeedBlock.contains(((HttpRejectException) t).getResponseCode()));
+        if (logger.isInfoEnabled() && settings.logPrintUrl) {
+            logger.info(genLogPrefix(settings.tag, request) + "Join single-flight: " + flight.key);
+        }
+        return flight;
     }
 
     /**
-     * 判断HTTP请求是否成功, 返回true成功
+     * leader请求结束: 读取响应体, 移除合并请求(之后的请求重新发送), 通知等待者
      */
-    protected boolean isSucceed(Response response) {
-        return response.isSuccessful();
+    private void finishSingleFlight(SingleFlight flight, ResponsePackage responsePackage, Exception error) {
+        if (error == null && responsePackage != null) {
+            try {
+                flight.bodyData = bufferResponseBody(responsePackage);
+                flight.response = responsePackage;
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+        flight.error = error;
+        singleFlights.remove(flight.key, flight);
+        flight.done.complete(flight);
     }
 
-    private MediaType getMediaType(Request request, Settings settings, String defaultMediaType) {
-        if (request.mediaType != null) {
-            return MediaType.parse(request.mediaType);
+    private ResponsePackage singleFlightSend(Request request) throws NoHostException, RequestBuildException, IOException, HttpRejectException {
+        SingleFlight flight = new SingleFlight(requestKey(request));
+        SingleFlight joined = joinSingleFlight(request, flight);
+        if (joined == NO_SINGLE_FLIGHT) {
+            return syncSend(request);
         }
-        if (request.headers != null) {
-            String contentType = request.headers.getSingleValue("Content-Type");
-            if (contentType != null) {
-                return MediaType.parse(contentType);
+
+        //follower: 等待leader的结果
+        if (joined != null) {
+            long timeout = settings.singleFlightFollowerTimeout;
+            if (request.totalTimeout > 0) {
+                timeout = timeout > 0 ? Math.min(timeout, request.totalTimeout) : request.totalTimeout;
+            }
+            try {
+                if (timeout > 0) {
+                    joined.done.get(timeout, TimeUnit.MILLISECONDS);
+                } else {
+                    joined.done.get();
+                }
+            } catch (TimeoutException e) {
+                throw new SocketTimeoutException("Single-flight follower timeout (" + timeout + " ms), waiting for the leader request: " + joined.key);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the single-flight leader request: " + joined.key);
+            } catch (ExecutionException e) {
+                //不会发生, done总是正常完成
+                throw new IOException("Error while waiting for the single-flight leader request", e.getCause());
             }
+            return joined.result(request, false);
         }
-        if (settings.mediaType != null) {
-            return MediaType.parse(settings.mediaType);
+
+        //leader: 发送请求
+        ResponsePackage responsePackage = null;
+        Exception error = null;
+        try {
+            responsePackage = syncSend(request);
+        } catch (Exception e) {
+            error = e;
+        } finally {
+            finishSingleFlight(flight, responsePackage, error);
         }
-        if (settings.headers != null) {
-            String contentType = settings.headers.getSingleValue("Content-Type");
-            if (contentType != null) {
-                return MediaType.parse(contentType);
-            }
+        return flight.result(request, true);
+    }
+
+    private void singleFlightEnqueue(final Request request, final ResponsePackageCallback callback) {
+        final SingleFlight flight = new SingleFlight(requestKey(request));
+        final SingleFlight joined = joinSingleFlight(request, flight);
+        if (joined == NO_SINGLE_FLIGHT) {
+            asyncGet(request, callback);
+            return;
         }
-        if (defaultMediaType != null) {
-            return MediaType.parse(defaultMediaType);
+
+        //follower: 等待leader的结果
+        if (joined != null) {
+            callback.setContext(settings, request);
+            long timeout = settings.singleFlightFollowerTimeout;
+            if (request.totalTimeout > 0) {
+                timeout = timeout > 0 ? Math.min(timeout, request.totalTimeout) : request.totalTimeout;
+            }
+            final AtomicBoolean delivered = new AtomicBoolean(false);
+            final ScheduledFuture<?> timeoutFuture;
+            if (timeout > 0) {
+                final long finalTimeout = timeout;
+                timeoutFuture = scheduler.schedule(() -> {
+                    if (delivered.compareAndSet(false, true)) {
+                        callback.onErrorAfterSend(new SocketTimeoutException("Single-flight follower timeout (" + finalTimeout +
+                                " ms), waiting for the leader request: " + joined.key));
+                    }
+                }, timeout, TimeUnit.MILLISECONDS);
+            } else {
+                timeoutFuture = null;
+            }
+            joined.done.thenAccept(f -> {
+                if (delivered.compareAndSet(false, true)) {
+                    if (timeoutFuture != null) {
+                        timeoutFuture.cancel(false);
+                    }
+                    f.deliver(request, callback, false);
+                }
+            });
+            return;
         }
-        return null;
+
+        //leader: 发送请求, 先通知等待者, 再回调自己
+        asyncGet(request, new ResponsePackageCallback() {
+            @Override
+            protected void onSucceed(ResponsePackage responsePackage) {
+                finishSingleFlight(flight, responsePackage, null);
+                flight.deliver(request, callback, true);
+            }
+
+            @Override
+            protected void onErrorBeforeSend(Exception e) {
+                finishSingleFlight(flight, null, e);
+                callback.onErrorBeforeSend(e);
+            }
+
+            @Override
+            protected void onErrorAfterSend(Exception e) {
+                finishSingleFlight(flight, null, e);
+                callback.onErrorAfterSend(e);
+            }
+
+            @Override
+            void setContext(Settings settings, Request request) {
+                callback.setContext(settings, request);
+            }
+
+            @Override
+            void bindCall(Call call) {
+                callback.bindCall(call);
+            }
+        });
     }
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
     ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
-    // 日志打印
+    // 响应缓存逻辑
     ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
     ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
 
 
-    private void printPostInputsLog(Request request, LoadBalancedHostManager.Host host) {
-        if (!logger.isInfoEnabled() || !settings.logPrintInputs) {
-            return;
+    /**
+     * 同步请求(GET)经过响应缓存: 命中时不选择远端(LoadBalancedHostManager)也不经过OkHttp(Dispatcher)
+     */
+    private ResponsePackage cacheSend(Request request, ResponseCache responseCache) throws NoHostException, RequestBuildException, IOException, HttpRejectException {
+        String requestCacheControl = request.headers != null ? request.headers.getSingleValue("Cache-Control") : null;
+        if (requestCacheControl != null && requestCacheControl.contains("no-store")) {
+            return syncDispatchNetwork(request);
+        }
+        String key = requestKey(request);
+        CachedResponse cached = requestCacheControl != null && requestCacheControl.contains("no-cache") ? null : responseCache.get(key);
+        if (cached != null && checkCacheHit(request, key, cached, responseCache)) {
+            return new ResponsePackage(cached, request);
         }
 
-        String bodyLog;
-        if (request.body != null) {
-            bodyLog = ", body(hex): " + ByteUtils.bytesToHex(request.body);
-        } else if (request.formBody != null) {
-            bodyLog = ", formBody: " + request.formBody;
-        } else if (request.beanBody != null) {
-            bodyLog = ", beanBody: " + request.beanBody;
-        } else if (request.customBody != null) {
-            bodyLog = ", customBody: " + request.customBody;
-        } else {
-            bodyLog = ", body: null";
+        ResponsePackage responsePackage = syncDispatchNetwork(request);
+        //重新验证成功, 缓存仍然有效
+        if (isNotModified(request, responsePackage, cached)) {
+            CloseableUtils.closeQuiet(responsePackage);
+            return new ResponsePackage(cacheRevalidated(key, cached, responseCache), request);
         }
-        logger.info(genLogPrefix(settings.tag, request) + "POST: url: " + host.getUrl() + ", suffix: " + request.urlSuffix + ", urlParams: " + request.urlParams + bodyLog);
+        return storeResponse(request, key, responsePackage, cached, responseCache);
     }
 
-    private void printGetInputsLog(Request request, LoadBalancedHostManager.Host host) {
-        if (!logger.isInfoEnabled() || !settings.logPrintInputs) {
+    /**
+     * 异步请求(GET)经过响应缓存: 命中时不选择远端(LoadBalancedHostManager)也不经过OkHttp(Dispatcher), 在调用线程中回调
+     */
+    private void cacheEnqueue(final Request request, final ResponsePackageCallback callback, final ResponseCache responseCache) {
+        String requestCacheControl = request.headers != null ? request.headers.getSingleValue("Cache-Control") : null;
+        if (requestCacheControl != null && requestCacheControl.contains("no-store")) {
+            asyncDispatchGet(request, callback);
             return;
         }
-        logger.info(genLogPrefix(settings.tag, request) + "GET: url: " + host.getUrl() + ", suffix: " + request.urlSuffix + ", urlParams: " + request.urlParams);
-    }
-
-    private void printRawUrlLog(Request request, LoadBalancedHostManager.Host host) {
-        if (!logger.isInfoEnabled() || !settings.logPrintUrl) {
+        final String key = requestKey(request);
+        final CachedResponse cached = requestCacheControl != null && requestCacheControl.contains("no-cache") ? null : responseCache.get(key);
+        if (cached != null && checkCacheHit(request, key, cached, responseCache)) {
+            callback.setContext(settings, request);
+            deliverResponse(request, callback, new ResponsePackage(cached, request));
             return;
         }
 
-        StringBuilder stringBuilder = new StringBuilder("raw-url: " + host.getUrl() + request.urlSuffix);
-        if (request.urlParams != null && request.urlParams.size() > 0) {
-            stringBuilder.append("?");
-            int i = 0;
-            for (Map.Entry<String, Object> entry : request.urlParams.entrySet()) {
-                if (i++ > 0) {
-                    stringBuilder.append("&");
+        asyncDispatchGet(request, new ResponsePackageCallback() {
+            @Override
+            protected void onSucceed(ResponsePackage responsePackage) {
+                //重新验证成功, 缓存仍然有效
+                if (isNotModified(request, responsePackage, cached)) {
+                    CloseableUtils.closeQuiet(responsePackage);
+                    deliverResponse(request, callback, new ResponsePackage(cacheRevalidated(key, cached, responseCache), request));
+                    return;
                 }
-                stringBuilder.append(entry.getKey());
-                stringBuilder.append("=");
-                stringBuilder.append(entry.getValue());
+                ResponsePackage stored;
+                try {
+                    stored = storeResponse(request, key, responsePackage, cached, responseCache);
+                } catch (IOException e) {
+                    callback.onErrorAfterSend(e);
+                    return;
+                }
+                deliverResponse(request, callback, stored);
+            }
+
+            @Override
+            protected void onErrorBeforeSend(Exception e) {
+                callback.onErrorBeforeSend(e);
+            }
+
+            @Override
+            protected void onErrorAfterSend(Exception e) {
+                callback.onErrorAfterSend(e);
+            }
+
+            @Override
+            void setContext(Settings settings, Request request) {
+                callback.setContext(settings, request);
+            }
+
+            @Override
+            void bindCall(Call call) {
+                callback.bindCall(call);
+            }
+        });
+    }
+
+    /**
+     * 判断缓存是否可以直接使用: 新鲜的直接使用; 过期但在stale-while-revalidate期内的, 在后台重新验证, 直接使用;
+     * 否则不能使用, 有验证信息(ETag/Last-Modified)的在请求中加入验证请求头(If-None-Match/If-Modified-Since)
+     */
+    private boolean checkCacheHit(Request request, String key, CachedResponse cached, ResponseCache responseCache) {
+        long now = System.currentTimeMillis();
+        if (cached.isFresh(now)) {
+            if (logger.isInfoEnabled() && settings.logPrintUrl) {
+                logger.info(genLogPrefix(settings.tag, request) + "Response cache hit: " + key);
             }
+            return true;
+        }
+        if (cached.isStaleUsable(now)) {
+            if (logger.isInfoEnabled() && settings.logPrintUrl) {
+                logger.info(genLogPrefix(settings.tag, request) + "Response cache hit (stale, revalidating): " + key);
+            }
+            revalidateInBackground(request, key, cached, responseCache);
+            return true;
+        }
+        if (cached.hasValidators()) {
+            addConditionalHeaders(request, cached);
+        }
+        return false;
+    }
 
+    /**
+     * 加入验证请求头, 复制一份请求头, 避免修改调用者的HttpHeaders
+     */
+    private void addConditionalHeaders(Request request, CachedResponse cached) {
+        HttpHeaders headers = request.headers != null ? HttpHeaders.ofMultiValueMap(request.headers.toMultiValueMap()) : new HttpHeaders();
+        if (cached.getEtag() != null) {
+            headers.set("If-None-Match", cached.getEtag());
         }
-        logger.info(genLogPrefix(settings.tag, request) + stringBuilder);
+        if (cached.getLastModified() != null) {
+            headers.set("If-Modified-Since", cached.getLastModified());
+        }
+        request.headers = headers;
+        request.conditional = true;
     }
 
-    private void printRealUrlLog(Request request, okhttp3.Request okRequest) {
-        if (!logger.isInfoEnabled() || !settings.logPrintUrl) {
-            return;
+    /**
+     * @return true: 验证请求返回304(Not Modified), 缓存仍然有效
+     */
+    private boolean isNotModified(Request request, ResponsePackage responsePackage, CachedResponse cached) {
+        return cached != null && request.conditional && responsePackage != null && responsePackage.code == HTTP_NOT_MODIFIED;
+    }
+
+    /**
+     * 重新验证成功(304), 刷新缓存时间
+     */
+    private CachedResponse cacheRevalidated(String key, CachedResponse cached, ResponseCache responseCache) {
+        CachedResponse refreshed = cached.refresh(System.currentTimeMillis());
+        responseCache.put(key, refreshed);
+        return refreshed;
+    }
+
+    /**
+     * 可缓存的响应: 读入内存, 存入缓存, 返回内存中的响应; 不可缓存的响应: 原样返回(移除原有的缓存)
+     */
+    private ResponsePackage storeResponse(Request request, String key, ResponsePackage responsePackage, CachedResponse previous, ResponseCache responseCache) throws IOException {
+        if (responsePackage == null) {
+            return null;
         }
-        logger.info(genLogPrefix(settings.tag, request) + "real-url: " + okRequest.url());
+        if (!CachedResponse.isCacheable(responsePackage.code, responsePackage.headers)) {
+            if (previous != null) {
+                responseCache.remove(key);
+            }
+            return responsePackage;
+        }
+        byte[] bodyData = bufferResponseBody(responsePackage);
+        responseCache.put(key, CachedResponse.of(responsePackage.code, responsePackage.message, responsePackage.headers, bodyData, System.currentTimeMillis()));
+        return new ResponsePackage(responsePackage, request, bodyData);
     }
 
-    private void printPostRequestBodyLog(Request request, byte[] parsedData) {
-        if (!logger.isInfoEnabled() || !settings.logPrintPayload){
+    /**
+     * 后台重新验证(stale-while-revalidate), 同一个KEY同时只有一个
+     */
+    private void revalidateInBackground(Request request, final String key, final CachedResponse cached, final ResponseCache responseCache) {
+        if (!responseCache.tryStartRevalidate(key)) {
             return;
         }
+        final Request revalidateRequest = get(request.urlSuffix);
+        revalidateRequest.isSend = true;
+        revalidateRequest.urlParams = request.urlParams;
+        revalidateRequest.headers = request.headers;
+        revalidateRequest.routingKey = request.routingKey;
+        //后台请求不受调用者截止时间预算的约束, 只按自身的totalTimeout重新计算截止时间(asyncGet不计算截止时间)
+        revalidateRequest.deadlineBudget = null;
+        revalidateRequest.totalTimeout = request.totalTimeout;
+        initDeadline(revalidateRequest);
+        if (cached.hasValidators()) {
+            addConditionalHeaders(revalidateRequest, cached);
+        }
+        asyncGet(revalidateRequest, new ResponsePackageCallback() {
+            @Override
+            protected void onSucceed(ResponsePackage responsePackage) {
+                try {
+                    if (isNotModified(revalidateRequest, responsePackage, cached)) {
+                        CloseableUtils.closeQuiet(responsePackage);
+                        cacheRevalidated(key, cached, responseCache);
+                        return;
+                    }
+                    CloseableUtils.closeQuiet(storeResponse(revalidateRequest, key, responsePackage, cached, responseCache));
+                } catch (IOException e) {
+                    onErrorAfterSend(e);
+                } finally {
+                    responseCache.finishRevalidate(key);
+                }
+            }
+
+            @Override
+            protected void onErrorBeforeSend(Exception e) {
+                responseCache.finishRevalidate(key);
+                if (logger.isWarnEnabled()) {
+                    logger.warn(genLogPrefix(settings.tag, revalidateRequest) + "Response cache revalidation failed: " + key, e);
+                }
+            }
+
+            @Override
+            protected void onErrorAfterSend(Exception e) {
+                responseCache.finishRevalidate(key);
+                if (logger.isWarnEnabled()) {
+                    logger.warn(genLogPrefix(settings.tag, revalidateRequest) + "Response cache revalidation failed: " + key, e);
+                }
+            }
+        });
+    }
+
+    /**
+     * @return 响应缓存, 未开启时返回null
+     */
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // 耗时统计逻辑
+    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+    /**
+     * 耗时统计, 所有OkHttp请求共用一个实例(不为每个请求创建对象), 时间戳记录在请求的Stub中.
+     * 未开启统计(metrics为空)或非GlaciHttpClient.Request发出的请求(例如预热请求)不统计.
+     */
+    private final class MetricsEventListener extends EventListener {
+
+        private Stub getStub(Call call) {
+            if (metrics == null) {
+                return null;
+            }
+            Object tag = call.request().tag();
+            return tag instanceof Stub ? (Stub) tag : null;
+        }
+
+        private void record(Stub stub, MetricType type, long startNanos) {
+            HttpClientMetrics metrics = GlaciHttpClient.this.metrics;
+            if (metrics != null && startNanos != 0) {
+                metrics.record(stub.hostUrl, stub.urlSuffix, type, System.nanoTime() - startNanos);
+            }
+        }
+
+        @Override
+        public void callStart(Call call) {
+            Stub stub = getStub(call);
+            if (stub != null) {
+                stub.callStartNanos = System.nanoTime();
+                stub.dnsStartNanos = 0;
+                stub.connectStartNanos = 0;
+                stub.secureConnectStartNanos = 0;
+                stub.requestHeadersStartNanos = 0;
+            }
+        }
+
+        @Override
+        public void dnsStart(Call call, String domainName) {
+            Stub stub = getStub(call);
+            if (stub != null) {
+                stub.dnsStartNanos = System.nanoTime();
+            }
+        }
+
+        @Override
+        public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+            Stub stub = getStub(call);
+            if (stub != null) {
+                record(stub, MetricType.DNS, stub.dnsStartNanos);
+            }
+        }
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+            Stub stub = getStub(call);
+            if (stub != null) {
+                stub.connectStartNanos = System.nanoTime();
+            }
+        }
+
+        @Override
+        public void secureConnectStart(Call call) {
+            Stub stub = getStub(call);
+            if (stub != null) {
+                stub.secureConnectStartNanos = System.nanoTime();
+            }
+        }
+
+        @Override
+        public void secureConnectEnd(Call call, Handshake handshake) {
+            Stub stub = getStub(call);
+            if (stub != null) {
+                record(stub, MetricType.TLS, stub.secureConnectStartNanos);
+            }
+        }
+
+        @Override
+        public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+            Stub stub = getStub(call);
+            if (stub != null) {
+                record(stub, MetricType.CONNECT, stub.connectStartNanos);
+            }
+        }
+
+        @Override
+        public void requestHeadersStart(Call call) {
+            Stub stub = getStub(call);
+            if (stub != null) {
+                stub.requestHeadersStartNanos = System.nanoTime();
+            }
+        }
+
+        @Override
+        public void responseHeadersEnd(Call call, Response response) {
+            Stub stub = getStub(call);
+            if (stub != null) {
+                record(stub, MetricType.TTFB, stub.requestHeadersStartNanos);
+            }
+        }
+
+        @Override
+        public void callEnd(Call call) {
+            Stub stub = getStub(call);
+            if (stub != null) {
+                record(stub, MetricType.TOTAL, stub.callStartNanos);
+            }
+        }
+
+        @Override
+        public void callFailed(Call call, IOException ioe) {
+            Stub stub = getStub(call);
+            if (stub != null) {
+                record(stub, MetricType.TOTAL, stub.callStartNanos);
+            }
+        }
+
+    }
+
+    /**
+     * @return 耗时统计快照, 未开启统计时返回null
+     */
+    public HttpClientMetricsSnapshot getMetricsSnapshot() {
+        HttpClientMetrics metrics = this.metrics;
+        return metrics != null ? metrics.snapshot() : null;
+    }
+
+    /**
+     * 清空耗时统计数据
+     */
+    public void resetMetrics() {
+        HttpClientMetrics metrics = this.metrics;
+        if (metrics != null) {
+            metrics.reset();
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // 连接预热逻辑
+    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+    /**
+     * 远端上线(新增或恢复)时预热连接, 在设置远端的线程或请求线程中调用, 只登记远端, 由预热线程执行
+     */
+    private void preWarm(String hostUrl) {
+        //客户端已关闭时不再预热
+        if (settings.preWarmConnections <= 0 || settings.maxIdleConnections <= 0 || preWarmThreadPool.isShutdown()) {
+            return;
+        }
+        preWarmPendingHosts.add(hostUrl);
+        //单线程池, 队列满时丢弃任务, 登记的远端由正在执行的任务处理
+        preWarmThreadPool.execute(preWarmTask);
+    }
+
+    private final Runnable preWarmTask = new Runnable() {
+        @Override
+        public void run() {
+            //逐个远端预热, 避免远端数量多时产生连接风暴
+            while (!preWarmPendingHosts.isEmpty()) {
+                for (String hostUrl : preWarmPendingHosts) {
+                    preWarmPendingHosts.remove(hostUrl);
+                    try {
+                        preWarmHost(hostUrl);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    } catch (Throwable t) {
+                        logger.warn(settings.tag + "Error while pre-warming connections to " + hostUrl, t);
+                    }
+                }
+            }
+        }
+    };
+
+    /**
+     * 向远端并发发送HEAD请求(URL为远端地址 + preWarmUrlSuffix, 带上配置的请求头), 持有响应直到所有请求结束, 使每个请求
+     * 各自建立一个连接, 最后关闭响应, 连接归还连接池(闲置). 同时进行中的请求数不超过preWarmConcurrency. 不关心响应码,
+     * 个别请求失败不影响其他请求.
+     */
+    private void preWarmHost(String hostUrl) throws InterruptedException {
+        int connections = Math.min(settings.preWarmConnections, settings.maxIdleConnections);
+        int concurrency = Math.max(1, Math.min(settings.preWarmConcurrency, connections));
+        if (connections <= 0) {
+            return;
+        }
+        long timeout = settings.connectTimeout + settings.writeTimeout + settings.readTimeout;
+        OkHttpClient client = getOkHttpClient();
+        okhttp3.Request.Builder builder = new okhttp3.Request.Builder().url(hostUrl + settings.preWarmUrlSuffix).head();
+        HttpHeaders headers = settings.headers;
+        if (headers != null){
+            headers.traverse(builder::addHeader);
+        }
+        okhttp3.Request okRequest = builder.build();
+
+        Semaphore semaphore = new Semaphore(concurrency);
+        CountDownLatch latch = new CountDownLatch(connections);
+        List<Response> responses = Collections.synchronizedList(new ArrayList<>(connections));
+        AtomicInteger failed = new AtomicInteger(0);
+        AtomicBoolean finished = new AtomicBoolean(false);
+        int launched = 0;
+        try {
+            for (; launched < connections ; launched++) {
+                if (!semaphore.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+                    break;
+                }
+                client.newCall(okRequest).enqueue(new Callback() {
+                    @Override
+                    public void onResponse(Call call, Response response) {
+                        //持有响应(占用连接), 下一个请求才会建立新连接
+                        synchronized (responses) {
+                            if (finished.get()) {
+                                //预热已结束(超时)
+                                CloseableUtils.closeQuiet(response);
+                            } else {
+                                responses.add(response);
+                            }
+                        }
+                        semaphore.release();
+                        latch.countDown();
+                    }
+                    @Override
+                    public void onFailure(Call call, IOException e) {
+                        if (failed.getAndIncrement() == 0 && logger.isDebugEnabled()) {
+                            logger.debug(settings.tag + "Pre-warm request failed, url " + call.request().url() + ", error: " + e.getMessage());
+                        }
+                        semaphore.release();
+                        latch.countDown();
+                    }
+                });
+            }
+            //未发出的请求
+            for (int i = launched ; i < connections ; i++) {
+                latch.countDown();
+            }
+            latch.await(timeout, TimeUnit.MILLISECONDS);
+        } finally {
+            //关闭响应, 连接归还连接池
+            synchronized (responses) {
+                finished.set(true);
+                for (Response response : responses) {
+                    CloseableUtils.closeQuiet(response);
+                }
+            }
+        }
+        if (logger.isInfoEnabled()) {
+            logger.info(settings.tag + "Pre-warm " + responses.size() + "/" + connections + " connections to " + hostUrl +
+                    (failed.get() > 0 ? ", " + failed.get() + " failed" : ""));
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // 公共请求逻辑
+    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+    /**
+     * 重试时, 选择一个未尝试过的远端, 没有则返回null. 设置了路由键时按一致性哈希选择.
+     */
+    private LoadBalancedHostManager.Host nextUntriedHost(Request request) {
+        Set<String> triedHosts = request.triedHosts;
+        if (request.routingKey != null) {
+            return hostManager.nextHost(request.routingKey, triedHosts);
+        }
+        if (triedHosts == null || triedHosts.isEmpty()) {
+            return hostManager.nextHost();
+        }
+        for (int i = 0 ; i < triedHosts.size() + 2 ; i++) {
+            LoadBalancedHostManager.Host host = hostManager.nextHost();
+            if (host == null) {
+                return null;
+            }
+            if (!triedHosts.contains(host.getUrl())) {
+                return host;
+            }
+        }
+        return null;
+    }
+
+    private LoadBalancedHostManager.Host markTried(Request request, LoadBalancedHostManager.Host host) {
+        if (request.triedHosts != null) {
+            request.triedHosts.add(host.getUrl());
+        }
+        return host;
+    }
+
+    /**
+     * 截止时间预算(DeadlineBudget)在发送前已耗尽时, 不发送请求
+     */
+    private void checkDeadlineBudget(Request request) throws DeadlineExceededException {
+        if (request.deadlineBudget != null && request.deadlineBudget.isExpired()) {
+            throw new DeadlineExceededException("Deadline budget exhausted before sending, request abandoned");
+        }
+    }
+
+    /**
+     * 计算请求的截止时间: 总超时(Request#totalTimeout)和截止时间预算(DeadlineBudget)取较早者, 0为不限制
+     */
+    private void initDeadline(Request request) {
+        long deadline = request.totalTimeout > 0 ? System.currentTimeMillis() + request.totalTimeout : 0;
+        if (request.deadlineBudget != null) {
+            long budgetDeadline = request.deadlineBudget.getDeadline();
+            deadline = deadline > 0 ? Math.min(deadline, budgetDeadline) : budgetDeadline;
+        }
+        request.deadline = deadline;
+    }
+
+    /**
+     * 设置了截止时间(Request#totalTimeout/DeadlineBudget)时, 用剩余时间限制OkHttp Call的超时
+     */
+    private void applyDeadline(Call call, Request request) throws InterruptedIOException {
+        if (request.deadline <= 0) {
+            return;
+        }
+        long remaining = request.deadline - System.currentTimeMillis();
+        if (remaining <= 0) {
+            throw new InterruptedIOException("Total timeout or deadline budget exceeded (totalTimeout " + request.totalTimeout +
+                    " ms, " + request.deadlineBudget + ")");
+        }
+        call.timeout().timeout(remaining, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 获取远端, 并占用一个请求名额(未完成请求数加一), 之后必须调用host.feedback(..., requestStartNanos)或host.onRequestAbort()
+     */
+    private LoadBalancedHostManager.Host fetchHost(Request request) throws NoHostException {
+        LoadBalancedHostManager.Host host = nextUntriedHost(request);
+        if (host == null){
+            throw new NoHostException("No host");
+        }
+        if (host.tryAcquire()) {
+            return markTried(request, host);
+        }
+        //nextHost会避开达到并发上限的远端, 走到这里说明并发竞争或所有远端都达到上限, 重选一次
+        host = nextUntriedHost(request);
+        if (host == null){
+            throw new NoHostException("No host");
+        }
+        if (host.tryAcquire()) {
+            return markTried(request, host);
+        }
+        if (logger.isWarnEnabled()) {
+            logger.warn(settings.tag + "Request rejected, all hosts reach the concurrency limit, last selected " + host.getUrl() +
+                    " (" + host.getOutstanding() + "/" + host.getConcurrencyLimit() + ")");
+        }
+        throw new HostOverloadException("All hosts reach the concurrency limit");
+    }
+
+    private OkHttpClient getOkHttpClient(){
+        //自动启动
+        start();
+        //客户端创建错误后, 不再重试
+        if (clientCreateException != null) {
+            throw new IllegalStateException("Client create error", clientCreateException);
+        }
+        //一次检查
+        while (okHttpClient == null || refreshSettings) {
+            //自旋锁
+            if (!settingsLock.get() && settingsLock.compareAndSet(false, true)) {
+                try {
+                    //二次检查e
+                    if (okHttpClient == null || refreshSettings) {
+                        OkHttpClient client = createOkHttpClient(settings);
+                        okHttpClient = client;
+                        refreshSettings = false;
+                        //跳出循环, 避免因为refreshSettings反复被改为true反复由同一个线程创建客户端
+                        break;
+                    }
+                } catch (Exception e) {
+                    clientCreateException = e;
+                    throw e;
+                } finally {
+                    //解锁
+                    settingsLock.set(false);
+                }
+            } else {
+                Thread.yield();
+            }
+        }
+        return okHttpClient;
+    }
+
+    /**
+     * 初始化OkHttpClient实例(复写本方法实现自定义的逻辑).
+     * 配置变更时会重新调用本方法, 新实例由基础客户端newBuilder()派生, 共享同一个Dispatcher和ConnectionPool, 不丢弃已建立的
+     * 连接(及TLS会话), 见getBaseClient.
+     * @return OkHttpClient实例
+     */
+    @SuppressWarnings("deprecation")
+    protected OkHttpClient createOkHttpClient(Settings settings){
+
+        OkHttpClient.Builder builder = getBaseClient(settings).newBuilder()
+                .connectTimeout(settings.connectTimeout, TimeUnit.MILLISECONDS)
+                .writeTimeout(settings.writeTimeout, TimeUnit.MILLISECONDS)
+                .readTimeout(settings.readTimeout, TimeUnit.MILLISECONDS)
+                .eventListener(metricsEventListener);
+
+        builder.addInterceptor(new Interceptor(){
+            @Override
+            public Response intercept(Chain chain) throws IOException {
+                okhttp3.Request request = chain.request();
+                if (request.tag() instanceof Stub) {
+                    Stub stub = (Stub) request.tag();
+                    //排队耗时(异步请求在Dispatcher中排队)
+                    HttpClientMetrics metrics = GlaciHttpClient.this.metrics;
+                    if (metrics != null && stub.callStartNanos != 0) {
+                        metrics.record(stub.hostUrl, stub.urlSuffix, MetricType.QUEUE_WAIT, System.nanoTime() - stub.callStartNanos);
+                    }
+                    if (stub.deadline > 0) {
+                        return proceedWithinDeadline(chain, request, stub);
+                    }
+                    if (stub.connectTimeout > 0) {
+                        chain = chain.withConnectTimeout(stub.connectTimeout, TimeUnit.MILLISECONDS);
+                    }
+                    if (stub.writeTimeout > 0) {
+                        chain = chain.withWriteTimeout(stub.writeTimeout, TimeUnit.MILLISECONDS);
+                    }
+                    if (stub.readTimeout > 0) {
+                        chain = chain.withReadTimeout(stub.readTimeout, TimeUnit.MILLISECONDS);
+                    }
+                }
+                return chain.proceed(request);
+            }
+        });
+
+        if (settings.cookieJar != null) {
+            builder.cookieJar(settings.cookieJar);
+        }
+        if (settings.proxy != null) {
+            builder.proxy(settings.proxy);
+        }
+        if (settings.dns != null) {
+            builder.dns(settings.dns);
+        }
+        if (settings.happyEyeballsDelay > 0) {
+            builder.dns(happyEyeballsConnector.wrap(settings.dns));
+            builder.socketFactory(happyEyeballsConnector.getSocketFactory(settings.happyEyeballsDelay));
+        }
+
+        // 信任材料相同的客户端共用SSLContext(TLS会话缓存), 不支持共用的SslConfigSupplier照旧处理
+        SslContextRegistry.Lease sslContextLease = SslContextRegistry.acquire(settings.sslConfigSupplier,
+                settings.sslSessionCacheSize, settings.sslSessionTimeout);
+        SslConfig sslConfig = sslContextLease;
+        if (sslConfig == null && settings.sslConfigSupplier != null) {
+            sslConfig = settings.sslConfigSupplier.getSslConfig();
+        }
+        if (sslConfig != null && sslConfig.getSslSocketFactory() != null) {
+            if (sslConfig.getTrustManager() != null) {
+                // 最好两个都有, 不然OkHttp3会用反射的方式清理证书链
+                builder.sslSocketFactory(sslConfig.getSslSocketFactory(), sslConfig.getTrustManager());
+            } else {
+                builder.sslSocketFactory(sslConfig.getSslSocketFactory());
+            }
+        }
+        // 先获取新的再释放旧的, 配置没变时不会重建SSLContext
+        SslContextRegistry.Lease previousLease = this.sslContextLease;
+        this.sslContextLease = sslContextLease;
+        CloseableUtils.closeQuiet(previousLease);
+
+        if (settings.hostnameVerifier != null) {
+            builder.hostnameVerifier(settings.hostnameVerifier);
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * 设置了截止时间(Request#totalTimeout/DeadlineBudget)时, connect/write/read超时不超过剩余时间. 截止时间到期导致的
+     * SocketTimeoutException转换为InterruptedIOException(与OkHttp Call超时一致), 不阻断后端.
+     */
+    private static Response proceedWithinDeadline(Interceptor.Chain chain, okhttp3.Request request, Stub stub) throws IOException {
+        long remaining = stub.deadline - System.currentTimeMillis();
+        if (remaining <= 0) {
+            throw new InterruptedIOException("Deadline exceeded before connecting");
+        }
+        int connectTimeout = clampTimeout(stub.connectTimeout > 0 ? stub.connectTimeout : chain.connectTimeoutMillis(), remaining);
+        int writeTimeout = clampTimeout(stub.writeTimeout > 0 ? stub.writeTimeout : chain.writeTimeoutMillis(), remaining);
+        int readTimeout = clampTimeout(stub.readTimeout > 0 ? stub.readTimeout : chain.readTimeoutMillis(), remaining);
+        chain = chain.withConnectTimeout(connectTimeout, TimeUnit.MILLISECONDS)
+                .withWriteTimeout(writeTimeout, TimeUnit.MILLISECONDS)
+                .withReadTimeout(readTimeout, TimeUnit.MILLISECONDS);
+        try {
+            return chain.proceed(request);
+        } catch (SocketTimeoutException e) {
+            if (System.currentTimeMillis() < stub.deadline) {
+                throw e;
+            }
+            InterruptedIOException exception = new InterruptedIOException("Deadline exceeded (" + e.getMessage() + ")");
+            exception.initCause(e);
+            throw exception;
+        }
+    }
+
+    /**
+     * @param timeout 配置的超时, 0为不限制
+     * @param remaining 剩余时间
+     */
+    private static int clampTimeout(int timeout, long remaining) {
+        return (int) (timeout > 0 ? Math.min(timeout, remaining) : Math.min(remaining, Integer.MAX_VALUE));
+    }
+
+    /**
+     * <p>获取基础客户端(只持有Dispatcher和ConnectionPool, 长期存活), createOkHttpClient由它newBuilder()派生出实际使用的客户端.</p>
+     *
+     * <p>Dispatcher只创建一次, 并发数(maxThreads/maxThreadsPerHost)变化时直接修改. 只有连接池容量(maxIdleConnections)变化时才
+     * 重建ConnectionPool, 旧连接池不再接收新请求, 立即关闭其中的闲置连接, 正在使用的连接在请求结束后归还旧连接池, 等待一个
+     * 超时周期后再次清理(平滑关闭). 超时/代理/DNS/SSL等配置变化不影响连接池, 连接池按地址(含代理/DNS/SSL配置)区分连接,
+     * 不会复用配置不匹配的连接.</p>
+     *
+     * <p>设置了资源组(resourceGroup)时, Dispatcher使用资源组的线程池, 连接池使用资源组的连接池(与同组客户端共用), 见setResourceGroup.
+     * 切换资源组时创建新的Dispatcher, 旧Dispatcher中排队的请求在旧线程池中继续执行.</p>
+     */
+    private OkHttpClient getBaseClient(Settings settings) {
+        OkHttpClient baseClient = this.baseClient;
+        String resourceGroup = settings.resourceGroup;
+        if (baseClient != null && Objects.equals(baseClientResourceGroup, resourceGroup) &&
+                (resourceGroup != null || baseClientMaxIdleConnections == settings.maxIdleConnections)) {
+            baseClient.dispatcher().setMaxRequests(settings.maxThreads);
+            baseClient.dispatcher().setMaxRequestsPerHost(settings.maxThreadsPerHost);
+            return baseClient;
+        }
+
+        if (resourceGroup != null) {
+            return switchResourceGroup(settings, baseClient);
+        }
+
+        Dispatcher dispatcher;
+        if (baseClient != null && baseClientResourceGroup == null) {
+            dispatcher = baseClient.dispatcher();
+        } else {
+            dispatcher = new Dispatcher();
+        }
+        dispatcher.setMaxRequests(settings.maxThreads);
+        dispatcher.setMaxRequestsPerHost(settings.maxThreadsPerHost);
+
+        OkHttpClient newBaseClient = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(settings.maxIdleConnections, 5, TimeUnit.MINUTES))
+                .build();
+        this.baseClient = newBaseClient;
+        this.baseClientMaxIdleConnections = settings.maxIdleConnections;
+
+        //平滑关闭旧连接池
+        if (baseClient != null && baseClientResourceGroup == null) {
+            drainConnectionPool(baseClient.connectionPool(), settings.connectTimeout + settings.writeTimeout + settings.readTimeout);
+            if (logger.isInfoEnabled()) {
+                logger.info(settings.tag + "Connection pool rebuilt, maxIdleConnections: " + settings.maxIdleConnections + ", the old one will be drained");
+            }
+        }
+        //退出资源组(共享的连接池不关闭)
+        this.baseClientResourceGroup = null;
+        CloseableUtils.closeQuiet(resourceGroupLease);
+        resourceGroupLease = null;
+        return newBaseClient;
+    }
+
+    /**
+     * 加入(切换)资源组: 新建Dispatcher(使用资源组的线程池), 使用资源组的连接池
+     */
+    private OkHttpClient switchResourceGroup(Settings settings, OkHttpClient baseClient) {
+        ResourceGroupRegistry.Lease lease = ResourceGroupRegistry.acquire(settings.resourceGroup, settings.maxIdleConnections);
+
+        Dispatcher dispatcher = new Dispatcher(lease.getExecutorService());
+        dispatcher.setMaxRequests(settings.maxThreads);
+        dispatcher.setMaxRequestsPerHost(settings.maxThreadsPerHost);
+
+        OkHttpClient newBaseClient = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(lease.getConnectionPool())
+                .build();
+        this.baseClient = newBaseClient;
+        this.baseClientMaxIdleConnections = -1;
+
+        //平滑关闭自己的连接池(之前不在资源组), 或退出旧资源组
+        if (baseClient != null && baseClientResourceGroup == null) {
+            drainConnectionPool(baseClient.connectionPool(), settings.connectTimeout + settings.writeTimeout + settings.readTimeout);
+        }
+        this.baseClientResourceGroup = settings.resourceGroup;
+        ResourceGroupRegistry.Lease previousLease = resourceGroupLease;
+        resourceGroupLease = lease;
+        CloseableUtils.closeQuiet(previousLease);
+
+        if (logger.isInfoEnabled()) {
+            logger.info(settings.tag + "Join resource group " + lease.getName() + ", dispatcher thread pool and connection pool are shared");
+        }
+        return newBaseClient;
+    }
+
+    private void drainConnectionPool(ConnectionPool connectionPool, long drainDelay) {
+        //闲置连接立即关闭
+        connectionPool.evictAll();
+        //正在使用的连接, 请求结束后归还旧连接池, 延迟清理
+        try {
+            scheduler.schedule(connectionPool::evictAll, Math.max(drainDelay, 1000L), TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            logger.warn(settings.tag + "Old connection pool drain can not be scheduled", e);
+        }
+    }
+
+    /**
+     * 根据URL和报文体组POST请求(复写本方法实现自定义的逻辑)
+     * @param url 由LoadBalancedHostManager选择出的远端url(前缀)
+     * @param request 请求参数
+     * @param settings 客户端配置
+     * @return Request
+     * @throws RequestBuildException 构建异常
+     */
+    protected okhttp3.Request buildPostRequest(String url, Request request, Settings settings) throws RequestBuildException{
+        if (request.urlSuffix == null) {
+            request.urlSuffix = "";
+        }
+        HttpUrl httpUrl = HttpUrl.parse(url + request.urlSuffix);
+        if (httpUrl == null){
+            throw new RequestBuildException("Invalid url:" + url + request.urlSuffix);
+        }
+
+        String encode = request.encode != null ? request.encode : settings.encode;
+
+        if (request.urlParams != null){
+            HttpUrl.Builder httpUrlBuilder = httpUrl.newBuilder();
+            for (Map.Entry<String, Object> param : request.urlParams.entrySet()) {
+                try {
+                    httpUrlBuilder.addEncodedQueryParameter(param.getKey(),
+                            URLEncoder.encode(param.getValue() != null ? param.getValue().toString() : "", encode));
+                } catch (UnsupportedEncodingException e) {
+                    throw new RequestBuildException("Error while encode urlParams to url format", e);
+                }
+            }
+            httpUrl = httpUrlBuilder.build();
+        }
+
+        RequestBody requestBody;
+        if (request.body != null) {
+            //bytes
+            printPostRequestBodyLog(request, null);
+            requestBody = RequestBody.create(getMediaType(request, settings, null), request.body);
+        } else if (request.formBody != null) {
+            //form
+            printPostRequestBodyLog(request, null);
+            FormBody.Builder formBuilder = new FormBody.Builder();
+            for (Map.Entry<String, Object> param : request.formBody.entrySet()) {
+                try {
+                    formBuilder.addEncoded(param.getKey(),
+                            URLEncoder.encode(param.getValue() != null ? param.getValue().toString() : "", encode));
+                } catch (UnsupportedEncodingException e) {
+                    throw new RequestBuildException("Error while encode formBody to url format", e);
+                }
+            }
+            requestBody = new RequestBodyWrapper(formBuilder.build(), getMediaType(request, settings, MEDIA_TYPE_FORM));
+        } else if (request.beanBody != null) {
+            //bean
+            DataConverter dataConverter = request.dataConverter != null ? request.dataConverter : settings.dataConverter;
+            if (dataConverter == null) {
+                throw new RequestConvertException("No DataConverter set, you must set dataConverter before send/enqueue a beanBody");
+            }
+            if (dataConverter instanceof StreamingDataConverter && !(logger.isInfoEnabled() && settings.logPrintPayload)) {
+                //bean, 流式
+                printPostRequestBodyLog(request, null);
+                requestBody = new RequestBodyWrapper(new BeanRequestBody(request.beanBody, (StreamingDataConverter) dataConverter),
+                        getMediaType(request, settings, null));
+            } else {
+                byte[] requestBodyBytes;
+                try {
+                    requestBodyBytes = dataConverter.convert(request.beanBody);
+                } catch (Exception e) {
+                    throw new RequestConvertException("Error while convert bean to byte[]", e);
+                }
+                printPostRequestBodyLog(request, requestBodyBytes);
+                requestBody = RequestBody.create(getMediaType(request, settings, null), requestBodyBytes);
+            }
+        } else if (request.customBody != null) {
+            //custom
+            printPostRequestBodyLog(request, null);
+            requestBody = request.customBody;
+        } else if (request.streamBody != null) {
+            //stream
+            printPostRequestBodyLog(request, null);
+            requestBody = new RequestBodyWrapper(request.streamBody, getMediaType(request, settings, null));
+        } else {
+            //null
+            requestBody = RequestBody.create(getMediaType(request, settings, null), new byte[0]);
+        }
+
+        //压缩(流式)
+        RequestCompressor requestCompressor = getRequestCompressor(request, settings, requestBody);
+        if (requestCompressor != null) {
+            requestBody = new RequestBodyWrapper(requestBody, null, requestCompressor);
+        }
+
+        request.stub.hostUrl = url;
+        request.stub.urlSuffix = request.urlSuffix;
+        request.stub.deadline = request.deadline;
+        okhttp3.Request.Builder builder = new okhttp3.Request.Builder()
+                .url(httpUrl)
+                .post(requestBody)
+                .tag(request.stub);
+
+        HttpHeaders headers = settings.headers;
+        if (headers != null){
+            headers.traverse(builder::addHeader);
+        }
+
+        headers = request.headers;
+        if (headers != null){
+            headers.traverse(builder::addHeader);
+        }
+
+        //向下游传递剩余时间
+        if (settings.deadlineBudgetHeader != null && request.deadline > 0) {
+            builder.header(settings.deadlineBudgetHeader, String.valueOf(Math.max(request.deadline - System.currentTimeMillis(), 0L)));
+        }
+
+        if (requestCompressor != null) {
+            builder.header("Content-Encoding", requestCompressor.getContentEncoding());
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * 根据URL和报文体组GET请求(复写本方法实现自定义的逻辑)
+     * @param url 由LoadBalancedHostManager选择出的远端url(前缀)
+     * @param request 请求参数
+     * @param settings 客户端配置
+     * @return Request
+     * @throws RequestBuildException 构建异常
+     */
+    protected okhttp3.Request buildGetRequest(String url, Request request, Settings settings) throws RequestBuildException{
+        if (request.urlSuffix == null) {
+            request.urlSuffix = "";
+        }
+        HttpUrl httpUrl = HttpUrl.parse(url + request.urlSuffix);
+        if (httpUrl == null){
+            throw new RequestBuildException("Invalid url:" + url + request.urlSuffix);
+        }
+
+        String encode = request.encode != null ? request.encode : settings.encode;
+
+        if (request.urlParams != null){
+            HttpUrl.Builder httpUrlBuilder = httpUrl.newBuilder();
+            for (Map.Entry<String, Object> param : request.urlParams.entrySet()) {
+                try {
+                    httpUrlBuilder.addEncodedQueryParameter(param.getKey(),
+                            URLEncoder.encode(param.getValue() != null ? param.getValue().toString() : "", encode));
+                } catch (UnsupportedEncodingException e) {
+                    throw new RequestBuildException("Error while encode to url format", e);
+                }
+            }
+            httpUrl = httpUrlBuilder.build();
+        }
+
+        request.stub.hostUrl = url;
+        request.stub.urlSuffix = request.urlSuffix;
+        request.stub.deadline = request.deadline;
+        okhttp3.Request.Builder builder = new okhttp3.Request.Builder()
+                .url(httpUrl)
+                .get()
+                .tag(request.stub);
+
+        HttpHeaders headers = settings.headers;
+        if (headers != null){
+            headers.traverse(builder::addHeader);
+        }
+
+        headers = request.headers;
+        if (headers != null){
+            headers.traverse(builder::addHeader);
+        }
+
+        //向下游传递剩余时间
+        if (settings.deadlineBudgetHeader != null && request.deadline > 0) {
+            builder.header(settings.deadlineBudgetHeader, String.valueOf(Math.max(request.deadline - System.currentTimeMillis(), 0L)));
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * 截止时间(Request#totalTimeout/DeadlineBudget)已到时的超时, 是调用方的时间预算不足导致的, 不阻断后端
+     */
+    private boolean needBlock(Throwable t, Request request, Settings settings) {
+        if (t instanceof InterruptedIOException && request.deadline > 0 && System.currentTimeMillis() >= request.deadline) {
+            return false;
+        }
+        return needBlock(t, settings);
+    }
+
+    /**
+     * 判断该异常是否需要阻断后端, 返回true阻断
+     */
+    protected boolean needBlock(Throwable t, Settings settings) {
+        if (t == null) {
+            return false;
+        }
+        if (settings.throwableNeedBlock.contains(t.getClass())) {
+            return true;
+        }
+        return t instanceof SocketException || // 包含ConnectException
+                t instanceof SocketTimeoutException || // 超时
+                t instanceof TimeoutException || // 异步超时
+                t instanceof UnknownHostException ||
+                (t instanceof HttpRejectException && settings.httpCodeNeedBlock.contains(((HttpRejectException) t).getResponseCode()));
+    }
+
+    /**
+     * 判断HTTP请求是否成功, 返回true成功
+     */
+    protected boolean isSucceed(Response response) {
+        return response.isSuccessful();
+    }
+
+    /**
+     * 响应缓存的验证请求返回304(Not Modified)时视为成功, 不阻断后端, 不重试, 由响应缓存逻辑刷新缓存
+     */
+    private boolean isSucceed(Response response, Request request) {
+        return (request.conditional && response.code() == HTTP_NOT_MODIFIED) || isSucceed(response);
+    }
+
+    /**
+     * 判断报文体是否需要压缩: 客户端开启了压缩, 请求(或urlSuffix)未排除, 未设置Content-Encoding请求头, 报文体长度未知或不小于阈值
+     */
+    private RequestCompressor getRequestCompressor(Request request, Settings settings, RequestBody requestBody) {
+        RequestCompressor requestCompressor = settings.requestCompressor;
+        if (requestCompressor == null || Boolean.FALSE.equals(request.compress)) {
+            return null;
+        }
+        if (request.compress == null) {
+            if (settings.requestCompressionExcludes.contains(request.urlSuffix)) {
+                return null;
+            }
+            if (!settings.requestCompressionIncludes.isEmpty() && !settings.requestCompressionIncludes.contains(request.urlSuffix)) {
+                return null;
+            }
+        }
+        //报文体已经编码过
+        if ((request.headers != null && request.headers.getSingleValue("Content-Encoding") != null) ||
+                (settings.headers != null && settings.headers.getSingleValue("Content-Encoding") != null)) {
+            return null;
+        }
+        long contentLength;
+        try {
+            contentLength = requestBody.contentLength();
+        } catch (IOException e) {
+            contentLength = -1L;
+        }
+        if (contentLength >= 0 && contentLength < settings.requestCompressionThreshold) {
+            return null;
+        }
+        return requestCompressor;
+    }
+
+    private MediaType getMediaType(Request request, Settings settings, String defaultMediaType) {
+        if (request.mediaType != null) {
+            return MediaType.parse(request.mediaType);
+        }
+        if (request.headers != null) {
+            String contentType = request.headers.getSingleValue("Content-Type");
+            if (contentType != null) {
+                return MediaType.parse(contentType);
+            }
+        }
+        if (settings.mediaType != null) {
+            return MediaType.parse(settings.mediaType);
+        }
+        if (settings.headers != null) {
+            String contentType = settings.headers.getSingleValue("Content-Type");
+            if (contentType != null) {
+                return MediaType.parse(contentType);
+            }
+        }
+        if (defaultMediaType != null) {
+            return MediaType.parse(defaultMediaType);
+        }
+        return null;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // 日志打印
+    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+    private void printPostInputsLog(Request request, LoadBalancedHostManager.Host host) {
+        if (!logger.isInfoEnabled() || !settings.logPrintInputs) {
+            return;
+        }
+
+        String bodyLog;
+        if (request.body != null) {
+            bodyLog = ", body(hex): " + ByteUtils.bytesToHex(request.body);
+        } else if (request.formBody != null) {
+            bodyLog = ", formBody: " + request.formBody;
+        } else if (request.beanBody != null) {
+            bodyLog = ", beanBody: " + request.beanBody;
+        } else if (request.customBody != null) {
+            bodyLog = ", customBody: " + request.customBody;
+        } else if (request.streamBody != null) {
+            bodyLog = ", streamBody: " + printStreamBodyLength(request.streamBody);
+        } else {
+            bodyLog = ", body: null";
+        }
+        logger.info(genLogPrefix(settings.tag, request) + "POST: url: " + host.getUrl() + ", suffix: " + request.urlSuffix + ", urlParams: " + request.urlParams + bodyLog);
+    }
+
+    private static String printStreamBodyLength(RequestBody streamBody) {
+        try {
+            long contentLength = streamBody.contentLength();
+            return contentLength >= 0 ? "contentLength " + contentLength : "contentLength unknown";
+        } catch (IOException e) {
+            return "contentLength unknown";
+        }
+    }
+
+    private void printGetInputsLog(Request request, LoadBalancedHostManager.Host host) {
+        if (!logger.isInfoEnabled() || !settings.logPrintInputs) {
+            return;
+        }
+        logger.info(genLogPrefix(settings.tag, request) + "GET: url: " + host.getUrl() + ", suffix: " + request.urlSuffix + ", urlParams: " + request.urlParams);
+    }
+
+    private void printRawUrlLog(Request request, LoadBalancedHostManager.Host host) {
+        if (!logger.isInfoEnabled() || !settings.logPrintUrl) {
+            return;
+        }
+
+        StringBuilder stringBuilder = new StringBuilder("raw-url: " + host.getUrl() + request.urlSuffix);
+        if (request.urlParams != null && request.urlParams.size() > 0) {
+            stringBuilder.append("?");
+            int i = 0;
+            for (Map.Entry<String, Object> entry : request.urlParams.entrySet()) {
+                if (i++ > 0) {
+                    stringBuilder.append("&");
+                }
+                stringBuilder.append(entry.getKey());
+                stringBuilder.append("=");
+                stringBuilder.append(entry.getValue());
+            }
+
+        }
+        logger.info(genLogPrefix(settings.tag, request) + stringBuilder);
+    }
+
+    private void printRealUrlLog(Request request, okhttp3.Request okRequest) {
+        if (!logger.isInfoEnabled() || !settings.logPrintUrl) {
+            return;
+        }
+        logger.info(genLogPrefix(settings.tag, request) + "real-url: " + okRequest.url());
+    }
+
+    private void printPostRequestBodyLog(Request request, byte[] parsedData) {
+        if (!logger.isInfoEnabled() || !settings.logPrintPayload){
+            return;
+        }
+
+        if (request.body != null) {
+            try {
+                logger.info(genLogPrefix(settings.tag, request) + "Request: body: " + new String(request.body, settings.encode));
+            } catch (Exception e) {
+                logger.warn(genLogPrefix(settings.tag, request) + "Error while printing request body", e);
+            }
+        } else if (request.formBody != null) {
+            logger.info(genLogPrefix(settings.tag, request) + "Request: body(form): " + request.formBody);
+        } else if (request.beanBody != null && parsedData != null) {
+            try {
+                logger.info(genLogPrefix(settings.tag, request) + "Request: body(bean): " + new String(parsedData, settings.encode));
+            } catch (Exception e) {
+                logger.warn(genLogPrefix(settings.tag, request) + "Error while printing request body", e);
+            }
+        } else if (request.beanBody != null) {
+            logger.info(genLogPrefix(settings.tag, request) + "Request: body(bean): streaming data can not be print");
+        } else if (request.customBody != null) {
+            logger.info(genLogPrefix(settings.tag, request) + "Request: body: multipart data can not be print");
+        } else if (request.streamBody != null) {
+            logger.info(genLogPrefix(settings.tag, request) + "Request: body(stream): streaming data can not be print, " + printStreamBodyLength(request.streamBody));
+        } else {
+            logger.info(genLogPrefix(settings.tag, request) + "Request: body: null");
+        }
+    }
+
+    private void printPassiveBlockLog(Settings settings, Request request, LoadBalancedHostManager.Host host, long passiveBlockDuration, boolean blocked) {
+        if (!logger.isInfoEnabled() || !settings.logPrintBlock) {
+            return;
+        }
+        if (!blocked) {
+            //离群检测开启时, 请求失败只记录, 由离群检测决定是否阻断
+            logger.info(genLogPrefix(settings.tag, request) + "Bad host " + host.getUrl() + ", error recorded for outlier detection");
+            return;
+        }
+        logger.info(genLogPrefix(settings.tag, request) + "Bad host " + host.getUrl() + ", block for " + passiveBlockDuration +
+                " ms, recovery period (half-open) " + (passiveBlockDuration * settings.recoveryCoefficient) +
+                " ms. Passive block, recoveryCoefficient " + settings.recoveryCoefficient);
+    }
+
+    private void printResponseCodeLog(Request request, Response response) {
+        if (!logger.isInfoEnabled() || !settings.logPrintStatusCode) {
+            return;
+        }
+        logger.info(genLogPrefix(settings.tag, request) + "Response: code: " + response.code() + ", message: " + response.message());
+    }
+
+    private void printResponseBodyLog(Request request, byte[] responseData) {
+        if (!logger.isInfoEnabled() || !settings.logPrintPayload){
+            return;
+        }
+        try {
+            logger.info(genLogPrefix(settings.tag, request) + "Response: body: " + new String(responseData, settings.encode));
+        } catch (Exception e) {
+            logger.warn(genLogPrefix(settings.tag, request) + "Error while printing response body", e);
+        }
+    }
+
+    private String genLogPrefix(String tag, Request request){
+        if (request.requestId == Integer.MAX_VALUE) {
+            return tag;
+        }
+        return tag + request.requestId + " ";
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // 其他逻辑
+    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+    public String getTag(){
+        return settings.rawTag;
+    }
+
+    /**
+     * 文本方式输出当前远端列表和状态
+     * @param prefix 文本前缀
+     * @return 远端列表和状态
+     */
+    public String printHostsStatus(String prefix){
+        return hostManager.printHostsStatus(prefix);
+    }
+
+    @Override
+    public String toString() {
+        return (hostManager != null ? hostManager.printHostsStatus("Hosts [") + " ] " : "") +
+                "Settings [ " + settings + " ]" + (inspectManager != null ? " Inspect [ " + inspectManager + " ]" : "");
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // RequestBody包装类 ///////////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+    // 让FormBody也支持ContentType设置, 以及流式压缩报文体
+    private static class RequestBodyWrapper extends RequestBody {
+
+        private final RequestBody provider;
+        private final MediaType mediaType;
+        private final RequestCompressor compressor;
+
+        public RequestBodyWrapper(RequestBody provider, MediaType mediaType) {
+            this(provider, mediaType, null);
+        }
+
+        public RequestBodyWrapper(RequestBody provider, MediaType mediaType, RequestCompressor compressor) {
+            super();
+            this.provider = provider;
+            this.mediaType = mediaType;
+            this.compressor = compressor;
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            //压缩后长度未知(分块传输)
+            if (compressor != null) {
+                return -1L;
+            }
+            return provider.contentLength();
+        }
+
+        @Override
+        public boolean isDuplex() {
+            return provider.isDuplex();
+        }
+
+        @Override
+        public boolean isOneShot() {
+            return provider.isOneShot();
+        }
+
+        @Override
+        public MediaType contentType() {
+            if (mediaType != null) {
+                return mediaType;
+            }
+            return provider.contentType();
+        }
+
+        @Override
+        public void writeTo(BufferedSink bufferedSink) throws IOException {
+            if (compressor == null) {
+                provider.writeTo(bufferedSink);
+                return;
+            }
+            //关闭压缩流时写入压缩结尾, 但不关闭OkHttp的输出流
+            BufferedSink compressedSink = Okio.buffer(compressor.compress(new ForwardingSink(bufferedSink) {
+                @Override
+                public void close() throws IOException {
+                    flush();
+                }
+            }));
+            try {
+                provider.writeTo(compressedSink);
+            } finally {
+                compressedSink.close();
+            }
+        }
+
+    }
+
+    /**
+     * 报文体写入回调, 见Request#body(BodyWriter)
+     */
+    public interface BodyWriter {
+
+        /**
+         * 将报文体写入输出流, 重试时可能被调用多次
+         *
+         * @param sink OkHttp输出流, 不要关闭它
+         */
+        void writeTo(BufferedSink sink) throws IOException;
+
+    }
+
+    // 输入流报文体, 只能发送一次
+    private static class InputStreamRequestBody extends RequestBody {
+
+        private final InputStream inputStream;
+        private final long contentLength;
+
+        private InputStreamRequestBody(InputStream inputStream, long contentLength) {
+            this.inputStream = inputStream;
+            this.contentLength = contentLength >= 0 ? contentLength : -1L;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return null;
+        }
+
+        @Override
+        public long contentLength() {
+            return contentLength;
+        }
+
+        @Override
+        public boolean isOneShot() {
+            return true;
+        }
+
+        @Override
+        public void writeTo(BufferedSink bufferedSink) throws IOException {
+            try (Source source = Okio.source(inputStream)) {
+                if (contentLength >= 0) {
+                    bufferedSink.write(source, contentLength);
+                } else {
+                    bufferedSink.writeAll(source);
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "InputStream(length=" + contentLength + ")";
+        }
+
+    }
+
+    // 文件报文体(Path), 每次发送重新打开文件
+    private static class PathRequestBody extends RequestBody {
+
+        private final Path path;
+
+        private PathRequestBody(Path path) {
+            this.path = path;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return null;
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            return Files.size(path);
+        }
+
+        @Override
+        public void writeTo(BufferedSink bufferedSink) throws IOException {
+            try (Source source = Okio.source(Files.newInputStream(path))) {
+                bufferedSink.writeAll(source);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "Path(" + path + ")";
+        }
+
+    }
+
+    // 回调写入报文体
+    private static class BodyWriterRequestBody extends RequestBody {
+
+        private final BodyWriter bodyWriter;
+
+        private BodyWriterRequestBody(BodyWriter bodyWriter) {
+            this.bodyWriter = bodyWriter;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return null;
+        }
+
+        @Override
+        public void writeTo(BufferedSink bufferedSink) throws IOException {
+            bodyWriter.writeTo(bufferedSink);
+        }
+
+        @Override
+        public String toString() {
+            return "BodyWriter(" + bodyWriter + ")";
+        }
+
+    }
+
+    // JavaBean流式报文体(StreamingDataConverter)
+    private static class BeanRequestBody extends RequestBody {
+
+        private final Object bean;
+        private final StreamingDataConverter dataConverter;
+
+        private BeanRequestBody(Object bean, StreamingDataConverter dataConverter) {
+            this.bean = bean;
+            this.dataConverter = dataConverter;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return null;
+        }
+
+        @Override
+        public void writeTo(BufferedSink bufferedSink) throws IOException {
+            try {
+                dataConverter.convert(bean, bufferedSink.outputStream());
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException("Error while convert bean to stream", e);
+            }
+        }
+
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // 响应实例 ////////////////////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * 响应包
+     */
+    public static class ResponsePackage implements Closeable {
+
+        private int code;
+        private String message;
+        private boolean isRedirect;
+        private ResponseBody body;
+        private Headers headers;
+        private HttpHeaders httpHeaders;
+        private String requestId;
+
+        private static ResponsePackage newInstance(Request request, Response response) {
+            if (response == null || response.body() == null) {
+                return null;
+            }
+            return new ResponsePackage(request, response);
+        }
+
+        private ResponsePackage(Request request, Response response) {
+            code = response.code();
+            message = response.message();
+            isRedirect = response.isRedirect();
+            body = response.body();
+            headers = response.headers();
+            httpHeaders = HttpHeaders.ofMultiValueMap(headers.toMultimap());
+            requestId = request.requestId == Integer.MAX_VALUE ? "" : String.valueOf(request.requestId);
+        }
+
+        /**
+         * 复制响应包(合并请求), 报文体为内存中的数据
+         */
+        private ResponsePackage(ResponsePackage source, Request request, byte[] bodyData) {
+            this(source.code, source.message, source.isRedirect, source.headers, source.body.contentType(), bodyData, request);
+        }
+
+        /**
+         * 缓存的响应(响应缓存)
+         */
+        private ResponsePackage(CachedResponse cachedResponse, Request request) {
+            this(cachedResponse.getCode(), cachedResponse.getMessage(), false, cachedResponse.getHeaders(),
+                    parseContentType(cachedResponse.getHeaders().get("Content-Type")), cachedResponse.getBody(), request);
+        }
+
+        private static MediaType parseContentType(String contentType) {
+            return contentType != null ? MediaType.parse(contentType) : null;
+        }
+
+        private ResponsePackage(int code, String message, boolean isRedirect, Headers headers, MediaType contentType, byte[] bodyData, Request request) {
+            this.code = code;
+            this.message = message;
+            this.isRedirect = isRedirect;
+            this.body = ResponseBody.create(contentType, bodyData);
+            this.headers = headers;
+            this.httpHeaders = HttpHeaders.ofMultiValueMap(headers.toMultimap());
+            this.requestId = request.requestId == Integer.MAX_VALUE ? "" : String.valueOf(request.requestId);
+        }
+
+        public int code() {
+            return code;
+        }
+
+        public String message() {
+            return message;
+        }
+
+        public boolean isRedirect() {
+            return isRedirect;
+        }
+
+        public ResponseBody body() {
+            return body;
+        }
+
+        /**
+         * @deprecated Use httpHeaders()
+         */
+        @Deprecated
+        public Headers headers() {
+            return headers;
+        }
+
+        public HttpHeaders httpHeaders() {
+            return httpHeaders;
+        }
+
+        public String requestId() {
+            return requestId;
+        }
+
+        @Override
+        public void close(){
+            CloseableUtils.closeQuiet(body);
+        }
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // 异步方式的Callback /////////////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * 请求回调(通用)
+     */
+    public static abstract class ResponsePackageCallback {
+
+        /**
+         * <p>请求成功</p>
+         *
+         * <p>注意: ResponsePackage实例是需要关闭的(close), 但我们提供autoClose配置, 详见Request#autoClose(boolean)</p>
+         *
+         * <p>
+         * 当autoClose=true时, onSucceed方法回调结束后, ResponsePackage/InputStream会被自动关闭, 无需手动调用close方法. 适用于
+         * 响应数据在回调方法中处理完的场合.<br>
+         * 当autoClose=false时, onSucceed方法回调结束后, ResponsePackage/InputStream不会自动关闭, 需要手动调用ResponsePackage.close()关闭,
+         * 注意!!! 适用于响应数据需要交由其他的线程处理, 或暂时持有的场合使用.
+         * </p>
+         *
+         * @param responsePackage 响应包, 可能为null
+         */
+        protected abstract void onSucceed(ResponsePackage responsePackage) throws Exception;
+
+        /**
+         * 请求前发生异常
+         * @param e {@link RequestBuildException}:请求前发生异常, {@link NoHostException}:未配置后端地址或所有后端地址均不可用
+         */
+        protected abstract void onErrorBeforeSend(Exception e);
+
+        /**
+         * 请求后发生异常
+         * @param e {@link HttpRejectException}:后端Http拒绝(返回码不为200), {@link IOException}:通讯异常
+         */
+        protected abstract void onErrorAfterSend(Exception e);
+
+        /**
+         * 回调方法onSucceed执行时如果抛出异常, 会回调该方法处理异常, 默认转交onErrorAfterSend方法处理
+         */
+        protected void errorOnSucceedProcessing(Exception e){
+            onErrorAfterSend(e);
+        }
+
+        void setContext(Settings settings, Request request) {
+            //do nothing
+        }
+
+        /**
+         * OkHttp请求创建后调用(对冲时可能调用两次), 用于取消请求
+         */
+        void bindCall(Call call) {
+            //do nothing
+        }
+
+    }
+
+    /**
+     * 请求回调(获得byte[]响应体)
+     */
+    public static abstract class BytesCallback extends ResponsePackageCallback {
+
+        private Request request;
+        private Settings settings;
+
+        /**
+         * <p>请求成功</p>
+         *
+         * @param body 响应, 可能为null
+         */
+        public abstract void onSucceed(byte[] body) throws Exception;
+
+        @Override
+        public final void onSucceed(ResponsePackage responsePackage) throws Exception {
+            if (onSucceedStreaming(responsePackage)) {
+                return;
+            }
+            byte[] bytes = null;
+            try {
+                if (responsePackage != null && responsePackage.body() != null) {
+                    //限定读取长度
+                    if (settings.maxReadLength > 0 && responsePackage.body().contentLength() > settings.maxReadLength) {
+                        throw new IOException("Response contentLength is out of limit, contentLength:" + responsePackage.body().contentLength() + ", limit:" + settings.maxReadLength);
+                    }
+                    //返回二进制数据
+                    bytes = responsePackage.body().bytes();
+                    printResponseBodyLog(bytes);
+                }
+            } catch (IOException e) {
+                try {
+                    onErrorAfterSend(e);
+                } catch (Exception ignore) {}
+                return;
+            } finally {
+                //byte[]类型返回时, 强制关闭(无论autoClose是什么配置)
+                if (responsePackage != null){
+                    try {
+                        responsePackage.close();
+                    } catch (Throwable ignore) {
+                    }
+                }
+            }
+            onSucceed(bytes);
+        }
+
+        /**
+         * 流式处理响应(不生成完整的byte[]), 返回true表示已处理, 返回false则按byte[]处理
+         */
+        boolean onSucceedStreaming(ResponsePackage responsePackage) throws Exception {
+            return false;
+        }
+
+        @Override
+        void setContext(Settings settings, Request request) {
+            this.request = request;
+            this.settings = settings;
+        }
+
+        protected void printResponseBodyLog(byte[] responseData) {
+            if (!logger.isInfoEnabled() || !settings.logPrintPayload){
+                return;
+            }
+            String logPrefix;
+            if (request.requestId == Integer.MAX_VALUE) {
+                logPrefix = settings.tag;
+            } else {
+                logPrefix = settings.tag + request.requestId + " ";
+            }
+            try {
+                logger.info(logPrefix + "Response: body: " + new String(responseData, settings.encode));
+            } catch (Exception e) {
+                logger.warn(logPrefix + "Error while printing response body", e);
+            }
+        }
+
+    }
+
+    /**
+     * 请求回调(获得InputStream响应体)
+     */
+    public static abstract class InputStreamCallback extends ResponsePackageCallback {
+
+        private Settings settings;
+
+        /**
+         * <p>请求成功</p>
+         *
+         * <p>注意: InputStream实例是需要关闭的(close), 但我们提供autoClose配置, 详见Request#autoClose(boolean)</p>
+         *
+         * <p>
+         * 当autoClose=true时, onSucceed方法回调结束后, ResponsePackage/InputStream会被自动关闭, 无需手动调用close方法. 适用于
+         * 响应数据在回调方法中处理完的场合.<br>
+         * 当autoClose=false时, onSucceed方法回调结束后, ResponsePackage/InputStream不会自动关闭, 需要手动调用ResponsePackage.close()关闭,
+         * 注意!!! 适用于响应数据需要交由其他的线程处理, 或暂时持有的场合使用.
+         * </p>
+         *
+         * @param inputStream 响应, 可能为null
+         */
+        public abstract void onSucceed(InputStream inputStream) throws Exception;
+
+        @Override
+        public final void onSucceed(ResponsePackage responsePackage) throws Exception {
+            //返回空
+            if (responsePackage == null || responsePackage.body() == null) {
+                onSucceed((InputStream) null);
+                return;
+            }
+            //限定读取长度
+            if (settings.maxReadLength > 0 && responsePackage.body().contentLength() > settings.maxReadLength) {
+                //长度超过限制时, 强制关闭(无论autoClose是什么配置)
+                try {
+                    responsePackage.close();
+                } catch (Throwable ignore) {
+                }
+                onErrorAfterSend(new IOException("Response contentLength is out of limit, contentLength:" + responsePackage.body().contentLength() + ", limit:" + settings.maxReadLength));
+                return;
+            }
+            //返回二进制数据
+            onSucceed(responsePackage.body().byteStream());
+        }
+
+        @Override
+        void setContext(Settings settings, Request request) {
+            this.settings = settings;
+        }
+
+    }
+
+    /**
+     * 请求回调(获得JavaBean响应体)
+     */
+    public static abstract class BeanCallback <T> extends BytesCallback {
+
+        private Request request;
+        private Settings settings;
+
+        /**
+         * <p>请求成功</p>
+         *
+         * <p>JavaBean的类型有BeanCallback的泛型决定</p>
+         *
+         * @param bean 响应, 可能为null
+         */
+        public abstract void onSucceed(T bean) throws Exception;
 
-        if (request.body != null) {
+        @Override
+        public final void onSucceed(byte[] body) throws Exception {
+            T responseBean;
             try {
-                logger.info(genLogPrefix(settings.tag, request) + "Request: body: " + new String(request.body, settings.encode));
+                DataConverter dataConverter = request.dataConverter != null ? request.dataConverter : settings.dataConverter;
+                if (dataConverter == null) {
+                    throw new ResponseConvertException("No DataConverter set, you must set dataConverter before enqueue a beanBody");
+                }
+                responseBean = dataConverter.convert(body, getBeanType());
             } catch (Exception e) {
-                logger.warn(genLogPrefix(settings.tag, request) + "Error while printing request body", e);
+                try {
+                    onErrorAfterSend(e);
+                } catch (Throwable ignore) {}
+                return;
             }
-        } else if (request.formBody != null) {
-            logger.info(genLogPrefix(settings.tag, request) + "Request: body(form): " + request.formBody);
-        } else if (request.beanBody != null && parsedData != null) {
+            onSucceed(responseBean);
+        }
+
+        @Override
+        final boolean onSucceedStreaming(ResponsePackage responsePackage) throws Exception {
+            DataConverter dataConverter = request.dataConverter != null ? request.dataConverter : settings.dataConverter;
+            //流式解析, 不生成完整的byte[] (打印报文日志时除外)
+            if (!(dataConverter instanceof StreamingDataConverter) || (logger.isInfoEnabled() && settings.logPrintPayload)) {
+                return false;
+            }
+            T responseBean = null;
             try {
-                logger.info(genLogPrefix(settings.tag, request) + "Request: body(bean): " + new String(parsedData, settings.encode));
+                if (responsePackage != null && responsePackage.body() != null) {
+                    //限定读取长度
+                    if (settings.maxReadLength > 0 && responsePackage.body().contentLength() > settings.maxReadLength) {
+                        throw new IOException("Response contentLength is out of limit, contentLength:" + responsePackage.body().contentLength() + ", limit:" + settings.maxReadLength);
+                    }
+                    responseBean = convertStreaming(responsePackage, getBeanType(), (StreamingDataConverter) dataConverter, settings);
+                }
             } catch (Exception e) {
-                logger.warn(genLogPrefix(settings.tag, request) + "Error while printing request body", e);
+                try {
+                    onErrorAfterSend(e);
+                } catch (Throwable ignore) {}
+                return true;
+            } finally {
+                //JavaBean类型返回时, 强制关闭(无论autoClose是什么配置)
+                if (responsePackage != null){
+                    try {
+                        responsePackage.close();
+                    } catch (Throwable ignore) {
+                    }
+                }
             }
-        } else if (request.customBody != null) {
-            logger.info(genLogPrefix(settings.tag, request) + "Request: body: multipart data can not be print");
-        } else {
-            logger.info(genLogPrefix(settings.tag, request) + "Request: body: null");
+            onSucceed(responseBean);
+            return true;
         }
-    }
 
-    private void printResponseCodeLog(Request request, Response response) {
-        if (!logger.isInfoEnabled() || !settings.logPrintStatusCode) {
-            return;
+        @SuppressWarnings("unchecked")
+        Class<T> getBeanType() {
+            //当前类的父类(BeanCallback实现类的父类), 即GlaciHttpClient$BeanCallback
+            Type superType = getClass().getGenericSuperclass();
+            if (!(superType instanceof ParameterizedType)) {
+                //GlaciHttpClient$BeanCallback有泛型, 因此这里的superType必然是ParameterizedType实例
+                //P.S.泛型类的实现类getGenericSuperclass返回ParameterizedType实例
+                //P.S.非泛型类的实现类getGenericSuperclass返回Class实例
+                throw new IllegalStateException("FATAL: superType is not an instance of ParameterizedType!");
+            }
+            //获取第0个泛型类型, 即T的实际类型
+            Type generic0Type = ((ParameterizedType)superType).getActualTypeArguments()[0];
+            //P.S.在getActualTypeArguments返回的类型数组中, 泛型类是ParameterizedType实例, 非泛型类是Class实例
+            if (generic0Type instanceof ParameterizedType) {
+                //如果第0个泛型类型(T的实际类型)是泛型类, 则generic0Type是ParameterizedType实例
+                //使用getRawType方法取原始类型用于类型转换
+                //例如T为Map<String, Object>时, 只取Map类型
+                return (Class<T>) ((ParameterizedType) generic0Type).getRawType();
+            } else {
+                //如果第0个泛型类型(T的实际类型)不是泛型类, 则generic0Type是Class实例, 直接转为Class<T>即可
+                //例如T类Map时, 直接类型转换为Class<Map>即可
+                return (Class<T>) generic0Type;
+            }
         }
-        logger.info(genLogPrefix(settings.tag, request) + "Response: code: " + response.code() + ", message: " + response.message());
-    }
 
-    private void printResponseBodyLog(Request request, byte[] responseData) {
-        if (!logger.isInfoEnabled() || !settings.logPrintPayload){
-            return;
-        }
-        try {
-            logger.info(genLogPrefix(settings.tag, request) + "Response: body: " + new String(responseData, settings.encode));
-        } catch (Exception e) {
-            logger.warn(genLogPrefix(settings.tag, request) + "Error while printing response body", e);
+        @Override
+        void setContext(Settings settings, Request request) {
+            super.setContext(settings, request);
+            this.request = request;
+            this.settings = settings;
         }
-    }
 
-    private String genLogPrefix(String tag, Request request){
-        if (request.requestId == Integer.MAX_VALUE) {
-            return tag;
-        }
-        return tag + request.requestId + " ";
     }
 
 
-    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
-    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
-    // 其他逻辑
-    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
-    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
-
-
-    public String getTag(){
-        return settings.rawTag;
-    }
-
     /**
-     * 文本方式输出当前远端列表和状态
-     * @param prefix 文本前缀
-     * @return 远端列表和状态
+     * 异步请求的Future, cancel时取消OkHttp请求, 可指定完成线程池
      */
-    public String printHostsStatus(String prefix){
-        return hostManager.printHostsStatus(prefix);
-    }
-
-    @Override
-    public String toString() {
-        return (hostManager != null ? hostManager.printHostsStatus("Hosts [") + " ] " : "") +
-                "Settings [ " + settings + " ]" + (inspectManager != null ? " Inspect [ " + inspectManager + " ]" : "");
-    }
-
-
-    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
-    // RequestBody包装类 ///////////////////////////////////////////////////////////////////////////////////////////
-    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
-
-
-    // 让FormBody也支持ContentType设置
-    private static class RequestBodyWrapper extends RequestBody {
+    private static final class ResponseFuture<T> extends CompletableFuture<T> {
 
-        private final RequestBody provider;
-        private final MediaType mediaType;
+        private final List<Call> calls = new ArrayList<>(2);
+        private volatile Executor completionExecutor;
 
-        public RequestBodyWrapper(RequestBody provider, MediaType mediaType) {
-            super();
-            this.provider = provider;
-            this.mediaType = mediaType;
+        private void bindCall(Call call) {
+            synchronized (calls) {
+                calls.add(call);
+            }
+            //绑定前已被取消
+            if (isCancelled()) {
+                call.cancel();
+            }
         }
 
         @Override
-        public long contentLength() throws IOException {
-            return provider.contentLength();
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                Call[] calls;
+                synchronized (this.calls) {
+                    calls = this.calls.toArray(new Call[0]);
+                }
+                for (Call call : calls) {
+                    call.cancel();
+                }
+            }
+            return cancelled;
         }
 
-        @Override
-        public boolean isDuplex() {
-            return provider.isDuplex();
+        private void succeed(T result) {
+            succeed(result, null);
         }
 
-        @Override
-        public boolean isOneShot() {
-            return provider.isOneShot();
+        /**
+         * @param discardHandler 结果未被采用(完成前已被取消)时的处理, 例如关闭响应, 可为空
+         */
+        private void succeed(T result, Consumer<T> discardHandler) {
+            Executor executor = completionExecutor;
+            if (executor == null) {
+                completeOrDiscard(result, discardHandler);
+                return;
+            }
+            try {
+                executor.execute(() -> completeOrDiscard(result, discardHandler));
+            } catch (Throwable t) {
+                //线程池拒绝时在当前线程完成
+                completeOrDiscard(result, discardHandler);
+            }
         }
 
-        @Override
-        public MediaType contentType() {
-            if (mediaType != null) {
-                return mediaType;
+        private void completeOrDiscard(T result, Consumer<T> discardHandler) {
+            if (!complete(result) && discardHandler != null) {
+                discardHandler.accept(result);
             }
-            return provider.contentType();
         }
 
-        @Override
-        public void writeTo(BufferedSink bufferedSink) throws IOException {
-            provider.writeTo(bufferedSink);
+        private void fail(Throwable throwable) {
+            Executor executor = completionExecutor;
+            if (executor == null) {
+                completeExceptionally(throwable);
+                return;
+            }
+            try {
+                executor.execute(() -> completeExceptionally(throwable));
+            } catch (Throwable t) {
+                //线程池拒绝时在当前线程完成
+                completeExceptionally(throwable);
+            }
         }
 
     }
 
+    private static final class ResponsePackageFutureCallback extends ResponsePackageCallback {
 
-    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
-    // 响应实例 ////////////////////////////////////////////////////////////////////////////////////////////////////
-    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
-
-    /**
-     * 响应包
-     */
-    public static class ResponsePackage implements Closeable {
-
-        private int code;
-        private String message;
-        private boolean isRedirect;
-        private ResponseBody body;
-        private Headers headers;
-        private HttpHeaders httpHeaders;
-        private String requestId;
+        private final ResponseFuture<ResponsePackage> future = new ResponseFuture<>();
 
-        private static ResponsePackage newInstance(Request request, Response response) {
-            if (response == null || response.body() == null) {
-                return null;
-            }
-            return new ResponsePackage(request, response);
+        @Override
+        protected void onSucceed(ResponsePackage responsePackage) {
+            //已被取消(包括在completionExecutor中完成之前被取消), 无人关闭
+            future.succeed(responsePackage, CloseableUtils::closeQuiet);
         }
 
-        private ResponsePackage(Request request, Response response) {
-            code = response.code();
-            message = response.message();
-            isRedirect = response.isRedirect();
-            body = response.body();
-            headers = response.headers();
-            httpHeaders = HttpHeaders.ofMultiValueMap(headers.toMultimap());
-            requestId = request.requestId == Integer.MAX_VALUE ? "" : String.valueOf(request.requestId);
+        @Override
+        protected void onErrorBeforeSend(Exception e) {
+            future.fail(e);
         }
 
-        public int code() {
-            return code;
+        @Override
+        protected void onErrorAfterSend(Exception e) {
+            future.fail(e);
         }
 
-        public String message() {
-            return message;
+        @Override
+        void bindCall(Call call) {
+            future.bindCall(call);
         }
 
-        public boolean isRedirect() {
-            return isRedirect;
-        }
+    }
 
-        public ResponseBody body() {
-            return body;
-        }
+    private static final class BytesFutureCallback extends BytesCallback {
 
-        /**
-         * @deprecated Use httpHeaders()
-         */
-        @Deprecated
-        public Headers headers() {
-            return headers;
+        private final ResponseFuture<byte[]> future = new ResponseFuture<>();
+
+        @Override
+        public void onSucceed(byte[] body) {
+            future.succeed(body);
         }
 
-        public HttpHeaders httpHeaders() {
-            return httpHeaders;
+        @Override
+        protected void onErrorBeforeSend(Exception e) {
+            future.fail(e);
         }
 
-        public String requestId() {
-            return requestId;
+        @Override
+        protected void onErrorAfterSend(Exception e) {
+            future.fail(e);
         }
 
         @Override
-        public void close(){
-            CloseableUtils.closeQuiet(body);
+        void bindCall(Call call) {
+            future.bindCall(call);
         }
+
     }
 
-    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
-    // 异步方式的Callback /////////////////////////////////////////////////////////////////////////////////////////////
-    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private static final class BeanFutureCallback<T> extends BeanCallback<T> {
 
-    /**
-     * 请求回调(通用)
-     */
-    public static abstract class ResponsePackageCallback {
+        private final ResponseFuture<T> future = new ResponseFuture<>();
+        private final Class<T> type;
 
-        /**
-         * <p>请求成功</p>
-         *
-         * <p>注意: ResponsePackage实例是需要关闭的(close), 但我们提供autoClose配置, 详见Request#autoClose(boolean)</p>
-         *
-         * <p>
-         * 当autoClose=true时, onSucceed方法回调结束后, ResponsePackage/InputStream会被自动关闭, 无需手动调用close方法. 适用于
-         * 响应数据在回调方法中处理完的场合.<br>
-         * 当autoClose=false时, onSucceed方法回调结束后, ResponsePackage/InputStream不会自动关闭, 需要手动调用ResponsePackage.close()关闭,
-         * 注意!!! 适用于响应数据需要交由其他的线程处理, 或暂时持有的场合使用.
-         * </p>
-         *
-         * @param responsePackage 响应包, 可能为null
-         */
-        protected abstract void onSucceed(ResponsePackage responsePackage) throws Exception;
+        private BeanFutureCallback(Class<T> type) {
+            this.type = type;
+        }
 
-        /**
-         * 请求前发生异常
-         * @param e {@link RequestBuildException}:请求前发生异常, {@link NoHostException}:未配置后端地址或所有后端地址均不可用
-         */
-        protected abstract void onErrorBeforeSend(Exception e);
+        @Override
+        public void onSucceed(T bean) {
+            future.succeed(bean);
+        }
 
-        /**
-         * 请求后发生异常
-         * @param e {@link HttpRejectException}:后端Http拒绝(返回码不为200), {@link IOException}:通讯异常
-         */
-        protected abstract void onErrorAfterSend(Exception e);
+        @Override
+        protected void onErrorBeforeSend(Exception e) {
+            future.fail(e);
+        }
 
-        /**
-         * 回调方法onSucceed执行时如果抛出异常, 会回调该方法处理异常, 默认转交onErrorAfterSend方法处理
-         */
-        protected void errorOnSucceedProcessing(Exception e){
-            onErrorAfterSend(e);
+        @Override
+        protected void onErrorAfterSend(Exception e) {
+            future.fail(e);
+        }
+
+        @Override
+        void bindCall(Call call) {
+            future.bindCall(call);
         }
 
-        void setContext(Settings settings, Request request) {
-            //do nothing
+        @Override
+        Class<T> getBeanType() {
+            return type;
         }
 
     }
 
     /**
-     * 请求回调(获得byte[]响应体)
+     * 异步请求TxTimer统计, 回调结束时计时结束
      */
-    public static abstract class BytesCallback extends ResponsePackageCallback {
+    private static final class TimedCallback extends ResponsePackageCallback {
 
-        private Request request;
-        private Settings settings;
+        private final ResponsePackageCallback delegate;
+        private final Object timerContext;
+        private final AtomicBoolean exited = new AtomicBoolean(false);
 
-        /**
-         * <p>请求成功</p>
-         *
-         * @param body 响应, 可能为null
-         */
-        public abstract void onSucceed(byte[] body) throws Exception;
+        private TimedCallback(ResponsePackageCallback delegate, Object timerContext) {
+            this.delegate = delegate;
+            this.timerContext = timerContext;
+        }
 
         @Override
-        public final void onSucceed(ResponsePackage responsePackage) throws Exception {
-            byte[] bytes = null;
+        protected void onSucceed(ResponsePackage responsePackage) throws Exception {
             try {
-                if (responsePackage != null && responsePackage.body() != null) {
-                    //限定读取长度
-                    if (settings.maxReadLength > 0 && responsePackage.body().contentLength() > settings.maxReadLength) {
-                        throw new IOException("Response contentLength is out of limit, contentLength:" + responsePackage.body().contentLength() + ", limit:" + settings.maxReadLength);
-                    }
-                    //返回二进制数据
-                    bytes = responsePackage.body().bytes();
-                    printResponseBodyLog(bytes);
-                }
-            } catch (IOException e) {
-                try {
-                    onErrorAfterSend(e);
-                } catch (Exception ignore) {}
-                return;
+                delegate.onSucceed(responsePackage);
             } finally {
-                //byte[]类型返回时, 强制关闭(无论autoClose是什么配置)
-                if (responsePackage != null){
-                    try {
-                        responsePackage.close();
-                    } catch (Throwable ignore) {
-                    }
-                }
+                exit();
             }
-            onSucceed(bytes);
         }
 
         @Override
-        void setContext(Settings settings, Request request) {
-            this.request = request;
-            this.settings = settings;
+        protected void onErrorBeforeSend(Exception e) {
+            try {
+                delegate.onErrorBeforeSend(e);
+            } finally {
+                exit();
+            }
         }
 
-        protected void printResponseBodyLog(byte[] responseData) {
-            if (!logger.isInfoEnabled() || !settings.logPrintPayload){
-                return;
-            }
-            String logPrefix;
-            if (request.requestId == Integer.MAX_VALUE) {
-                logPrefix = settings.tag;
-            } else {
-                logPrefix = settings.tag + request.requestId + " ";
-            }
+        @Override
+        protected void onErrorAfterSend(Exception e) {
             try {
-                logger.info(logPrefix + "Response: body: " + new String(responseData, settings.encode));
-            } catch (Exception e) {
-                logger.warn(logPrefix + "Error while printing response body", e);
+                delegate.onErrorAfterSend(e);
+            } finally {
+                exit();
             }
         }
 
-    }
-
-    /**
-     * 请求回调(获得InputStream响应体)
-     */
-    public static abstract class InputStreamCallback extends ResponsePackageCallback {
-
-        private Settings settings;
-
-        /**
-         * <p>请求成功</p>
-         *
-         * <p>注意: InputStream实例是需要关闭的(close), 但我们提供autoClose配置, 详见Request#autoClose(boolean)</p>
-         *
-         * <p>
-         * 当autoClose=true时, onSucceed方法回调结束后, ResponsePackage/InputStream会被自动关闭, 无需手动调用close方法. 适用于
-         * 响应数据在回调方法中处理完的场合.<br>
-         * 当autoClose=false时, onSucceed方法回调结束后, ResponsePackage/InputStream不会自动关闭, 需要手动调用ResponsePackage.close()关闭,
-         * 注意!!! 适用于响应数据需要交由其他的线程处理, 或暂时持有的场合使用.
-         * </p>
-         *
-         * @param inputStream 响应, 可能为null
-         */
-        public abstract void onSucceed(InputStream inputStream) throws Exception;
-
         @Override
-        public final void onSucceed(ResponsePackage responsePackage) throws Exception {
-            //返回空
-            if (responsePackage == null || responsePackage.body() == null) {
-                onSucceed((InputStream) null);
-                return;
-            }
-            //限定读取长度
-            if (settings.maxReadLength > 0 && responsePackage.body().contentLength() > settings.maxReadLength) {
-                //长度超过限制时, 强制关闭(无论autoClose是什么配置)
-                try {
-                    responsePackage.close();
-                } catch (Throwable ignore) {
-                }
-                onErrorAfterSend(new IOException("Response contentLength is out of limit, contentLength:" + responsePackage.body().contentLength() + ", limit:" + settings.maxReadLength));
-                return;
-            }
-            //返回二进制数据
-            onSucceed(responsePackage.body().byteStream());
+        protected void errorOnSucceedProcessing(Exception e) {
+            delegate.errorOnSucceedProcessing(e);
         }
 
         @Override
         void setContext(Settings settings, Request request) {
-            this.settings = settings;
+            delegate.setContext(settings, request);
         }
 
-    }
-
-    /**
-     * 请求回调(获得JavaBean响应体)
-     */
-    public static abstract class BeanCallback <T> extends BytesCallback {
-
-        private Request request;
-        private Settings settings;
-
-        /**
-         * <p>请求成功</p>
-         *
-         * <p>JavaBean的类型有BeanCallback的泛型决定</p>
-         *
-         * @param bean 响应, 可能为null
-         */
-        public abstract void onSucceed(T bean) throws Exception;
-
-        @SuppressWarnings("unchecked")
         @Override
-        public final void onSucceed(byte[] body) throws Exception {
-            T responseBean;
-            try {
-                DataConverter dataConverter = request.dataConverter != null ? request.dataConverter : settings.dataConverter;
-                if (dataConverter == null) {
-                    throw new ResponseConvertException("No DataConverter set, you must set dataConverter before enqueue a beanBody");
-                }
-                //当前类的父类(BeanCallback实现类的父类), 即GlaciHttpClient$BeanCallback
-                Type superType = getClass().getGenericSuperclass();
-                if (!(superType instanceof ParameterizedType)) {
-                    //GlaciHttpClient$BeanCallback有泛型, 因此这里的superType必然是ParameterizedType实例
-                    //P.S.泛型类的实现类getGenericSuperclass返回ParameterizedType实例
-                    //P.S.非泛型类的实现类getGenericSuperclass返回Class实例
-                    throw new IllegalStateException("FATAL: superType is not an instance of ParameterizedType!");
-                }
-                //获取第0个泛型类型, 即T的实际类型
-                Type generic0Type = ((ParameterizedType)superType).getActualTypeArguments()[0];
-                //P.S.在getActualTypeArguments返回的类型数组中, 泛型类是ParameterizedType实例, 非泛型类是Class实例
-                if (generic0Type instanceof ParameterizedType) {
-                    //如果第0个泛型类型(T的实际类型)是泛型类, 则generic0Type是ParameterizedType实例
-                    //使用getRawType方法取原始类型用于类型转换
-                    //例如T为Map<String, Object>时, 只取Map类型
-                    responseBean = dataConverter.convert(body, (Class<T>) ((ParameterizedType) generic0Type).getRawType());
-                } else {
-                    //如果第0个泛型类型(T的实际类型)不是泛型类, 则generic0Type是Class实例, 直接转为Class<T>即可
-                    //例如T类Map时, 直接类型转换为Class<Map>即可
-                    responseBean = dataConverter.convert(body, (Class<T>) generic0Type);
-                }
-            } catch (Exception e) {
-                try {
-                    onErrorAfterSend(e);
-                } catch (Throwable ignore) {}
-                return;
-            }
-            onSucceed(responseBean);
+        void bindCall(Call call) {
+            delegate.bindCall(call);
         }
 
-        @Override
-        void setContext(Settings settings, Request request) {
-            super.setContext(settings, request);
-            this.request = request;
-            this.settings = settings;
+        private void exit() {
+            if (exited.compareAndSet(false, true)) {
+                NoDepTxTimerProxy.exit(timerContext);
+            }
         }
 
     }
@@ -1769,23 +4320,47 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
         private int maxIdleConnections = 0;
         private int maxThreads = 256;
         private int maxThreadsPerHost = 256;
+        private String resourceGroup;
         private long connectTimeout = 3000L;
         private long writeTimeout = 10000L;
         private long readTimeout = 10000L;
         private long maxReadLength = 10L * 1024L * 1024L;
         private HttpHeaders headers;
+        private String deadlineBudgetHeader;
         private String mediaType = null;
         private String encode = ENCODE;
 
         private CookieJar cookieJar;
         private Proxy proxy;
         private Dns dns;
+        private long happyEyeballsDelay = 0L;
         private SslConfigSupplier sslConfigSupplier;
+        private int sslSessionCacheSize = 1024;
+        private int sslSessionTimeout = 3600;
         private HostnameVerifier hostnameVerifier;
         private DataConverter dataConverter;
         private Set<Integer> httpCodeNeedBlock = new HashSet<>(8);
         private Set<Class<? extends Throwable>> throwableNeedBlock = new HashSet<>(8);
         private boolean requestTraceEnabled = false;
+        private int hedgeBudgetPercent = HEDGE_BUDGET_PERCENT;
+        private long hedgeMinDelay = 10L;
+        private int maxRetries = 0;
+        private int retryBudgetPercent = RETRY_BUDGET_PERCENT;
+        private int preWarmConnections = 0;
+        private int preWarmConcurrency = 2;
+        private String preWarmUrlSuffix = "";
+        private String metricsName;
+        private int singleFlightMaxWaiters = 1000;
+        private long singleFlightLeaderTimeout = 0L;
+        private long singleFlightFollowerTimeout = 0L;
+        private long responseCacheMaxBytes = 0L;
+        private String responseCacheDiskDirectory;
+        private long responseCacheDiskMaxBytes = 256L * 1024L * 1024L;
+        private RequestCompressor requestCompressor;
+        private int requestCompressionThreshold = 1024;
+        private Set<String> requestCompressionIncludes = new HashSet<>();
+        private Set<String> requestCompressionExcludes = new HashSet<>();
+        private String requestCompressionUrlSuffixes;
 
         private String tag = LOG_PREFIX;
         private String rawTag = "";
@@ -1798,6 +4373,8 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
 
         private boolean txTimerEnabled = false;
 
+        private Executor asyncCompletionExecutor;
+
         private Settings(){
         }
 
@@ -1821,89 +4398,241 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
             return sslConfigSupplier;
         }
 
+        public int getSslSessionCacheSize() {
+            return sslSessionCacheSize;
+        }
+
+        public int getSslSessionTimeout() {
+            return sslSessionTimeout;
+        }
+
         public HostnameVerifier getHostnameVerifier() {
             return hostnameVerifier;
         }
-
-        @Override
-        public String toString() {
-            return "passiveBlockDur=" + passiveBlockDuration +
-                    ", recoveryCoef=" + recoveryCoefficient +
-                    ", maxIdleConn=" + maxIdleConnections +
-                    ", maxThreads=" + maxThreads +
-                    ", maxThreadsPerHost=" + maxThreadsPerHost +
-                    ", connectTimeout=" + connectTimeout +
-                    ", writeTimeout=" + writeTimeout +
-                    ", readTimeout=" + readTimeout +
-                    ", maxReadLength=" + maxReadLength +
-                    ", headers=" + headers +
-                    ", mediaType='" + mediaType + '\'' +
-                    ", encode='" + encode + '\'' +
-                    ", cookieJar=" + cookieJar +
-                    ", proxy=" + proxy +
-                    ", dns=" + dns +
-                    ", sslConfSupplier=" + sslConfigSupplier +
-                    ", hostnameVerifier=" + hostnameVerifier +
-                    ", dataConverter=" + dataConverter +
-                    ", httpCodeNeedBlock=" + httpCodeNeedBlock +
-                    ", throwableNeedBlock=" + throwableNeedBlock +
-                    ", requestTrace=" + requestTraceEnabled +
-                    ", logUrl=" + logPrintUrl +
-                    ", logBlock=" + logPrintBlock +
-                    ", logPayload=" + logPrintPayload +
-                    ", logStatus=" + logPrintStatusCode +
-                    ", logInputs=" + logPrintInputs +
-                    ", txTimerEnabled=" + txTimerEnabled;
+
+        @Override
+        public String toString() {
+            return "passiveBlockDur=" + passiveBlockDuration +
+                    ", recoveryCoef=" + recoveryCoefficient +
+                    ", maxIdleConn=" + maxIdleConnections +
+                    ", maxThreads=" + maxThreads +
+                    ", maxThreadsPerHost=" + maxThreadsPerHost +
+                    ", resourceGroup=" + resourceGroup +
+                    ", connectTimeout=" + connectTimeout +
+                    ", writeTimeout=" + writeTimeout +
+                    ", readTimeout=" + readTimeout +
+                    ", maxReadLength=" + maxReadLength +
+                    ", headers=" + headers +
+                    ", deadlineBudgetHeader=" + deadlineBudgetHeader +
+                    ", mediaType='" + mediaType + '\'' +
+                    ", encode='" + encode + '\'' +
+                    ", cookieJar=" + cookieJar +
+                    ", proxy=" + proxy +
+                    ", dns=" + dns +
+                    ", happyEyeballsDelay=" + happyEyeballsDelay +
+                    ", sslConfSupplier=" + sslConfigSupplier +
+                    ", sslSessionCacheSize=" + sslSessionCacheSize +
+                    ", sslSessionTimeout=" + sslSessionTimeout +
+                    ", hostnameVerifier=" + hostnameVerifier +
+                    ", dataConverter=" + dataConverter +
+                    ", httpCodeNeedBlock=" + httpCodeNeedBlock +
+                    ", throwableNeedBlock=" + throwableNeedBlock +
+                    ", requestTrace=" + requestTraceEnabled +
+                    ", hedgeBudget=" + hedgeBudgetPercent + "%" +
+                    ", hedgeMinDelay=" + hedgeMinDelay +
+                    ", maxRetries=" + maxRetries +
+                    ", retryBudget=" + retryBudgetPercent + "%" +
+                    ", preWarmConnections=" + preWarmConnections +
+                    ", preWarmConcurrency=" + preWarmConcurrency +
+                    ", preWarmUrlSuffix=" + preWarmUrlSuffix +
+                    ", metrics=" + metricsName +
+                    ", singleFlightMaxWaiters=" + singleFlightMaxWaiters +
+                    ", singleFlightLeaderTimeout=" + singleFlightLeaderTimeout +
+                    ", singleFlightFollowerTimeout=" + singleFlightFollowerTimeout +
+                    ", responseCacheMaxBytes=" + responseCacheMaxBytes +
+                    ", responseCacheDiskDirectory=" + responseCacheDiskDirectory +
+                    ", responseCacheDiskMaxBytes=" + responseCacheDiskMaxBytes +
+                    ", requestCompression=" + requestCompressor +
+                    ", requestCompressionThreshold=" + requestCompressionThreshold +
+                    ", requestCompressionUrlSuffixes=" + requestCompressionUrlSuffixes +
+                    ", logUrl=" + logPrintUrl +
+                    ", logBlock=" + logPrintBlock +
+                    ", logPayload=" + logPrintPayload +
+                    ", logStatus=" + logPrintStatusCode +
+                    ", logInputs=" + logPrintInputs +
+                    ", txTimerEnabled=" + txTimerEnabled +
+                    ", asyncCompletionExecutor=" + asyncCompletionExecutor;
+        }
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // hostManager配置
+    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * [线程安全/异步生效/可运行时修改]
+     * 设置/刷新远端列表, 该方法可以反复调用设置新的后端(但不是同步生效)
+     *
+     * @param hosts 远端列表, 格式:"http://127.0.0.1:8081/,http://127.0.0.1:8082/",
+     *              分层格式(用'|'分隔层级, 优先使用第一层, 见setTierFailoverThreshold):"http://127.0.0.1:8081/,http://127.0.0.1:8082/|http://10.0.0.1:8081/"
+     */
+    public GlaciHttpClient setHosts(String hosts) {
+        hostManager.setHosts(hosts);
+        return this;
+    }
+
+    /**
+     * [线程安全/异步生效/可运行时修改]
+     * 设置/刷新远端列表, 该方法可以反复调用设置新的后端(但不是同步生效)
+     *
+     * @param hosts 远端列表
+     */
+    public GlaciHttpClient setHostArray(String[] hosts) {
+        hostManager.setHostArray(hosts);
+        return this;
+    }
+
+    /**
+     * [线程安全/异步生效/可运行时修改]
+     * 设置/刷新远端列表, 该方法可以反复调用设置新的后端(但不是同步生效)
+     *
+     * @param hosts 远端列表
+     */
+    public GlaciHttpClient setHostList(List<String> hosts) {
+        hostManager.setHostList(hosts);
+        return this;
+    }
+
+    /**
+     * [可运行时修改]
+     * 如果设置为false(默认), 当所有远端都被阻断时, nextHost方法返回一个后端.
+     * 如果设置为true, 当所有远端都被阻断时, nextHost方法返回null.
+     */
+    public GlaciHttpClient setReturnNullIfAllBlocked(boolean returnNullIfAllBlocked) {
+        hostManager.setReturnNullIfAllBlocked(returnNullIfAllBlocked);
+        return this;
+    }
+
+    /**
+     * [可运行时修改]
+     * 分层远端(setHosts中用'|'分隔层级, 例如本机房|同地域|异地): 请求优先发往第一层, 当一层中健康远端的比例低于该阈值时,
+     * 按比例将流量溢出到下一层, 默认0.7. 例如阈值0.7, 第一层健康比例为0.35时, 第一层承担50%的流量.
+     *
+     * @param tierFailoverThreshold 阈值(0, 1]
+     */
+    public GlaciHttpClient setTierFailoverThreshold(double tierFailoverThreshold) {
+        hostManager.setTierFailoverThreshold(tierFailoverThreshold);
+        return this;
+    }
+
+    /**
+     * [可运行时修改]
+     * 一致性哈希(Request#routingKey)每个远端的虚拟节点数, 默认160, 最大1000. 虚拟节点越多, 路由键在远端间分布越均匀,
+     * 占用内存越多. 小于等于0时关闭一致性哈希(忽略Request#routingKey).
+     *
+     * @param virtualNodes 虚拟节点数
+     */
+    public GlaciHttpClient setConsistentHashVirtualNodes(int virtualNodes) {
+        hostManager.setConsistentHashVirtualNodes(virtualNodes);
+        return this;
+    }
+
+    /**
+     * [可运行时修改]
+     * 设置远端选择策略, 默认round-robin. 内置: round-robin / weighted-round-robin / least-outstanding / p2c-ewma,
+     * 也可以通过GlacimonSpi扩展HostSelectionStrategy
+     *
+     * @param hostSelectionStrategy 策略名称
+     */
+    public GlaciHttpClient setHostSelectionStrategy(String hostSelectionStrategy) {
+        hostManager.setSelectionStrategy(hostSelectionStrategy);
+        return this;
+    }
+
+    /**
+     * [可运行时修改]
+     * 开启请求耗时统计(同步及异步请求), 按远端和urlSuffix统计排队/DNS/连接/TLS/首字节/总耗时, 通过getMetricsSnapshot获取,
+     * resetMetrics清空. 内置: histogram(无锁对数直方图), 也可以通过GlacimonSpi扩展HttpClientMetricsFactory.
+     * 默认不统计. 重复设置相同的名称时保留已有数据.
+     *
+     * @param metrics 统计实现名称, 为空时关闭统计
+     * @throws IllegalArgumentException 实现不存在
+     */
+    public GlaciHttpClient setMetrics(String metrics) {
+        if (CheckUtils.isEmptyOrBlank(metrics)) {
+            return setMetrics((HttpClientMetrics) null);
+        }
+        if (metrics.trim().equals(settings.metricsName)) {
+            return this;
+        }
+        HttpClientMetricsFactory factory = GlacimonSpi.loadMultipleService(HttpClientMetricsFactory.class).get(metrics.trim());
+        if (factory == null) {
+            throw new IllegalArgumentException("No HttpClientMetricsFactory named '" + metrics +
+                    "', see HttpClientMetricsFactory and docs/spi/index.md");
         }
+        setMetrics(factory.newMetrics(settings.tag));
+        settings.metricsName = metrics.trim();
+        return this;
     }
 
-    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
-    // hostManager配置
-    ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
-
     /**
-     * [线程安全/异步生效/可运行时修改]
-     * 设置/刷新远端列表, 该方法可以反复调用设置新的后端(但不是同步生效)
+     * [可运行时修改]
+     * 开启请求耗时统计, 见setMetrics(String)
      *
-     * @param hosts 远端列表, 格式:"http://127.0.0.1:8081/,http://127.0.0.1:8082/"
+     * @param metrics 统计实例, 为空时关闭统计
      */
-    public GlaciHttpClient setHosts(String hosts) {
-        hostManager.setHosts(hosts);
+    public GlaciHttpClient setMetrics(HttpClientMetrics metrics) {
+        this.metrics = metrics;
+        settings.metricsName = metrics != null ? metrics.getClass().getName() : null;
         return this;
     }
 
     /**
-     * [线程安全/异步生效/可运行时修改]
-     * 设置/刷新远端列表, 该方法可以反复调用设置新的后端(但不是同步生效)
+     * [可运行时修改]
+     * 设置远端权重, 仅在weighted-round-robin策略下有效, 未设置的远端权重为1
      *
-     * @param hosts 远端列表
+     * @param hostWeights 远端权重, 格式:"http://127.0.0.1:8081=3,http://127.0.0.1:8082=1"
      */
-    public GlaciHttpClient setHostArray(String[] hosts) {
-        hostManager.setHostArray(hosts);
+    public GlaciHttpClient setHostWeights(String hostWeights) {
+        hostManager.setHostWeights(hostWeights);
         return this;
     }
 
     /**
-     * [线程安全/异步生效/可运行时修改]
-     * 设置/刷新远端列表, 该方法可以反复调用设置新的后端(但不是同步生效)
+     * [可运行时修改]
+     * 设置自适应并发限制(每个远端独立), 默认关闭. 根据RTT/失败率自动调整每个远端的并发上限, 达到上限的远端暂时不分配请求,
+     * 所有远端都达到上限时, 请求被拒绝(HostOverloadException), 在后端排队崩溃前减轻压力.
      *
-     * @param hosts 远端列表
+     * @param concurrencyLimitDescription 配置, 为空关闭. 参数说明见ConcurrencyLimiterFactory,
+     *                                    例如: algorithm=aimd,initialLimit=20,maxLimit=200 或 algorithm=gradient,maxLimit=500
      */
-    public GlaciHttpClient setHostList(List<String> hosts) {
-        hostManager.setHostList(hosts);
+    public GlaciHttpClient setConcurrencyLimit(String concurrencyLimitDescription) {
+        hostManager.setConcurrencyLimit(concurrencyLimitDescription);
         return this;
     }
 
     /**
      * [可运行时修改]
-     * 如果设置为false(默认), 当所有远端都被阻断时, nextHost方法返回一个后端.
-     * 如果设置为true, 当所有远端都被阻断时, nextHost方法返回null.
+     * 设置离群检测, 默认关闭. 开启后, 请求失败不再立即阻断远端(恢复期内的失败除外), 而是记录到每个远端的滑动窗口中,
+     * 失败率/平均耗时明显偏离所有远端中位数的远端会被阻断(驱逐), 同时阻断的远端数不超过指定比例. 适用于远端较多的场景,
+     * 避免偶发失败就阻断远端, 也能驱逐间歇性失败的远端. 主动探测的阻断不受影响. 连接失败, 或者远端数/流量不足以进行离群检测时
+     * (少于minHosts个远端窗口内请求数达到minRequests, 或该远端请求数不足minRequests), 请求失败照常立即阻断.
+     *
+     * @param outlierDetectionDescription 配置, 为空关闭. 参数说明见OutlierDetector,
+     *                                    例如: minRequests=20,errorRateFactor=2,latencyFactor=3,maxEjectionPercent=50,ejectionDuration=30000
      */
-    public GlaciHttpClient setReturnNullIfAllBlocked(boolean returnNullIfAllBlocked) {
-        hostManager.setReturnNullIfAllBlocked(returnNullIfAllBlocked);
+    public GlaciHttpClient setOutlierDetection(String outlierDetectionDescription) {
+        hostManager.setOutlierDetection(outlierDetectionDescription);
         return this;
     }
 
+    /**
+     * 获得当前远端的并发情况(自适应并发限制), Key为URL, Value为{未完成请求数, 并发上限}, 未开启并发限制时并发上限为-1
+     */
+    public Map<String, int[]> getHostsConcurrency() {
+        return hostManager.getHostsConcurrency();
+    }
+
     ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
     // inspectManager配置
     ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -2008,6 +4737,17 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
         }
     }
 
+    /**
+     * [可运行时修改]
+     * 设置后, 请求有截止时间(Request#totalTimeout/DeadlineBudget)时, 将剩余时间(ms)放在该请求头中传给下游,
+     * 下游可以用DeadlineBudget.fromHeader解析后绑定到处理线程, 使整条调用链遵守同一个截止时间. 默认为空(不传递)
+     * @param deadlineBudgetHeader 请求头名称, 例如X-Deadline-Budget, 为空不传递
+     */
+    public GlaciHttpClient setDeadlineBudgetHeader(String deadlineBudgetHeader) {
+        settings.deadlineBudgetHeader = CheckUtils.isEmptyOrBlank(deadlineBudgetHeader) ? null : deadlineBudgetHeader.trim();
+        return this;
+    }
+
     /**
      * [可运行时修改]
      * 设置阻断后的恢复期系数, 修复期时长 = blockDuration * recoveryCoefficient, 设置1则无恢复期
@@ -2024,6 +4764,7 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
     /**
      * [可运行时修改]
      * 最大闲置连接数. 若设置为0(默认), 每次重新解析域名+重新建立连接, 性能差, 但支持动态域名解析. 若设置为正整数(例如16), 会复用连接池中的连接, 性能强, 但若DNS域名解析记录更新, 可能会向原IP发送请求.
+     * 注意: 修改该参数会重建连接池(旧连接池平滑关闭), 其他参数的修改不会重建连接池.
      * @param maxIdleConnections 最大闲置连接数, 默认0
      */
     public GlaciHttpClient setMaxIdleConnections(int maxIdleConnections) {
@@ -2077,6 +4818,32 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
         return this;
     }
 
+    /**
+     * <p>[可运行时修改]</p>
+     * <p>设置资源组, 同一个资源组的客户端共用一个异步请求线程池和一个连接池, 默认为空(客户端独占线程池和连接池).</p>
+     * <p>适用于客户端很多的场景(例如HttpClients配置了几十个客户端), 避免大量闲置线程和闲置连接; 访问相同后端(且代理/DNS/SSL配置相同)的
+     * 客户端还可以复用彼此的连接. 每个客户端的maxThreads/maxThreadsPerHost照常生效(客户端各自的Dispatcher计数和排队, 不持有线程),
+     * 加入资源组后本客户端的maxIdleConnections不再生效, 改用资源组的参数.</p>
+     * <p></p>
+     * <p>参数采用SimpleKeyValueEncoder格式, 详见: https://github.com/shepherdviolet/glacimon/blob/master/docs/kvencoder/guide.md</p>
+     * <p>name: 资源组名称, 必输</p>
+     * <p>maxIdleConnections: 资源组连接池最大闲置连接数, 可选, 默认为第一个加入该资源组的客户端的maxIdleConnections</p>
+     * <p>keepAliveSeconds: 资源组连接池闲置连接保持时间(秒), 可选, 默认300</p>
+     * <p>资源组由第一个加入的客户端按参数创建, 其他客户端的参数不同时忽略(打印警告). 示例: name=backend,maxIdleConnections=64;
+     * 只需要名称时可以简写为: backend</p>
+     *
+     * @param resourceGroup 资源组参数, 为空表示不使用资源组
+     */
+    public GlaciHttpClient setResourceGroup(String resourceGroup) {
+        try {
+            settingsSpinLock.lock();
+            settings.resourceGroup = CheckUtils.isEmptyOrBlank(resourceGroup) ? null : resourceGroup.trim();
+        } finally {
+            settingsSpinLock.unlock();
+        }
+        return this;
+    }
+
     /**
      * [可运行时修改]
      * 设置连接超时ms
@@ -2144,6 +4911,259 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
         return this;
     }
 
+    /**
+     * [可运行时修改]
+     * 设置对冲请求预算(默认:10), 对冲请求(Request#hedge)数最多占开启对冲的请求数的百分比, 防止后端故障时流量被放大. 设置0禁止对冲.
+     * @param hedgeBudgetPercent 百分比, [0, 100]
+     */
+    public GlaciHttpClient setHedgeBudgetPercent(int hedgeBudgetPercent) {
+        hedgeBudgetPercent = Math.max(0, Math.min(100, hedgeBudgetPercent));
+        if (hedgeBudgetPercent != settings.hedgeBudgetPercent) {
+            settings.hedgeBudgetPercent = hedgeBudgetPercent;
+            hedgeBudget = new ExtraAttemptBudget(hedgeBudgetPercent, HEDGE_BUDGET_MAX_BURST);
+        }
+        return this;
+    }
+
+    /**
+     * [可运行时修改]
+     * 设置对冲请求最小延迟(默认:10), 单位ms. 对冲延迟使用近期响应时间P95时(Request#hedge(0)), 延迟不小于该值, 避免响应很快的接口被频繁对冲.
+     * @param hedgeMinDelay 最小延迟ms
+     */
+    public GlaciHttpClient setHedgeMinDelay(long hedgeMinDelay) {
+        if (hedgeMinDelay < 1) {
+            hedgeMinDelay = 1;
+        }
+        settings.hedgeMinDelay = hedgeMinDelay;
+        return this;
+    }
+
+    /**
+     * [可运行时修改]
+     * 设置最大重试次数(默认:0, 不重试), Request#maxRetries优先. 重试会选择一个未尝试过的后端, 仅在连接阶段失败(请求未发出),
+     * 或幂等请求(Request#idempotent, 默认GET幂等)发生需要阻断的网络异常/HTTP返回码时重试. 目前仅同步请求支持重试.
+     * @param maxRetries 最大重试次数
+     */
+    public GlaciHttpClient setMaxRetries(int maxRetries) {
+        settings.maxRetries = Math.max(maxRetries, 0);
+        return this;
+    }
+
+    /**
+     * [可运行时修改]
+     * 设置重试预算(默认:10), 重试次数最多占成功请求数的百分比, 防止后端故障时重试风暴. 设置0禁止重试.
+     * @param retryBudgetPercent 百分比, [0, 100]
+     */
+    public GlaciHttpClient setRetryBudgetPercent(int retryBudgetPercent) {
+        retryBudgetPercent = Math.max(0, Math.min(100, retryBudgetPercent));
+        if (retryBudgetPercent != settings.retryBudgetPercent) {
+            settings.retryBudgetPercent = retryBudgetPercent;
+            retryBudget = new ExtraAttemptBudget(retryBudgetPercent, RETRY_BUDGET_MAX_BURST);
+        }
+        return this;
+    }
+
+    /**
+     * [可运行时修改]
+     * 连接预热: 新增远端(设置远端列表), 或被阻断的远端恢复时, 预先建立指定数量的连接放入连接池(闲置), 避免首批请求承担
+     * TCP/TLS/DNS的建立耗时. 注意: 预热会向远端发送真实的HTTP请求, 每个连接一个, 方法为HEAD, URL为远端地址 + preWarmUrlSuffix
+     * (默认为远端地址本身, 例如HEAD http://127.0.0.1:8080), 带上setHeaders配置的请求头. 请确认远端允许该请求(例如配置为健康检查地址),
+     * 预热请求不统计, 不影响远端健康状态, 不关心响应码.
+     * 预热连接数不超过maxIdleConnections, maxIdleConnections为0时无效. 默认0(不预热).
+     * 开启时(由0改为正数), 会预热当前所有远端.
+     * @param preWarmConnections 每个远端预热的连接数
+     */
+    public GlaciHttpClient setPreWarmConnections(int preWarmConnections) {
+        preWarmConnections = Math.max(preWarmConnections, 0);
+        boolean enable = settings.preWarmConnections <= 0 && preWarmConnections > 0;
+        settings.preWarmConnections = preWarmConnections;
+        if (enable) {
+            for (String hostUrl : hostManager.getHostsStatus().keySet()) {
+                preWarm(hostUrl);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * [可运行时修改]
+     * 连接预热: 每个远端同时进行中的预热请求数上限(默认:2), 远端逐个预热, 避免远端数量多时产生连接风暴.
+     * @param preWarmConcurrency 每个远端的预热并发数
+     */
+    public GlaciHttpClient setPreWarmConcurrency(int preWarmConcurrency) {
+        settings.preWarmConcurrency = Math.max(preWarmConcurrency, 1);
+        return this;
+    }
+
+    /**
+     * [可运行时修改]
+     * 连接预热: 预热请求(HEAD)的URL后缀, 预热请求URL = 远端地址 + 后缀, 例如/health. 默认为空(请求远端地址本身).
+     * @param preWarmUrlSuffix 预热请求URL后缀
+     */
+    public GlaciHttpClient setPreWarmUrlSuffix(String preWarmUrlSuffix) {
+        settings.preWarmUrlSuffix = preWarmUrlSuffix != null ? preWarmUrlSuffix.trim() : "";
+        return this;
+    }
+
+    /**
+     * [可运行时修改]
+     * 合并请求(Request#singleFlight): 每个进行中的请求最多合并的等待者数量(默认:1000), 超出的请求单独发送.
+     * @param singleFlightMaxWaiters 等待者数量上限, 0表示不合并
+     */
+    public GlaciHttpClient setSingleFlightMaxWaiters(int singleFlightMaxWaiters) {
+        settings.singleFlightMaxWaiters = Math.max(singleFlightMaxWaiters, 0);
+        return this;
+    }
+
+    /**
+     * [可运行时修改]
+     * 合并请求(Request#singleFlight): 实际发出的请求(leader)的总超时(含重试/对冲), 单位ms, 与Request#totalTimeout取较小值.
+     * 默认0(不限制, 由connectTimeout/writeTimeout/readTimeout分别限制).
+     * @param singleFlightLeaderTimeout 超时ms
+     */
+    public GlaciHttpClient setSingleFlightLeaderTimeout(long singleFlightLeaderTimeout) {
+        settings.singleFlightLeaderTimeout = Math.max(singleFlightLeaderTimeout, 0L);
+        return this;
+    }
+
+    /**
+     * [可运行时修改]
+     * 合并请求(Request#singleFlight): 等待者等待结果的超时, 单位ms, 与Request#totalTimeout取较小值, 超时抛出SocketTimeoutException
+     * (不影响leader请求及其他等待者). 默认0(一直等待到leader请求结束).
+     * @param singleFlightFollowerTimeout 超时ms
+     */
+    public GlaciHttpClient setSingleFlightFollowerTimeout(long singleFlightFollowerTimeout) {
+        settings.singleFlightFollowerTimeout = Math.max(singleFlightFollowerTimeout, 0L);
+        return this;
+    }
+
+    /**
+     * [可运行时修改]
+     * 响应缓存(仅GET请求): 内存容量, 字节数, 默认0(不缓存). 缓存遵循响应头Cache-Control(max-age/no-cache/no-store/
+     * stale-while-revalidate/must-revalidate), 过期后使用ETag/Last-Modified重新验证(If-None-Match/If-Modified-Since, 304).
+     * 缓存命中时不选择远端, 也不经过OkHttp. 请求头Cache-Control: no-cache 跳过缓存(仍会更新缓存), no-store 完全不经过缓存.
+     * 注意: 可缓存的响应会被完整读入内存(受maxReadLength限制). 修改本参数会重建缓存(内存中的缓存丢失).
+     * 自定义存储请用setResponseCache(ResponseCache).
+     * @param responseCacheMaxBytes 内存容量, 字节数, 0关闭缓存
+     */
+    public GlaciHttpClient setResponseCacheMaxBytes(long responseCacheMaxBytes) {
+        responseCacheMaxBytes = Math.max(responseCacheMaxBytes, 0L);
+        if (responseCacheMaxBytes != settings.responseCacheMaxBytes) {
+            settings.responseCacheMaxBytes = responseCacheMaxBytes;
+            rebuildResponseCache();
+        }
+        return this;
+    }
+
+    /**
+     * [可运行时修改]
+     * 响应缓存: 本地磁盘目录(二级存储, 内存未命中时读取, 应用重启后仍然有效), 默认为空(不使用磁盘). 需要responseCacheMaxBytes大于0.
+     * 同一个目录只能由一个客户端使用.
+     * @param responseCacheDiskDirectory 目录, 为空时不使用磁盘
+     */
+    public GlaciHttpClient setResponseCacheDiskDirectory(String responseCacheDiskDirectory) {
+        if (CheckUtils.isEmptyOrBlank(responseCacheDiskDirectory)) {
+            responseCacheDiskDirectory = null;
+        }
+        if (!Objects.equals(responseCacheDiskDirectory, settings.responseCacheDiskDirectory)) {
+            settings.responseCacheDiskDirectory = responseCacheDiskDirectory;
+            rebuildResponseCache();
+        }
+        return this;
+    }
+
+    /**
+     * [可运行时修改]
+     * 响应缓存: 本地磁盘容量, 字节数, 默认256M
+     * @param responseCacheDiskMaxBytes 磁盘容量, 字节数
+     */
+    public GlaciHttpClient setResponseCacheDiskMaxBytes(long responseCacheDiskMaxBytes) {
+        responseCacheDiskMaxBytes = Math.max(responseCacheDiskMaxBytes, 1L);
+        if (responseCacheDiskMaxBytes != settings.responseCacheDiskMaxBytes) {
+            settings.responseCacheDiskMaxBytes = responseCacheDiskMaxBytes;
+            rebuildResponseCache();
+        }
+        return this;
+    }
+
+    /**
+     * [可运行时修改]
+     * 响应缓存(自定义存储), 见setResponseCacheMaxBytes, 之后再修改responseCacheMaxBytes等参数会覆盖本设置
+     * @param responseCache 响应缓存, 为空时关闭缓存
+     */
+    public GlaciHttpClient setResponseCache(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+        return this;
+    }
+
+    private void rebuildResponseCache() {
+        if (settings.responseCacheMaxBytes <= 0) {
+            responseCache = null;
+            return;
+        }
+        DiskResponseCacheStore diskStore = settings.responseCacheDiskDirectory != null ?
+                new DiskResponseCacheStore(new File(settings.responseCacheDiskDirectory), settings.responseCacheDiskMaxBytes) : null;
+        responseCache = new ResponseCache(new MemoryResponseCacheStore(settings.responseCacheMaxBytes), diskStore);
+    }
+
+    /**
+     * [可运行时修改]
+     * 请求报文体压缩(仅POST): 报文体长度不小于阈值(或长度未知, 例如流式报文体)时, 以流的方式压缩(不生成完整的压缩后byte[]),
+     * 并设置请求头Content-Encoding. 内置: gzip/deflate, 也可以通过GlacimonSpi扩展RequestCompressor. 默认为空(不压缩).
+     * 请求已设置Content-Encoding请求头时不压缩. 注意: 服务端必须支持解压缩.
+     * @param requestCompression 压缩实现名称, 为空时关闭压缩
+     * @throws IllegalArgumentException 实现不存在
+     */
+    public GlaciHttpClient setRequestCompression(String requestCompression) {
+        if (CheckUtils.isEmptyOrBlank(requestCompression)) {
+            settings.requestCompressor = null;
+            return this;
+        }
+        RequestCompressor requestCompressor = GlacimonSpi.loadMultipleService(RequestCompressor.class).get(requestCompression.trim());
+        if (requestCompressor == null) {
+            throw new IllegalArgumentException("No RequestCompressor named '" + requestCompression +
+                    "', see RequestCompressor and docs/spi/index.md");
+        }
+        settings.requestCompressor = requestCompressor;
+        return this;
+    }
+
+    /**
+     * [可运行时修改]
+     * 请求报文体压缩: 阈值(默认:1024), 单位byte, 报文体长度小于阈值时不压缩
+     * @param requestCompressionThreshold 阈值byte
+     */
+    public GlaciHttpClient setRequestCompressionThreshold(int requestCompressionThreshold) {
+        settings.requestCompressionThreshold = Math.max(requestCompressionThreshold, 0);
+        return this;
+    }
+
+    /**
+     * [可运行时修改]
+     * 请求报文体压缩: 按urlSuffix开启/关闭压缩, 逗号分隔, 以!开头的表示该urlSuffix不压缩. 存在不以!开头的urlSuffix时,
+     * 只压缩这些urlSuffix, 否则压缩所有urlSuffix(!开头的除外). Request#compress优先. 默认为空(压缩所有urlSuffix).
+     * 例如: /user/upload,/user/batch 或 !/user/login,!/user/logout
+     * @param requestCompressionUrlSuffixes urlSuffix列表
+     */
+    public GlaciHttpClient setRequestCompressionUrlSuffixes(String requestCompressionUrlSuffixes) {
+        Set<String> includes = new HashSet<>();
+        Set<String> excludes = new HashSet<>();
+        if (!CheckUtils.isEmptyOrBlank(requestCompressionUrlSuffixes)) {
+            for (String urlSuffix : requestCompressionUrlSuffixes.split(",")) {
+                urlSuffix = urlSuffix.trim();
+                if (urlSuffix.startsWith("!")) {
+                    excludes.add(urlSuffix.substring(1).trim());
+                } else if (!urlSuffix.isEmpty()) {
+                    includes.add(urlSuffix);
+                }
+            }
+        }
+        settings.requestCompressionIncludes = includes;
+        settings.requestCompressionExcludes = excludes;
+        settings.requestCompressionUrlSuffixes = requestCompressionUrlSuffixes;
+        return this;
+    }
+
     /**
      * [可运行时修改]
      * CookieJar
@@ -2196,6 +5216,24 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
         return this;
     }
 
+    /**
+     * [可运行时修改]
+     * 连接竞速(Happy Eyeballs, RFC 8305): 域名解析出多个地址时, 每隔delayMillis向下一个地址发起连接(前一个失败时立即发起),
+     * 使用最先建立的连接, 关闭其他连接, 避免一个不通的地址耗尽connectTimeout. 解析结果按IPv6/IPv4交替排列, 最近连接失败的地址
+     * 排在最后. 默认0关闭, 建议250. 使用代理(setProxy)时竞速的是代理地址.
+     *
+     * @param delayMillis 发起下一个连接的间隔ms, 小于等于0关闭
+     */
+    public GlaciHttpClient setHappyEyeballsDelay(long delayMillis) {
+        try {
+            settingsSpinLock.lock();
+            settings.happyEyeballsDelay = delayMillis;
+        } finally {
+            settingsSpinLock.unlock();
+        }
+        return this;
+    }
+
     /**
      * [可运行时修改]
      * 配置Dns
@@ -2206,6 +5244,7 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
             settingsSpinLock.lock();
             settings.dns = dns;
             dnsBackgroundUpdater.setDns(dns); // dns更新器设置新的DNS实例
+            replaceOwnedDns(null);
         } finally {
             settingsSpinLock.unlock();
         }
@@ -2220,8 +5259,8 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
      * <p>参数采用SimpleKeyValueEncoder格式, 详见: https://github.com/shepherdviolet/glacimon/blob/master/docs/kvencoder/guide.md</p>
      * <p></p>
      * <p>参数说明:</p>
-     * <p>ip: DNS服务地址, 必输; 多个地址使用'|'分割, 例如: ip=8.8.8.8|114.114.114.114</p>
-     * <p>resolveTimeoutSeconds: 域名解析超时时间(秒), 可选, 默认5s</p>
+     * <p>ip: DNS服务地址, 必输; 多个地址使用'|'分割, 例如: ip=8.8.8.8|114.114.114.114; 可以指定端口, 例如: ip=127.0.0.1:5353|[::1]:5353</p>
+     * <p>resolveTimeoutSeconds: 域名解析超时时间(秒), 可选, 默认5s; 每个DNS服务器的A/AAAA查询并行执行, 共用这个超时时间</p>
      * <p>preferIpv6: true:Ipv6优先, false:Ipv4优先, 可选, 默认false</p>
      * <p>minTtlSeconds: 最小TTL(秒), 可选, 默认20; 实际TTL为max(服务器返回TTL, 该参数值)</p>
      * <p>maxTtlSeconds: 最大TTL(秒), 可选, 默认300; 实际TTL为min(服务器返回TTL, 该参数值)</p>
@@ -2232,6 +5271,16 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
      * <p>reportIntervalSec: DNS解析报告打印间隔(秒), 可选, 默认3600; 程序会在日志中打印DNS解析相关统计信息</p>
      * <p>stopUpdAftFails: 域名解析失败指定次数后, 停止自动更新, 可选, 默认5; 仅影响自动更新, 不影响同步解析</p>
      * <p>stopUpdAftIdleSec: 域名未使用指定时间(秒)后, 停止自动更新, 可选, 默认1200; 仅影响自动更新, 不影响同步解析</p>
+     * <p>negativeTtlSeconds: 域名不存在(DNS服务器答复NXDOMAIN或没有A/AAAA记录)时的TTL(秒), 可选, 默认10, 不超过maxTtlSeconds;
+     * 避免不存在的域名每次请求都查询DNS. 超时等其他错误仍按errorTtlSeconds</p>
+     * <p>maxStaleSeconds: 所有DNS服务器都解析失败(超时等)时, 继续使用过期记录的最长时间(秒, 从过期开始算), 可选, 默认600, 0不使用过期记录;
+     * 使用过期记录期间, 每30秒重新解析一次</p>
+     * <p>prefetchMinHits: 预取门槛, 可选, 默认3, 0关闭; 记录在本次TTL内被命中该次数以上时, 在TTL剩余1/4时由请求线程触发异步预取,
+     * 保证热门域名不会因为过期而同步等待解析(后台自动更新关闭/停止时同样有效)</p>
+     * <p>shareCache: true:与其他配置相同(ip/preferIpv6/各TTL参数/maxStaleSeconds/snapshotFile相同)的实例共用缓存, 可选, 默认true</p>
+     * <p>snapshotFile: 缓存快照文件路径, 可选, 默认不保存快照; 定期及关闭时保存, 启动时读取, 快照中的记录先用着, 同时在后台重新解析</p>
+     * <p>snapshotIntervalSec: 快照保存间隔(秒), 可选, 默认300, 最小10</p>
+     * <p>snapshotMaxAgeSec: 快照最长有效期(秒), 可选, 默认86400; 超过该时间的快照不读取, 超过该时间未使用的域名不保存</p>
      * <p></p>
      * <p>参数格式: key1=value1,key2=value2</p>
      * <p></p>
@@ -2249,6 +5298,7 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
             if (CheckUtils.isEmptyOrBlank(dnsDescription)) {
                 settings.dns = null;
                 dnsBackgroundUpdater.setDns(null); // dns更新器设置新的DNS实例
+                replaceOwnedDns(null);
                 logger.info(settings.tag + "Set dns to system default");
                 return this;
             }
@@ -2259,9 +5309,10 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
                 throw new IllegalStateException(settings.tag + "To use a custom DNS by GlaciHttpClient.setDns(String dnsDescription), " +
                         "you must manually add the dependency: dnsjava:dnsjava:3.6.3", e);
             }
-            Dns dns = new BackgroundUpdatingDns(dnsDescription);
+            BackgroundUpdatingDns dns = new BackgroundUpdatingDns(dnsDescription);
             settings.dns = dns;
             dnsBackgroundUpdater.setDns(dns); // dns更新器设置新的DNS实例
+            replaceOwnedDns(dns);
             logger.info(settings.tag + "Set custom dns: " + dns);
         } catch (IllegalStateException e) {
             throw e;
@@ -2275,6 +5326,17 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
         return this;
     }
 
+    /**
+     * 关闭上一个由setDns(String)创建的DNS实例(预取线程池), 外部传入的Dns实例由调用者管理. 需在settingsSpinLock内调用
+     */
+    private void replaceOwnedDns(BackgroundUpdatingDns newDns) {
+        BackgroundUpdatingDns oldDns = ownedDns;
+        ownedDns = newDns;
+        if (oldDns != null && oldDns != newDns) {
+            oldDns.close();
+        }
+    }
+
     /**
      * <p>[可运行时修改]</p>
      * <p>SSL配置提供者. 向HttpClient提供SSLSocketFactory. </p>
@@ -2557,6 +5619,46 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
         return this;
     }
 
+    /**
+     * <p>[可运行时修改]</p>
+     * <p>设置TLS会话缓存大小, 默认1024, 0表示不限制</p>
+     * <p>信任材料相同(没有配置SSL / CertAndTrustedIssuerSupplier参数相同 / KeyAndTrustManagerSupplier实例相同)且会话缓存参数相同的
+     * 客户端(包括主动探测器)共用一个SSLContext, 连接同一个服务端时可以复用TLS会话(会话恢复), 减少完整握手. 服务端证书链的验证结果
+     * 也会缓存一段时间. 详见{@link SslContextRegistry}. SslSocketFactorySupplier及自定义的SslConfigSupplier不共用.</p>
+     *
+     * @param sslSessionCacheSize TLS会话缓存大小
+     */
+    public GlaciHttpClient setSslSessionCacheSize(int sslSessionCacheSize) {
+        try {
+            settingsSpinLock.lock();
+            settings.sslSessionCacheSize = Math.max(sslSessionCacheSize, 0);
+        } finally {
+            settingsSpinLock.unlock();
+        }
+        // HTTP GET 探测器也需要刷新这个参数
+        inspectManager.refreshSettings();
+        return this;
+    }
+
+    /**
+     * <p>[可运行时修改]</p>
+     * <p>设置TLS会话超时时间(秒), 超时的会话不再用于会话恢复, 默认3600, 0表示不限制</p>
+     * <p>共用SSLContext的说明见{@link GlaciHttpClient#setSslSessionCacheSize}</p>
+     *
+     * @param sslSessionTimeout TLS会话超时时间(秒)
+     */
+    public GlaciHttpClient setSslSessionTimeout(int sslSessionTimeout) {
+        try {
+            settingsSpinLock.lock();
+            settings.sslSessionTimeout = Math.max(sslSessionTimeout, 0);
+        } finally {
+            settingsSpinLock.unlock();
+        }
+        // HTTP GET 探测器也需要刷新这个参数
+        inspectManager.refreshSettings();
+        return this;
+    }
+
     /**
      * <p>[可运行时修改]</p>
      * <p>设置自定义的服务端域名验证逻辑</p>
@@ -2695,13 +5797,26 @@ public class GlaciHttpClient implements Closeable, InitializingBean, DisposableB
 
     /**
      * [可运行时修改]
-     * 启用/禁用TxTimer统计请求耗时(只支持同步方式), 默认禁用, 需手动依赖glacispring-txtimer
+     * 启用/禁用TxTimer统计请求耗时(同步及异步方式, 异步请求统计到回调方法结束/Future完成), 默认禁用, 需手动依赖glacispring-txtimer
      */
     public GlaciHttpClient setTxTimerEnabled(boolean enabled){
         settings.txTimerEnabled = enabled;
         return this;
     }
 
+    /**
+     * [可运行时修改]
+     * 设置异步请求Future(sendAsync/sendForBytesAsync/sendForBeanAsync)的默认完成线程池, Future的后续回调(thenApply等)
+     * 会在该线程池中执行, 避免占用OkHttp的Dispatcher线程. 默认为空, 即在OkHttp的Dispatcher线程中完成.
+     * 注意: 线程池由调用方管理(创建/销毁), 拒绝执行时在当前线程完成.
+     *
+     * @param asyncCompletionExecutor 线程池
+     */
+    public GlaciHttpClient setAsyncCompletionExecutor(Executor asyncCompletionExecutor){
+        settings.asyncCompletionExecutor = asyncCompletionExecutor;
+        return this;
+    }
+
     /**
      * [可运行时修改]
      * true: 开启简易的请求日志追踪(请求日志追加4位数追踪号), 默认false<br>
@@ -77,6 +77,10 @@ public class GsonDataConverter implements DataConverter {
         }
     }
 
+    protected Gson getGson() {
+        return gson;
+    }
+
     public String getEncode() {
         return encode;
     }
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.MalformedJsonException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+
+/**
+ * <p>GSON流式数据转换器</p>
+ *
+ * <p>请求: JavaBean直接序列化到输出流(分块传输, 无Content-Length); 响应: 直接从输入流解析JavaBean.
+ * 不在内存中生成完整报文的byte[], 适用于报文较大的场合. 若服务端不支持分块传输(Transfer-Encoding: chunked)的请求,
+ * 请使用GsonDataConverter.</p>
+ *
+ * @see StreamingDataConverter
+ * @author shepherdviolet
+ */
+public class GsonStreamingDataConverter extends GsonDataConverter implements StreamingDataConverter {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    public GsonStreamingDataConverter() {
+        super();
+    }
+
+    public GsonStreamingDataConverter(String dateFormat) {
+        super(dateFormat);
+    }
+
+    @Override
+    public void convert(Object bean, OutputStream outputStream) throws Exception {
+        if (bean == null) {
+            return;
+        }
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, getEncode()));
+        try {
+            getGson().toJson(bean, writer);
+            //只flush不close, 输出流由调用者关闭
+            writer.flush();
+        } catch (Exception e) {
+            logger.warn("Gson convert Error, type:" + bean.getClass() + ", bean:" + bean);
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> T convert(InputStream inputStream, Class<T> type) throws Exception {
+        if (inputStream == null) {
+            return null;
+        }
+        try {
+            //输入流为空时返回null
+            return getGson().fromJson(new BufferedReader(new InputStreamReader(inputStream, getEncode())), type);
+        } catch (JsonParseException e) {
+            //读取输入流失败(网络异常/超过长度限制), 抛出原始的IOException
+            if (e.getCause() instanceof IOException && !(e.getCause() instanceof MalformedJsonException)) {
+                throw (IOException) e.getCause();
+            }
+            throw e;
+        } catch (Exception e) {
+            logger.warn("Gson convert Error, type:" + type + ", (streaming data can not be print)");
+            throw e;
+        }
+    }
+
+}
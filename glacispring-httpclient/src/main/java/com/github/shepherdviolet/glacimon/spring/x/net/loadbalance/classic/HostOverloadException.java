@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic;
+
+/**
+ * 所有可用的后端都达到了并发上限(自适应并发限制), 请求被拒绝(网络请求发送前的异常, 准备阶段异常)
+ *
+ * @author shepherdviolet
+ */
+public class HostOverloadException extends NoHostException {
+
+    private static final long serialVersionUID = 3329170584317093416L;
+
+    public HostOverloadException(String message) {
+        super(message);
+    }
+
+}
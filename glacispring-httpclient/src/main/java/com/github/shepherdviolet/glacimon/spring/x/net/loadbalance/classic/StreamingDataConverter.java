@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * <p>流式数据转换器(JavaBean <-> Stream)</p>
+ *
+ * <p>GlaciHttpClient发送beanBody时, 若DataConverter实现了本接口, 会将JavaBean直接序列化到OkHttp的输出流中(分块传输,
+ * 无Content-Length), 不在内存中生成完整的byte[], 适用于请求报文很大的场合.</p>
+ *
+ * <p>sendForBean/BeanCallback接收响应时, 若DataConverter实现了本接口, 会直接从响应输入流解析JavaBean, 不在内存中生成完整的
+ * byte[]. 输入流的读取长度仍受maxReadLength限制, 超过限制时抛出IOException.</p>
+ *
+ * <p>注意: 开启报文日志(logPrintPayload)时, 仍然会先转换为byte[]以便打印日志.</p>
+ *
+ * @see GsonStreamingDataConverter
+ *
+ * @author shepherdviolet
+ */
+public interface StreamingDataConverter extends DataConverter {
+
+    /**
+     * 将JavaBean序列化到输出流, 重试时可能被调用多次
+     *
+     * @param bean JavaBean
+     * @param outputStream 输出流, 实现类不要关闭它
+     */
+    void convert(Object bean, OutputStream outputStream) throws Exception;
+
+    /**
+     * 从输入流解析JavaBean
+     *
+     * @param inputStream 输入流, 实现类不要关闭它
+     * @param type JavaBean类型
+     * @return JavaBean, 输入流为空时返回null
+     */
+    <T> T convert(InputStream inputStream, Class<T> type) throws Exception;
+
+}
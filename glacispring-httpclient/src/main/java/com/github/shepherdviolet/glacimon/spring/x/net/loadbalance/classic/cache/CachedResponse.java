@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.cache;
+
+import okhttp3.CacheControl;
+import okhttp3.Headers;
+
+/**
+ * <p>缓存的HTTP响应(不可变), 缓存策略由响应头决定:</p>
+ *
+ * <p>Cache-Control: no-store: 不缓存; no-cache: 缓存, 但每次使用前必须重新验证; max-age: 新鲜期;
+ * stale-while-revalidate: 过期后仍可使用的时长(同时在后台重新验证); must-revalidate: 过期后不可使用.</p>
+ * <p>ETag/Last-Modified: 用于重新验证(If-None-Match/If-Modified-Since), 没有max-age且没有验证信息的响应不缓存.</p>
+ *
+ * @author shepherdviolet
+ */
+public final class CachedResponse {
+
+    private static final String STALE_WHILE_REVALIDATE = "stale-while-revalidate=";
+
+    private final int code;
+    private final String message;
+    private final Headers headers;
+    private final byte[] body;
+    private final long storedAt;
+
+    private final long maxAgeMillis;
+    private final long staleWhileRevalidateMillis;
+    private final boolean noCache;
+    private final String etag;
+    private final String lastModified;
+
+    /**
+     * @param code 响应码
+     * @param message 响应信息
+     * @param headers 响应头
+     * @param body 响应体
+     * @param storedAt 缓存(或最后一次验证)的时间
+     */
+    public CachedResponse(int code, String message, Headers headers, byte[] body, long storedAt) {
+        this.code = code;
+        this.message = message != null ? message : "";
+        this.headers = headers != null ? headers : new Headers.Builder().build();
+        this.body = body != null ? body : new byte[0];
+        this.storedAt = storedAt;
+
+        CacheControl cacheControl = CacheControl.parse(this.headers);
+        this.maxAgeMillis = Math.max(cacheControl.maxAgeSeconds(), 0) * 1000L;
+        this.staleWhileRevalidateMillis = cacheControl.mustRevalidate() ? 0L : parseStaleWhileRevalidate(this.headers) * 1000L;
+        this.noCache = cacheControl.noCache();
+        this.etag = this.headers.get("ETag");
+        this.lastModified = this.headers.get("Last-Modified");
+    }
+
+    /**
+     * 根据响应创建缓存, 响应不可缓存时返回null
+     */
+    public static CachedResponse of(int code, String message, Headers headers, byte[] body, long now) {
+        if (!isCacheable(code, headers)) {
+            return null;
+        }
+        return new CachedResponse(code, message, headers, body, now);
+    }
+
+    /**
+     * 根据响应码和响应头判断是否可以缓存(在读取响应体之前判断)
+     */
+    public static boolean isCacheable(int code, Headers headers) {
+        if (code != 200 || headers == null) {
+            return false;
+        }
+        CacheControl cacheControl = CacheControl.parse(headers);
+        if (cacheControl.noStore()) {
+            return false;
+        }
+        return cacheControl.maxAgeSeconds() > 0 || headers.get("ETag") != null || headers.get("Last-Modified") != null;
+    }
+
+    private static long parseStaleWhileRevalidate(Headers headers) {
+        for (String value : headers.values("Cache-Control")) {
+            for (String directive : value.split(",")) {
+                directive = directive.trim();
+                if (directive.regionMatches(true, 0, STALE_WHILE_REVALIDATE, 0, STALE_WHILE_REVALIDATE.length())) {
+                    try {
+                        return Math.max(Long.parseLong(directive.substring(STALE_WHILE_REVALIDATE.length()).trim()), 0L);
+                    } catch (NumberFormatException ignore) {
+                        return 0L;
+                    }
+                }
+            }
+        }
+        return 0L;
+    }
+
+    /**
+     * @return true: 新鲜, 可以直接使用
+     */
+    public boolean isFresh(long now) {
+        return !noCache && now - storedAt < maxAgeMillis;
+    }
+
+    /**
+     * @return true: 已过期, 但在stale-while-revalidate期内, 可以使用(同时在后台重新验证)
+     */
+    public boolean isStaleUsable(long now) {
+        return !noCache && staleWhileRevalidateMillis > 0 && now - storedAt < maxAgeMillis + staleWhileRevalidateMillis;
+    }
+
+    /**
+     * @return true: 有ETag或Last-Modified, 可以重新验证
+     */
+    public boolean hasValidators() {
+        return etag != null || lastModified != null;
+    }
+
+    /**
+     * @return 重新验证成功(304)后的缓存, 缓存时间更新为now
+     */
+    public CachedResponse refresh(long now) {
+        return new CachedResponse(code, message, headers, body, now);
+    }
+
+    /**
+     * @return 估算的内存占用(字节)
+     */
+    public long weight() {
+        return body.length + headers.byteCount() + message.length() + 64L;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public Headers getHeaders() {
+        return headers;
+    }
+
+    /**
+     * @return 响应体, 注意不要修改数组内容
+     */
+    public byte[] getBody() {
+        return body;
+    }
+
+    public long getStoredAt() {
+        return storedAt;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    @Override
+    public String toString() {
+        return "CachedResponse{" +
+                "code=" + code +
+                ", length=" + body.length +
+                ", storedAt=" + storedAt +
+                ", maxAge=" + maxAgeMillis +
+                ", staleWhileRevalidate=" + staleWhileRevalidateMillis +
+                ", noCache=" + noCache +
+                ", etag='" + etag + '\'' +
+                ", lastModified='" + lastModified + '\'' +
+                '}';
+    }
+
+}
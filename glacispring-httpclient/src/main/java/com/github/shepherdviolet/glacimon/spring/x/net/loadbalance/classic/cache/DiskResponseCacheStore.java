@@ -0,0 +1,287 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.cache;
+
+import com.github.shepherdviolet.glacimon.java.conversion.ByteUtils;
+import okhttp3.Headers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>响应缓存存储: 本地磁盘, 按字节数限制容量. 通常作为ResponseCache的二级存储(内存未命中时读取), 应用重启后缓存仍然有效.</p>
+ *
+ * <p>每个响应一个文件(文件名为KEY的SHA-256, 文件中也只保存这个摘要, 不保存KEY原文, 因为KEY中包含请求头,
+ * 可能有Authorization/Cookie等敏感信息), 先写临时文件再替换, 读取失败(文件损坏)时删除文件. 写入后若超出容量,
+ * 按文件修改时间淘汰(读取时更新修改时间), 直到占用不超过容量的90%.</p>
+ *
+ * <p>注意: 同一个目录只能由一个DiskResponseCacheStore使用(包括多个应用实例), 否则容量统计不准确.</p>
+ *
+ * @author shepherdviolet
+ */
+public class DiskResponseCacheStore implements ResponseCacheStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(DiskResponseCacheStore.class);
+
+    private static final int MAGIC = 0x47524332; //GRC2, GRC1文件中保存了KEY原文, 启动时删除
+    private static final String SUFFIX = ".cache";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final File directory;
+    private final long maxBytes;
+    private final AtomicLong totalBytes = new AtomicLong(0);
+    private final AtomicInteger tempCounter = new AtomicInteger(0);
+    private final Object evictLock = new Object();
+
+    /**
+     * @param directory 缓存目录, 不存在时自动创建
+     * @param maxBytes 容量, 字节数
+     */
+    public DiskResponseCacheStore(File directory, long maxBytes) {
+        if (directory == null) {
+            throw new IllegalArgumentException("directory is null");
+        }
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must > 0");
+        }
+        if (!directory.exists() && !directory.mkdirs() && !directory.isDirectory()) {
+            throw new IllegalArgumentException("Can not create directory " + directory.getAbsolutePath());
+        }
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().endsWith(SUFFIX)) {
+                    if (!isCurrentFormat(file)) {
+                        //旧格式(或损坏)的文件
+                        delete(file);
+                        continue;
+                    }
+                    totalBytes.addAndGet(file.length());
+                } else if (file.getName().endsWith(TEMP_SUFFIX)) {
+                    //上次未写完的临时文件
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    @Override
+    public CachedResponse get(String key) {
+        byte[] keyDigest = digest(key);
+        File file = fileOf(keyDigest);
+        if (!file.exists()) {
+            return null;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (input.readInt() != MAGIC || !MessageDigest.isEqual(keyDigest, readBytes(input))) {
+                return null;
+            }
+            int code = input.readInt();
+            String message = input.readUTF();
+            long storedAt = input.readLong();
+            int headerCount = input.readInt();
+            Headers.Builder headers = new Headers.Builder();
+            for (int i = 0 ; i < headerCount ; i++) {
+                headers.addUnsafeNonAscii(input.readUTF(), input.readUTF());
+            }
+            byte[] body = readBytes(input);
+            //更新修改时间, 用于淘汰
+            file.setLastModified(System.currentTimeMillis());
+            return new CachedResponse(code, message, headers.build(), body, storedAt);
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (Exception e) {
+            logger.warn("ResponseCache | Broken cache file " + file.getAbsolutePath() + ", delete it", e);
+            delete(file);
+            return null;
+        }
+    }
+
+    @Override
+    public void put(String key, CachedResponse response) {
+        byte[] keyDigest = digest(key);
+        File file = fileOf(keyDigest);
+        File tempFile = new File(directory, file.getName() + "." + tempCounter.getAndIncrement() + TEMP_SUFFIX);
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                output.writeInt(MAGIC);
+                writeBytes(output, keyDigest);
+                output.writeInt(response.getCode());
+                output.writeUTF(response.getMessage());
+                output.writeLong(response.getStoredAt());
+                Headers headers = response.getHeaders();
+                output.writeInt(headers.size());
+                for (int i = 0 ; i < headers.size() ; i++) {
+                    output.writeUTF(headers.name(i));
+                    output.writeUTF(headers.value(i));
+                }
+                writeBytes(output, response.getBody());
+            }
+            long previousLength = file.length();
+            long length = tempFile.length();
+            if (length > maxBytes / 8) {
+                //单个响应超过容量的1/8时不缓存
+                delete(tempFile);
+                remove(key);
+                return;
+            }
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            totalBytes.addAndGet(length - previousLength);
+        } catch (Exception e) {
+            logger.warn("ResponseCache | Error while writing cache file " + file.getAbsolutePath(), e);
+            delete(tempFile);
+            return;
+        }
+        if (totalBytes.get() > maxBytes) {
+            evict();
+        }
+    }
+
+    @Override
+    public void remove(String key) {
+        File file = fileOf(digest(key));
+        long length = file.length();
+        if (file.exists() && file.delete()) {
+            totalBytes.addAndGet(-length);
+        }
+    }
+
+    @Override
+    public void clear() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            long length = file.length();
+            if (file.delete()) {
+                totalBytes.addAndGet(-length);
+            }
+        }
+    }
+
+    /**
+     * @return 当前占用, 字节数
+     */
+    public long getTotalBytes() {
+        return totalBytes.get();
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    private void evict() {
+        synchronized (evictLock) {
+            if (totalBytes.get() <= maxBytes) {
+                return;
+            }
+            File[] files = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+            if (files == null) {
+                return;
+            }
+            //修改时间会被并发修改, 先取快照再排序
+            long[][] candidates = new long[files.length][];
+            for (int i = 0 ; i < files.length ; i++) {
+                candidates[i] = new long[]{files[i].lastModified(), i};
+            }
+            Arrays.sort(candidates, Comparator.comparingLong(candidate -> candidate[0]));
+            long target = maxBytes - maxBytes / 10;
+            for (long[] candidate : candidates) {
+                if (totalBytes.get() <= target) {
+                    break;
+                }
+                File file = files[(int) candidate[1]];
+                long length = file.length();
+                if (file.delete()) {
+                    totalBytes.addAndGet(-length);
+                }
+            }
+        }
+    }
+
+    private File fileOf(byte[] keyDigest) {
+        return new File(directory, ByteUtils.bytesToHex(keyDigest) + SUFFIX);
+    }
+
+    private static byte[] digest(String key) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    private static boolean isCurrentFormat(File file) {
+        try (DataInputStream input = new DataInputStream(new FileInputStream(file))) {
+            return input.readInt() == MAGIC;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static void writeBytes(DataOutputStream output, byte[] bytes) throws IOException {
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream input) throws IOException {
+        int length = input.readInt();
+        if (length < 0) {
+            throw new IOException("Illegal length " + length);
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return bytes;
+    }
+
+    private static void delete(File file) {
+        try {
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException ignore) {
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DiskResponseCacheStore{" +
+                "directory=" + directory +
+                ", maxBytes=" + maxBytes +
+                ", totalBytes=" + totalBytes.get() +
+                '}';
+    }
+
+}
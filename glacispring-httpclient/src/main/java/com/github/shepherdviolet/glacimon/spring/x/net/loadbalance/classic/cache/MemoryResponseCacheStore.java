@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.cache;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>响应缓存存储: 内存, 按字节数(估算值)限制容量.</p>
+ *
+ * <p>读取无锁(ConcurrentHashMap), 仅记录访问时间. 写入后若超出容量, 由写入线程淘汰最久未访问的缓存, 直到占用不超过容量的90%
+ * (加锁, 避免多个线程同时淘汰). 单个响应超过容量的1/8时不缓存, 避免一个大响应挤掉所有缓存.</p>
+ *
+ * @author shepherdviolet
+ */
+public class MemoryResponseCacheStore implements ResponseCacheStore {
+
+    private final long maxBytes;
+    private final ConcurrentHashMap<String, Node> nodes = new ConcurrentHashMap<>();
+    private final AtomicLong totalBytes = new AtomicLong(0);
+    private final Object evictLock = new Object();
+
+    /**
+     * @param maxBytes 容量, 字节数
+     */
+    public MemoryResponseCacheStore(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must > 0");
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public CachedResponse get(String key) {
+        Node node = nodes.get(key);
+        if (node == null) {
+            return null;
+        }
+        node.lastAccess = System.nanoTime();
+        return node.response;
+    }
+
+    @Override
+    public void put(String key, CachedResponse response) {
+        long weight = response.weight() + key.length() * 2L;
+        if (weight > maxBytes / 8) {
+            remove(key);
+            return;
+        }
+        Node node = new Node(key, response, weight);
+        Node previous = nodes.put(key, node);
+        totalBytes.addAndGet(previous != null ? weight - previous.weight : weight);
+        if (totalBytes.get() > maxBytes) {
+            evict();
+        }
+    }
+
+    @Override
+    public void remove(String key) {
+        Node previous = nodes.remove(key);
+        if (previous != null) {
+            totalBytes.addAndGet(-previous.weight);
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (String key : nodes.keySet()) {
+            remove(key);
+        }
+    }
+
+    /**
+     * @return 当前占用, 字节数(估算值)
+     */
+    public long getTotalBytes() {
+        return totalBytes.get();
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    private void evict() {
+        synchronized (evictLock) {
+            if (totalBytes.get() <= maxBytes) {
+                return;
+            }
+            //访问时间会被并发修改, 先取快照再排序
+            List<Map.Entry<Long, Node>> candidates = new ArrayList<>(nodes.size());
+            for (Node node : nodes.values()) {
+                candidates.add(new AbstractMap.SimpleImmutableEntry<>(node.lastAccess, node));
+            }
+            candidates.sort(Map.Entry.comparingByKey());
+            long target = maxBytes - maxBytes / 10;
+            for (Map.Entry<Long, Node> candidate : candidates) {
+                if (totalBytes.get() <= target) {
+                    break;
+                }
+                Node node = candidate.getValue();
+                if (nodes.remove(node.key, node)) {
+                    totalBytes.addAndGet(-node.weight);
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "MemoryResponseCacheStore{" +
+                "maxBytes=" + maxBytes +
+                ", totalBytes=" + totalBytes.get() +
+                ", size=" + nodes.size() +
+                '}';
+    }
+
+    private static final class Node {
+
+        private final String key;
+        private final CachedResponse response;
+        private final long weight;
+        private volatile long lastAccess = System.nanoTime();
+
+        private Node(String key, CachedResponse response, long weight) {
+            this.key = key;
+            this.response = response;
+            this.weight = weight;
+        }
+
+    }
+
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.cache;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>GlaciHttpClient响应缓存(仅GET请求), 见GlaciHttpClient#setResponseCache</p>
+ *
+ * <p>一级存储(通常是内存)未命中时读取二级存储(通常是磁盘, 可选), 二级存储命中后放入一级存储. 缓存策略见CachedResponse.</p>
+ *
+ * <pre>
+ *     //内存64M
+ *     client.setResponseCache(new ResponseCache(64L * 1024L * 1024L));
+ *     //内存64M + 磁盘1G
+ *     client.setResponseCache(new ResponseCache(
+ *             new MemoryResponseCacheStore(64L * 1024L * 1024L),
+ *             new DiskResponseCacheStore(new File("/tmp/http-cache"), 1024L * 1024L * 1024L)));
+ * </pre>
+ *
+ * @author shepherdviolet
+ */
+public class ResponseCache {
+
+    private final ResponseCacheStore primaryStore;
+    private final ResponseCacheStore secondaryStore;
+    private final Set<String> revalidatingKeys = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 内存缓存
+     *
+     * @param maxMemoryBytes 内存容量, 字节数
+     */
+    public ResponseCache(long maxMemoryBytes) {
+        this(new MemoryResponseCacheStore(maxMemoryBytes), null);
+    }
+
+    /**
+     * @param primaryStore 一级存储, 必须
+     * @param secondaryStore 二级存储, 可为空
+     */
+    public ResponseCache(ResponseCacheStore primaryStore, ResponseCacheStore secondaryStore) {
+        if (primaryStore == null) {
+            throw new IllegalArgumentException("primaryStore is null");
+        }
+        this.primaryStore = primaryStore;
+        this.secondaryStore = secondaryStore;
+    }
+
+    /**
+     * @param key 请求KEY
+     * @return 缓存的响应(可能已过期), 不存在时返回null
+     */
+    public CachedResponse get(String key) {
+        CachedResponse response = primaryStore.get(key);
+        if (response == null && secondaryStore != null) {
+            response = secondaryStore.get(key);
+            if (response != null) {
+                primaryStore.put(key, response);
+            }
+        }
+        return response;
+    }
+
+    /**
+     * 存入缓存
+     *
+     * @param key 请求KEY
+     * @param response 响应
+     */
+    public void put(String key, CachedResponse response) {
+        primaryStore.put(key, response);
+        if (secondaryStore != null) {
+            secondaryStore.put(key, response);
+        }
+    }
+
+    /**
+     * 移除缓存
+     *
+     * @param key 请求KEY
+     */
+    public void remove(String key) {
+        primaryStore.remove(key);
+        if (secondaryStore != null) {
+            secondaryStore.remove(key);
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        primaryStore.clear();
+        if (secondaryStore != null) {
+            secondaryStore.clear();
+        }
+    }
+
+    /**
+     * 开始后台重新验证(stale-while-revalidate), 同一个KEY同时只有一个后台验证
+     *
+     * @return true: 由调用者发起验证, 结束后必须调用finishRevalidate; false: 已经有进行中的验证
+     */
+    public boolean tryStartRevalidate(String key) {
+        return revalidatingKeys.add(key);
+    }
+
+    /**
+     * 后台重新验证结束
+     */
+    public void finishRevalidate(String key) {
+        revalidatingKeys.remove(key);
+    }
+
+    @Override
+    public String toString() {
+        return "ResponseCache{" +
+                "primaryStore=" + primaryStore +
+                ", secondaryStore=" + secondaryStore +
+                '}';
+    }
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.cache;
+
+/**
+ * <p>响应缓存存储, 实现必须线程安全. 内置: MemoryResponseCacheStore(内存, 按字节数限制容量),
+ * DiskResponseCacheStore(本地磁盘, 按字节数限制容量).</p>
+ *
+ * @see ResponseCache
+ * @author shepherdviolet
+ */
+public interface ResponseCacheStore {
+
+    /**
+     * @param key 请求KEY
+     * @return 缓存的响应, 不存在时返回null
+     */
+    CachedResponse get(String key);
+
+    /**
+     * 存入缓存(覆盖), 超出容量时可以不存入
+     *
+     * @param key 请求KEY
+     * @param response 响应
+     */
+    void put(String key, CachedResponse response);
+
+    /**
+     * 移除缓存
+     *
+     * @param key 请求KEY
+     */
+    void remove(String key);
+
+    /**
+     * 清空缓存
+     */
+    void clear();
+
+}
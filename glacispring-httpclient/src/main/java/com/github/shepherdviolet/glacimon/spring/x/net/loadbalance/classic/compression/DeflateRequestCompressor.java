@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.compression;
+
+import com.github.shepherdviolet.glacimon.java.spi.api.annotation.ImplementationName;
+import okio.DeflaterSink;
+import okio.Sink;
+
+import java.util.zip.Deflater;
+
+/**
+ * GlaciHttpClient请求报文体压缩: DEFLATE(HTTP规范中的deflate为zlib格式, RFC 1950)
+ *
+ * @author shepherdviolet
+ */
+@ImplementationName(DeflateRequestCompressor.NAME)
+public class DeflateRequestCompressor implements RequestCompressor {
+
+    public static final String NAME = "deflate";
+
+    @Override
+    public String getContentEncoding() {
+        return NAME;
+    }
+
+    @Override
+    public Sink compress(Sink sink) {
+        return new DeflaterSink(sink, new Deflater());
+    }
+
+    @Override
+    public String toString() {
+        return NAME;
+    }
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.compression;
+
+import com.github.shepherdviolet.glacimon.java.spi.api.annotation.MultipleServiceInterface;
+import okio.Sink;
+
+import java.io.IOException;
+
+/**
+ * <p>GlaciHttpClient请求报文体压缩 扩展点</p>
+ *
+ * <p>GlaciHttpClient#setRequestCompression(String)按名称选择实现, 报文体超过阈值时压缩(流式, 不生成完整的压缩后byte[]),
+ * 并设置请求头Content-Encoding. 内置实现:</p>
+ *
+ * <p>gzip: GZIP</p>
+ * <p>deflate: DEFLATE(zlib格式)</p>
+ *
+ * <p>注意: 实现类由GlacimonSpi创建, 所有GlaciHttpClient共享同一个实例, 因此实现类必须是无状态的, 线程安全的.</p>
+ *
+ * <p>使用扩展点之前, 请先仔细阅读文档: https://github.com/shepherdviolet/glacimon/blob/master/docs/spi/index.md</p>
+ *
+ * @author shepherdviolet
+ */
+@MultipleServiceInterface
+public interface RequestCompressor {
+
+    /**
+     * @return 请求头Content-Encoding的值, 例如gzip
+     */
+    String getContentEncoding();
+
+    /**
+     * 包装输出流, 写入的数据压缩后输出到sink. 报文体写完后, GlaciHttpClient会关闭返回的Sink(写入压缩结尾),
+     * 关闭操作不会传递到原始的sink.
+     *
+     * @param sink 原始输出流
+     * @return 压缩输出流
+     */
+    Sink compress(Sink sink) throws IOException;
+
+}
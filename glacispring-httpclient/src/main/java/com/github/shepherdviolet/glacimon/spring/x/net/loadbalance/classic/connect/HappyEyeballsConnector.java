@@ -0,0 +1,252 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.connect;
+
+import okhttp3.Dns;
+
+import javax.net.SocketFactory;
+import java.io.IOException;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>连接竞速(Happy Eyeballs, 参考RFC 8305)</p>
+ *
+ * <p>域名解析出多个地址时(IPv6/IPv4混合, 或多个A记录), OkHttp默认逐个尝试, 一个不通(丢包)的地址要等满connectTimeout才会尝试下一个.
+ * 开启后: 1.wrap(Dns)对解析结果重新排序, IPv6/IPv4交替排列, 最近连接失败的地址排在最后. 2.getSocketFactory()创建的Socket在连接时,
+ * 按顺序每隔delayMillis发起一个连接(前一个连接失败时立即发起下一个), 使用最先建立的连接, 关闭其他连接. 竞速在调用connect的线程中
+ * 用非阻塞SocketChannel完成, 不创建线程.</p>
+ *
+ * <p>连接失败的地址, 以及被后发起的连接超越的地址(可能丢包), 在FAILURE_MEMORY_MILLIS内视为最近失败.
+ * 每个GlaciHttpClient持有一个实例, OkHttpClient重建时保留失败记录.</p>
+ *
+ * @author shepherdviolet
+ */
+public final class HappyEyeballsConnector {
+
+    private static final long FAILURE_MEMORY_MILLIS = 5L * 60L * 1000L;
+    private static final int MAX_RECORDS = 4096;
+
+    private final Map<InetAddress, Long> failedAddresses = new ConcurrentHashMap<>();
+    private final Map<String, InetAddress[]> candidates = new ConcurrentHashMap<>();
+
+    /**
+     * @param dns 原Dns, 为空时使用Dns.SYSTEM
+     * @return 对解析结果重新排序的Dns(IPv6/IPv4交替, 最近失败的排在最后), 并记录每个地址的候选地址(供竞速使用)
+     */
+    public Dns wrap(Dns dns) {
+        return new HappyEyeballsDns(dns != null ? dns : Dns.SYSTEM);
+    }
+
+    /**
+     * @param delayMillis 发起下一个连接的间隔ms, 大于0
+     * @return 创建竞速Socket的SocketFactory
+     */
+    public SocketFactory getSocketFactory(long delayMillis) {
+        if (delayMillis <= 0) {
+            throw new IllegalArgumentException("delayMillis must > 0");
+        }
+        return new RacingSocketFactory(delayMillis);
+    }
+
+    /**
+     * 竞速的候选地址: 目标地址排第一, 其他地址按该域名最近一次解析排序后的顺序.
+     * 只有一个地址, 或目标地址不在该域名最近一次的解析结果中时, 返回null(不竞速).
+     * 候选地址按域名记录, 多个域名解析出相同IP时(共用VIP/CDN), 不会竞速到其他域名的地址上.
+     */
+    InetAddress[] getCandidates(String hostname, InetAddress target) {
+        if (hostname == null) {
+            return null;
+        }
+        InetAddress[] addresses = candidates.get(hostname);
+        if (addresses == null || addresses.length <= 1) {
+            return null;
+        }
+        boolean found = false;
+        for (InetAddress address : addresses) {
+            if (address.equals(target)) {
+                found = true;
+                break;
+            }
+        }
+        if (!found) {
+            return null;
+        }
+        InetAddress[] result = new InetAddress[addresses.length];
+        result[0] = target;
+        int i = 1;
+        for (InetAddress address : addresses) {
+            if (i < result.length && !address.equals(target)) {
+                result[i++] = address;
+            }
+        }
+        return i == result.length ? result : null;
+    }
+
+    void onConnectFailed(InetAddress address) {
+        if (failedAddresses.size() >= MAX_RECORDS) {
+            failedAddresses.clear();
+        }
+        failedAddresses.put(address, System.currentTimeMillis());
+    }
+
+    void onConnected(InetAddress address) {
+        failedAddresses.remove(address);
+    }
+
+    private boolean isRecentlyFailed(InetAddress address, long now) {
+        Long failedAt = failedAddresses.get(address);
+        if (failedAt == null) {
+            return false;
+        }
+        if (now - failedAt > FAILURE_MEMORY_MILLIS) {
+            failedAddresses.remove(address, failedAt);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 排序: IPv6/IPv4交替(从第一个地址的类型开始), 最近失败的地址排在最后
+     */
+    private List<InetAddress> sort(List<InetAddress> addresses) {
+        if (addresses.size() <= 1) {
+            return addresses;
+        }
+        List<InetAddress> first = new ArrayList<>(addresses.size());
+        List<InetAddress> second = new ArrayList<>(addresses.size());
+        boolean firstIsIpv6 = addresses.get(0) instanceof Inet6Address;
+        for (InetAddress address : addresses) {
+            ((address instanceof Inet6Address) == firstIsIpv6 ? first : second).add(address);
+        }
+        List<InetAddress> interleaved = new ArrayList<>(addresses.size());
+        for (int i = 0 ; i < Math.max(first.size(), second.size()) ; i++) {
+            if (i < first.size()) {
+                interleaved.add(first.get(i));
+            }
+            if (i < second.size()) {
+                interleaved.add(second.get(i));
+            }
+        }
+        long now = System.currentTimeMillis();
+        List<InetAddress> result = new ArrayList<>(addresses.size());
+        List<InetAddress> failed = null;
+        for (InetAddress address : interleaved) {
+            if (isRecentlyFailed(address, now)) {
+                if (failed == null) {
+                    failed = new ArrayList<>();
+                }
+                failed.add(address);
+            } else {
+                result.add(address);
+            }
+        }
+        if (failed != null) {
+            result.addAll(failed);
+        }
+        return result;
+    }
+
+    private static InetAddress withHostname(String hostname, InetAddress address) throws UnknownHostException {
+        if (address instanceof Inet6Address && ((Inet6Address) address).getScopeId() != 0) {
+            return Inet6Address.getByAddress(hostname, address.getAddress(), ((Inet6Address) address).getScopeId());
+        }
+        return InetAddress.getByAddress(hostname, address.getAddress());
+    }
+
+    private final class HappyEyeballsDns implements Dns {
+
+        private final Dns delegate;
+
+        private HappyEyeballsDns(Dns delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public List<InetAddress> lookup(String hostname) throws UnknownHostException {
+            List<InetAddress> addresses = sort(delegate.lookup(hostname));
+            if (addresses.size() <= 1) {
+                // 解析结果更新后只剩一个地址, 清除原来的候选地址
+                candidates.remove(hostname);
+                return Collections.unmodifiableList(addresses);
+            }
+            // 地址带上域名, RacingSocket连接时通过InetSocketAddress#getHostString取回域名, 找到该域名的候选地址
+            List<InetAddress> named = new ArrayList<>(addresses.size());
+            for (InetAddress address : addresses) {
+                named.add(withHostname(hostname, address));
+            }
+            if (candidates.size() >= MAX_RECORDS) {
+                candidates.clear();
+            }
+            // 按域名整体替换, DNS更新后旧地址自然失效
+            candidates.put(hostname, named.toArray(new InetAddress[0]));
+            return Collections.unmodifiableList(named);
+        }
+
+        @Override
+        public String toString() {
+            return "HappyEyeballs(" + delegate + ")";
+        }
+
+    }
+
+    private final class RacingSocketFactory extends SocketFactory {
+
+        private final long delayMillis;
+
+        private RacingSocketFactory(long delayMillis) {
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public Socket createSocket() {
+            return new RacingSocket(HappyEyeballsConnector.this, delayMillis);
+        }
+
+        @Override
+        public Socket createSocket(String host, int port) throws IOException {
+            return SocketFactory.getDefault().createSocket(host, port);
+        }
+
+        @Override
+        public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+            return SocketFactory.getDefault().createSocket(host, port, localHost, localPort);
+        }
+
+        @Override
+        public Socket createSocket(InetAddress host, int port) throws IOException {
+            return SocketFactory.getDefault().createSocket(host, port);
+        }
+
+        @Override
+        public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort) throws IOException {
+            return SocketFactory.getDefault().createSocket(address, port, localAddress, localPort);
+        }
+
+    }
+
+}
@@ -0,0 +1,494 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.connect;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.*;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+/**
+ * <p>连接竞速Socket, 见HappyEyeballsConnector</p>
+ *
+ * <p>connect时若目标地址有多个候选地址, 用非阻塞SocketChannel依次发起连接(间隔delayMillis, 前一个失败时立即发起下一个),
+ * 最先建立的连接切换为阻塞模式, 之后本Socket的所有方法委托给它(SocketChannel#socket()), 其他连接关闭. 只有一个候选地址时,
+ * 与普通Socket一样连接.</p>
+ *
+ * @author shepherdviolet
+ */
+class RacingSocket extends Socket {
+
+    private final HappyEyeballsConnector connector;
+    private final long delayMillis;
+
+    private volatile Socket delegate;
+    private volatile Selector selector;
+    private volatile boolean closed = false;
+
+    // 连接前显式设置过的参数(未设置的保持系统默认), 复制到竞速的连接上
+    private int sendBufferSize = -1;
+    private int receiveBufferSize = -1;
+    private int soLinger = -2;
+
+    RacingSocket(HappyEyeballsConnector connector, long delayMillis) {
+        this.connector = connector;
+        this.delayMillis = delayMillis;
+    }
+
+    @Override
+    public void connect(SocketAddress endpoint) throws IOException {
+        connect(endpoint, 0);
+    }
+
+    @Override
+    public void connect(SocketAddress endpoint, int timeout) throws IOException {
+        InetAddress[] candidates = null;
+        if (endpoint instanceof InetSocketAddress && !((InetSocketAddress) endpoint).isUnresolved() && !super.isBound()) {
+            // getHostString不会反向解析, 地址来自HappyEyeballsDns时为域名
+            InetSocketAddress address = (InetSocketAddress) endpoint;
+            candidates = connector.getCandidates(address.getHostString(), address.getAddress());
+        }
+        if (candidates == null) {
+            super.connect(endpoint, timeout);
+            return;
+        }
+        race(candidates, ((InetSocketAddress) endpoint).getPort(), timeout);
+    }
+
+    private void race(InetAddress[] candidates, int port, int timeout) throws IOException {
+        long now = System.currentTimeMillis();
+        long deadline = timeout > 0 ? now + timeout : Long.MAX_VALUE;
+        SocketChannel[] channels = new SocketChannel[candidates.length];
+        int started = 0;
+        int failed = 0;
+        long nextStartTime = now;
+        IOException lastException = null;
+        SocketChannel winner = null;
+        int winnerIndex = -1;
+        Selector selector = Selector.open();
+        this.selector = selector;
+        try {
+            while (winner == null) {
+                if (closed) {
+                    throw new SocketException("Socket closed");
+                }
+                now = System.currentTimeMillis();
+                // 发起下一个连接
+                if (started < candidates.length && now >= nextStartTime) {
+                    int index = started++;
+                    nextStartTime = now + delayMillis;
+                    try {
+                        SocketChannel channel = SocketChannel.open();
+                        channels[index] = channel;
+                        channel.configureBlocking(false);
+                        applyOptions(channel.socket());
+                        if (channel.connect(new InetSocketAddress(candidates[index], port))) {
+                            winner = channel;
+                            winnerIndex = index;
+                        } else {
+                            channel.register(selector, SelectionKey.OP_CONNECT, index);
+                        }
+                    } catch (IOException e) {
+                        lastException = e;
+                        failed++;
+                        connector.onConnectFailed(candidates[index]);
+                        closeQuietly(channels[index]);
+                        channels[index] = null;
+                        nextStartTime = now;
+                    }
+                    continue;
+                }
+                if (failed >= candidates.length) {
+                    throw lastException != null ? lastException : new ConnectException("Failed to connect to any of the addresses");
+                }
+                if (now >= deadline) {
+                    throw new SocketTimeoutException("connect timed out");
+                }
+                long waitUntil = started < candidates.length ? Math.min(nextStartTime, deadline) : deadline;
+                selector.select(Math.max(waitUntil - now, 1L));
+                for (SelectionKey key : selector.selectedKeys()) {
+                    int index = (Integer) key.attachment();
+                    SocketChannel channel = (SocketChannel) key.channel();
+                    try {
+                        if (channel.finishConnect()) {
+                            winner = channel;
+                            winnerIndex = index;
+                            break;
+                        }
+                    } catch (IOException e) {
+                        lastException = e;
+                        failed++;
+                        key.cancel();
+                        connector.onConnectFailed(candidates[index]);
+                        closeQuietly(channel);
+                        channels[index] = null;
+                        nextStartTime = System.currentTimeMillis();
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+        } finally {
+            this.selector = null;
+            closeQuietly(selector);
+            for (int i = 0 ; i < channels.length ; i++) {
+                if (channels[i] != null && channels[i] != winner) {
+                    // 比胜出者先发起却没有连上的地址, 视为最近失败(可能丢包)
+                    if (winner != null && i < winnerIndex) {
+                        connector.onConnectFailed(candidates[i]);
+                    }
+                    closeQuietly(channels[i]);
+                }
+            }
+        }
+        try {
+            winner.configureBlocking(true);
+        } catch (IOException e) {
+            closeQuietly(winner);
+            throw e;
+        }
+        connector.onConnected(candidates[winnerIndex]);
+        Socket delegate = winner.socket();
+        synchronized (this) {
+            // 竞速期间可能又调用了setSoTimeout等方法, 发布前再复制一次(与setter互斥, 之后的调用直接委托)
+            try {
+                applyOptions(delegate);
+            } catch (SocketException e) {
+                closeQuietly(winner);
+                throw e;
+            }
+            // 先发布再检查, 保证与close()并发时连接一定被关闭
+            this.delegate = delegate;
+        }
+        if (closed) {
+            closeQuietly(winner);
+            throw new SocketException("Socket closed");
+        }
+    }
+
+    /**
+     * 连接前设置的参数, 复制到竞速的连接上.
+     * OkHttp在连接前设置soTimeout(readTimeout), 不复制的话TLS握手/代理CONNECT没有读超时
+     */
+    private synchronized void applyOptions(Socket socket) throws SocketException {
+        socket.setTcpNoDelay(super.getTcpNoDelay());
+        socket.setKeepAlive(super.getKeepAlive());
+        socket.setSoTimeout(super.getSoTimeout());
+        if (sendBufferSize > 0) {
+            socket.setSendBufferSize(sendBufferSize);
+        }
+        if (receiveBufferSize > 0) {
+            socket.setReceiveBufferSize(receiveBufferSize);
+        }
+        if (soLinger >= -1) {
+            socket.setSoLinger(soLinger >= 0, Math.max(soLinger, 0));
+        }
+    }
+
+    private static void closeQuietly(java.io.Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (Throwable ignore) {
+        }
+    }
+
+    // 委托 ///////////////////////////////////////////////////////////////////////////////////////////////////////
+
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        Selector selector = this.selector;
+        if (selector != null) {
+            selector.wakeup();
+        }
+        Socket delegate = this.delegate;
+        if (delegate != null) {
+            delegate.close();
+        }
+        super.close();
+    }
+
+    @Override
+    public InetAddress getInetAddress() {
+        Socket delegate = this.delegate;
+        return delegate != null ? delegate.getInetAddress() : super.getInetAddress();
+    }
+
+    @Override
+    public InetAddress getLocalAddress() {
+        Socket delegate = this.delegate;
+        return delegate != null ? delegate.getLocalAddress() : super.getLocalAddress();
+    }
+
+    @Override
+    public int getPort() {
+        Socket delegate = this.delegate;
+        return delegate != null ? delegate.getPort() : super.getPort();
+    }
+
+    @Override
+    public int getLocalPort() {
+        Socket delegate = this.delegate;
+        return delegate != null ? delegate.getLocalPort() : super.getLocalPort();
+    }
+
+    @Override
+    public SocketAddress getRemoteSocketAddress() {
+        Socket delegate = this.delegate;
+        return delegate != null ? delegate.getRemoteSocketAddress() : super.getRemoteSocketAddress();
+    }
+
+    @Override
+    public SocketAddress getLocalSocketAddress() {
+        Socket delegate = this.delegate;
+        return delegate != null ? delegate.getLocalSocketAddress() : super.getLocalSocketAddress();
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        Socket delegate = this.delegate;
+        return delegate != null ? delegate.getInputStream() : super.getInputStream();
+    }
+
+    @Override
+    public OutputStream getOutputStream() throws IOException {
+        Socket delegate = this.delegate;
+        return delegate != null ? delegate.getOutputStream() : super.getOutputStream();
+    }
+
+    @Override
+    public synchronized void setTcpNoDelay(boolean on) throws SocketException {
+        Socket delegate = this.delegate;
+        if (delegate != null) {
+            delegate.setTcpNoDelay(on);
+        } else {
+            super.setTcpNoDelay(on);
+        }
+    }
+
+    @Override
+    public boolean getTcpNoDelay() throws SocketException {
+        Socket delegate = this.delegate;
+        return delegate != null ? delegate.getTcpNoDelay() : super.getTcpNoDelay();
+    }
+
+    @Override
+    public synchronized void setSoLinger(boolean on, int linger) throws SocketException {
+        Socket delegate = this.delegate;
+        if (delegate != null) {
+            delegate.setSoLinger(on, linger);
+        } else {
+            super.setSoLinger(on, linger);
+            soLinger = on ? linger : -1;
+        }
+    }
+
+    @Override
+    public int getSoLinger() throws SocketException {
+        Socket delegate = this.delegate;
+        return delegate != null ? delegate.getSoLinger() : super.getSoLinger();
+    }
+
+    @Override
+    public void sendUrgentData(int data) throws IOException {
+        Socket delegate = this.delegate;
+        if (delegate != null) {
+            delegate.sendUrgentData(data);
+        } else {
+            super.sendUrgentData(data);
+        }
+    }
+
+    @Override
+    public void setOOBInline(boolean on) throws SocketException {
+        Socket delegate = this.delegate;
+        if (delegate != null) {
+            delegate.setOOBInline(on);
+        } else {
+            super.setOOBInline(on);
+        }
+    }
+
+    @Override
+    public boolean getOOBInline() throws SocketException {
+        Socket delegate = this.delegate;
+        return delegate != null ? delegate.getOOBInline() : super.getOOBInline();
+    }
+
+    @Override
+    public synchronized void setSoTimeout(int timeout) throws SocketException {
+        Socket delegate = this.delegate;
+        if (delegate != null) {
+            delegate.setSoTimeout(timeout);
+        } else {
+            super.setSoTimeout(timeout);
+        }
+    }
+
+    @Override
+    public synchronized int getSoTimeout() throws SocketException {
+        Socket delegate = this.delegate;
+        return delegate != null ? delegate.getSoTimeout() : super.getSoTimeout();
+    }
+
+    @Override
+    public synchronized void setSendBufferSize(int size) throws SocketException {
+        Socket delegate = this.delegate;
+        if (delegate != null) {
+            delegate.setSendBufferSize(size);
+        } else {
+            super.setSendBufferSize(size);
+            sendBufferSize = size;
+        }
+    }
+
+    @Override
+    public synchronized int getSendBufferSize() throws SocketException {
+        Socket delegate = this.delegate;
+        return delegate != null ? delegate.getSendBufferSize() : super.getSendBufferSize();
+    }
+
+    @Override
+    public synchronized void setReceiveBufferSize(int size) throws SocketException {
+        Socket delegate = this.delegate;
+        if (delegate != null) {
+            delegate.setReceiveBufferSize(size);
+        } else {
+            super.setReceiveBufferSize(size);
+            receiveBufferSize = size;
+        }
+    }
+
+    @Override
+    public synchronized int getReceiveBufferSize() throws SocketException {
+        Socket delegate = this.delegate;
+        return delegate != null ? delegate.getReceiveBufferSize() : super.getReceiveBufferSize();
+    }
+
+    @Override
+    public synchronized void setKeepAlive(boolean on) throws SocketException {
+        Socket delegate = this.delegate;
+        if (delegate != null) {
+            delegate.setKeepAlive(on);
+        } else {
+            super.setKeepAlive(on);
+        }
+    }
+
+    @Override
+    public boolean getKeepAlive() throws SocketException {
+        Socket delegate = this.delegate;
+        return delegate != null ? delegate.getKeepAlive() : super.getKeepAlive();
+    }
+
+    @Override
+    public void setTrafficClass(int tc) throws SocketException {
+        Socket delegate = this.delegate;
+        if (delegate != null) {
+            delegate.setTrafficClass(tc);
+        } else {
+            super.setTrafficClass(tc);
+        }
+    }
+
+    @Override
+    public int getTrafficClass() throws SocketException {
+        Socket delegate = this.delegate;
+        return delegate != null ? delegate.getTrafficClass() : super.getTrafficClass();
+    }
+
+    @Override
+    public void setReuseAddress(boolean on) throws SocketException {
+        Socket delegate = this.delegate;
+        if (delegate != null) {
+            delegate.setReuseAddress(on);
+        } else {
+            super.setReuseAddress(on);
+        }
+    }
+
+    @Override
+    public boolean getReuseAddress() throws SocketException {
+        Socket delegate = this.delegate;
+        return delegate != null ? delegate.getReuseAddress() : super.getReuseAddress();
+    }
+
+    @Override
+    public void shutdownInput() throws IOException {
+        Socket delegate = this.delegate;
+        if (delegate != null) {
+            delegate.shutdownInput();
+        } else {
+            super.shutdownInput();
+        }
+    }
+
+    @Override
+    public void shutdownOutput() throws IOException {
+        Socket delegate = this.delegate;
+        if (delegate != null) {
+            delegate.shutdownOutput();
+        } else {
+            super.shutdownOutput();
+        }
+    }
+
+    @Override
+    public boolean isConnected() {
+        Socket delegate = this.delegate;
+        return delegate != null ? delegate.isConnected() : super.isConnected();
+    }
+
+    @Override
+    public boolean isBound() {
+        Socket delegate = this.delegate;
+        return delegate != null ? delegate.isBound() : super.isBound();
+    }
+
+    @Override
+    public boolean isClosed() {
+        Socket delegate = this.delegate;
+        return delegate != null ? delegate.isClosed() : super.isClosed();
+    }
+
+    @Override
+    public boolean isInputShutdown() {
+        Socket delegate = this.delegate;
+        return delegate != null ? delegate.isInputShutdown() : super.isInputShutdown();
+    }
+
+    @Override
+    public boolean isOutputShutdown() {
+        Socket delegate = this.delegate;
+        return delegate != null ? delegate.isOutputShutdown() : super.isOutputShutdown();
+    }
+
+    @Override
+    public String toString() {
+        Socket delegate = this.delegate;
+        return delegate != null ? "RacingSocket" + delegate : super.toString();
+    }
+
+}
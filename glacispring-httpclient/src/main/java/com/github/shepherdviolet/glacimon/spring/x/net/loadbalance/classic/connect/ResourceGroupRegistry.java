@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.connect;
+
+import com.github.shepherdviolet.glacimon.java.concurrent.ThreadPoolExecutorUtils;
+import com.github.shepherdviolet.glacimon.java.conversion.SimpleKeyValueEncoder;
+import com.github.shepherdviolet.glacimon.java.misc.CheckUtils;
+import okhttp3.ConnectionPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <p>进程级共享资源组(引用计数), GlaciHttpClient内部使用, 见GlaciHttpClient#setResourceGroup.</p>
+ *
+ * <p>同一个资源组的客户端共用一个异步请求线程池(Dispatcher的ExecutorService)和一个连接池(ConnectionPool), 避免客户端很多时
+ * 大量闲置线程和闲置连接, 访问相同后端(地址/代理/DNS/SSL配置都相同)的客户端还可以复用彼此的连接. 每个客户端仍然有自己的Dispatcher
+ * (只是计数和排队, 不持有线程), 各自的maxThreads/maxThreadsPerHost照常生效.</p>
+ *
+ * <p>资源组参数采用SimpleKeyValueEncoder格式, 例如: name=backend,maxIdleConnections=64,keepAliveSeconds=300; 也可以只写名称,
+ * 例如: backend. 资源组由第一个使用它的客户端按参数创建, 之后其他客户端的参数不同时忽略(打印警告). 最后一个客户端释放后, 资源组
+ * 从注册表移除, 连接池中的闲置连接立即关闭, 线程池中的线程闲置60秒后自动回收.</p>
+ *
+ * @author shepherdviolet
+ */
+public final class ResourceGroupRegistry {
+
+    private static final long DEFAULT_KEEP_ALIVE_SECONDS = 300L;
+
+    private static final Logger logger = LoggerFactory.getLogger(ResourceGroupRegistry.class);
+
+    private static final Map<String, Group> GROUPS = new HashMap<>();
+
+    private ResourceGroupRegistry() {
+    }
+
+    /**
+     * 获取共享资源组
+     *
+     * @param groupDescription 资源组参数, 例如: name=backend,maxIdleConnections=64,keepAliveSeconds=300, 或者只有名称: backend
+     * @param defaultMaxIdleConnections 参数中没有maxIdleConnections时, 连接池的最大闲置连接数
+     * @return 共享资源组, 不用时必须close
+     */
+    public static Lease acquire(String groupDescription, int defaultMaxIdleConnections) {
+        String name;
+        int maxIdleConnections = defaultMaxIdleConnections;
+        long keepAliveSeconds = DEFAULT_KEEP_ALIVE_SECONDS;
+        if (groupDescription.indexOf('=') < 0) {
+            name = groupDescription.trim();
+        } else {
+            try {
+                Map<String, String> params = SimpleKeyValueEncoder.decode(groupDescription);
+                name = params.remove("name");
+                String value = params.remove("maxIdleConnections");
+                if (!CheckUtils.isEmptyOrBlank(value)) {
+                    maxIdleConnections = Integer.parseInt(value.trim());
+                }
+                value = params.remove("keepAliveSeconds");
+                if (!CheckUtils.isEmptyOrBlank(value)) {
+                    keepAliveSeconds = Long.parseLong(value.trim());
+                }
+                if (!params.isEmpty()) {
+                    logger.warn("HttpClient | Invalid resource group parameters: " + params + ", check your config glacispring.httpclients.*.resource-group");
+                }
+            } catch (Exception e) {
+                throw new IllegalArgumentException("Invalid resource group '" + groupDescription + "'", e);
+            }
+        }
+        if (CheckUtils.isEmptyOrBlank(name)) {
+            throw new IllegalArgumentException("Missing resource group name in '" + groupDescription + "'");
+        }
+        name = name.trim();
+        maxIdleConnections = Math.max(maxIdleConnections, 0);
+        keepAliveSeconds = Math.max(keepAliveSeconds, 1L);
+
+        synchronized (GROUPS) {
+            Group group = GROUPS.get(name);
+            if (group == null) {
+                group = new Group(name, maxIdleConnections, keepAliveSeconds);
+                GROUPS.put(name, group);
+                if (logger.isInfoEnabled()) {
+                    logger.info("HttpClient | Resource group created: " + group);
+                }
+            } else if (group.maxIdleConnections != maxIdleConnections || group.keepAliveSeconds != keepAliveSeconds) {
+                logger.warn("HttpClient | Resource group " + name + " already exists, parameters '" + groupDescription +
+                        "' are ignored, current: " + group);
+            }
+            group.refCount++;
+            return new Lease(group);
+        }
+    }
+
+    private static void release(Group group) {
+        synchronized (GROUPS) {
+            if (--group.refCount <= 0 && GROUPS.get(group.name) == group) {
+                GROUPS.remove(group.name);
+                // 闲置连接立即关闭, 正在使用的连接归还后由连接池按keepAlive清理; 线程池不关闭, 正在排队的请求继续执行, 线程闲置后自动回收
+                group.connectionPool.evictAll();
+                if (logger.isInfoEnabled()) {
+                    logger.info("HttpClient | Resource group released: " + group);
+                }
+            }
+        }
+    }
+
+    private static final class Group {
+
+        private final String name;
+        private final int maxIdleConnections;
+        private final long keepAliveSeconds;
+        private final ExecutorService executorService;
+        private final ConnectionPool connectionPool;
+        private int refCount = 0;
+
+        private Group(String name, int maxIdleConnections, long keepAliveSeconds) {
+            this.name = name;
+            this.maxIdleConnections = maxIdleConnections;
+            this.keepAliveSeconds = keepAliveSeconds;
+            this.executorService = ThreadPoolExecutorUtils.createCached(0, Integer.MAX_VALUE, 60,
+                    "Glacispring-HttpClient-" + name + "-%s");
+            this.connectionPool = new ConnectionPool(maxIdleConnections, keepAliveSeconds, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public String toString() {
+            return "{" +
+                    "name=" + name +
+                    ", maxIdleConnections=" + maxIdleConnections +
+                    ", keepAliveSeconds=" + keepAliveSeconds +
+                    ", clients=" + refCount +
+                    '}';
+        }
+
+    }
+
+    /**
+     * 共享资源组, 不用时必须close (重复close无影响)
+     */
+    public static final class Lease implements Closeable {
+
+        private final Group group;
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+
+        private Lease(Group group) {
+            this.group = group;
+        }
+
+        public String getName() {
+            return group.name;
+        }
+
+        /**
+         * 异步请求线程池, 用于创建客户端自己的Dispatcher
+         */
+        public ExecutorService getExecutorService() {
+            return group.executorService;
+        }
+
+        public ConnectionPool getConnectionPool() {
+            return group.connectionPool;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                release(group);
+            }
+        }
+
+    }
+
+}
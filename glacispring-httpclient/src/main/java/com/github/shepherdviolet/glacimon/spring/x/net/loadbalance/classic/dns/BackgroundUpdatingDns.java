@@ -19,6 +19,7 @@
 
 package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.dns;
 
+import com.github.shepherdviolet.glacimon.java.concurrent.ThreadPoolExecutorUtils;
 import com.github.shepherdviolet.glacimon.java.conversion.SimpleKeyValueEncoder;
 import com.github.shepherdviolet.glacimon.java.misc.CheckUtils;
 import com.github.shepherdviolet.glacimon.java.net.NetworkUtils;
@@ -26,26 +27,52 @@ import okhttp3.Dns;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xbill.DNS.*;
+import org.xbill.DNS.lookup.LookupSession;
+import org.xbill.DNS.lookup.NoSuchDomainException;
+import org.xbill.DNS.lookup.NoSuchRRSetException;
 
+import java.io.Closeable;
+import java.io.File;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
- * TTL到期前自动更新的DNS
+ * TTL到期前自动更新的DNS.
+ * 每个DNS服务器并行查询A/AAAA记录(共用一个超时时间), 缓存否定结果(域名不存在), 热门记录在过期前预取, 所有DNS服务器都失败时继续使用过期记录.
+ * 配置相同的实例共用缓存(例如HttpClients中的多个客户端), 缓存可以定期保存到快照文件, 重启后先用快照中的记录, 同时在后台重新解析.
  */
-public class BackgroundUpdatingDns implements Dns {
+public class BackgroundUpdatingDns implements Dns, Closeable {
+
+    private static final long STALE_TTL_SECONDS = 30L;
+    private static final long PREFETCH_AHEAD_DIVISOR = 4L;
+    private static final int PREFETCH_THREADS = 2;
+
+    /**
+     * 共用的缓存, key为影响解析结果的参数
+     */
+    private static final ConcurrentHashMap<String, SharedCache> SHARED_CACHES = new ConcurrentHashMap<>();
 
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
@@ -60,11 +87,21 @@ public class BackgroundUpdatingDns implements Dns {
     private final long reportIntervalSec;
     private final long stopUpdAftFails;
     private final long stopUpdAftIdleSec;
+    private final long negativeTtlSeconds;
+    private final long maxStaleSeconds;
+    private final long prefetchMinHits;
+    private final long snapshotIntervalSec;
+    private final long snapshotMaxAgeSec;
 
     private final List<String> ips;
     private final List<Resolver> resolvers;
+    private final List<LookupSession> lookupSessions;
     private final boolean isIpv6Available;
-    private final ConcurrentHashMap<String, CacheRecord> cache = new ConcurrentHashMap<>();
+    private final SharedCache sharedCache;
+    private final ConcurrentHashMap<String, CacheRecord> cache;
+
+    private final ThreadPoolExecutor prefetchThreadPool = createPrefetchThreadPool();
+    private final AtomicBoolean closed = new AtomicBoolean(false);
 
     private volatile BackgroundUpdateWaitLock backgroundUpdateWaitLock = BackgroundUpdateWaitLock.DUMMY;
 
@@ -76,8 +113,8 @@ public class BackgroundUpdatingDns implements Dns {
      * <p>参数采用SimpleKeyValueEncoder格式, 详见: https://github.com/shepherdviolet/glacimon/blob/master/docs/kvencoder/guide.md</p>
      * <p></p>
      * <p>参数说明:</p>
-     * <p>ip: DNS服务地址, 必输; 多个地址使用'|'分割, 例如: ip=8.8.8.8|114.114.114.114</p>
-     * <p>resolveTimeoutSeconds: 域名解析超时时间(秒), 可选, 默认5s</p>
+     * <p>ip: DNS服务地址, 必输; 多个地址使用'|'分割, 例如: ip=8.8.8.8|114.114.114.114; 可以指定端口, 例如: ip=127.0.0.1:5353|[::1]:5353</p>
+     * <p>resolveTimeoutSeconds: 域名解析超时时间(秒), 可选, 默认5s; 每个DNS服务器的A/AAAA查询并行执行, 共用这个超时时间</p>
      * <p>preferIpv6: true:Ipv6优先, false:Ipv4优先, 可选, 默认false</p>
      * <p>minTtlSeconds: 最小TTL(秒), 可选, 默认20; 实际TTL为max(服务器返回TTL, 该参数值)</p>
      * <p>maxTtlSeconds: 最大TTL(秒), 可选, 默认300; 实际TTL为min(服务器返回TTL, 该参数值)</p>
@@ -88,6 +125,19 @@ public class BackgroundUpdatingDns implements Dns {
      * <p>reportIntervalSec: DNS解析报告打印间隔(秒), 可选, 默认3600; 程序会在日志中打印DNS解析相关统计信息</p>
      * <p>stopUpdAftFails: 域名解析失败指定次数后, 停止自动更新, 可选, 默认5; 仅影响自动更新, 不影响同步解析</p>
      * <p>stopUpdAftIdleSec: 域名未使用指定时间(秒)后, 停止自动更新, 可选, 默认1200; 仅影响自动更新, 不影响同步解析</p>
+     * <p>negativeTtlSeconds: 域名不存在(DNS服务器答复NXDOMAIN或没有A/AAAA记录)时的TTL(秒), 可选, 默认10, 不超过maxTtlSeconds;
+     * 避免不存在的域名每次请求都查询DNS. 超时等其他错误仍按errorTtlSeconds</p>
+     * <p>maxStaleSeconds: 所有DNS服务器都解析失败(超时等)时, 继续使用过期记录的最长时间(秒, 从过期开始算), 可选, 默认600, 0不使用过期记录;
+     * 使用过期记录期间, 每30秒重新解析一次</p>
+     * <p>prefetchMinHits: 预取门槛, 可选, 默认3, 0关闭; 记录在本次TTL内被命中该次数以上时, 在TTL剩余1/4时由请求线程触发异步预取,
+     * 保证热门域名不会因为过期而同步等待解析(后台自动更新关闭/停止时同样有效)</p>
+     * <p>shareCache: true:与其他配置相同(ip/preferIpv6/各TTL参数/maxStaleSeconds/snapshotFile相同)的实例共用缓存, 可选, 默认true;
+     * 例如HttpClients中的多个客户端, 以及运行时修改dnsDescription后的新实例, 不会重复解析同一个域名</p>
+     * <p>snapshotFile: 缓存快照文件路径, 可选, 默认不保存快照; 后台更新器每隔snapshotIntervalSec(有变化时)及关闭时保存快照,
+     * 创建实例(首次创建该缓存)时读取快照, 快照中的记录作为过期记录先用30秒, 同时由后台更新器重新解析, 加快重启后的首次请求.
+     * 多个进程请勿使用同一个文件</p>
+     * <p>snapshotIntervalSec: 快照保存间隔(秒), 可选, 默认300, 最小10</p>
+     * <p>snapshotMaxAgeSec: 快照最长有效期(秒), 可选, 默认86400; 超过该时间的快照不读取, 超过该时间未使用的域名不保存</p>
      * <p></p>
      * <p>参数格式: key1=value1,key2=value2</p>
      * <p></p>
@@ -97,6 +147,7 @@ public class BackgroundUpdatingDns implements Dns {
      * <p>示例(设置ipv6是否优先): ip=8.8.8.8,resolveTimeoutSeconds=5,preferIpv6=false</p>
      * <p>示例(设置最大最小TTL): ip=8.8.8.8,resolveTimeoutSeconds=5,preferIpv6=false,minTtlSeconds=30,maxTtlSeconds=300</p>
      * <p>示例(设置是否后台自动更新): ip=8.8.8.8,resolveTimeoutSeconds=5,preferIpv6=false,isBackgroundUpdate=true</p>
+     * <p>示例(保存缓存快照): ip=8.8.8.8,snapshotFile=/home/app/dns-cache.bin</p>
      */
     public BackgroundUpdatingDns(String dnsDescription) {
         try {
@@ -113,6 +164,13 @@ public class BackgroundUpdatingDns implements Dns {
             this.reportIntervalSec = parseLongOrDefault(params, "reportIntervalSec", 3600, 60);
             this.stopUpdAftFails = parseLongOrDefault(params, "stopUpdAftFails", 5, 1);
             this.stopUpdAftIdleSec = parseLongOrDefault(params, "stopUpdAftIdleSec", 1200, 60);
+            this.negativeTtlSeconds = Math.min(parseLongOrDefault(params, "negativeTtlSeconds", 10, 0), maxTtlSeconds);
+            this.maxStaleSeconds = parseLongOrDefault(params, "maxStaleSeconds", 600, 0);
+            this.prefetchMinHits = parseLongOrDefault(params, "prefetchMinHits", 3, 0);
+            boolean shareCache = parseBooleanOrDefault(params, "shareCache", true);
+            String snapshotFile = params.remove("snapshotFile");
+            this.snapshotIntervalSec = parseLongOrDefault(params, "snapshotIntervalSec", 300, 10);
+            this.snapshotMaxAgeSec = parseLongOrDefault(params, "snapshotMaxAgeSec", 86400, 0);
             if (!params.isEmpty()) {
                 logger.warn("LoadBalance | DNS: Invalid dnsDescription parameters: " + params + ", check your config glacispring.httpclients.*.dns-description");
             }
@@ -121,11 +179,20 @@ public class BackgroundUpdatingDns implements Dns {
             this.isIpv6Available = NetworkUtils.isIpv6Available();
             this.ips = Stream.of(ipArray).map(String::trim).filter(CheckUtils::notEmpty).collect(Collectors.toList());
             this.resolvers = new ArrayList<>(this.ips.size());
+            this.lookupSessions = new ArrayList<>(this.ips.size());
             try {
+                // 与Lookup一样使用系统的search path和ndots, 不使用dnsjava的缓存
+                ResolverConfig resolverConfig = ResolverConfig.getCurrentConfig();
                 for (String i : this.ips) {
-                    SimpleResolver resolver = new SimpleResolver(i);
+                    SimpleResolver resolver = new SimpleResolver(parseResolverAddress(i));
                     resolver.setTimeout(Duration.ofSeconds(resolveTimeoutSeconds));
                     this.resolvers.add(resolver);
+                    this.lookupSessions.add(LookupSession.builder()
+                            .resolver(resolver)
+                            .searchPath(resolverConfig.searchPath())
+                            .ndots(resolverConfig.ndots())
+                            .clearCaches()
+                            .build());
                 }
             } catch (Throwable t) {
                 throw new IllegalArgumentException("Invalid DNS resolver IPs: " + ips, t);
@@ -133,11 +200,46 @@ public class BackgroundUpdatingDns implements Dns {
             if (this.resolvers.isEmpty()) {
                 throw new IllegalArgumentException("No invalid DNS resolver, IPs: " + ips);
             }
+
+            File snapshot = CheckUtils.isEmptyOrBlank(snapshotFile) ? null : new File(snapshotFile.trim());
+            if (shareCache) {
+                String cacheKey = ips + "|" + preferIpv6 + "|" + minTtlSeconds + "|" + maxTtlSeconds + "|" + errorTtlSeconds +
+                        "|" + negativeTtlSeconds + "|" + maxStaleSeconds + "|" + (snapshot == null ? "" : snapshot.getAbsolutePath());
+                this.sharedCache = SHARED_CACHES.computeIfAbsent(cacheKey, k -> new SharedCache(snapshot, snapshotMaxAgeSec));
+            } else {
+                this.sharedCache = new SharedCache(snapshot, snapshotMaxAgeSec);
+            }
+            this.cache = sharedCache.records;
         } catch (Throwable t) {
             throw new IllegalArgumentException("Invalid dnsDescription '" + dnsDescription + "'", t);
         }
     }
 
+    /**
+     * DNS服务地址, 支持: 8.8.8.8 / 8.8.8.8:53 / 2001:db8::1 / [2001:db8::1]:53
+     */
+    private static InetSocketAddress parseResolverAddress(String ip) throws UnknownHostException {
+        String host = ip;
+        int port = SimpleResolver.DEFAULT_PORT;
+        if (ip.startsWith("[")) {
+            int end = ip.indexOf(']');
+            if (end < 0) {
+                throw new IllegalArgumentException("Invalid DNS resolver address: " + ip);
+            }
+            host = ip.substring(1, end);
+            if (end + 1 < ip.length()) {
+                if (ip.charAt(end + 1) != ':') {
+                    throw new IllegalArgumentException("Invalid DNS resolver address: " + ip);
+                }
+                port = Integer.parseInt(ip.substring(end + 2));
+            }
+        } else if (ip.indexOf(':') > 0 && ip.indexOf(':') == ip.lastIndexOf(':')) {
+            host = ip.substring(0, ip.indexOf(':'));
+            port = Integer.parseInt(ip.substring(ip.indexOf(':') + 1));
+        }
+        return new InetSocketAddress(InetAddress.getByName(host), port);
+    }
+
     private String parseStringOrThrow(Map<String, String> params, String key) {
         String value = params.remove(key);
         if (CheckUtils.isEmptyOrBlank(value)) {
@@ -199,16 +301,29 @@ public class BackgroundUpdatingDns implements Dns {
                 throw e;
             } else if (addresses == null || addresses.isEmpty()) {
                 throw new UnknownHostException("No A or AAAA records found for " + hostname);
-            } else {
-                return addresses;
             }
+            // 热门记录在过期前预取, 避免过期后请求线程同步等待解析
+            if (prefetchMinHits > 0 && !closed.get() && now >= cacheRecord.getPrefetchAt() &&
+                    cacheRecord.getHitsSinceUpdate() >= prefetchMinHits && cacheRecord.startUpdate()) {
+                prefetch(hostname, cacheRecord);
+            }
+            return addresses;
         }
         cacheRecord.countCacheMisses();
+        return resolve(hostname);
+    }
+
+    /**
+     * 依次用每个DNS服务器解析域名, 并更新缓存.
+     * 有DNS服务器答复域名不存在时, 缓存否定结果(negativeTtlSeconds); 所有DNS服务器都失败(超时等)时, 若过期记录未超过maxStaleSeconds,
+     * 返回过期记录.
+     */
+    private List<InetAddress> resolve(String hostname) throws UnknownHostException {
         LookupResult result = null;
         UnknownHostException exception = null;
-        for (Resolver resolver : resolvers) {
+        for (int i = 0 ; i < resolvers.size() ; i++) {
             try {
-                result = doLookup(resolver, hostname);
+                result = doLookup(resolvers.get(i), lookupSessions.get(i), hostname);
                 if (!result.getAddresses().isEmpty()) {
                     break;
                 }
@@ -228,108 +343,161 @@ public class BackgroundUpdatingDns implements Dns {
             updateCacheRecord(hostname, result.getAddresses(), result.getTtl());
             return result.getAddresses();
         }
+        if (result != null) {
+            // DNS服务器明确答复域名不存在(NXDOMAIN或没有A/AAAA记录)
+            exception = new UnknownHostException("No A or AAAA records found for " + hostname);
+            updateCacheRecord(hostname, exception, negativeTtlSeconds, false);
+            throw exception;
+        }
         if (exception == null) {
             exception = new UnknownHostException("No A or AAAA records found for " + hostname);
         }
-        updateCacheRecord(hostname, exception);
+        List<InetAddress> staleAddresses = updateCacheRecord(hostname, exception, errorTtlSeconds, true);
+        if (staleAddresses != null) {
+            return staleAddresses;
+        }
         throw exception;
     }
 
     /**
-     * 子类实现域名解析
+     * 用一个DNS服务器解析域名, A/AAAA并行查询, 共用resolveTimeoutSeconds超时.
+     * 返回空列表表示域名不存在, 抛出异常表示DNS服务器错误(超时/SERVFAIL等). A/AAAA其中一个有结果时, 忽略另一个的错误.
      */
-    private LookupResult doLookup(Resolver resolver, String hostname) throws UnknownHostException {
+    private LookupResult doLookup(Resolver resolver, LookupSession lookupSession, String hostname) throws UnknownHostException {
+        Name name;
         try {
-            List<InetAddress> addresses = new ArrayList<>();
-            long minTtl = Long.MAX_VALUE;
-
-            if (isIpv6Available && preferIpv6) {
-                Lookup lookupAAAA = new Lookup(hostname, Type.AAAA);
-                lookupAAAA.setResolver(resolver);
-                lookupAAAA.setCache(null);
-                org.xbill.DNS.Record[] recordsAAAA = lookupAAAA.run();
-                switch (lookupAAAA.getResult()) {
-                    case Lookup.SUCCESSFUL:
-                        if (recordsAAAA != null) {
-                            for (org.xbill.DNS.Record record : recordsAAAA) {
-                                if (record instanceof AAAARecord) {
-                                    AAAARecord aaaa = (AAAARecord) record;
-                                    addresses.add(aaaa.getAddress());
-                                    minTtl = Math.min(minTtl, aaaa.getTTL());
-                                }
-                            }
-                        }
-                        break;
-                    case Lookup.UNRECOVERABLE:
-                        throw new UnknownHostException("DNS resolver " + resolver.toString() + " is unrecoverable");
-                    case Lookup.TRY_AGAIN:
-                        throw new UnknownHostException("DNS resolver " + resolver.toString() + " does not respond");
-                    default:
-                        break;
+            name = Name.fromString(hostname);
+        } catch (TextParseException e) {
+            UnknownHostException exception = new UnknownHostException("Invalid hostname " + hostname);
+            exception.initCause(e);
+            throw exception;
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(resolveTimeoutSeconds);
+        CompletableFuture<org.xbill.DNS.lookup.LookupResult> futureA = lookupSession.lookupAsync(name, Type.A).toCompletableFuture();
+        CompletableFuture<org.xbill.DNS.lookup.LookupResult> futureAAAA = isIpv6Available ?
+                lookupSession.lookupAsync(name, Type.AAAA).toCompletableFuture() : null;
+
+        List<org.xbill.DNS.Record> recordsA = null;
+        List<org.xbill.DNS.Record> recordsAAAA = futureAAAA == null ? Collections.<org.xbill.DNS.Record>emptyList() : null;
+        UnknownHostException exception = null;
+        try {
+            recordsA = awaitRecords(resolver, futureA, deadline);
+        } catch (UnknownHostException e) {
+            exception = e;
+        }
+        if (futureAAAA != null) {
+            try {
+                recordsAAAA = awaitRecords(resolver, futureAAAA, deadline);
+            } catch (UnknownHostException e) {
+                if (exception == null) {
+                    exception = e;
                 }
             }
+        }
 
-            // 始终查询 IPv4
-            Lookup lookupA = new Lookup(hostname, Type.A);
-            lookupA.setResolver(resolver);
-            lookupA.setCache(null);
-            org.xbill.DNS.Record[] recordsA = lookupA.run();
-            switch (lookupA.getResult()) {
-                case Lookup.SUCCESSFUL:
-                    if (recordsA != null) {
-                        for (org.xbill.DNS.Record record : recordsA) {
-                            if (record instanceof ARecord) {
-                                ARecord a = (ARecord) record;
-                                addresses.add(a.getAddress());
-                                minTtl = Math.min(minTtl, a.getTTL());
-                            }
-                        }
-                    }
-                    break;
-                case Lookup.UNRECOVERABLE:
-                    throw new UnknownHostException("DNS resolver " + resolver.toString() + " is unrecoverable");
-                case Lookup.TRY_AGAIN:
-                    throw new UnknownHostException("DNS resolver " + resolver.toString() + " does not respond");
-                default:
-                    break;
+        List<InetAddress> addresses = new ArrayList<>();
+        long minTtl = Long.MAX_VALUE;
+        for (List<org.xbill.DNS.Record> records : preferIpv6 ? Arrays.asList(recordsAAAA, recordsA) : Arrays.asList(recordsA, recordsAAAA)) {
+            if (records == null) {
+                continue;
             }
-
-            if (isIpv6Available && !preferIpv6) {
-                Lookup lookupAAAA = new Lookup(hostname, Type.AAAA);
-                lookupAAAA.setResolver(resolver);
-                lookupAAAA.setCache(null);
-                org.xbill.DNS.Record[] recordsAAAA = lookupAAAA.run();
-                switch (lookupAAAA.getResult()) {
-                    case Lookup.SUCCESSFUL:
-                        if (recordsAAAA != null) {
-                            for (org.xbill.DNS.Record record : recordsAAAA) {
-                                if (record instanceof AAAARecord) {
-                                    AAAARecord aaaa = (AAAARecord) record;
-                                    addresses.add(aaaa.getAddress());
-                                    minTtl = Math.min(minTtl, aaaa.getTTL());
-                                }
-                            }
-                        }
-                        break;
-                    case Lookup.UNRECOVERABLE:
-                        throw new UnknownHostException("DNS resolver " + resolver.toString() + " is unrecoverable");
-                    case Lookup.TRY_AGAIN:
-                        throw new UnknownHostException("DNS resolver " + resolver.toString() + " does not respond");
-                    default:
-                        break;
+            for (org.xbill.DNS.Record record : records) {
+                if (record instanceof ARecord) {
+                    addresses.add(((ARecord) record).getAddress());
+                    minTtl = Math.min(minTtl, record.getTTL());
+                } else if (record instanceof AAAARecord) {
+                    addresses.add(((AAAARecord) record).getAddress());
+                    minTtl = Math.min(minTtl, record.getTTL());
                 }
             }
+        }
+        if (addresses.isEmpty() && exception != null) {
+            throw exception;
+        }
+        return new LookupResult(addresses, minTtl);
+    }
 
-            return new LookupResult(addresses, minTtl);
-        } catch (TextParseException e) {
-            UnknownHostException exception = new UnknownHostException("Invalid hostname " + hostname);
-            exception.initCause(e);
+    /**
+     * 等待一种记录的查询结果, 域名或记录不存在时返回空列表
+     */
+    private List<org.xbill.DNS.Record> awaitRecords(Resolver resolver, CompletableFuture<org.xbill.DNS.lookup.LookupResult> future,
+                                                    long deadline) throws UnknownHostException {
+        try {
+            return future.get(Math.max(deadline - System.nanoTime(), 0L), TimeUnit.NANOSECONDS).getRecords();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            while (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof NoSuchDomainException || cause instanceof NoSuchRRSetException) {
+                return Collections.emptyList();
+            }
+            UnknownHostException exception = new UnknownHostException("DNS resolver " + resolver.toString() + " is unrecoverable, " + cause);
+            exception.initCause(cause);
             throw exception;
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            throw new UnknownHostException("DNS resolver " + resolver.toString() + " does not respond");
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new UnknownHostException("DNS lookup interrupted");
+        }
+    }
+
+    /**
+     * 预取线程池: 线程数有限(每条记录同时只有一个预取任务, 队列长度不超过域名数), 空闲时线程全部回收
+     */
+    private static ThreadPoolExecutor createPrefetchThreadPool() {
+        ThreadPoolExecutor executor = ThreadPoolExecutorUtils.create(PREFETCH_THREADS, PREFETCH_THREADS, 60,
+                "Glacispring-LBDNS-Prefetch-%s", new LinkedBlockingQueue<Runnable>(), null, null);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * 关闭预取线程池, 关闭后仍可以解析域名(不再预取). 由创建该实例的GlaciHttpClient在替换DNS或关闭时调用
+     */
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            prefetchThreadPool.shutdownNow();
+        }
+    }
+
+    /**
+     * 异步预取(每条记录同时只有一个预取/后台更新任务)
+     */
+    private void prefetch(String hostname, CacheRecord cacheRecord) {
+        try {
+            prefetchThreadPool.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        if (logger.isTraceEnabled()) {
+                            logger.trace("LoadBalance | DNS: prefetch: Hostname " + hostname + " starts to update");
+                        }
+                        resolve(hostname);
+                    } catch (Throwable t) {
+                        if (logger.isTraceEnabled()) {
+                            logger.trace("LoadBalance | DNS: prefetch: Lookup failed", t);
+                        }
+                    } finally {
+                        cacheRecord.finishUpdate();
+                    }
+                }
+            });
+        } catch (Throwable t) {
+            cacheRecord.finishUpdate();
+            if (logger.isTraceEnabled()) {
+                logger.trace("LoadBalance | DNS: prefetch: Unexpected error", t);
+            }
         }
     }
 
     /**
-     * 后台自动更新 (供DnsBackground
+     * 后台自动更新 (供DnsBackgroundUpdater调用)
      */
     public CountDownLatch doBackgroundUpdate(ExecutorService updateThreadPool) {
         Map<String, CacheRecord> recordsToUpdate = new HashMap<>(cache.size() * 2);
@@ -345,7 +513,8 @@ public class BackgroundUpdatingDns implements Dns {
             if (cacheRecord.isUpdateStopped(now, stopUpdAftFails, stopUpdAftIdleSec)) {
                 continue;
             }
-            if (updateAt <= now) {
+            // 共用缓存时, 其他实例正在更新(或正在预取)的记录跳过
+            if (updateAt <= now && cacheRecord.startUpdate()) {
                 recordsToUpdate.put(entry.getKey(), cacheRecord);
             }
         }
@@ -363,44 +532,19 @@ public class BackgroundUpdatingDns implements Dns {
                             if (logger.isTraceEnabled()) {
                                 logger.trace("LoadBalance | DNS: doBackgroundUpdate: Hostname " + hostname + " starts to update");
                             }
-                            LookupResult result = null;
-                            UnknownHostException exception = null;
-                            for (Resolver resolver : resolvers) {
-                                try {
-                                    result = doLookup(resolver, hostname);
-                                    if (!result.getAddresses().isEmpty()) {
-                                        break;
-                                    }
-                                } catch (Throwable t) {
-                                    // 记录主DNS的错误
-                                    if (exception == null) {
-                                        if (t instanceof UnknownHostException) {
-                                            exception = (UnknownHostException) t;
-                                        } else {
-                                            exception = new UnknownHostException(t.getMessage());
-                                            exception.initCause(t);
-                                        }
-                                    }
-                                }
-                            }
-                            if (result != null && !result.getAddresses().isEmpty()) {
-                                updateCacheRecord(hostname, result.getAddresses(), result.getTtl());
-                                return;
-                            }
-                            if (exception == null) {
-                                exception = new UnknownHostException("No A or AAAA records found for " + hostname);
-                            }
-                            updateCacheRecord(hostname, exception);
+                            resolve(hostname);
                         } catch (Throwable t) {
                             if (logger.isTraceEnabled()) {
                                 logger.trace("LoadBalance | DNS: doBackgroundUpdate: Lookup failed", t);
                             }
                         } finally {
+                            record.finishUpdate();
                             countDownLatch.countDown();
                         }
                     }
                 });
             } catch (Throwable t) {
+                record.finishUpdate();
                 countDownLatch.countDown();
                 if (logger.isTraceEnabled()) {
                     logger.trace("LoadBalance | DNS: doBackgroundUpdate: Unexpected error", t);
@@ -442,6 +586,7 @@ public class BackgroundUpdatingDns implements Dns {
         ttl = Math.min(maxTtlSeconds, ttl);
         ttl = Math.max(minTtlSeconds, ttl);
         record.setAddresses(addresses, ttl);
+        sharedCache.modified = true;
         record.countSuccessfulLookups();
         record.resetConsecFails();
 
@@ -460,7 +605,12 @@ public class BackgroundUpdatingDns implements Dns {
         }
     }
 
-    private void updateCacheRecord(String hostname, UnknownHostException exception) {
+    /**
+     * @param ttl 错误记录的TTL
+     * @param serveStale true: 地址过期未超过maxStaleSeconds时, 继续使用过期地址
+     * @return 继续使用的过期地址, 没有则返回null
+     */
+    private List<InetAddress> updateCacheRecord(String hostname, UnknownHostException exception, long ttl, boolean serveStale) {
         CacheRecord record = getCacheRecord(hostname);
 
         String recordString = null;
@@ -469,8 +619,16 @@ public class BackgroundUpdatingDns implements Dns {
         }
 
         // 之前就失败了 或者 地址已过期了 才去记录错误, 否则有地址用就先用
-        if (record.getException() != null || System.currentTimeMillis() >= record.getExpireAt()) {
-            record.setException(exception, errorTtlSeconds);
+        List<InetAddress> staleAddresses = null;
+        long now = System.currentTimeMillis();
+        if (record.getException() != null || now >= record.getExpireAt()) {
+            staleAddresses = serveStale ? record.serveStale(now, maxStaleSeconds * 1000L, STALE_TTL_SECONDS) : null;
+            if (staleAddresses == null) {
+                record.setException(exception, ttl);
+            } else if (logger.isWarnEnabled()) {
+                logger.warn("LoadBalance | DNS: All resolvers failed, serve stale record of " + hostname + ": " + staleAddresses +
+                        ", cause: " + exception.getMessage());
+            }
         }
 
         record.countFailedLookups();
@@ -483,12 +641,76 @@ public class BackgroundUpdatingDns implements Dns {
         if (record.isFirstLookup()) {
             backgroundUpdateWaitLock.signalAll();
         }
+        return staleAddresses;
     }
 
     private CacheRecord getCacheRecord(String hostname) {
         return cache.computeIfAbsent(hostname, k -> new CacheRecord());
     }
 
+    // Snapshot /////////////////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @return 下次保存快照的时间, 未配置snapshotFile时返回Long.MAX_VALUE (供DnsBackgroundUpdater调用)
+     */
+    public long getNextSnapshotTime() {
+        if (sharedCache.snapshotFile == null) {
+            return Long.MAX_VALUE;
+        }
+        return sharedCache.lastSnapshotTime + snapshotIntervalSec * 1000L;
+    }
+
+    /**
+     * 到了保存间隔且缓存有变化时保存快照 (供DnsBackgroundUpdater调用)
+     */
+    public void saveSnapshotIfDue() {
+        if (System.currentTimeMillis() >= getNextSnapshotTime()) {
+            saveSnapshot();
+        }
+    }
+
+    /**
+     * 缓存有变化时保存快照, 未配置snapshotFile时不处理 (供DnsBackgroundUpdater调用, 关闭时)
+     */
+    public void saveSnapshot() {
+        SharedCache sharedCache = this.sharedCache;
+        if (sharedCache.snapshotFile == null) {
+            return;
+        }
+        synchronized (sharedCache) {
+            long now = System.currentTimeMillis();
+            sharedCache.lastSnapshotTime = now;
+            if (!sharedCache.modified) {
+                return;
+            }
+            sharedCache.modified = false;
+            List<DnsCacheSnapshot.Entry> entries = new ArrayList<>(cache.size());
+            for (Map.Entry<String, CacheRecord> entry : cache.entrySet()) {
+                CacheRecord record = entry.getValue();
+                List<InetAddress> addresses = record.getAddresses();
+                // 只保存解析成功过, 且最近使用过的记录
+                if (addresses == null || addresses.isEmpty() || record.freshUntil < 0 ||
+                        now - record.lastLookupTime.get() > snapshotMaxAgeSec * 1000L) {
+                    continue;
+                }
+                List<byte[]> addressBytes = new ArrayList<>(addresses.size());
+                for (InetAddress address : addresses) {
+                    addressBytes.add(address.getAddress());
+                }
+                entries.add(new DnsCacheSnapshot.Entry(entry.getKey(), record.getTtl(), record.freshUntil, addressBytes));
+            }
+            try {
+                DnsCacheSnapshot.write(sharedCache.snapshotFile, entries);
+                if (logger.isDebugEnabled()) {
+                    logger.debug("LoadBalance | DNS: Snapshot saved, " + entries.size() + " records, file: " + sharedCache.snapshotFile);
+                }
+            } catch (Throwable t) {
+                sharedCache.modified = true;
+                logger.warn("LoadBalance | DNS: Failed to save snapshot to " + sharedCache.snapshotFile, t);
+            }
+        }
+    }
+
     public long getUpdMinIntervalSec() {
         return updMinIntervalSec;
     }
@@ -520,6 +742,10 @@ public class BackgroundUpdatingDns implements Dns {
                 ", reportIntervalSec=" + reportIntervalSec +
                 ", stopUpdAftFails=" + stopUpdAftFails +
                 ", stopUpdAftIdleSec=" + stopUpdAftIdleSec +
+                ", negativeTtlSeconds=" + negativeTtlSeconds +
+                ", maxStaleSeconds=" + maxStaleSeconds +
+                ", prefetchMinHits=" + prefetchMinHits +
+                ", snapshotFile=" + sharedCache.snapshotFile +
                 ", isIpv6Available=" + isIpv6Available +
                 '}';
     }
@@ -538,7 +764,9 @@ public class BackgroundUpdatingDns implements Dns {
         private volatile List<InetAddress> addresses;
         private volatile long ttl = -1; // 秒
         private volatile long expireAt = -1; // 毫秒(时间戳)
+        private volatile long freshUntil = -1; // 毫秒(时间戳), 解析成功时的过期时间, 使用过期地址时expireAt会延长, 该值不变
         private volatile UnknownHostException exception;
+        private volatile long hitsAtUpdate = 0;
 
         private final AtomicLong cacheHits = new AtomicLong(0);
         private final AtomicLong cacheMisses = new AtomicLong(0);
@@ -548,6 +776,7 @@ public class BackgroundUpdatingDns implements Dns {
         private final AtomicBoolean firstLookup = new AtomicBoolean(true);
         private final AtomicLong consecFails = new AtomicLong(0);
         private final AtomicLong lastLookupTime = new AtomicLong(System.currentTimeMillis());
+        private final AtomicBoolean updating = new AtomicBoolean(false);
 
         private boolean isFirstLookup() {
             return firstLookup.compareAndSet(true, false);
@@ -576,11 +805,68 @@ public class BackgroundUpdatingDns implements Dns {
             this.addresses = addresses;
             this.ttl = ttl;
             this.expireAt = System.currentTimeMillis() + ttl * 1000L;
+            this.freshUntil = this.expireAt;
+            this.exception = null;
+            this.hitsAtUpdate = cacheHits.get();
+        }
+
+        /**
+         * 解析失败时继续使用过期地址(从过期开始最多maxStaleMillis), 每次延长staleTtlSeconds
+         *
+         * @return 过期地址, 没有或超过maxStaleMillis时返回null
+         */
+        private List<InetAddress> serveStale(long now, long maxStaleMillis, long staleTtlSeconds) {
+            List<InetAddress> addresses = this.addresses;
+            long staleUntil = freshUntil + maxStaleMillis;
+            if (addresses == null || addresses.isEmpty() || freshUntil < 0 || now >= staleUntil) {
+                return null;
+            }
+            this.expireAt = Math.min(now + staleTtlSeconds * 1000L, staleUntil);
+            return addresses;
+        }
+
+        /**
+         * 从快照恢复: 未过期的记录照常使用, 已过期的记录作为过期记录使用staleTtlSeconds, 同时由后台更新器尽快重新解析
+         */
+        private void restore(List<InetAddress> addresses, long ttl, long freshUntil, long staleTtlSeconds) {
+            this.addresses = addresses;
+            this.ttl = ttl;
+            this.expireAt = Math.max(freshUntil, System.currentTimeMillis() + staleTtlSeconds * 1000L);
+            this.freshUntil = freshUntil;
             this.exception = null;
         }
 
+        /**
+         * @return true: 开始更新, false: 其他线程正在更新(预取/后台更新)
+         */
+        private boolean startUpdate() {
+            return updating.compareAndSet(false, true);
+        }
+
+        private void finishUpdate() {
+            updating.set(false);
+        }
+
+        /**
+         * @return 本次TTL内的命中次数
+         */
+        private long getHitsSinceUpdate() {
+            return cacheHits.get() - hitsAtUpdate;
+        }
+
+        /**
+         * @return 预取时间: TTL剩余1/PREFETCH_AHEAD_DIVISOR时, 没有地址时返回Long.MAX_VALUE
+         */
+        private long getPrefetchAt() {
+            if (addresses == null || ttl <= 0) {
+                return Long.MAX_VALUE;
+            }
+            return expireAt - ttl * 1000L / PREFETCH_AHEAD_DIVISOR;
+        }
+
         private void setException(UnknownHostException exception, long ttl) {
             this.addresses = null;
+            this.freshUntil = -1;
             this.ttl = ttl;
             this.expireAt = System.currentTimeMillis() + ttl * 1000L;
             this.exception = exception;
@@ -618,7 +904,9 @@ public class BackgroundUpdatingDns implements Dns {
             if (expireAt < 0 || ttl < 0) {
                 return Long.MAX_VALUE; // 还没解析成功过, 不知道什么时候更新
             }
-            return expireAt - ttl * 1000L / 2L;
+            long updateAt = expireAt - ttl * 1000L / 2L;
+            // 正在使用过期地址(快照恢复/解析失败)时, 尽快更新
+            return freshUntil >= 0 ? Math.min(updateAt, freshUntil) : updateAt;
         }
 
         private UnknownHostException getException() {
@@ -642,6 +930,48 @@ public class BackgroundUpdatingDns implements Dns {
         }
     }
 
+    /**
+     * 缓存记录及其快照状态, 配置相同的实例共用
+     */
+    private static class SharedCache {
+
+        private static final Logger LOGGER = LoggerFactory.getLogger(BackgroundUpdatingDns.class);
+
+        private final ConcurrentHashMap<String, CacheRecord> records = new ConcurrentHashMap<>();
+        private final File snapshotFile;
+        private volatile boolean modified = false;
+        private volatile long lastSnapshotTime = System.currentTimeMillis();
+
+        private SharedCache(File snapshotFile, long snapshotMaxAgeSec) {
+            this.snapshotFile = snapshotFile;
+            if (snapshotFile != null) {
+                loadSnapshot(snapshotMaxAgeSec);
+            }
+        }
+
+        private void loadSnapshot(long snapshotMaxAgeSec) {
+            try {
+                List<DnsCacheSnapshot.Entry> entries = DnsCacheSnapshot.read(snapshotFile, snapshotMaxAgeSec * 1000L);
+                for (DnsCacheSnapshot.Entry entry : entries) {
+                    List<InetAddress> addresses = new ArrayList<>(entry.addresses.size());
+                    for (byte[] address : entry.addresses) {
+                        addresses.add(InetAddress.getByAddress(entry.hostname, address));
+                    }
+                    CacheRecord record = new CacheRecord();
+                    record.restore(addresses, entry.ttl, entry.expireAt, STALE_TTL_SECONDS);
+                    records.put(entry.hostname, record);
+                }
+                if (LOGGER.isInfoEnabled()) {
+                    LOGGER.info("LoadBalance | DNS: Snapshot loaded, " + entries.size() + " records, file: " + snapshotFile);
+                }
+            } catch (Throwable t) {
+                records.clear();
+                LOGGER.warn("LoadBalance | DNS: Failed to load snapshot from " + snapshotFile + ", ignored", t);
+            }
+        }
+
+    }
+
     private static class LookupResult {
 
         private final List<InetAddress> addresses;
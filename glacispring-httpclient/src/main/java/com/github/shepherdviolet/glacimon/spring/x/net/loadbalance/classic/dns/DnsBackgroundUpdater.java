@@ -33,7 +33,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * DNS更新器, 在TTL到期前尝试更新, 减少解析阻塞
+ * DNS更新器, 在TTL到期前尝试更新, 减少解析阻塞; 同时负责定期保存DNS缓存快照(关闭时也会保存)
  */
 public class DnsBackgroundUpdater implements Closeable {
 
@@ -68,6 +68,7 @@ public class DnsBackgroundUpdater implements Closeable {
         }
         started.set(true);
         updateWaitLock.signalAll();
+        saveSnapshot(getBackgroundUpdatingDns());
         try {
             dispatchThreadPool.shutdownNow();
         } catch (Throwable ignore){
@@ -84,6 +85,7 @@ public class DnsBackgroundUpdater implements Closeable {
             // 清理旧实例
             if (this.dns instanceof BackgroundUpdatingDns) {
                 ((BackgroundUpdatingDns) this.dns).setBackgroundUpdateWaitLock(null);
+                saveSnapshot((BackgroundUpdatingDns) this.dns);
             }
             // 设置新实例
             this.dns = dns;
@@ -119,7 +121,7 @@ public class DnsBackgroundUpdater implements Closeable {
                 while (!closed.get()){
                     try {
                         //间隔
-                        long waitDuration = Math.max(getNextUpdateTime() - System.currentTimeMillis(), 1);
+                        long waitDuration = Math.max(Math.min(getNextUpdateTime(), getNextSnapshotTime()) - System.currentTimeMillis(), 1);
                         if (logger.isTraceEnabled()) {
                             logger.trace(tag + "DNS: The next update will be in " + waitDuration + " milliseconds");
                         }
@@ -134,6 +136,8 @@ public class DnsBackgroundUpdater implements Closeable {
                             }
                             continue;
                         }
+                        // 保存快照(与是否后台更新无关)
+                        dns.saveSnapshotIfDue();
                         if (!dns.isBackgroundUpdate()) {
                             continue;
                         }
@@ -178,6 +182,22 @@ public class DnsBackgroundUpdater implements Closeable {
         return null;
     }
 
+    private long getNextSnapshotTime() {
+        BackgroundUpdatingDns dns = getBackgroundUpdatingDns();
+        return dns != null ? dns.getNextSnapshotTime() : Long.MAX_VALUE;
+    }
+
+    private void saveSnapshot(BackgroundUpdatingDns dns) {
+        if (dns == null) {
+            return;
+        }
+        try {
+            dns.saveSnapshot();
+        } catch (Throwable t) {
+            logger.warn(tag + "DNS: Failed to save snapshot", t);
+        }
+    }
+
     private long getNextUpdateTime() {
         long now = System.currentTimeMillis();
         BackgroundUpdatingDns dns = getBackgroundUpdatingDns();
@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.dns;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>DNS缓存快照文件(二进制), 用于重启后快速预热, 见BackgroundUpdatingDns的snapshotFile参数</p>
+ *
+ * <p>格式: MAGIC(int) VERSION(byte) 保存时间(long) 记录数(int), 每条记录: 域名(UTF) TTL秒(long) 过期时间(long)
+ * 地址数(byte) [地址长度(byte) 地址(4或16字节)]... 只保存解析成功的记录. 先写临时文件再替换, 避免读到写了一半的文件.</p>
+ *
+ * @author shepherdviolet
+ */
+final class DnsCacheSnapshot {
+
+    private static final int MAGIC = 0x474C444E;
+    private static final byte VERSION = 1;
+    private static final int MAX_ADDRESSES = 255;
+
+    private DnsCacheSnapshot() {
+    }
+
+    static void write(File file, List<Entry> entries) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs() && !parent.exists()) {
+            throw new IOException("Can not create directory " + parent);
+        }
+        File tempFile = new File(file.getAbsolutePath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(System.currentTimeMillis());
+            out.writeInt(entries.size());
+            for (Entry entry : entries) {
+                out.writeUTF(entry.hostname);
+                out.writeLong(entry.ttl);
+                out.writeLong(entry.expireAt);
+                int count = Math.min(entry.addresses.size(), MAX_ADDRESSES);
+                out.writeByte(count);
+                for (int i = 0 ; i < count ; i++) {
+                    byte[] address = entry.addresses.get(i);
+                    out.writeByte(address.length);
+                    out.write(address);
+                }
+            }
+        }
+        try {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * @param maxAgeMillis 快照保存时间超过该值时不读取(返回空列表)
+     * @return 快照中的记录, 文件不存在时返回空列表
+     * @throws IOException 文件格式错误等
+     */
+    static List<Entry> read(File file, long maxAgeMillis) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        if (!file.isFile()) {
+            return entries;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+                throw new IOException("Invalid DNS cache snapshot file " + file);
+            }
+            if (System.currentTimeMillis() - in.readLong() > maxAgeMillis) {
+                return entries;
+            }
+            int size = in.readInt();
+            for (int i = 0 ; i < size ; i++) {
+                String hostname = in.readUTF();
+                long ttl = in.readLong();
+                long expireAt = in.readLong();
+                int count = in.readUnsignedByte();
+                List<byte[]> addresses = new ArrayList<>(count);
+                for (int j = 0 ; j < count ; j++) {
+                    int length = in.readUnsignedByte();
+                    if (length != 4 && length != 16) {
+                        throw new IOException("Invalid DNS cache snapshot file " + file + ", illegal address length " + length);
+                    }
+                    byte[] address = new byte[length];
+                    in.readFully(address);
+                    addresses.add(address);
+                }
+                entries.add(new Entry(hostname, ttl, expireAt, addresses));
+            }
+        }
+        return entries;
+    }
+
+    static final class Entry {
+
+        final String hostname;
+        final long ttl;
+        final long expireAt;
+        final List<byte[]> addresses;
+
+        Entry(String hostname, long ttl, long expireAt, List<byte[]> addresses) {
+            this.hostname = hostname;
+            this.ttl = ttl;
+            this.expireAt = expireAt;
+            this.addresses = addresses;
+        }
+
+    }
+
+}
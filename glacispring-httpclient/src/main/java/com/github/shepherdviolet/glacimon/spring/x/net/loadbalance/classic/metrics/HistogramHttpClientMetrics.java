@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.metrics;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>GlaciHttpClient请求耗时统计: 无锁对数直方图(LatencyHistogram), 按远端和urlSuffix分别统计各项耗时</p>
+ *
+ * <p>远端/urlSuffix首次出现时创建直方图, 之后记录不加锁, 不创建对象. 为防止urlSuffix过多导致内存膨胀, 最多统计
+ * MAX_URL_SUFFIXES个urlSuffix, 超出的计入OTHERS.</p>
+ *
+ * @author shepherdviolet
+ */
+public class HistogramHttpClientMetrics implements HttpClientMetrics {
+
+    /**
+     * 超出数量上限的urlSuffix计入这一项
+     */
+    public static final String OTHERS = "<others>";
+
+    private static final int MAX_HOSTS = 256;
+    private static final int MAX_URL_SUFFIXES = 256;
+    private static final MetricType[] TYPES = MetricType.values();
+
+    private final ConcurrentHashMap<String, LatencyHistogram[]> hosts = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LatencyHistogram[]> urlSuffixes = new ConcurrentHashMap<>();
+
+    @Override
+    public void record(String hostUrl, String urlSuffix, MetricType type, long elapsedNanos) {
+        long elapsedMicros = TimeUnit.NANOSECONDS.toMicros(elapsedNanos);
+        if (hostUrl != null) {
+            getHistograms(hosts, hostUrl, MAX_HOSTS)[type.ordinal()].record(elapsedMicros);
+        }
+        if (urlSuffix != null) {
+            getHistograms(urlSuffixes, urlSuffix, MAX_URL_SUFFIXES)[type.ordinal()].record(elapsedMicros);
+        }
+    }
+
+    private LatencyHistogram[] getHistograms(ConcurrentHashMap<String, LatencyHistogram[]> map, String key, int maxKeys) {
+        LatencyHistogram[] histograms = map.get(key);
+        if (histograms != null) {
+            return histograms;
+        }
+        if (map.size() >= maxKeys) {
+            key = OTHERS;
+            histograms = map.get(key);
+            if (histograms != null) {
+                return histograms;
+            }
+        }
+        histograms = new LatencyHistogram[TYPES.length];
+        for (int i = 0 ; i < histograms.length ; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        LatencyHistogram[] previous = map.putIfAbsent(key, histograms);
+        return previous != null ? previous : histograms;
+    }
+
+    @Override
+    public HttpClientMetricsSnapshot snapshot() {
+        return new HttpClientMetricsSnapshot(snapshot(hosts), snapshot(urlSuffixes));
+    }
+
+    private Map<String, Map<MetricType, LatencyHistogram.Snapshot>> snapshot(ConcurrentHashMap<String, LatencyHistogram[]> map) {
+        Map<String, Map<MetricType, LatencyHistogram.Snapshot>> result = new LinkedHashMap<>();
+        for (Map.Entry<String, LatencyHistogram[]> entry : new TreeMap<>(map).entrySet()) {
+            Map<MetricType, LatencyHistogram.Snapshot> snapshots = new EnumMap<>(MetricType.class);
+            for (MetricType type : TYPES) {
+                LatencyHistogram.Snapshot snapshot = entry.getValue()[type.ordinal()].snapshot();
+                if (snapshot.getCount() > 0) {
+                    snapshots.put(type, snapshot);
+                }
+            }
+            result.put(entry.getKey(), snapshots);
+        }
+        return result;
+    }
+
+    @Override
+    public void reset() {
+        //保留key, 只清空数据, 避免与记录并发时丢失直方图
+        for (LatencyHistogram[] histograms : hosts.values()) {
+            for (LatencyHistogram histogram : histograms) {
+                histogram.reset();
+            }
+        }
+        for (LatencyHistogram[] histograms : urlSuffixes.values()) {
+            for (LatencyHistogram histogram : histograms) {
+                histogram.reset();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.metrics;
+
+/**
+ * <p>GlaciHttpClient请求耗时统计(每个GlaciHttpClient一个实例), 由HttpClientMetricsFactory创建</p>
+ *
+ * <p>record方法在请求线程(OkHttp线程)中执行, 必须线程安全, 无锁, 且尽量不要创建对象.</p>
+ *
+ * @see HttpClientMetricsFactory
+ * @author shepherdviolet
+ */
+public interface HttpClientMetrics {
+
+    /**
+     * 记录一个耗时
+     *
+     * @param hostUrl 远端URL(LoadBalancedHostManager中的远端)
+     * @param urlSuffix 请求的urlSuffix
+     * @param type 统计项
+     * @param elapsedNanos 耗时, ns
+     */
+    void record(String hostUrl, String urlSuffix, MetricType type, long elapsedNanos);
+
+    /**
+     * @return 当前统计数据的快照
+     */
+    HttpClientMetricsSnapshot snapshot();
+
+    /**
+     * 清空统计数据
+     */
+    void reset();
+
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.metrics;
+
+import com.github.shepherdviolet.glacimon.java.spi.api.annotation.MultipleServiceInterface;
+
+/**
+ * <p>GlaciHttpClient请求耗时统计 扩展点</p>
+ *
+ * <p>GlaciHttpClient#setMetrics(String)按名称选择实现, 每个GlaciHttpClient调用一次newMetrics创建自己的统计实例. 内置实现:</p>
+ *
+ * <p>histogram: 无锁对数直方图(HDR风格), 按远端和urlSuffix分别统计, 见HistogramHttpClientMetrics</p>
+ *
+ * <p>注意: 实现类由GlacimonSpi创建, 所有GlaciHttpClient共享同一个实例, 状态请保存在HttpClientMetrics中.</p>
+ *
+ * <p>使用扩展点之前, 请先仔细阅读文档: https://github.com/shepherdviolet/glacimon/blob/master/docs/spi/index.md</p>
+ *
+ * @author shepherdviolet
+ */
+@MultipleServiceInterface
+public interface HttpClientMetricsFactory {
+
+    /**
+     * 创建统计实例
+     *
+     * @param tag GlaciHttpClient的日志标签
+     * @return 统计实例
+     */
+    HttpClientMetrics newMetrics(String tag);
+
+}
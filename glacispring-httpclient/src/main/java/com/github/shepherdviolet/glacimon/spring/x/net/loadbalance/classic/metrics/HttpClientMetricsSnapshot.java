@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.metrics;
+
+import java.util.Map;
+
+/**
+ * GlaciHttpClient请求耗时统计快照
+ *
+ * @author shepherdviolet
+ */
+public class HttpClientMetricsSnapshot {
+
+    private final Map<String, Map<MetricType, LatencyHistogram.Snapshot>> hosts;
+    private final Map<String, Map<MetricType, LatencyHistogram.Snapshot>> urlSuffixes;
+
+    public HttpClientMetricsSnapshot(Map<String, Map<MetricType, LatencyHistogram.Snapshot>> hosts,
+                                     Map<String, Map<MetricType, LatencyHistogram.Snapshot>> urlSuffixes) {
+        this.hosts = hosts;
+        this.urlSuffixes = urlSuffixes;
+    }
+
+    /**
+     * @return 按远端统计, Map<远端URL, Map<统计项, 直方图快照>>
+     */
+    public Map<String, Map<MetricType, LatencyHistogram.Snapshot>> getHosts() {
+        return hosts;
+    }
+
+    /**
+     * @return 按urlSuffix统计, Map<urlSuffix, Map<统计项, 直方图快照>>
+     */
+    public Map<String, Map<MetricType, LatencyHistogram.Snapshot>> getUrlSuffixes() {
+        return urlSuffixes;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder stringBuilder = new StringBuilder("HttpClientMetrics");
+        append(stringBuilder, "host", hosts);
+        append(stringBuilder, "urlSuffix", urlSuffixes);
+        return stringBuilder.toString();
+    }
+
+    private static void append(StringBuilder stringBuilder, String name, Map<String, Map<MetricType, LatencyHistogram.Snapshot>> map) {
+        for (Map.Entry<String, Map<MetricType, LatencyHistogram.Snapshot>> entry : map.entrySet()) {
+            stringBuilder.append("\n").append(name).append(" ").append(entry.getKey());
+            for (Map.Entry<MetricType, LatencyHistogram.Snapshot> metric : entry.getValue().entrySet()) {
+                stringBuilder.append("\n    ").append(metric.getKey()).append(" ").append(metric.getValue());
+            }
+        }
+    }
+
+}
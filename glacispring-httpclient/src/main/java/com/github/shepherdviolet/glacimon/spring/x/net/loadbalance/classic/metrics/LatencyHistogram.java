@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>无锁耗时直方图(HDR风格的对数-线性分桶), 单位微秒(us)</p>
+ *
+ * <p>小于8us的值每个值一个桶, 之后每个2的幂区间等分为8个桶, 相对误差不超过12.5%, 最大记录值约19小时(超过按最大值记录).
+ * 记录时只有数组下标计算和原子加, 不加锁, 不创建对象. 快照与记录并发时, 快照数据不保证严格一致(计数可能相差几个),
+ * 对统计用途没有影响.</p>
+ *
+ * @author shepherdviolet
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 36;
+    private static final long MAX_VALUE = (1L << MAX_EXPONENT) - 1;
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong sum = new AtomicLong(0);
+    private final AtomicLong max = new AtomicLong(0);
+
+    /**
+     * 记录一个值
+     *
+     * @param valueMicros 耗时, us, 小于0按0记录
+     */
+    public void record(long valueMicros) {
+        if (valueMicros < 0) {
+            valueMicros = 0;
+        } else if (valueMicros > MAX_VALUE) {
+            valueMicros = MAX_VALUE;
+        }
+        buckets.incrementAndGet(indexOf(valueMicros));
+        sum.addAndGet(valueMicros);
+        long currentMax;
+        while (valueMicros > (currentMax = max.get())) {
+            if (max.compareAndSet(currentMax, valueMicros)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * @return 当前数据的快照
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0 ; i < BUCKET_COUNT ; i++) {
+            counts[i] = buckets.get(i);
+            count += counts[i];
+        }
+        return new Snapshot(counts, count, sum.get(), max.get());
+    }
+
+    /**
+     * 清空数据
+     */
+    public void reset() {
+        for (int i = 0 ; i < BUCKET_COUNT ; i++) {
+            buckets.set(i, 0);
+        }
+        sum.set(0);
+        max.set(0);
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * @return 桶的上界(含)
+     */
+    static long upperBoundOf(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+        int subBucket = index % SUB_BUCKET_COUNT;
+        return ((long) (SUB_BUCKET_COUNT + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    /**
+     * 直方图快照
+     */
+    public static final class Snapshot {
+
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        /**
+         * @return 样本数
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return 平均值, us, 没有样本时为0
+         */
+        public long getMean() {
+            return count > 0 ? sum / count : 0;
+        }
+
+        /**
+         * @return 最大值, us
+         */
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * @param percentile 百分位, (0, 100], 例如99.9
+         * @return 百分位数(所在桶的上界, 不超过最大值), us, 没有样本时为0
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (count <= 0) {
+                return 0;
+            }
+            long threshold = (long) Math.ceil(count * Math.max(0.0, Math.min(100.0, percentile)) / 100.0);
+            if (threshold < 1) {
+                threshold = 1;
+            }
+            long accumulated = 0;
+            for (int i = 0 ; i < counts.length ; i++) {
+                accumulated += counts[i];
+                if (accumulated >= threshold) {
+                    return Math.min(upperBoundOf(i), max);
+                }
+            }
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return "{count=" + count +
+                    ", mean=" + toMillis(getMean()) +
+                    "ms, p50=" + toMillis(getValueAtPercentile(50)) +
+                    "ms, p90=" + toMillis(getValueAtPercentile(90)) +
+                    "ms, p99=" + toMillis(getValueAtPercentile(99)) +
+                    "ms, p999=" + toMillis(getValueAtPercentile(99.9)) +
+                    "ms, max=" + toMillis(max) +
+                    "ms}";
+        }
+
+        private static String toMillis(long micros) {
+            return String.valueOf(micros / 1000) + '.' + (micros % 1000) / 100;
+        }
+
+    }
+
+}
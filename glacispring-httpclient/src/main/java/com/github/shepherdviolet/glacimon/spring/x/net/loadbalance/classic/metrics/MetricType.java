@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.metrics;
+
+/**
+ * 请求耗时统计项
+ *
+ * @author shepherdviolet
+ */
+public enum MetricType {
+
+    /**
+     * 排队耗时: 请求发起(OkHttp callStart)到开始执行(拦截器), 异步请求为在Dispatcher中排队的时间, 同步请求约为0
+     */
+    QUEUE_WAIT,
+
+    /**
+     * DNS解析耗时(复用连接时没有)
+     */
+    DNS,
+
+    /**
+     * 建立连接耗时, 含TLS握手(复用连接时没有)
+     */
+    CONNECT,
+
+    /**
+     * TLS握手耗时(复用连接时没有)
+     */
+    TLS,
+
+    /**
+     * 首字节耗时: 开始发送请求头到开始接收响应头
+     */
+    TTFB,
+
+    /**
+     * 总耗时: 请求发起到响应读取完毕(或失败)
+     */
+    TOTAL
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.ssl;
+
+import javax.net.ssl.X509TrustManager;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>缓存服务端证书链验证结果的TrustManager (SslContextRegistry内部使用).</p>
+ *
+ * <p>同一个证书链(内容相同, authType相同)验证通过后, cacheMillis内(且不超过证书链中最早的有效期截止时间)不再重复验证(PKIX路径构建和签名校验),
+ * 只缓存验证通过的结果, 验证失败的每次都重新验证. 最多缓存MAX_ENTRIES条, 超出时清空.</p>
+ *
+ * @author shepherdviolet
+ */
+final class CachingX509TrustManager implements X509TrustManager {
+
+    private static final int MAX_ENTRIES = 1024;
+
+    private final X509TrustManager delegate;
+    private final long cacheMillis;
+    private final ConcurrentHashMap<ByteBuffer, Long> verifiedChains = new ConcurrentHashMap<>();
+
+    CachingX509TrustManager(X509TrustManager delegate, long cacheMillis) {
+        this.delegate = delegate;
+        this.cacheMillis = cacheMillis;
+    }
+
+    @Override
+    public void checkClientTrusted(X509Certificate[] chain, String authType) throws CertificateException {
+        delegate.checkClientTrusted(chain, authType);
+    }
+
+    @Override
+    public void checkServerTrusted(X509Certificate[] chain, String authType) throws CertificateException {
+        if (chain == null || chain.length == 0 || cacheMillis <= 0) {
+            delegate.checkServerTrusted(chain, authType);
+            return;
+        }
+        ByteBuffer key = chainKey(chain, authType);
+        long now = System.currentTimeMillis();
+        Long expireAt = verifiedChains.get(key);
+        if (expireAt != null) {
+            if (now < expireAt) {
+                return;
+            }
+            verifiedChains.remove(key, expireAt);
+        }
+
+        delegate.checkServerTrusted(chain, authType);
+
+        expireAt = now + cacheMillis;
+        for (X509Certificate certificate : chain) {
+            expireAt = Math.min(expireAt, certificate.getNotAfter().getTime());
+        }
+        if (verifiedChains.size() >= MAX_ENTRIES) {
+            verifiedChains.clear();
+        }
+        verifiedChains.put(key, expireAt);
+    }
+
+    @Override
+    public X509Certificate[] getAcceptedIssuers() {
+        return delegate.getAcceptedIssuers();
+    }
+
+    private ByteBuffer chainKey(X509Certificate[] chain, String authType) throws CertificateException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (X509Certificate certificate : chain) {
+                digest.update(certificate.getEncoded());
+            }
+            if (authType != null) {
+                digest.update(authType.getBytes(StandardCharsets.UTF_8));
+            }
+            return ByteBuffer.wrap(digest.digest());
+        } catch (CertificateException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CertificateException("Failed to digest certificate chain", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CachingX509TrustManager{" +
+                "delegate=" + delegate +
+                ", cacheMillis=" + cacheMillis +
+                '}';
+    }
+
+}
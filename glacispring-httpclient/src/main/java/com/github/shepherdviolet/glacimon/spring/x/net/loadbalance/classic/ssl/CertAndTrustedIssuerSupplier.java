@@ -34,6 +34,7 @@ import javax.net.ssl.*;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
 import java.security.KeyStore;
+import java.security.cert.CertificateEncodingException;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
@@ -53,9 +54,11 @@ import java.util.List;
  *
  * <p>待开发: 目前只支持设置证书和私钥, 将来可以支持设置JKS/PFX文件 (keyStore.load(...)加载一下文件即可)</p>
  *
+ * <p>配置相同(证书/私钥内容相同)的实例共用SSLContext及TLS会话缓存, 见SslContextRegistry.</p>
+ *
  * @author shepherdviolet
  */
-public class CertAndTrustedIssuerSupplier implements SslConfigSupplier {
+public class CertAndTrustedIssuerSupplier implements SharableSslConfigSupplier {
 
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
@@ -207,11 +210,58 @@ public class CertAndTrustedIssuerSupplier implements SslConfigSupplier {
         return createSslConfig(keyManager, trustManager);
     }
 
+    /**
+     * 信任材料标识: 所有参数的SHA256摘要, 没有配置任何参数时为系统默认
+     */
+    @Override
+    public Object getTrustMaterialKey() {
+        StringBuilder stringBuilder = new StringBuilder();
+        appendKey(stringBuilder, "serverIssuerEncoded", customServerIssuerEncoded);
+        appendKey(stringBuilder, "serverIssuersEncoded", customServerIssuersEncoded);
+        appendKey(stringBuilder, "serverIssuer", customServerIssuer);
+        appendKey(stringBuilder, "serverIssuers", customServerIssuers);
+        appendKey(stringBuilder, "clientCertEncoded", customClientCertEncoded);
+        appendKey(stringBuilder, "clientCertsEncoded", customClientCertsEncoded);
+        appendKey(stringBuilder, "clientCert", customClientCert);
+        appendKey(stringBuilder, "clientCerts", customClientCerts);
+        appendKey(stringBuilder, "clientCertKeyEncoded", customClientCertKeyEncoded);
+        if (customClientCertKey != null) {
+            stringBuilder.append("clientCertKey=").append(desensitization(customClientCertKey)).append(';');
+        }
+        if (stringBuilder.length() <= 0) {
+            return SslContextRegistry.PLATFORM_DEFAULT;
+        }
+        return "CertAndTrustedIssuer:" + desensitization(stringBuilder.toString());
+    }
+
+    private void appendKey(StringBuilder stringBuilder, String name, Object value) {
+        if (value == null) {
+            return;
+        }
+        stringBuilder.append(name).append('=');
+        if (value instanceof String) {
+            stringBuilder.append(value);
+        } else if (value instanceof String[]) {
+            stringBuilder.append(String.join(",", (String[]) value));
+        } else {
+            X509Certificate[] certificates = value instanceof X509Certificate[] ? (X509Certificate[]) value : new X509Certificate[]{(X509Certificate) value};
+            for (X509Certificate certificate : certificates) {
+                try {
+                    stringBuilder.append(ByteUtils.bytesToHex(DigestCipher.digest(certificate.getEncoded(), DigestCipher.TYPE_SHA256))).append(',');
+                } catch (CertificateEncodingException e) {
+                    throw new RuntimeException("CertAndTrustedIssuerSupplier | Failed to encode certificate " + certificate.getSubjectX500Principal(), e);
+                }
+            }
+        }
+        stringBuilder.append(';');
+    }
+
     /**
      * 创建TrustManager
      *
      * 四种参数按照优先级的顺序判断, 只取其中一种参数(优先级最高的)创建TrustManager
      */
+    @Override
     public X509TrustManager buildTrustManager() {
 
         List<X509Certificate> customIssuers = new ArrayList<>();
@@ -287,7 +337,11 @@ public class CertAndTrustedIssuerSupplier implements SslConfigSupplier {
         };
     }
 
-    private X509KeyManager buildKeyManager(){
+    /**
+     * 创建KeyManager(客户端证书), 没有配置客户端证书时返回null
+     */
+    @Override
+    public X509KeyManager buildKeyManager(){
 
         Key customKey = null;
         List<X509Certificate> customCerts = new ArrayList<>();
@@ -22,6 +22,7 @@ package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.ssl;
 import okhttp3.internal.platform.Platform;
 
 import javax.net.ssl.*;
+import java.util.Arrays;
 
 /**
  * <p>[SSL配置提供者] 设置自定义的trustManager和keyManager.</p>
@@ -31,9 +32,11 @@ import javax.net.ssl.*;
  * <p>2.keyManager设置客户端证书(双向SSL) </p>
  * <p>3. ... </p>
  *
+ * <p>keyManager和trustManager是同一对实例时, 共用SSLContext及TLS会话缓存, 见SslContextRegistry.</p>
+ *
  * @author shepherdviolet
  */
-public class KeyAndTrustManagerSupplier implements SslConfigSupplier {
+public class KeyAndTrustManagerSupplier implements SharableSslConfigSupplier {
 
     private X509KeyManager keyManager;
     private X509TrustManager trustManager;
@@ -60,6 +63,24 @@ public class KeyAndTrustManagerSupplier implements SslConfigSupplier {
         return this;
     }
 
+    @Override
+    public Object getTrustMaterialKey() {
+        if (keyManager == null && trustManager == null) {
+            return SslContextRegistry.PLATFORM_DEFAULT;
+        }
+        return Arrays.<Object>asList(KeyAndTrustManagerSupplier.class, keyManager, trustManager);
+    }
+
+    @Override
+    public X509KeyManager buildKeyManager() {
+        return keyManager;
+    }
+
+    @Override
+    public X509TrustManager buildTrustManager() {
+        return trustManager;
+    }
+
     @Override
     public SslConfig getSslConfig() {
         if (keyManager == null && trustManager == null) {
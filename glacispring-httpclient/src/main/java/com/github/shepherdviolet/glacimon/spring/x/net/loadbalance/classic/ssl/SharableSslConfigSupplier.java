@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.ssl;
+
+import javax.net.ssl.X509KeyManager;
+import javax.net.ssl.X509TrustManager;
+
+/**
+ * <p>可共用SSLContext的SSL配置提供者.</p>
+ *
+ * <p>信任材料(受信颁发者/客户端证书/私钥)相同的实例, 由SslContextRegistry共用同一个SSLContext(及其TLS会话缓存),
+ * 不同客户端连接同一个服务端时可以复用TLS会话(会话恢复), 减少完整握手. 详见SslContextRegistry.</p>
+ *
+ * @author shepherdviolet
+ */
+public interface SharableSslConfigSupplier extends SslConfigSupplier {
+
+    /**
+     * 信任材料的标识, 相同标识的实例共用SSLContext, 必须正确实现equals/hashCode.
+     * 返回null表示不共用, 由getSslConfig()创建.
+     */
+    Object getTrustMaterialKey();
+
+    /**
+     * 创建KeyManager(客户端证书), 可以为空
+     */
+    X509KeyManager buildKeyManager();
+
+    /**
+     * 创建TrustManager(服务端证书信任), 可以为空(使用系统默认)
+     */
+    X509TrustManager buildTrustManager();
+
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.ssl;
+
+import okhttp3.internal.Util;
+import okhttp3.internal.platform.Platform;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.*;
+import java.io.Closeable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <p>进程级SSLContext注册表(引用计数), GlaciHttpClient及其主动探测器内部使用.</p>
+ *
+ * <p>OkHttp每个客户端实例默认各自创建SSLContext, SslConfigSupplier每次(包括配置变更后重建客户端时)也会创建新的SSLContext,
+ * TLS会话缓存无法共用, 新连接都要完整握手; 连接池按SSLSocketFactory区分连接, 配置变更后已建立的连接也无法复用.
+ * 这里按信任材料(SharableSslConfigSupplier#getTrustMaterialKey, 没有配置SSL时为系统默认)和会话缓存参数共用SSLContext:</p>
+ *
+ * <p>1.连接同一个服务端的多个客户端共用TLS会话缓存, 新连接可以会话恢复(简短握手)</p>
+ * <p>2.会话缓存大小和超时时间可配置(sessionCacheSize/sessionTimeout, 0表示不限制)</p>
+ * <p>3.服务端证书链验证结果缓存VERIFY_CACHE_SECONDS, 完整握手时同一证书链不重复验证, 见CachingX509TrustManager</p>
+ *
+ * <p>acquire得到的Lease在不用时必须close(引用计数减一), 计数为0时从注册表移除(已创建的连接不受影响).
+ * 不支持共用的SslConfigSupplier(例如SslSocketFactorySupplier, 或getTrustMaterialKey返回null)返回null, 由调用者照旧处理.</p>
+ *
+ * @author shepherdviolet
+ */
+public final class SslContextRegistry {
+
+    private static final long VERIFY_CACHE_SECONDS = 300L;
+    static final String PLATFORM_DEFAULT = "PLATFORM_DEFAULT";
+
+    private static final Logger logger = LoggerFactory.getLogger(SslContextRegistry.class);
+
+    private static final Map<List<Object>, Entry> ENTRIES = new HashMap<>();
+
+    private SslContextRegistry() {
+    }
+
+    /**
+     * 获取共用的SSL配置
+     *
+     * @param sslConfigSupplier SSL配置提供者, 为空表示系统默认
+     * @param sessionCacheSize TLS会话缓存大小, 0不限制
+     * @param sessionTimeout TLS会话超时时间(秒), 0不限制
+     * @return 共用的SSL配置, 用完必须close; 不支持共用时返回null
+     */
+    public static Lease acquire(SslConfigSupplier sslConfigSupplier, int sessionCacheSize, int sessionTimeout) {
+        Object trustMaterialKey;
+        SharableSslConfigSupplier sharableSupplier = null;
+        if (sslConfigSupplier == null) {
+            trustMaterialKey = PLATFORM_DEFAULT;
+        } else if (sslConfigSupplier instanceof SharableSslConfigSupplier) {
+            sharableSupplier = (SharableSslConfigSupplier) sslConfigSupplier;
+            trustMaterialKey = sharableSupplier.getTrustMaterialKey();
+            if (trustMaterialKey == null) {
+                return null;
+            }
+        } else {
+            return null;
+        }
+
+        List<Object> key = Arrays.asList(trustMaterialKey, Math.max(sessionCacheSize, 0), Math.max(sessionTimeout, 0));
+        synchronized (ENTRIES) {
+            Entry entry = ENTRIES.get(key);
+            if (entry == null) {
+                entry = createEntry(key, sharableSupplier, sessionCacheSize, sessionTimeout);
+                ENTRIES.put(key, entry);
+            }
+            entry.refCount++;
+            return new Lease(entry);
+        }
+    }
+
+    private static Entry createEntry(List<Object> key, SharableSslConfigSupplier supplier, int sessionCacheSize, int sessionTimeout) {
+        X509KeyManager keyManager = supplier != null ? supplier.buildKeyManager() : null;
+        X509TrustManager trustManager = supplier != null ? supplier.buildTrustManager() : null;
+        if (trustManager == null) {
+            trustManager = Util.platformTrustManager();
+        }
+        trustManager = new CachingX509TrustManager(trustManager, VERIFY_CACHE_SECONDS * 1000L);
+        try {
+            SSLContext sslContext = Platform.get().getSSLContext();
+            sslContext.init(keyManager != null ? new KeyManager[]{keyManager} : null,
+                    new TrustManager[]{trustManager}, null);
+            SSLSessionContext sessionContext = sslContext.getClientSessionContext();
+            if (sessionContext != null) {
+                sessionContext.setSessionCacheSize(Math.max(sessionCacheSize, 0));
+                sessionContext.setSessionTimeout(Math.max(sessionTimeout, 0));
+            }
+            if (logger.isDebugEnabled()) {
+                logger.debug("HttpClient | Shared SSLContext created, key: " + key);
+            }
+            return new Entry(key, sslContext.getSocketFactory(), trustManager);
+        } catch (Throwable t) {
+            throw new RuntimeException("SslContextRegistry | Failed to initialize shared SSLContext", t);
+        }
+    }
+
+    private static void release(Entry entry) {
+        synchronized (ENTRIES) {
+            if (--entry.refCount <= 0 && ENTRIES.get(entry.key) == entry) {
+                ENTRIES.remove(entry.key);
+                if (logger.isDebugEnabled()) {
+                    logger.debug("HttpClient | Shared SSLContext released, key: " + entry.key);
+                }
+            }
+        }
+    }
+
+    private static final class Entry {
+
+        private final List<Object> key;
+        private final SSLSocketFactory sslSocketFactory;
+        private final X509TrustManager trustManager;
+        private int refCount = 0;
+
+        private Entry(List<Object> key, SSLSocketFactory sslSocketFactory, X509TrustManager trustManager) {
+            this.key = key;
+            this.sslSocketFactory = sslSocketFactory;
+            this.trustManager = trustManager;
+        }
+
+    }
+
+    /**
+     * 共用的SSL配置, 不用时必须close (重复close无影响)
+     */
+    public static final class Lease extends SslConfig implements Closeable {
+
+        private final Entry entry;
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+
+        private Lease(Entry entry) {
+            super(entry.sslSocketFactory, entry.trustManager);
+            this.entry = entry;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                release(entry);
+            }
+        }
+
+    }
+
+}
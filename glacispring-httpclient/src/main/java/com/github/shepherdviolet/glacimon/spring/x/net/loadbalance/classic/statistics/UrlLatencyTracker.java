@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.statistics;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>按urlSuffix统计近期响应时间的百分位数(例如P95), 用于对冲请求的自适应延迟.</p>
+ *
+ * <p>每个urlSuffix保留最近SAMPLE_SIZE个样本(环形数组, 无锁写入), 百分位数每隔COMPUTE_INTERVAL_MILLIS重新计算一次(抢到的线程计算),
+ * 其余时间直接返回缓存值. 为防止urlSuffix过多导致内存膨胀, 最多统计MAX_KEYS个urlSuffix, 超出的不统计.</p>
+ *
+ * @author shepherdviolet
+ */
+public class UrlLatencyTracker {
+
+    private static final int SAMPLE_SIZE = 256;
+    private static final int MIN_SAMPLES = 20;
+    private static final int MAX_KEYS = 1024;
+    private static final long COMPUTE_INTERVAL_MILLIS = 1000L;
+
+    private final int percentile;
+    private final ConcurrentHashMap<String, Samples> samplesMap = new ConcurrentHashMap<>();
+
+    /**
+     * @param percentile 百分位, 例如95
+     */
+    public UrlLatencyTracker(int percentile) {
+        this.percentile = Math.max(1, Math.min(100, percentile));
+    }
+
+    /**
+     * 记录一个样本
+     * @param urlSuffix urlSuffix
+     * @param elapsedMillis 耗时ms
+     */
+    public void record(String urlSuffix, long elapsedMillis) {
+        if (urlSuffix == null) {
+            return;
+        }
+        Samples samples = samplesMap.get(urlSuffix);
+        if (samples == null) {
+            if (samplesMap.size() >= MAX_KEYS) {
+                return;
+            }
+            samples = samplesMap.computeIfAbsent(urlSuffix, k -> new Samples());
+        }
+        samples.record(elapsedMillis);
+    }
+
+    /**
+     * @param urlSuffix urlSuffix
+     * @return 近期响应时间的百分位数ms, 样本不足时返回-1
+     */
+    public long getPercentileValue(String urlSuffix) {
+        if (urlSuffix == null) {
+            return -1L;
+        }
+        Samples samples = samplesMap.get(urlSuffix);
+        return samples != null ? samples.get(percentile) : -1L;
+    }
+
+    private static final class Samples {
+
+        private final AtomicLongArray values = new AtomicLongArray(SAMPLE_SIZE);
+        //样本总数(long不会溢出), 样本数 = min(index, SAMPLE_SIZE)
+        private final AtomicLong index = new AtomicLong(0);
+        private final AtomicLong nextComputeTime = new AtomicLong(0);
+        private volatile long cachedValue = -1L;
+
+        private void record(long elapsedMillis) {
+            long i = index.getAndIncrement();
+            values.set((int) (i % SAMPLE_SIZE), Math.max(elapsedMillis, 0L));
+        }
+
+        private long get(int percentile) {
+            long now = System.currentTimeMillis();
+            long next = nextComputeTime.get();
+            if (now < next || !nextComputeTime.compareAndSet(next, now + COMPUTE_INTERVAL_MILLIS)) {
+                return cachedValue;
+            }
+            int count = (int) Math.min(index.get(), SAMPLE_SIZE);
+            if (count < MIN_SAMPLES) {
+                cachedValue = -1L;
+                return -1L;
+            }
+            long[] copy = new long[count];
+            for (int i = 0 ; i < count ; i++) {
+                copy[i] = values.get(i);
+            }
+            Arrays.sort(copy);
+            cachedValue = copy[Math.min(count - 1, (int) Math.ceil(count * percentile / 100.0) - 1)];
+            return cachedValue;
+        }
+
+    }
+
+}
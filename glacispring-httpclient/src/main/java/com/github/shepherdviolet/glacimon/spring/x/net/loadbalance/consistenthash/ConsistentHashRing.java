@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.consistenthash;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * <p>负载均衡--一致性哈希环(虚拟节点)</p>
+ *
+ * <p>每个远端按URL在环上生成virtualNodes个虚拟节点, 节点位置只与URL有关(与远端的顺序无关), 因此增加/删除一个远端时,
+ * 只有约1/N的路由键会被重新映射. 本类只保存环的结构(不可变), 在设置远端时生成(非请求线程), 查找时二分定位, 无锁, 不创建对象.
+ * 定位到的远端不可用时, 由LoadBalancedHostManager沿环顺时针寻找下一个可用远端(确定性的, 相同的路由键总是落到相同的备用远端).</p>
+ *
+ * @author shepherdviolet
+ */
+public final class ConsistentHashRing {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final int virtualNodes;
+    private final long[] positions;
+    private final int[] hostIndexes;
+
+    /**
+     * @param urls 远端URL
+     * @param virtualNodes 每个远端的虚拟节点数, 大于0
+     */
+    public ConsistentHashRing(String[] urls, int virtualNodes) {
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("virtualNodes must > 0");
+        }
+        this.virtualNodes = virtualNodes;
+        int size = urls.length * virtualNodes;
+        //按位置排序, 位置相同时(概率极低)按远端下标排序, 保证结果确定
+        Node[] nodes = new Node[size];
+        for (int i = 0 ; i < urls.length ; i++) {
+            for (int j = 0 ; j < virtualNodes ; j++) {
+                nodes[i * virtualNodes + j] = new Node(hash(urls[i] + "#" + j), i);
+            }
+        }
+        Arrays.sort(nodes);
+        positions = new long[size];
+        hostIndexes = new int[size];
+        for (int i = 0 ; i < size ; i++) {
+            positions[i] = nodes[i].position;
+            hostIndexes[i] = nodes[i].hostIndex;
+        }
+    }
+
+    /**
+     * 计算路由键的哈希值(FNV-1a 64位, 再用MurmurHash3的fmix64打散)
+     *
+     * @param key 路由键
+     * @return 哈希值
+     */
+    public static long hash(String key) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= (b & 0xff);
+            hash *= FNV_PRIME;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * @param keyHash 路由键的哈希值, 见hash(String)
+     * @return 顺时针方向第一个虚拟节点的位置(环上的序号), 环为空时返回-1
+     */
+    public int locate(long keyHash) {
+        if (positions.length <= 0) {
+            return -1;
+        }
+        int index = Arrays.binarySearch(positions, keyHash);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return index < positions.length ? index : 0;
+    }
+
+    /**
+     * @param position 环上的序号
+     * @return 该虚拟节点对应的远端下标(构造时urls中的下标)
+     */
+    public int hostIndexAt(int position) {
+        return hostIndexes[position];
+    }
+
+    /**
+     * @return 虚拟节点总数
+     */
+    public int size() {
+        return positions.length;
+    }
+
+    @Override
+    public String toString() {
+        return "ConsistentHashRing{" +
+                "hosts=" + positions.length / virtualNodes +
+                ", virtualNodes=" + virtualNodes +
+                '}';
+    }
+
+    private static final class Node implements Comparable<Node> {
+
+        private final long position;
+        private final int hostIndex;
+
+        private Node(long position, int hostIndex) {
+            this.position = position;
+            this.hostIndex = hostIndex;
+        }
+
+        @Override
+        public int compareTo(Node o) {
+            int result = Long.compare(position, o.position);
+            return result != 0 ? result : Integer.compare(hostIndex, o.hostIndex);
+        }
+
+    }
+
+}
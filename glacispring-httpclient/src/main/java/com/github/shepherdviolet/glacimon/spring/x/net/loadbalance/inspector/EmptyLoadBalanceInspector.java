@@ -36,6 +36,12 @@ public class EmptyLoadBalanceInspector implements LoadBalanceInspector {
         return true;
     }
 
+    @Override
+    public void inspect(String url, Callback callback) {
+        // Do nothing
+        callback.onInspected(true);
+    }
+
     @Override
     public void setTimeout(long timeout) {
         // Do nothing
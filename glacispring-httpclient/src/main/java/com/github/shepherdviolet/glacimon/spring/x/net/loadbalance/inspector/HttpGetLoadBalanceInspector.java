@@ -23,7 +23,11 @@ import com.github.shepherdviolet.glacimon.java.misc.CloseableUtils;
 import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.LoadBalanceInspector;
 import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.GlaciHttpClient;
 import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.ssl.SslConfig;
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.ssl.SslContextRegistry;
+import okhttp3.Call;
 import okhttp3.ConnectionPool;
+import okhttp3.Dns;
+import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
@@ -41,6 +45,8 @@ import java.util.concurrent.TimeUnit;
 public class HttpGetLoadBalanceInspector implements LoadBalanceInspector {
 
     private static final int HTTP_SUCCESS = 200;
+    private static final int HTTP_REDIRECT_MIN = 300;
+    private static final int HTTP_REDIRECT_MAX = 399;
     private static final long DEFAULT_TIMEOUT = 2500L;
 
     private Logger logger = LoggerFactory.getLogger(getClass());
@@ -50,10 +56,14 @@ public class HttpGetLoadBalanceInspector implements LoadBalanceInspector {
     private volatile String urlSuffix = "";
 
     private volatile OkHttpClient okHttpClient;
+    private volatile SslContextRegistry.Lease sslContextLease;
     private volatile boolean refreshSettings = false;
     private volatile Exception clientCreateException;
     private volatile boolean closed = false;
 
+    //子类复写了createOkHttpClient时, 异步探测也使用OkHttp, 保证自定义的客户端生效
+    private final boolean customOkHttpClient = isCreateOkHttpClientOverridden();
+
     public HttpGetLoadBalanceInspector(GlaciHttpClient.Settings settings) {
         this.settings = settings;
     }
@@ -101,10 +111,99 @@ public class HttpGetLoadBalanceInspector implements LoadBalanceInspector {
         return false;
     }
 
+    /**
+     * <p>异步探测, 判定规则与inspect(url)相同: 跟随重定向, 最终响应码为200即为成功.</p>
+     *
+     * <p>HTTP请求由共享的NioInspectEngine非阻塞发送(只读取响应状态行), 响应码为3xx(重定向)时改用OkHttp异步请求跟随重定向.
+     * HTTPS请求, 配置了代理/CookieJar, 或者子类复写了createOkHttpClient时, 直接使用OkHttp异步请求.</p>
+     */
+    @Override
+    public void inspect(String url, Callback callback) {
+        if (closed) {
+            //被销毁的探测器始终返回探测成功
+            callback.onInspected(true);
+            return;
+        }
+        HttpUrl httpUrl = HttpUrl.parse(url + urlSuffix);
+        if (httpUrl == null) {
+            if (logger.isErrorEnabled()){
+                logger.error("Inspect: invalid url " + url + urlSuffix);
+            }
+            //探测的URL异常视为后端异常
+            callback.onInspected(false);
+            return;
+        }
+        if (customOkHttpClient || httpUrl.isHttps() || (settings != null && (settings.getProxy() != null || settings.getCookieJar() != null))) {
+            enqueue(httpUrl, callback);
+            return;
+        }
+        //Host请求头
+        String host = httpUrl.host();
+        String hostHeader = host.contains(":") ? "[" + host + "]" : host;
+        if (httpUrl.port() != HttpUrl.defaultPort(httpUrl.scheme())) {
+            hostHeader = hostHeader + ":" + httpUrl.port();
+        }
+        String target = httpUrl.encodedQuery() != null ? httpUrl.encodedPath() + "?" + httpUrl.encodedQuery() : httpUrl.encodedPath();
+        Dns dns = settings != null && settings.getDns() != null ? settings.getDns() : Dns.SYSTEM;
+        //与OkHttp一致: 连接超时timeout/2, 读取超时timeout
+        long timeout = this.timeout;
+        NioInspectEngine engine = NioInspectEngine.getInstance();
+        engine.httpGet(host, httpUrl.port(), dns, hostHeader, target, timeout / 2, timeout, new NioInspectEngine.HttpCallback() {
+            @Override
+            public void onResponse(int status) {
+                if (status >= HTTP_REDIRECT_MIN && status <= HTTP_REDIRECT_MAX && !closed) {
+                    //重定向交给OkHttp处理(IO线程不允许阻塞, 在工作线程中发起)
+                    engine.execute(() -> enqueue(httpUrl, callback));
+                    return;
+                }
+                //被销毁的探测器始终返回探测成功
+                callback.onInspected(status == HTTP_SUCCESS || closed);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                callback.onError(t);
+            }
+        });
+    }
+
+    private void enqueue(HttpUrl httpUrl, Callback callback) {
+        try {
+            getOkHttpClient().newCall(new Request.Builder().url(httpUrl).get().build()).enqueue(new okhttp3.Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    if (logger.isTraceEnabled()){
+                        logger.trace("Inspect: error, url " + httpUrl, e);
+                    } else if (logger.isDebugEnabled()) {
+                        logger.debug("Inspect: error, url " + httpUrl + ", error message:" + e.getMessage() + ", set level to trace for more");
+                    }
+                    callback.onInspected(closed);
+                }
+
+                @Override
+                public void onResponse(Call call, Response response) {
+                    try {
+                        callback.onInspected(response.code() == HTTP_SUCCESS || closed);
+                    } finally {
+                        CloseableUtils.closeQuiet(response);
+                    }
+                }
+            });
+        } catch (Throwable t) {
+            if (logger.isTraceEnabled()){
+                logger.trace("Inspect: error, url " + httpUrl, t);
+            } else if (logger.isDebugEnabled()) {
+                logger.debug("Inspect: error, url " + httpUrl + ", error message:" + t.getMessage() + ", set level to trace for more");
+            }
+            callback.onInspected(closed);
+        }
+    }
+
     @Override
     public synchronized void close() throws IOException {
         closed = true;
         closeClient(okHttpClient);
+        CloseableUtils.closeQuiet(sslContextLease);
     }
 
     /**
@@ -215,17 +314,24 @@ public class HttpGetLoadBalanceInspector implements LoadBalanceInspector {
             builder.dns(settings.getDns());
         }
 
-        if (settings.getSslConfigSupplier() != null){
-            SslConfig sslConfig = settings.getSslConfigSupplier().getSslConfig();
-            if (sslConfig != null && sslConfig.getSslSocketFactory() != null) {
-                if (sslConfig.getTrustManager() != null) {
-                    // 最好两个都有, 不然OkHttp3会用反射的方式清理证书链
-                    builder.sslSocketFactory(sslConfig.getSslSocketFactory(), sslConfig.getTrustManager());
-                } else {
-                    builder.sslSocketFactory(sslConfig.getSslSocketFactory());
-                }
+        // 与GlaciHttpClient共用SSLContext(TLS会话缓存), 不支持共用的SslConfigSupplier照旧处理
+        SslContextRegistry.Lease sslContextLease = SslContextRegistry.acquire(settings.getSslConfigSupplier(),
+                settings.getSslSessionCacheSize(), settings.getSslSessionTimeout());
+        SslConfig sslConfig = sslContextLease;
+        if (sslConfig == null && settings.getSslConfigSupplier() != null) {
+            sslConfig = settings.getSslConfigSupplier().getSslConfig();
+        }
+        if (sslConfig != null && sslConfig.getSslSocketFactory() != null) {
+            if (sslConfig.getTrustManager() != null) {
+                // 最好两个都有, 不然OkHttp3会用反射的方式清理证书链
+                builder.sslSocketFactory(sslConfig.getSslSocketFactory(), sslConfig.getTrustManager());
+            } else {
+                builder.sslSocketFactory(sslConfig.getSslSocketFactory());
             }
         }
+        SslContextRegistry.Lease previousLease = this.sslContextLease;
+        this.sslContextLease = sslContextLease;
+        CloseableUtils.closeQuiet(previousLease);
 
         if (settings.getHostnameVerifier() != null) {
             builder.hostnameVerifier(settings.getHostnameVerifier());
@@ -234,6 +340,17 @@ public class HttpGetLoadBalanceInspector implements LoadBalanceInspector {
         return builder.build();
     }
 
+    private boolean isCreateOkHttpClientOverridden() {
+        for (Class<?> clazz = getClass() ; clazz != HttpGetLoadBalanceInspector.class ; clazz = clazz.getSuperclass()) {
+            try {
+                clazz.getDeclaredMethod("createOkHttpClient");
+                return true;
+            } catch (NoSuchMethodException ignore) {
+            }
+        }
+        return false;
+    }
+
     private void closeClient(OkHttpClient client) {
         if (client == null) {
             return;
@@ -0,0 +1,596 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.inspector;
+
+import com.github.shepherdviolet.glacimon.java.concurrent.ThreadPoolExecutorUtils;
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.LoadBalanceInspector;
+import okhttp3.Dns;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * <p>负载均衡--共享的非阻塞探测引擎</p>
+ *
+ * <p>进程内所有LoadBalancedInspectManager共用一个实例. 一个IO线程(Selector)负责非阻塞连接(TELNET探测)和非阻塞HTTP GET探测,
+ * 同时驱动一个时间轮, 用于调度探测间隔和探测超时, 因此成千上万个远端的探测只占用一个常驻线程. 域名解析在DNS线程池中执行,
+ * 自定义探测器的阻塞探测(LoadBalanceInspector#inspect(url)的默认异步实现)在工作线程池中执行, 两个线程池都有线程数上限,
+ * 空闲60秒后释放, 一个慢的域名解析或者阻塞的探测器不会拖慢其他远端的探测. 探测超时从解析完成后开始计算.</p>
+ *
+ * <p>注意: 时间轮任务和探测回调都在IO线程中执行, 不允许阻塞.</p>
+ *
+ * @author shepherdviolet
+ */
+public final class NioInspectEngine {
+
+    private static final long TICK_MILLIS = 100L;
+    private static final int WHEEL_SIZE = 512;
+    private static final int MAX_STATUS_LINE_LENGTH = 1024;
+    private static final int DNS_THREADS = 4;
+    private static final int WORKER_THREADS = 16;
+
+    private static volatile NioInspectEngine instance;
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final Selector selector;
+    private final Thread ioThread;
+    private final Queue<Runnable> ioTasks = new ConcurrentLinkedQueue<>();
+    private final ThreadPoolExecutor dnsThreadPool = createBoundedPool(DNS_THREADS, "Glacispring-LBInspect-Dns-%s");
+    private final ThreadPoolExecutor workerThreadPool = createBoundedPool(WORKER_THREADS, "Glacispring-LBInspect-Worker-%s");
+
+    //时间轮, 仅IO线程访问
+    private final ScheduledTask[] wheel = new ScheduledTask[WHEEL_SIZE];
+    private long tickCount = 0L;
+
+    /**
+     * @return 进程内共享的探测引擎(首次调用时启动IO线程)
+     */
+    public static NioInspectEngine getInstance() {
+        NioInspectEngine engine = instance;
+        if (engine == null) {
+            synchronized (NioInspectEngine.class) {
+                engine = instance;
+                if (engine == null) {
+                    engine = new NioInspectEngine();
+                    instance = engine;
+                }
+            }
+        }
+        return engine;
+    }
+
+    private NioInspectEngine() {
+        try {
+            selector = Selector.open();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to open selector for load balance inspection", e);
+        }
+        ioThread = new Thread(this::loop, "Glacispring-LBInspect-NIO");
+        ioThread.setDaemon(true);
+        ioThread.start();
+    }
+
+    /**
+     * 延迟执行任务(在IO线程中执行, 不允许阻塞), 精度为TICK_MILLIS
+     * @param task 任务
+     * @param delayMillis 延迟ms
+     * @return 可以取消的任务
+     */
+    public ScheduledTask schedule(Runnable task, long delayMillis) {
+        ScheduledTask scheduledTask = new ScheduledTask(task, delayMillis);
+        executeInIoThread(() -> addToWheel(scheduledTask));
+        return scheduledTask;
+    }
+
+    /**
+     * 在工作线程池中执行可能阻塞的任务(例如自定义探测器的阻塞探测)
+     * @param task 任务
+     */
+    public void execute(Runnable task) {
+        workerThreadPool.execute(task);
+    }
+
+    /**
+     * <p>非阻塞TELNET探测: 依次连接域名解析出的地址, 任意一个连接成功即为成功.</p>
+     *
+     * @param host ip/域名
+     * @param port 端口
+     * @param dns 域名解析, 为空时使用InetAddress#getByName(一个地址)
+     * @param timeout 探测超时ms, 由所有地址平分
+     * @param callback 回调(IO线程)
+     */
+    public void telnet(String host, int port, Dns dns, long timeout, LoadBalanceInspector.Callback callback) {
+        resolve(host, dns, callback, addresses ->
+                new Probe(addresses, port, Math.max(timeout / addresses.size(), 1L), 0L, null, callback, null).start());
+    }
+
+    /**
+     * <p>非阻塞HTTP GET探测(HTTP/1.1, 不支持HTTPS/代理): 依次连接域名解析出的地址, 连接成功后发送请求, 读取响应状态行,
+     * 把响应码交给回调判断(不跟随重定向).</p>
+     *
+     * @param host ip/域名
+     * @param port 端口
+     * @param dns 域名解析, 为空时使用InetAddress#getByName(一个地址)
+     * @param hostHeader 请求头Host
+     * @param target 请求路径(包括参数), 例如: /health?a=1
+     * @param connectTimeout 每个地址的连接超时ms
+     * @param readTimeout 连接成功后, 发送请求并读取响应状态行的超时ms
+     * @param callback 回调(IO线程)
+     */
+    public void httpGet(String host, int port, Dns dns, String hostHeader, String target, long connectTimeout, long readTimeout,
+                        HttpCallback callback) {
+        byte[] request = ("GET " + target + " HTTP/1.1\r\n" +
+                "Host: " + hostHeader + "\r\n" +
+                "Accept: */*\r\n" +
+                "User-Agent: Glacispring-Inspector\r\n" +
+                "Connection: close\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1);
+        //域名解析失败时, 视为没有响应
+        LoadBalanceInspector.Callback resolveCallback = new LoadBalanceInspector.Callback() {
+            @Override
+            public void onInspected(boolean available) {
+                callback.onResponse(-1);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                callback.onError(t);
+            }
+        };
+        resolve(host, dns, resolveCallback, addresses ->
+                new Probe(addresses, port, Math.max(connectTimeout, 1L), Math.max(readTimeout, 1L), request, null, callback).start());
+    }
+
+    static boolean isIpAddress(String host) {
+        return host.matches("^(\\d{1,3}\\.){3}\\d{1,3}$") || // IPv4
+                host.matches("^\\[[0-9a-fA-F:]+\\]$") ||      // Ipv6 (RFC 2732)
+                host.matches("^[0-9a-fA-F:]+$");              // Ipv6 (raw, no brackets)
+    }
+
+    private static ThreadPoolExecutor createBoundedPool(int threads, String threadNameFormat) {
+        ThreadPoolExecutor executor = ThreadPoolExecutorUtils.create(threads, threads, 60, threadNameFormat,
+                new LinkedBlockingQueue<Runnable>(), null, null);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * 域名解析, IP地址直接转换, 域名在DNS线程池中解析, 解析完毕后在IO线程中开始探测
+     */
+    private void resolve(String host, Dns dns, LoadBalanceInspector.Callback callback, AddressesConsumer consumer) {
+        if (isIpAddress(host)) {
+            List<InetAddress> addresses;
+            try {
+                //IP地址不会触发域名解析
+                addresses = Collections.singletonList(InetAddress.getByName(host));
+            } catch (UnknownHostException e) {
+                if (logger.isErrorEnabled()) {
+                    logger.error("Inspect: Invalid ip address " + host, e);
+                }
+                callback.onInspected(false);
+                return;
+            }
+            executeInIoThread(() -> consumer.accept(addresses));
+            return;
+        }
+        dnsThreadPool.execute(() -> {
+            List<InetAddress> addresses;
+            try {
+                addresses = dns != null ? dns.lookup(host) : Collections.singletonList(InetAddress.getByName(host));
+            } catch (UnknownHostException e) {
+                if (logger.isTraceEnabled()) {
+                    logger.trace("Inspect: DNS resolve failed for host " + host, e);
+                }
+                callback.onInspected(false);
+                return;
+            } catch (Throwable t) {
+                callback.onError(t);
+                return;
+            }
+            if (addresses == null || addresses.isEmpty()) {
+                if (logger.isTraceEnabled()) {
+                    logger.trace("Inspect: DNS resolved no IPs for host " + host);
+                }
+                callback.onInspected(false);
+                return;
+            }
+            executeInIoThread(() -> consumer.accept(addresses));
+        });
+    }
+
+    private void executeInIoThread(Runnable task) {
+        ioTasks.add(task);
+        if (Thread.currentThread() != ioThread) {
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * IO线程: select -> 处理IO事件 -> 执行提交的任务 -> 推进时间轮
+     */
+    private void loop() {
+        long nextTickTime = currentTimeMillis() + TICK_MILLIS;
+        while (true) {
+            try {
+                long wait = nextTickTime - currentTimeMillis();
+                if (wait > 0 && ioTasks.isEmpty()) {
+                    selector.select(wait);
+                } else {
+                    selector.selectNow();
+                }
+                processSelectedKeys();
+                Runnable task;
+                while ((task = ioTasks.poll()) != null) {
+                    runQuietly(task);
+                }
+                long now = currentTimeMillis();
+                while (now >= nextTickTime) {
+                    expireTimeouts();
+                    nextTickTime += TICK_MILLIS;
+                }
+            } catch (Throwable t) {
+                if (logger.isErrorEnabled()) {
+                    logger.error("Inspect: Un-captured error in NIO inspect engine", t);
+                }
+            }
+        }
+    }
+
+    private void processSelectedKeys() {
+        Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+        while (iterator.hasNext()) {
+            SelectionKey key = iterator.next();
+            iterator.remove();
+            if (key.isValid()) {
+                ((Probe) key.attachment()).onSelected(key);
+            }
+        }
+    }
+
+    private void addToWheel(ScheduledTask task) {
+        if (task.cancelled) {
+            return;
+        }
+        task.deadlineTick = tickCount + Math.max((task.delayMillis + TICK_MILLIS - 1) / TICK_MILLIS, 1L);
+        int index = (int) (task.deadlineTick % WHEEL_SIZE);
+        task.next = wheel[index];
+        wheel[index] = task;
+    }
+
+    private void expireTimeouts() {
+        tickCount++;
+        int index = (int) (tickCount % WHEEL_SIZE);
+        ScheduledTask task = wheel[index];
+        ScheduledTask previous = null;
+        ScheduledTask expired = null;
+        while (task != null) {
+            ScheduledTask next = task.next;
+            if (task.cancelled || task.deadlineTick <= tickCount) {
+                //移出槽位
+                if (previous == null) {
+                    wheel[index] = next;
+                } else {
+                    previous.next = next;
+                }
+                if (!task.cancelled) {
+                    task.next = expired;
+                    expired = task;
+                }
+            } else {
+                //还没到时间(下一轮)
+                previous = task;
+            }
+            task = next;
+        }
+        //槽位处理完毕后再执行, 任务中可能会添加新的任务
+        while (expired != null) {
+            ScheduledTask next = expired.next;
+            expired.next = null;
+            if (!expired.cancelled) {
+                runQuietly(expired.task);
+            }
+            expired = next;
+        }
+    }
+
+    private void runQuietly(Runnable task) {
+        try {
+            task.run();
+        } catch (Throwable t) {
+            if (logger.isErrorEnabled()) {
+                logger.error("Inspect: Un-captured error in NIO inspect engine task", t);
+            }
+        }
+    }
+
+    private static long currentTimeMillis() {
+        return System.nanoTime() / 1000000L;
+    }
+
+    /**
+     * 时间轮中的任务
+     */
+    public static final class ScheduledTask {
+
+        private final Runnable task;
+        private final long delayMillis;
+        private volatile boolean cancelled = false;
+        private long deadlineTick;
+        private ScheduledTask next;
+
+        private ScheduledTask(Runnable task, long delayMillis) {
+            this.task = task;
+            this.delayMillis = delayMillis;
+        }
+
+        /**
+         * 取消任务(已经开始执行的无法取消)
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+    }
+
+    /**
+     * HTTP GET探测回调(IO线程, 不允许阻塞)
+     */
+    public interface HttpCallback {
+
+        /**
+         * @param status 响应码, 连接失败/超时/响应异常时为-1
+         */
+        void onResponse(int status);
+
+        /**
+         * 域名解析抛出异常
+         * @param t 异常
+         */
+        void onError(Throwable t);
+
+    }
+
+    private interface AddressesConsumer {
+        void accept(List<InetAddress> addresses);
+    }
+
+    /**
+     * 一次探测(仅IO线程访问): 依次连接地址, 连接成功后(如果是HTTP GET)写入请求, 读取响应状态行
+     */
+    private final class Probe {
+
+        private final List<InetAddress> addresses;
+        private final int port;
+        private final long connectTimeout;
+        private final long readTimeout;
+        private final ByteBuffer request;
+        private final LoadBalanceInspector.Callback callback;
+        private final HttpCallback httpCallback;
+
+        private int addressIndex = 0;
+        private int status = -1;
+        private boolean connecting = true;
+        private boolean finished = false;
+        private SocketChannel channel;
+        private ScheduledTask timeoutTask;
+        private ByteBuffer response;
+
+        private Probe(List<InetAddress> addresses, int port, long connectTimeout, long readTimeout, byte[] request,
+                      LoadBalanceInspector.Callback callback, HttpCallback httpCallback) {
+            this.addresses = addresses;
+            this.port = port;
+            this.connectTimeout = connectTimeout;
+            this.readTimeout = readTimeout;
+            this.request = request != null ? ByteBuffer.wrap(request) : null;
+            this.callback = callback;
+            this.httpCallback = httpCallback;
+        }
+
+        private void start() {
+            connectNext();
+        }
+
+        private void connectNext() {
+            closeChannel();
+            if (addressIndex >= addresses.size()) {
+                if (logger.isTraceEnabled()) {
+                    logger.trace("Inspect: Port " + port + " is not available on " + addresses + ", after " + addressIndex + " attempts.");
+                }
+                finish(false);
+                return;
+            }
+            InetAddress address = addresses.get(addressIndex++);
+            try {
+                channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                timeoutTask = new ScheduledTask(this::onTimeout, connectTimeout);
+                addToWheel(timeoutTask);
+                if (channel.connect(new InetSocketAddress(address, port))) {
+                    onConnected(null);
+                } else {
+                    channel.register(selector, SelectionKey.OP_CONNECT, this);
+                }
+            } catch (Throwable t) {
+                if (logger.isTraceEnabled()) {
+                    logger.trace("Inspect: Connect failed, address " + address + ", port " + port, t);
+                }
+                connectNext();
+            }
+        }
+
+        private void onSelected(SelectionKey key) {
+            try {
+                if (key.isConnectable()) {
+                    if (channel.finishConnect()) {
+                        onConnected(key);
+                    }
+                    return;
+                }
+                if (key.isWritable()) {
+                    channel.write(request);
+                    if (!request.hasRemaining()) {
+                        key.interestOps(SelectionKey.OP_READ);
+                    }
+                    return;
+                }
+                if (key.isReadable()) {
+                    if (channel.read(response) < 0) {
+                        finish(false);
+                        return;
+                    }
+                    int status = parseStatusCode();
+                    if (status != 0) {
+                        if (logger.isTraceEnabled()) {
+                            logger.trace("Inspect: HTTP GET status " + status + ", address " + channel.getRemoteAddress());
+                        }
+                        this.status = status;
+                        finish(status > 0);
+                    } else if (!response.hasRemaining()) {
+                        //状态行过长
+                        finish(false);
+                    }
+                }
+            } catch (Throwable t) {
+                if (logger.isTraceEnabled()) {
+                    logger.trace("Inspect: IO error, addresses " + addresses + ", port " + port, t);
+                }
+                if (connecting) {
+                    connectNext();
+                } else {
+                    finish(false);
+                }
+            }
+        }
+
+        private void onConnected(SelectionKey key) throws IOException {
+            connecting = false;
+            timeoutTask.cancel();
+            //TELNET探测: 连接成功即可
+            if (request == null) {
+                finish(true);
+                return;
+            }
+            //HTTP GET探测
+            response = ByteBuffer.allocate(MAX_STATUS_LINE_LENGTH);
+            timeoutTask = new ScheduledTask(this::onTimeout, readTimeout);
+            addToWheel(timeoutTask);
+            if (key == null) {
+                channel.register(selector, SelectionKey.OP_WRITE, this);
+            } else {
+                key.interestOps(SelectionKey.OP_WRITE);
+            }
+        }
+
+        private void onTimeout() {
+            if (finished) {
+                return;
+            }
+            if (logger.isTraceEnabled()) {
+                logger.trace("Inspect: Timeout (" + (connecting ? "connect" : "read") + "), addresses " + addresses + ", port " + port);
+            }
+            if (connecting) {
+                connectNext();
+            } else {
+                finish(false);
+            }
+        }
+
+        /**
+         * @return 响应码, 0表示状态行未读取完毕
+         */
+        private int parseStatusCode() {
+            int end = -1;
+            for (int i = 0 ; i < response.position() ; i++) {
+                if (response.get(i) == '\n') {
+                    end = i;
+                    break;
+                }
+            }
+            if (end < 0) {
+                return 0;
+            }
+            //HTTP/1.1 200 OK
+            String statusLine = new String(response.array(), 0, end, StandardCharsets.ISO_8859_1).trim();
+            String[] parts = statusLine.split(" ");
+            if (parts.length < 2 || !parts[0].startsWith("HTTP/")) {
+                return -1;
+            }
+            try {
+                return Integer.parseInt(parts[1]);
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+
+        private void finish(boolean available) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (timeoutTask != null) {
+                timeoutTask.cancel();
+            }
+            closeChannel();
+            try {
+                if (httpCallback != null) {
+                    httpCallback.onResponse(available ? status : -1);
+                } else {
+                    callback.onInspected(available);
+                }
+            } catch (Throwable t) {
+                if (logger.isErrorEnabled()) {
+                    logger.error("Inspect: Un-captured error in inspect callback", t);
+                }
+            }
+        }
+
+        private void closeChannel() {
+            if (timeoutTask != null) {
+                timeoutTask.cancel();
+            }
+            if (channel != null) {
+                try {
+                    //关闭时自动取消SelectionKey
+                    channel.close();
+                } catch (Throwable ignore) {
+                }
+                channel = null;
+            }
+        }
+
+    }
+
+}
@@ -28,6 +28,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.URI;
 import java.net.UnknownHostException;
 import java.util.List;
@@ -55,21 +56,15 @@ public class TelnetLoadBalanceInspector implements LoadBalanceInspector {
     public boolean inspect(String url) {
         try {
             //解析url
-            URI uri = URI.create(url);
-            if (uri.getScheme() == null || uri.getHost() == null) {
-                throw new IllegalArgumentException("scheme or host is missing");
-            }
+            InetSocketAddress unresolved = parseUrl(url);
             //ip/域名
-            String host = uri.getHost();
+            String host = unresolved.getHostString();
             //端口
-            int port = uri.getPort();
-            if (port < 0) {
-                port = HTTPS_SCHEME.equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
-            }
+            int port = unresolved.getPort();
             // 判断是否是域名，如果是则用 Dns 解析
             Dns dns = getDns();
             boolean isTraceEnabled = logger.isTraceEnabled();
-            if (dns != null && !isIpAddress(host)) {
+            if (dns != null && !NioInspectEngine.isIpAddress(host)) {
                 try {
                     List<InetAddress> addresses = dns.lookup(host);
                     if (addresses.isEmpty()) {
@@ -110,6 +105,39 @@ public class TelnetLoadBalanceInspector implements LoadBalanceInspector {
         return false;
     }
 
+    /**
+     * 非阻塞探测(共享的NioInspectEngine), 超时和域名解析规则与inspect(url)相同
+     */
+    @Override
+    public void inspect(String url, Callback callback) {
+        InetSocketAddress address;
+        try {
+            address = parseUrl(url);
+        } catch (Exception e) {
+            if (logger.isErrorEnabled()) {
+                logger.error("Inspect: Invalid url " + url, e);
+            }
+            callback.onInspected(false);
+            return;
+        }
+        NioInspectEngine.getInstance().telnet(address.getHostString(), address.getPort(), getDns(), timeout, callback);
+    }
+
+    /**
+     * @return 未解析的地址(ip/域名 + 端口)
+     */
+    private InetSocketAddress parseUrl(String url) {
+        URI uri = URI.create(url);
+        if (uri.getScheme() == null || uri.getHost() == null) {
+            throw new IllegalArgumentException("scheme or host is missing");
+        }
+        int port = uri.getPort();
+        if (port < 0) {
+            port = HTTPS_SCHEME.equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+        }
+        return InetSocketAddress.createUnresolved(uri.getHost(), port);
+    }
+
     protected Dns getDns() {
         if (settings == null) {
             return null;
@@ -117,12 +145,6 @@ public class TelnetLoadBalanceInspector implements LoadBalanceInspector {
         return settings.getDns();
     }
 
-    private boolean isIpAddress(String host) {
-        return host.matches("^(\\d{1,3}\\.){3}\\d{1,3}$") || // IPv4
-                host.matches("^\\[[0-9a-fA-F:]+\\]$") ||      // Ipv6 (RFC 2732)
-                host.matches("^[0-9a-fA-F:]+$");              // Ipv6 (raw, no brackets)
-    }
-
     @Override
     public void setTimeout(long timeout) {
         this.timeout = timeout;
@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.limiter;
+
+/**
+ * <p>自适应并发限制: AIMD (加性增, 乘性减)</p>
+ *
+ * <p>请求失败或耗时超过timeoutMillis时, 并发上限乘以backoffRatio; 请求成功且并发使用率超过一半时, 并发上限加一.
+ * 使用率低时不增加上限, 避免空闲时上限无限膨胀.</p>
+ *
+ * @author shepherdviolet
+ */
+public class AimdConcurrencyLimiter extends ConcurrencyLimiter {
+
+    private final double backoffRatio;
+    private final long timeoutNanos;
+
+    public AimdConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio, long timeoutMillis) {
+        super(initialLimit, minLimit, maxLimit);
+        this.backoffRatio = backoffRatio;
+        this.timeoutNanos = timeoutMillis * 1000000L;
+    }
+
+    @Override
+    public void onSample(long rttNanos, int inFlight, boolean isOk) {
+        int current;
+        int next;
+        do {
+            current = limit.get();
+            if (!isOk || rttNanos > timeoutNanos) {
+                next = clamp((int) (current * backoffRatio));
+            } else if (inFlight * 2 >= current) {
+                next = clamp(current + 1);
+            } else {
+                return;
+            }
+            if (next == current) {
+                return;
+            }
+        } while (!limit.compareAndSet(current, next));
+    }
+
+    @Override
+    public String toString() {
+        return "aimd(limit=" + limit.get() + ")";
+    }
+
+}
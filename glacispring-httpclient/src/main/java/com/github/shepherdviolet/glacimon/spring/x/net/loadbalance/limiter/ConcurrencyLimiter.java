@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.limiter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>负载均衡--单个远端的自适应并发限制(算法部分)</p>
+ *
+ * <p>每个远端一个实例. 未完成请求数(in-flight)由LoadBalancedHostManager.Host维护, 本类只负责根据请求结果(RTT/成功失败)
+ * 调整并发上限. onSample在feedback中调用(请求线程/OkHttp回调线程), 实现类必须线程安全且无锁.</p>
+ *
+ * @see ConcurrencyLimiterFactory
+ * @author shepherdviolet
+ */
+public abstract class ConcurrencyLimiter {
+
+    protected final int minLimit;
+    protected final int maxLimit;
+    protected final AtomicInteger limit;
+
+    protected ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = new AtomicInteger(clamp(initialLimit));
+    }
+
+    /**
+     * @return 当前并发上限
+     */
+    public int getLimit() {
+        return limit.get();
+    }
+
+    /**
+     * 请求结束, 反馈样本
+     *
+     * @param rttNanos 请求耗时, ns
+     * @param inFlight 请求结束时的未完成请求数(包含本请求)
+     * @param isOk true:成功 false:失败(网络异常/需要阻断的HTTP返回码等)
+     */
+    public abstract void onSample(long rttNanos, int inFlight, boolean isOk);
+
+    protected int clamp(int value) {
+        return Math.max(minLimit, Math.min(maxLimit, value));
+    }
+
+}
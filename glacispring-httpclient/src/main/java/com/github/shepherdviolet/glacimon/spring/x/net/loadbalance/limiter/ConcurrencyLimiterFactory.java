@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.limiter;
+
+import com.github.shepherdviolet.glacimon.java.conversion.SimpleKeyValueEncoder;
+import com.github.shepherdviolet.glacimon.java.misc.CheckUtils;
+
+import java.util.Map;
+
+/**
+ * <p>负载均衡--自适应并发限制配置, 为每个远端创建ConcurrencyLimiter</p>
+ *
+ * <p>参数采用SimpleKeyValueEncoder格式, 详见: https://github.com/shepherdviolet/glacimon/blob/master/docs/kvencoder/guide.md</p>
+ * <p></p>
+ * <p>参数说明:</p>
+ * <p>algorithm: 算法, 必输; aimd: 加性增乘性减, gradient: 梯度算法(以最小RTT为基准, RTT上涨时收缩)</p>
+ * <p>initialLimit: 初始并发上限, 可选, 默认20</p>
+ * <p>minLimit: 最小并发上限, 可选, 默认1</p>
+ * <p>maxLimit: 最大并发上限, 可选, 默认200</p>
+ * <p>backoffRatio: 请求失败(或超时)时上限的缩小比例, 可选, 默认0.9</p>
+ * <p>timeoutMillis: (aimd) 请求耗时超过该值视为过载, 可选, 默认5000</p>
+ * <p>tolerance: (gradient) RTT容忍倍数, RTT小于 minRtt * tolerance 时不收缩, 可选, 默认1.5</p>
+ * <p>minRttWindowMillis: (gradient) 最小RTT的滚动窗口, 可选, 默认30000</p>
+ * <p></p>
+ * <p>示例: algorithm=aimd,initialLimit=20,maxLimit=200</p>
+ * <p>示例: algorithm=gradient,initialLimit=20,maxLimit=500,tolerance=2</p>
+ *
+ * @author shepherdviolet
+ */
+public class ConcurrencyLimiterFactory {
+
+    public static final String ALGORITHM_AIMD = "aimd";
+    public static final String ALGORITHM_GRADIENT = "gradient";
+
+    private final String description;
+    private final String algorithm;
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long timeoutMillis;
+    private final double tolerance;
+    private final long minRttWindowMillis;
+
+    /**
+     * @param description 配置, 格式见类注释
+     * @throws IllegalArgumentException 配置错误
+     */
+    public ConcurrencyLimiterFactory(String description) {
+        this.description = description;
+        Map<String, String> params;
+        try {
+            params = SimpleKeyValueEncoder.decode(description);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid concurrency limit description '" + description + "'", e);
+        }
+        this.algorithm = parseStringOrThrow(params, "algorithm").trim();
+        if (!ALGORITHM_AIMD.equals(algorithm) && !ALGORITHM_GRADIENT.equals(algorithm)) {
+            throw new IllegalArgumentException("Invalid concurrency limit algorithm '" + algorithm + "', supported: aimd, gradient");
+        }
+        this.minLimit = (int) parseLongOrDefault(params, "minLimit", 1, 1);
+        this.maxLimit = (int) parseLongOrDefault(params, "maxLimit", 200, minLimit);
+        this.initialLimit = (int) Math.min(parseLongOrDefault(params, "initialLimit", 20, minLimit), maxLimit);
+        this.backoffRatio = parseDoubleOrDefault(params, "backoffRatio", 0.9, 0.1, 1.0);
+        this.timeoutMillis = parseLongOrDefault(params, "timeoutMillis", 5000, 1);
+        this.tolerance = parseDoubleOrDefault(params, "tolerance", 1.5, 1.0, 100.0);
+        this.minRttWindowMillis = parseLongOrDefault(params, "minRttWindowMillis", 30000, 1000);
+        if (!params.isEmpty()) {
+            throw new IllegalArgumentException("Unknown concurrency limit parameters: " + params.keySet());
+        }
+    }
+
+    /**
+     * @return 为一个远端创建新的ConcurrencyLimiter
+     */
+    public ConcurrencyLimiter newLimiter() {
+        if (ALGORITHM_GRADIENT.equals(algorithm)) {
+            return new GradientConcurrencyLimiter(initialLimit, minLimit, maxLimit, tolerance, backoffRatio, minRttWindowMillis);
+        }
+        return new AimdConcurrencyLimiter(initialLimit, minLimit, maxLimit, backoffRatio, timeoutMillis);
+    }
+
+    private String parseStringOrThrow(Map<String, String> params, String key) {
+        String value = params.remove(key);
+        if (CheckUtils.isEmptyOrBlank(value)) {
+            throw new IllegalArgumentException("Missing required parameter '" + key + "' in concurrency limit description");
+        }
+        return value;
+    }
+
+    private long parseLongOrDefault(Map<String, String> params, String key, long defaultValue, long minValue) {
+        String value = params.remove(key);
+        if (CheckUtils.isEmptyOrBlank(value)) {
+            return Math.max(defaultValue, minValue);
+        }
+        try {
+            return Math.max(Long.parseLong(value.trim()), minValue);
+        } catch (Throwable t) {
+            throw new IllegalArgumentException("Illegal parameter '" + key + "' in concurrency limit description", t);
+        }
+    }
+
+    private double parseDoubleOrDefault(Map<String, String> params, String key, double defaultValue, double minValue, double maxValue) {
+        String value = params.remove(key);
+        if (CheckUtils.isEmptyOrBlank(value)) {
+            return defaultValue;
+        }
+        try {
+            return Math.max(minValue, Math.min(maxValue, Double.parseDouble(value.trim())));
+        } catch (Throwable t) {
+            throw new IllegalArgumentException("Illegal parameter '" + key + "' in concurrency limit description", t);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.limiter;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <p>自适应并发限制: 梯度算法 (Vegas/Gradient)</p>
+ *
+ * <p>以滚动窗口内的最小RTT作为"无排队RTT", 与近期RTT(EWMA)比较:</p>
+ * <p>gradient = clamp(minRtt * tolerance / rtt, 0.5, 1.0)</p>
+ * <p>newLimit = limit * gradient + sqrt(limit)</p>
+ * <p>RTT开始上涨(后端开始排队)时上限随之收缩, RTT接近最小值时上限以sqrt(limit)的速度增长. 请求失败时上限乘以backoffRatio.</p>
+ *
+ * <p>最小RTT按窗口滚动(取当前窗口和上一个窗口的较小值), 避免后端扩容/网络变化后永远停留在历史最小值.
+ * 样本更新为无锁的"抢到才更新", 并发时丢弃部分样本, 不影响结果.</p>
+ *
+ * @author shepherdviolet
+ */
+public class GradientConcurrencyLimiter extends ConcurrencyLimiter {
+
+    //RTT EWMA平滑系数 1/2^RTT_SHIFT
+    private static final int RTT_SHIFT = 3;
+    //新上限平滑系数
+    private static final double SMOOTHING = 0.2;
+
+    private final double tolerance;
+    private final double backoffRatio;
+    private final long minRttWindowNanos;
+
+    private final AtomicBoolean updating = new AtomicBoolean(false);
+    private long rttEwma = 0;
+    private long currentWindowMinRtt = Long.MAX_VALUE;
+    private long previousWindowMinRtt = Long.MAX_VALUE;
+    private long windowStart = System.nanoTime();
+    private double estimatedLimit;
+
+    public GradientConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance, double backoffRatio, long minRttWindowMillis) {
+        super(initialLimit, minLimit, maxLimit);
+        this.tolerance = tolerance;
+        this.backoffRatio = backoffRatio;
+        this.minRttWindowNanos = minRttWindowMillis * 1000000L;
+        this.estimatedLimit = limit.get();
+    }
+
+    @Override
+    public void onSample(long rttNanos, int inFlight, boolean isOk) {
+        if (!updating.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            if (!isOk) {
+                estimatedLimit = clamp((int) (estimatedLimit * backoffRatio));
+                limit.set((int) estimatedLimit);
+                return;
+            }
+            if (rttNanos <= 0) {
+                return;
+            }
+
+            //滚动最小RTT
+            long now = System.nanoTime();
+            if (now - windowStart > minRttWindowNanos) {
+                previousWindowMinRtt = currentWindowMinRtt;
+                currentWindowMinRtt = Long.MAX_VALUE;
+                windowStart = now;
+            }
+            if (rttNanos < currentWindowMinRtt) {
+                currentWindowMinRtt = rttNanos;
+            }
+            long minRtt = Math.min(currentWindowMinRtt, previousWindowMinRtt);
+
+            //近期RTT
+            rttEwma = rttEwma <= 0 ? rttNanos : rttEwma + ((rttNanos - rttEwma) >> RTT_SHIFT);
+
+            //使用率低时RTT不能反映排队情况, 不增加上限
+            double current = estimatedLimit;
+            if (inFlight * 2 < current) {
+                return;
+            }
+
+            double gradient = Math.max(0.5, Math.min(1.0, tolerance * minRtt / rttEwma));
+            double newLimit = current * gradient + Math.sqrt(current);
+            newLimit = current * (1 - SMOOTHING) + newLimit * SMOOTHING;
+            estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+            limit.set((int) estimatedLimit);
+        } finally {
+            updating.set(false);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "gradient(limit=" + limit.get() + ")";
+    }
+
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.outlier;
+
+import com.github.shepherdviolet.glacimon.java.conversion.SimpleKeyValueEncoder;
+import com.github.shepherdviolet.glacimon.java.misc.CheckUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>负载均衡--离群检测(按滑动窗口的失败率/平均耗时, 与所有远端的中位数比较, 驱逐明显偏离的远端)</p>
+ *
+ * <p>开启后, 请求失败不再立即阻断远端(恢复期内的失败除外), 而是记录到远端的滑动窗口中, 定期检测, 偏离中位数超过指定倍数的远端
+ * 被阻断ejectionDuration, 之后进入恢复期(与原有的阻断/恢复期机制相同, 主动探测照常工作). 被阻断的远端数不超过maxEjectionPercent.
+ * 离群检测无法覆盖的情况仍然立即阻断: 连接失败(ConnectException等), 参与检测的远端数不足minHosts, 该远端窗口内请求数不足minRequests.</p>
+ *
+ * <p>参数采用SimpleKeyValueEncoder格式, 详见: https://github.com/shepherdviolet/glacimon/blob/master/docs/kvencoder/guide.md</p>
+ * <p></p>
+ * <p>参数说明:</p>
+ * <p>windowMillis: 滑动窗口时长, 可选, 默认10000</p>
+ * <p>intervalMillis: 检测间隔, 可选, 默认1000</p>
+ * <p>minRequests: 窗口内请求数不少于该值的远端才参与检测, 可选, 默认20</p>
+ * <p>minHosts: 参与检测的远端不少于该值才进行检测, 可选, 默认3</p>
+ * <p>errorRateFactor: 失败率 >= 中位数 * errorRateFactor 时视为离群, 可选, 默认2</p>
+ * <p>minErrorRate: 失败率低于该值时不驱逐, 可选, 默认0.2</p>
+ * <p>latencyFactor: 平均耗时 >= 中位数 * latencyFactor 时视为离群, 0表示不按耗时检测, 可选, 默认3</p>
+ * <p>minLatencyMillis: 平均耗时低于该值时不驱逐, 可选, 默认100</p>
+ * <p>maxEjectionPercent: 同时被阻断的远端(包括其他原因阻断的)最多占比(%), 至少允许驱逐一个, 0表示不驱逐, 可选, 默认50</p>
+ * <p>ejectionDuration: 驱逐(阻断)时长ms, 可选, 默认30000</p>
+ * <p>recoveryCoefficient: 驱逐后的恢复期系数, 恢复期时长 = ejectionDuration * recoveryCoefficient, 1表示无恢复期, 可选, 默认2</p>
+ * <p></p>
+ * <p>示例: minRequests=20,errorRateFactor=2,latencyFactor=3,maxEjectionPercent=50,ejectionDuration=30000</p>
+ *
+ * @author shepherdviolet
+ */
+public class OutlierDetector {
+
+    private final String description;
+    private final long windowMillis;
+    private final long intervalMillis;
+    private final long minRequests;
+    private final int minHosts;
+    private final double errorRateFactor;
+    private final double minErrorRate;
+    private final double latencyFactor;
+    private final long minLatencyMillis;
+    private final int maxEjectionPercent;
+    private final long ejectionDuration;
+    private final int recoveryCoefficient;
+
+    /**
+     * @param description 配置, 格式见类注释
+     * @throws IllegalArgumentException 配置错误
+     */
+    public OutlierDetector(String description) {
+        this.description = description;
+        Map<String, String> params;
+        try {
+            params = SimpleKeyValueEncoder.decode(description);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid outlier detection description '" + description + "'", e);
+        }
+        this.windowMillis = parseLongOrDefault(params, "windowMillis", 10000, 100);
+        this.intervalMillis = parseLongOrDefault(params, "intervalMillis", 1000, 100);
+        this.minRequests = parseLongOrDefault(params, "minRequests", 20, 1);
+        this.minHosts = (int) parseLongOrDefault(params, "minHosts", 3, 2);
+        this.errorRateFactor = parseDoubleOrDefault(params, "errorRateFactor", 2.0, 1.0, 1000.0);
+        this.minErrorRate = parseDoubleOrDefault(params, "minErrorRate", 0.2, 0.0, 1.0);
+        this.latencyFactor = parseDoubleOrDefault(params, "latencyFactor", 3.0, 0.0, 1000.0);
+        this.minLatencyMillis = parseLongOrDefault(params, "minLatencyMillis", 100, 0);
+        this.maxEjectionPercent = (int) Math.min(parseLongOrDefault(params, "maxEjectionPercent", 50, 0), 100);
+        this.ejectionDuration = parseLongOrDefault(params, "ejectionDuration", 30000, 1);
+        this.recoveryCoefficient = (int) parseLongOrDefault(params, "recoveryCoefficient", 2, 1);
+        if (!params.isEmpty()) {
+            throw new IllegalArgumentException("Unknown outlier detection parameters: " + params.keySet());
+        }
+    }
+
+    /**
+     * @return 为一个远端创建新的滑动窗口
+     */
+    public OutlierWindow newWindow() {
+        return new OutlierWindow(windowMillis);
+    }
+
+    /**
+     * 检测离群的远端
+     *
+     * @param snapshots 各远端的窗口统计
+     * @param blocked 各远端当前是否被阻断(下标与snapshots一致)
+     * @return 需要驱逐的远端下标(最严重的在前), 没有时返回空
+     */
+    public List<Integer> detect(OutlierWindow.Snapshot[] snapshots, boolean[] blocked) {
+        int total = snapshots.length;
+        int blockedCount = 0;
+        for (boolean b : blocked) {
+            if (b) {
+                blockedCount++;
+            }
+        }
+        //最多可驱逐的数量
+        int maxEjection = maxEjectionPercent <= 0 ? 0 : Math.max(1, total * maxEjectionPercent / 100);
+        int available = maxEjection - blockedCount;
+        if (available <= 0) {
+            return new ArrayList<>(0);
+        }
+
+        //参与检测的远端
+        List<Integer> candidates = getCandidates(snapshots, blocked);
+        if (candidates.size() < minHosts) {
+            return new ArrayList<>(0);
+        }
+
+        //中位数
+        double medianErrorRate = median(candidates, snapshots, false);
+        double medianLatency = median(candidates, snapshots, true);
+        double errorRateThreshold = Math.max(minErrorRate, medianErrorRate * errorRateFactor);
+        double latencyThreshold = medianLatency >= 0 ? Math.max(minLatencyMillis, medianLatency * latencyFactor) : -1D;
+
+        //偏离程度(倍数), 大于等于1为离群
+        List<double[]> outliers = new ArrayList<>();
+        for (int index : candidates) {
+            OutlierWindow.Snapshot snapshot = snapshots[index];
+            double severity = 0D;
+            if (snapshot.getErrors() > 0 && snapshot.getErrorRate() >= errorRateThreshold) {
+                severity = snapshot.getErrorRate() / errorRateThreshold;
+            }
+            if (latencyFactor > 0D && latencyThreshold > 0D && snapshot.getMeanLatencyMillis() >= latencyThreshold) {
+                severity = Math.max(severity, snapshot.getMeanLatencyMillis() / latencyThreshold);
+            }
+            if (severity >= 1D) {
+                outliers.add(new double[]{index, severity});
+            }
+        }
+        outliers.sort((a, b) -> Double.compare(b[1], a[1]));
+
+        List<Integer> result = new ArrayList<>(Math.min(available, outliers.size()));
+        for (int i = 0 ; i < outliers.size() && i < available ; i++) {
+            result.add((int) outliers.get(i)[0]);
+        }
+        return result;
+    }
+
+    /**
+     * 离群检测是否能覆盖该远端: 参与检测的远端数不少于minHosts(见isEffective), 且该远端窗口内的请求数不少于minRequests.
+     * 不能覆盖时, 请求失败应立即阻断远端.
+     *
+     * @param snapshot 该远端的窗口统计
+     * @return true: 能覆盖
+     */
+    public boolean isCovered(OutlierWindow.Snapshot snapshot) {
+        return maxEjectionPercent > 0 && snapshot.getRequests() >= minRequests;
+    }
+
+    /**
+     * @param snapshots 各远端的窗口统计
+     * @param blocked 各远端当前是否被阻断(下标与snapshots一致)
+     * @return true: 参与检测的远端数不少于minHosts, 离群检测生效
+     */
+    public boolean isEffective(OutlierWindow.Snapshot[] snapshots, boolean[] blocked) {
+        return maxEjectionPercent > 0 && getCandidates(snapshots, blocked).size() >= minHosts;
+    }
+
+    private List<Integer> getCandidates(OutlierWindow.Snapshot[] snapshots, boolean[] blocked) {
+        List<Integer> candidates = new ArrayList<>(snapshots.length);
+        for (int i = 0 ; i < snapshots.length ; i++) {
+            if (!blocked[i] && snapshots[i].getRequests() >= minRequests) {
+                candidates.add(i);
+            }
+        }
+        return candidates;
+    }
+
+    private double median(List<Integer> candidates, OutlierWindow.Snapshot[] snapshots, boolean latency) {
+        double[] values = new double[candidates.size()];
+        int count = 0;
+        for (int index : candidates) {
+            double value = latency ? snapshots[index].getMeanLatencyMillis() : snapshots[index].getErrorRate();
+            if (value >= 0D) {
+                values[count++] = value;
+            }
+        }
+        if (count <= 0) {
+            return -1D;
+        }
+        Arrays.sort(values, 0, count);
+        return (count & 1) == 1 ? values[count / 2] : (values[count / 2 - 1] + values[count / 2]) / 2D;
+    }
+
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    public long getEjectionDuration() {
+        return ejectionDuration;
+    }
+
+    public int getRecoveryCoefficient() {
+        return recoveryCoefficient;
+    }
+
+    private long parseLongOrDefault(Map<String, String> params, String key, long defaultValue, long minValue) {
+        String value = params.remove(key);
+        if (CheckUtils.isEmptyOrBlank(value)) {
+            return Math.max(defaultValue, minValue);
+        }
+        try {
+            return Math.max(Long.parseLong(value.trim()), minValue);
+        } catch (Throwable t) {
+            throw new IllegalArgumentException("Illegal parameter '" + key + "' in outlier detection description", t);
+        }
+    }
+
+    private double parseDoubleOrDefault(Map<String, String> params, String key, double defaultValue, double minValue, double maxValue) {
+        String value = params.remove(key);
+        if (CheckUtils.isEmptyOrBlank(value)) {
+            return defaultValue;
+        }
+        try {
+            return Math.max(minValue, Math.min(maxValue, Double.parseDouble(value.trim())));
+        } catch (Throwable t) {
+            throw new IllegalArgumentException("Illegal parameter '" + key + "' in outlier detection description", t);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.outlier;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>负载均衡--离群检测的滑动窗口(每个远端一个), 记录窗口期内的请求数/失败数/成功请求的耗时.</p>
+ *
+ * <p>窗口由BUCKETS个时间桶组成(环形数组, 无锁写入), 每个桶占4个long: 桶编号/请求数/失败数/耗时合计(微秒).
+ * 桶切换时的并发写入可能丢失少量样本, 对于离群检测可以接受.</p>
+ *
+ * @author shepherdviolet
+ */
+public class OutlierWindow {
+
+    private static final int BUCKETS = 10;
+    private static final int FIELDS = 4;
+
+    private final long bucketMillis;
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS * FIELDS);
+
+    /**
+     * @param windowMillis 窗口时长ms
+     */
+    public OutlierWindow(long windowMillis) {
+        this.bucketMillis = Math.max(windowMillis / BUCKETS, 1L);
+        reset();
+    }
+
+    /**
+     * 记录一次请求
+     * @param isOk 是否成功
+     * @param elapsedNanos 耗时ns, 仅记录成功请求的耗时
+     * @param currentTimeMillis 当前时间戳
+     */
+    public void record(boolean isOk, long elapsedNanos, long currentTimeMillis) {
+        long bucketId = currentTimeMillis / bucketMillis;
+        int base = (int) (bucketId % BUCKETS) * FIELDS;
+        long current = buckets.get(base);
+        if (current < bucketId && buckets.compareAndSet(base, current, bucketId)) {
+            //切换到新的桶, 清空旧数据
+            buckets.set(base + 1, 0L);
+            buckets.set(base + 2, 0L);
+            buckets.set(base + 3, 0L);
+        }
+        buckets.incrementAndGet(base + 1);
+        if (isOk) {
+            buckets.addAndGet(base + 3, Math.max(elapsedNanos, 0L) / 1000L);
+        } else {
+            buckets.incrementAndGet(base + 2);
+        }
+    }
+
+    /**
+     * @param currentTimeMillis 当前时间戳
+     * @return 窗口期内的统计
+     */
+    public Snapshot snapshot(long currentTimeMillis) {
+        long minBucketId = currentTimeMillis / bucketMillis - BUCKETS + 1;
+        long requests = 0L;
+        long errors = 0L;
+        long latencyMicros = 0L;
+        for (int i = 0 ; i < BUCKETS ; i++) {
+            int base = i * FIELDS;
+            if (buckets.get(base) < minBucketId) {
+                continue;
+            }
+            requests += buckets.get(base + 1);
+            errors += buckets.get(base + 2);
+            latencyMicros += buckets.get(base + 3);
+        }
+        return new Snapshot(requests, Math.min(errors, requests), latencyMicros);
+    }
+
+    /**
+     * 清空窗口(远端被驱逐后重新统计)
+     */
+    public void reset() {
+        for (int i = 0 ; i < BUCKETS ; i++) {
+            buckets.set(i * FIELDS, Long.MIN_VALUE);
+        }
+    }
+
+    /**
+     * 窗口统计
+     */
+    public static final class Snapshot {
+
+        public static final Snapshot EMPTY = new Snapshot(0L, 0L, 0L);
+
+        private final long requests;
+        private final long errors;
+        private final long latencyMicros;
+
+        private Snapshot(long requests, long errors, long latencyMicros) {
+            this.requests = requests;
+            this.errors = errors;
+            this.latencyMicros = latencyMicros;
+        }
+
+        public long getRequests() {
+            return requests;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        /**
+         * @return 失败率 [0, 1], 没有请求时为0
+         */
+        public double getErrorRate() {
+            return requests > 0 ? (double) errors / requests : 0D;
+        }
+
+        /**
+         * @return 成功请求的平均耗时ms, 没有成功请求时为-1
+         */
+        public double getMeanLatencyMillis() {
+            long successes = requests - errors;
+            return successes > 0 ? latencyMicros / 1000D / successes : -1D;
+        }
+
+        @Override
+        public String toString() {
+            return "requests=" + requests + ", errorRate=" + String.format("%.3f", getErrorRate()) +
+                    ", meanLatency=" + String.format("%.1f", getMeanLatencyMillis()) + "ms";
+        }
+
+    }
+
+}
@@ -37,6 +37,8 @@ public class HttpClientSettings {
      * 设置远端列表: 逗号分隔格式. 若hosts和hostList同时设置, 则只有hosts配置生效.
      * 例如:
      * hosts: http://localhost:8080,http://localhost:8081
+     * 分层(用'|'分隔层级, 优先使用第一层, 见tierFailoverThreshold):
+     * hosts: http://10.0.0.1:8080,http://10.0.0.2:8080|http://10.1.0.1:8080
      */
     private String hosts = "";
 
@@ -63,6 +65,47 @@ public class HttpClientSettings {
      */
     private boolean returnNullIfAllBlocked = false;
 
+    /**
+     * [可运行时修改]
+     * 分层远端(hosts中用'|'分隔层级, 例如本机房|同地域|异地): 请求优先发往第一层, 当一层中健康远端的比例低于该阈值时,
+     * 按比例将流量溢出到下一层, 默认0.7
+     */
+    private double tierFailoverThreshold = 0.7;
+
+    /**
+     * [可运行时修改]
+     * 一致性哈希(Request#routingKey)每个远端的虚拟节点数, 默认160, 最大1000, 小于等于0时关闭一致性哈希(忽略路由键)
+     */
+    private int consistentHashVirtualNodes = 160;
+
+    /**
+     * [可运行时修改]
+     * 远端选择策略, 默认round-robin. 内置: round-robin(轮询) / weighted-round-robin(加权轮询) / least-outstanding(最少未完成请求数) /
+     * p2c-ewma(随机选两个远端, 取EWMA响应时间*未完成请求数较小的一个), 也可以通过GlacimonSpi扩展HostSelectionStrategy
+     */
+    private String hostSelectionStrategy = "round-robin";
+
+    /**
+     * [可运行时修改]
+     * 远端权重, 仅在weighted-round-robin策略下有效, 未设置的远端权重为1, 权重范围[0, 100].
+     * 格式:"http://127.0.0.1:8081=3,http://127.0.0.1:8082=1", URL需与hosts中的一致
+     */
+    private String hostWeights;
+
+    /**
+     * [可运行时修改]
+     * 自适应并发限制(每个远端独立), 默认关闭. 根据RTT/失败率自动调整每个远端的并发上限, 所有远端达到上限时拒绝请求.
+     * 例如: algorithm=aimd,initialLimit=20,maxLimit=200 或 algorithm=gradient,maxLimit=500, 参数说明见ConcurrencyLimiterFactory
+     */
+    private String concurrencyLimit;
+
+    /**
+     * [可运行时修改]
+     * 离群检测, 默认关闭. 开启后请求失败不再立即阻断远端, 而是按滑动窗口的失败率/平均耗时与所有远端的中位数比较, 驱逐(阻断)明显偏离的远端,
+     * 同时阻断的远端数不超过指定比例. 例如: minRequests=20,errorRateFactor=2,latencyFactor=3,maxEjectionPercent=50, 参数说明见OutlierDetector
+     */
+    private String outlierDetection;
+
     /**
      * [可运行时修改]
      * 将主动探测器从默认的TELNET型修改为HTTP-GET型
@@ -97,6 +140,13 @@ public class HttpClientSettings {
      */
     private String headers;
 
+    /**
+     * [可运行时修改]
+     * 请求有截止时间(Request#totalTimeout/DeadlineBudget)时, 将剩余时间(ms)放在该请求头中传给下游, 默认为空(不传递).
+     * 下游可以用DeadlineBudget.fromHeader解析后绑定到处理线程, 使整条调用链遵守同一个截止时间
+     */
+    private String deadlineBudgetHeader;
+
     /**
      * [可运行时修改]
      * 设置阻断后的恢复期系数, 修复期时长 = blockDuration * recoveryCoefficient, 设置1则无恢复期
@@ -121,6 +171,14 @@ public class HttpClientSettings {
      */
     private int maxThreadsPerHost = 256;
 
+    /**
+     * [可运行时修改]
+     * 资源组, 同一个资源组的客户端共用一个异步请求线程池和一个连接池, 默认为空(客户端独占).
+     * 客户端各自的maxThreads/maxThreadsPerHost照常生效, 加入资源组后maxIdleConnections改用资源组的参数.
+     * 参数示例: name=backend,maxIdleConnections=64,keepAliveSeconds=300, 只需要名称时可以简写为: backend, 详见GlaciHttpClient#setResourceGroup
+     */
+    private String resourceGroup;
+
     /**
      * [可运行时修改]
      * 设置连接超时ms
@@ -145,6 +203,115 @@ public class HttpClientSettings {
      */
     private long maxReadLength = 10L * 1024L * 1024L;
 
+    /**
+     * [可运行时修改]
+     * 设置对冲请求预算(默认:10), 对冲请求(Request#hedge)数最多占开启对冲的请求数的百分比, 防止后端故障时流量被放大. 设置0禁止对冲.
+     */
+    private int hedgeBudgetPercent = 10;
+
+    /**
+     * [可运行时修改]
+     * 设置对冲请求最小延迟(默认:10), 单位ms. 对冲延迟使用近期响应时间P95时(Request#hedge(0)), 延迟不小于该值
+     */
+    private long hedgeMinDelay = 10L;
+
+    /**
+     * [可运行时修改]
+     * 设置最大重试次数(默认:0, 不重试). 重试会选择一个未尝试过的后端, 仅在连接阶段失败(请求未发出),
+     * 或幂等请求(默认GET幂等)发生需要阻断的网络异常/HTTP返回码时重试. 目前仅同步请求支持重试.
+     */
+    private int maxRetries = 0;
+
+    /**
+     * [可运行时修改]
+     * 设置重试预算(默认:10), 重试次数最多占成功请求数的百分比, 防止后端故障时重试风暴. 设置0禁止重试.
+     */
+    private int retryBudgetPercent = 10;
+
+    /**
+     * [可运行时修改]
+     * 连接预热: 新增远端(设置远端列表), 或被阻断的远端恢复时, 预先建立指定数量的连接放入连接池(闲置).
+     * 注意: 预热会向远端发送真实的请求(每个连接一个HEAD请求, URL为远端地址 + preWarmUrlSuffix, 带上headers), 不影响远端健康状态.
+     * 预热连接数不超过maxIdleConnections, maxIdleConnections为0时无效. 默认0(不预热).
+     */
+    private int preWarmConnections = 0;
+
+    /**
+     * [可运行时修改]
+     * 连接预热: 每个远端同时进行中的预热请求数上限(默认:2), 远端逐个预热, 避免远端数量多时产生连接风暴.
+     */
+    private int preWarmConcurrency = 2;
+
+    /**
+     * [可运行时修改]
+     * 连接预热: 预热请求(HEAD)的URL后缀, 预热请求URL = 远端地址 + 后缀, 例如/health. 默认为空(请求远端地址本身).
+     */
+    private String preWarmUrlSuffix;
+
+    /**
+     * [可运行时修改]
+     * 请求耗时统计: 按远端和urlSuffix统计排队/DNS/连接/TLS/首字节/总耗时(直方图), 通过HttpClient#getMetricsSnapshot获取.
+     * 内置: histogram(无锁对数直方图), 也可以通过GlacimonSpi扩展HttpClientMetricsFactory. 默认为空(不统计).
+     */
+    private String metrics;
+
+    /**
+     * [可运行时修改]
+     * 合并请求(Request#singleFlight): 每个进行中的请求最多合并的等待者数量(默认:1000), 超出的请求单独发送, 0表示不合并.
+     */
+    private int singleFlightMaxWaiters = 1000;
+
+    /**
+     * [可运行时修改]
+     * 合并请求(Request#singleFlight): 实际发出的请求(leader)的总超时(含重试/对冲), 单位ms, 默认0(不限制).
+     */
+    private long singleFlightLeaderTimeout = 0L;
+
+    /**
+     * [可运行时修改]
+     * 合并请求(Request#singleFlight): 等待者等待结果的超时, 单位ms, 超时抛出SocketTimeoutException, 默认0(一直等待到leader请求结束).
+     */
+    private long singleFlightFollowerTimeout = 0L;
+
+    /**
+     * [可运行时修改]
+     * 响应缓存(仅GET请求): 内存容量, 字节数, 默认0(不缓存). 遵循响应头Cache-Control/ETag/Last-Modified, 支持重新验证(304)和stale-while-revalidate.
+     * 缓存命中时不选择远端, 也不经过OkHttp. 可缓存的响应会被完整读入内存(受maxReadLength限制).
+     */
+    private long responseCacheMaxBytes = 0L;
+
+    /**
+     * [可运行时修改]
+     * 响应缓存: 本地磁盘目录(二级存储, 应用重启后仍然有效), 默认为空(不使用磁盘). 需要responseCacheMaxBytes大于0, 同一个目录只能由一个客户端使用.
+     */
+    private String responseCacheDiskDirectory;
+
+    /**
+     * [可运行时修改]
+     * 响应缓存: 本地磁盘容量, 字节数, 默认256M
+     */
+    private long responseCacheDiskMaxBytes = 256L * 1024L * 1024L;
+
+    /**
+     * [可运行时修改]
+     * 请求报文体压缩(仅POST): 压缩实现名称, 内置gzip/deflate, 可通过GlacimonSpi扩展RequestCompressor. 默认为空(不压缩).
+     * 报文体长度不小于阈值(或长度未知)时流式压缩, 并设置请求头Content-Encoding. 注意: 服务端必须支持解压缩.
+     */
+    private String requestCompression;
+
+    /**
+     * [可运行时修改]
+     * 请求报文体压缩: 阈值, 字节数, 报文体长度小于阈值时不压缩, 默认1024
+     */
+    private int requestCompressionThreshold = 1024;
+
+    /**
+     * [可运行时修改]
+     * 请求报文体压缩: 按urlSuffix开启/关闭压缩, 逗号分隔, 以!开头的表示该urlSuffix不压缩. 存在不以!开头的urlSuffix时,
+     * 只压缩这些urlSuffix, 否则压缩所有urlSuffix(!开头的除外). 默认为空(压缩所有urlSuffix).
+     */
+    private String requestCompressionUrlSuffixes;
+
     /**
      * [可运行时修改]
      * 当HTTP返回码为指定返回码时, 阻断后端
@@ -161,7 +328,7 @@ public class HttpClientSettings {
 
     /**
      * [可运行时修改]
-     * 启用/禁用TxTimer统计请求耗时(只支持同步方式), 默认禁用, 需手动依赖glacispring-txtimer
+     * 启用/禁用TxTimer统计请求耗时(同步及异步方式), 默认禁用, 需手动依赖glacispring-txtimer
      */
     private boolean txTimerEnabled = false;
 
@@ -219,6 +386,19 @@ public class HttpClientSettings {
      */
     private String customClientCertKeyEncoded;
 
+    /**
+     * [可运行时修改]
+     * TLS会话缓存大小(默认:1024), 0表示不限制.
+     * 信任材料(受信颁发者/客户端证书)相同且会话缓存参数相同的客户端共用一个SSLContext, 连接同一个服务端时可以复用TLS会话, 减少完整握手.
+     */
+    private int sslSessionCacheSize = 1024;
+
+    /**
+     * [可运行时修改]
+     * TLS会话超时时间(秒)(默认:3600), 超时的会话不再用于会话恢复, 0表示不限制.
+     */
+    private int sslSessionTimeout = 3600;
+
     /**
      * <p>[可运行时修改]</p>
      * <p>使用指定的域名验证服务端证书的DN. 如果设置为"UNSAFE-TRUST-ALL-DN"则不校验DN, 所有合法证书都通过, 不安全!!!</p>
@@ -251,8 +431,8 @@ public class HttpClientSettings {
      * <p>参数采用SimpleKeyValueEncoder格式, 详见: https://github.com/shepherdviolet/glacimon/blob/master/docs/kvencoder/guide.md</p>
      * <p></p>
      * <p>参数说明:</p>
-     * <p>ip: DNS服务地址, 必输; 多个地址使用'|'分割, 例如: ip=8.8.8.8|114.114.114.114</p>
-     * <p>resolveTimeoutSeconds: 域名解析超时时间(秒), 可选, 默认5s</p>
+     * <p>ip: DNS服务地址, 必输; 多个地址使用'|'分割, 例如: ip=8.8.8.8|114.114.114.114; 可以指定端口, 例如: ip=127.0.0.1:5353|[::1]:5353</p>
+     * <p>resolveTimeoutSeconds: 域名解析超时时间(秒), 可选, 默认5s; 每个DNS服务器的A/AAAA查询并行执行, 共用这个超时时间</p>
      * <p>preferIpv6: true:Ipv6优先, false:Ipv4优先, 可选, 默认false</p>
      * <p>minTtlSeconds: 最小TTL(秒), 可选, 默认20; 实际TTL为max(服务器返回TTL, 该参数值)</p>
      * <p>maxTtlSeconds: 最大TTL(秒), 可选, 默认300; 实际TTL为min(服务器返回TTL, 该参数值)</p>
@@ -263,6 +443,16 @@ public class HttpClientSettings {
      * <p>reportIntervalSec: DNS解析报告打印间隔(秒), 可选, 默认3600; 程序会在日志中打印DNS解析相关统计信息</p>
      * <p>stopUpdAftFails: 域名解析失败指定次数后, 停止自动更新, 可选, 默认5; 仅影响自动更新, 不影响同步解析</p>
      * <p>stopUpdAftIdleSec: 域名未使用指定时间(秒)后, 停止自动更新, 可选, 默认1200; 仅影响自动更新, 不影响同步解析</p>
+     * <p>negativeTtlSeconds: 域名不存在(DNS服务器答复NXDOMAIN或没有A/AAAA记录)时的TTL(秒), 可选, 默认10, 不超过maxTtlSeconds;
+     * 避免不存在的域名每次请求都查询DNS. 超时等其他错误仍按errorTtlSeconds</p>
+     * <p>maxStaleSeconds: 所有DNS服务器都解析失败(超时等)时, 继续使用过期记录的最长时间(秒, 从过期开始算), 可选, 默认600, 0不使用过期记录;
+     * 使用过期记录期间, 每30秒重新解析一次</p>
+     * <p>prefetchMinHits: 预取门槛, 可选, 默认3, 0关闭; 记录在本次TTL内被命中该次数以上时, 在TTL剩余1/4时由请求线程触发异步预取,
+     * 保证热门域名不会因为过期而同步等待解析(后台自动更新关闭/停止时同样有效)</p>
+     * <p>shareCache: true:与其他配置相同(ip/preferIpv6/各TTL参数/maxStaleSeconds/snapshotFile相同)的实例共用缓存, 可选, 默认true</p>
+     * <p>snapshotFile: 缓存快照文件路径, 可选, 默认不保存快照; 定期及关闭时保存, 启动时读取, 快照中的记录先用着, 同时在后台重新解析</p>
+     * <p>snapshotIntervalSec: 快照保存间隔(秒), 可选, 默认300, 最小10</p>
+     * <p>snapshotMaxAgeSec: 快照最长有效期(秒), 可选, 默认86400; 超过该时间的快照不读取, 超过该时间未使用的域名不保存</p>
      * <p></p>
      * <p>参数格式: key1=value1,key2=value2</p>
      * <p></p>
@@ -275,6 +465,13 @@ public class HttpClientSettings {
      */
     public String dnsDescription;
 
+    /**
+     * [可运行时修改]
+     * 连接竞速(Happy Eyeballs): 域名解析出多个地址时, 每隔该时间(ms)向下一个地址发起连接, 使用最先建立的连接,
+     * 最近连接失败的地址排在最后. 默认0关闭, 建议250
+     */
+    private long happyEyeballsDelay = 0L;
+
     /**
      * <p>[可运行时修改]</p>
      * <p>日志:请求URL, 默认true</p>
@@ -338,6 +535,54 @@ public class HttpClientSettings {
         this.returnNullIfAllBlocked = returnNullIfAllBlocked;
     }
 
+    public double getTierFailoverThreshold() {
+        return tierFailoverThreshold;
+    }
+
+    public void setTierFailoverThreshold(double tierFailoverThreshold) {
+        this.tierFailoverThreshold = tierFailoverThreshold;
+    }
+
+    public int getConsistentHashVirtualNodes() {
+        return consistentHashVirtualNodes;
+    }
+
+    public void setConsistentHashVirtualNodes(int consistentHashVirtualNodes) {
+        this.consistentHashVirtualNodes = consistentHashVirtualNodes;
+    }
+
+    public String getHostSelectionStrategy() {
+        return hostSelectionStrategy;
+    }
+
+    public void setHostSelectionStrategy(String hostSelectionStrategy) {
+        this.hostSelectionStrategy = hostSelectionStrategy;
+    }
+
+    public String getHostWeights() {
+        return hostWeights;
+    }
+
+    public void setHostWeights(String hostWeights) {
+        this.hostWeights = hostWeights;
+    }
+
+    public String getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    public void setConcurrencyLimit(String concurrencyLimit) {
+        this.concurrencyLimit = concurrencyLimit;
+    }
+
+    public String getOutlierDetection() {
+        return outlierDetection;
+    }
+
+    public void setOutlierDetection(String outlierDetection) {
+        this.outlierDetection = outlierDetection;
+    }
+
     public String getHttpGetInspectorUrlSuffix() {
         return httpGetInspectorUrlSuffix;
     }
@@ -378,6 +623,14 @@ public class HttpClientSettings {
         this.headers = headers;
     }
 
+    public String getDeadlineBudgetHeader() {
+        return deadlineBudgetHeader;
+    }
+
+    public void setDeadlineBudgetHeader(String deadlineBudgetHeader) {
+        this.deadlineBudgetHeader = deadlineBudgetHeader;
+    }
+
     public int getRecoveryCoefficient() {
         return recoveryCoefficient;
     }
@@ -410,6 +663,14 @@ public class HttpClientSettings {
         this.maxThreadsPerHost = maxThreadsPerHost;
     }
 
+    public String getResourceGroup() {
+        return resourceGroup;
+    }
+
+    public void setResourceGroup(String resourceGroup) {
+        this.resourceGroup = resourceGroup;
+    }
+
     public long getConnectTimeout() {
         return connectTimeout;
     }
@@ -442,6 +703,142 @@ public class HttpClientSettings {
         this.maxReadLength = maxReadLength;
     }
 
+    public int getHedgeBudgetPercent() {
+        return hedgeBudgetPercent;
+    }
+
+    public void setHedgeBudgetPercent(int hedgeBudgetPercent) {
+        this.hedgeBudgetPercent = hedgeBudgetPercent;
+    }
+
+    public long getHedgeMinDelay() {
+        return hedgeMinDelay;
+    }
+
+    public void setHedgeMinDelay(long hedgeMinDelay) {
+        this.hedgeMinDelay = hedgeMinDelay;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    public int getRetryBudgetPercent() {
+        return retryBudgetPercent;
+    }
+
+    public void setRetryBudgetPercent(int retryBudgetPercent) {
+        this.retryBudgetPercent = retryBudgetPercent;
+    }
+
+    public int getPreWarmConnections() {
+        return preWarmConnections;
+    }
+
+    public void setPreWarmConnections(int preWarmConnections) {
+        this.preWarmConnections = preWarmConnections;
+    }
+
+    public int getPreWarmConcurrency() {
+        return preWarmConcurrency;
+    }
+
+    public void setPreWarmConcurrency(int preWarmConcurrency) {
+        this.preWarmConcurrency = preWarmConcurrency;
+    }
+
+    public String getPreWarmUrlSuffix() {
+        return preWarmUrlSuffix;
+    }
+
+    public void setPreWarmUrlSuffix(String preWarmUrlSuffix) {
+        this.preWarmUrlSuffix = preWarmUrlSuffix;
+    }
+
+    public String getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(String metrics) {
+        this.metrics = metrics;
+    }
+
+    public int getSingleFlightMaxWaiters() {
+        return singleFlightMaxWaiters;
+    }
+
+    public void setSingleFlightMaxWaiters(int singleFlightMaxWaiters) {
+        this.singleFlightMaxWaiters = singleFlightMaxWaiters;
+    }
+
+    public long getSingleFlightLeaderTimeout() {
+        return singleFlightLeaderTimeout;
+    }
+
+    public void setSingleFlightLeaderTimeout(long singleFlightLeaderTimeout) {
+        this.singleFlightLeaderTimeout = singleFlightLeaderTimeout;
+    }
+
+    public long getSingleFlightFollowerTimeout() {
+        return singleFlightFollowerTimeout;
+    }
+
+    public void setSingleFlightFollowerTimeout(long singleFlightFollowerTimeout) {
+        this.singleFlightFollowerTimeout = singleFlightFollowerTimeout;
+    }
+
+    public long getResponseCacheMaxBytes() {
+        return responseCacheMaxBytes;
+    }
+
+    public void setResponseCacheMaxBytes(long responseCacheMaxBytes) {
+        this.responseCacheMaxBytes = responseCacheMaxBytes;
+    }
+
+    public String getResponseCacheDiskDirectory() {
+        return responseCacheDiskDirectory;
+    }
+
+    public void setResponseCacheDiskDirectory(String responseCacheDiskDirectory) {
+        this.responseCacheDiskDirectory = responseCacheDiskDirectory;
+    }
+
+    public long getResponseCacheDiskMaxBytes() {
+        return responseCacheDiskMaxBytes;
+    }
+
+    public void setResponseCacheDiskMaxBytes(long responseCacheDiskMaxBytes) {
+        this.responseCacheDiskMaxBytes = responseCacheDiskMaxBytes;
+    }
+
+    public String getRequestCompression() {
+        return requestCompression;
+    }
+
+    public void setRequestCompression(String requestCompression) {
+        this.requestCompression = requestCompression;
+    }
+
+    public int getRequestCompressionThreshold() {
+        return requestCompressionThreshold;
+    }
+
+    public void setRequestCompressionThreshold(int requestCompressionThreshold) {
+        this.requestCompressionThreshold = requestCompressionThreshold;
+    }
+
+    public String getRequestCompressionUrlSuffixes() {
+        return requestCompressionUrlSuffixes;
+    }
+
+    public void setRequestCompressionUrlSuffixes(String requestCompressionUrlSuffixes) {
+        this.requestCompressionUrlSuffixes = requestCompressionUrlSuffixes;
+    }
+
     public String getHttpCodeNeedBlock() {
         return httpCodeNeedBlock;
     }
@@ -514,6 +911,22 @@ public class HttpClientSettings {
         this.customClientCertKeyEncoded = customClientCertKeyEncoded;
     }
 
+    public int getSslSessionCacheSize() {
+        return sslSessionCacheSize;
+    }
+
+    public void setSslSessionCacheSize(int sslSessionCacheSize) {
+        this.sslSessionCacheSize = sslSessionCacheSize;
+    }
+
+    public int getSslSessionTimeout() {
+        return sslSessionTimeout;
+    }
+
+    public void setSslSessionTimeout(int sslSessionTimeout) {
+        this.sslSessionTimeout = sslSessionTimeout;
+    }
+
     public String getVerifyServerDnByCustomDn() {
         return verifyServerDnByCustomDn;
     }
@@ -538,6 +951,14 @@ public class HttpClientSettings {
         this.dnsDescription = dnsDescription;
     }
 
+    public long getHappyEyeballsDelay() {
+        return happyEyeballsDelay;
+    }
+
+    public void setHappyEyeballsDelay(long happyEyeballsDelay) {
+        this.happyEyeballsDelay = happyEyeballsDelay;
+    }
+
     public boolean isLogPrintUrl() {
         return logPrintUrl;
     }
@@ -585,19 +1006,44 @@ public class HttpClientSettings {
                 ", hostList=" + Arrays.toString(hostList) +
                 ", initiativeInspectInterval=" + initiativeInspectInterval +
                 ", returnNullIfAllBlocked=" + returnNullIfAllBlocked +
+                ", tierFailoverThreshold=" + tierFailoverThreshold +
+                ", consistentHashVirtualNodes=" + consistentHashVirtualNodes +
+                ", hostSelectionStrategy='" + hostSelectionStrategy + '\'' +
+                ", hostWeights='" + hostWeights + '\'' +
+                ", concurrencyLimit='" + concurrencyLimit + '\'' +
+                ", outlierDetection='" + outlierDetection + '\'' +
                 ", httpGetInspectorUrlSuffix='" + httpGetInspectorUrlSuffix + '\'' +
                 ", passiveBlockDuration=" + passiveBlockDuration +
                 ", mediaType='" + mediaType + '\'' +
                 ", encode='" + encode + '\'' +
                 ", headers='" + headers + '\'' +
+                ", deadlineBudgetHeader='" + deadlineBudgetHeader + '\'' +
                 ", recoveryCoefficient=" + recoveryCoefficient +
                 ", maxIdleConnections=" + maxIdleConnections +
                 ", maxThreads=" + maxThreads +
                 ", maxThreadsPerHost=" + maxThreadsPerHost +
+                ", resourceGroup='" + resourceGroup + '\'' +
                 ", connectTimeout=" + connectTimeout +
                 ", writeTimeout=" + writeTimeout +
                 ", readTimeout=" + readTimeout +
                 ", maxReadLength=" + maxReadLength +
+                ", hedgeBudgetPercent=" + hedgeBudgetPercent +
+                ", hedgeMinDelay=" + hedgeMinDelay +
+                ", maxRetries=" + maxRetries +
+                ", retryBudgetPercent=" + retryBudgetPercent +
+                ", preWarmConnections=" + preWarmConnections +
+                ", preWarmConcurrency=" + preWarmConcurrency +
+                ", preWarmUrlSuffix='" + preWarmUrlSuffix + '\'' +
+                ", metrics='" + metrics + '\'' +
+                ", singleFlightMaxWaiters=" + singleFlightMaxWaiters +
+                ", singleFlightLeaderTimeout=" + singleFlightLeaderTimeout +
+                ", singleFlightFollowerTimeout=" + singleFlightFollowerTimeout +
+                ", responseCacheMaxBytes=" + responseCacheMaxBytes +
+                ", responseCacheDiskDirectory='" + responseCacheDiskDirectory + '\'' +
+                ", responseCacheDiskMaxBytes=" + responseCacheDiskMaxBytes +
+                ", requestCompression='" + requestCompression + '\'' +
+                ", requestCompressionThreshold=" + requestCompressionThreshold +
+                ", requestCompressionUrlSuffixes='" + requestCompressionUrlSuffixes + '\'' +
                 ", httpCodeNeedBlock='" + httpCodeNeedBlock + '\'' +
                 ", throwableNeedBlock='" + throwableNeedBlock + '\'' +
                 ", txTimerEnabled=" + txTimerEnabled +
@@ -607,9 +1053,12 @@ public class HttpClientSettings {
                 ", customClientCertEncoded='" + customClientCertEncoded + '\'' +
                 ", customClientCertsEncoded=" + Arrays.toString(customClientCertsEncoded) +
                 ", customClientCertKeyEncoded='" + customClientCertKeyEncoded + '\'' +
+                ", sslSessionCacheSize=" + sslSessionCacheSize +
+                ", sslSessionTimeout=" + sslSessionTimeout +
                 ", verifyServerDnByCustomDn='" + verifyServerDnByCustomDn + '\'' +
                 ", verifyServerCnByCustomHostname='" + verifyServerCnByCustomHostname + '\'' +
                 ", dnsDescription='" + dnsDescription + '\'' +
+                ", happyEyeballsDelay=" + happyEyeballsDelay +
                 ", logPrintUrl=" + logPrintUrl +
                 ", logPrintBlock=" + logPrintBlock +
                 ", logPrintPayload=" + logPrintPayload +
@@ -219,20 +219,45 @@ class HttpClientsImpl implements HttpClients, Closeable, InitializingBean, Dispo
         return (HttpClient) client
                 .setInitiativeInspectInterval(settings.getInitiativeInspectInterval())
                 .setReturnNullIfAllBlocked(settings.isReturnNullIfAllBlocked())
+                .setTierFailoverThreshold(settings.getTierFailoverThreshold())
+                .setConsistentHashVirtualNodes(settings.getConsistentHashVirtualNodes())
+                .setHostSelectionStrategy(settings.getHostSelectionStrategy())
+                .setHostWeights(settings.getHostWeights())
+                .setConcurrencyLimit(settings.getConcurrencyLimit())
+                .setOutlierDetection(settings.getOutlierDetection())
                 .setHttpGetInspector(settings.getHttpGetInspectorUrlSuffix())
                 .setPassiveBlockDuration(settings.getPassiveBlockDuration())
                 .setMediaType(settings.getMediaType())
                 .setEncode(settings.getEncode())
                 .setHeadersString(settings.getHeaders())
+                .setDeadlineBudgetHeader(settings.getDeadlineBudgetHeader())
                 .setDataConverter(dataConverter)
                 .setRecoveryCoefficient(settings.getRecoveryCoefficient())
                 .setMaxIdleConnections(settings.getMaxIdleConnections())
                 .setMaxThreads(settings.getMaxThreads())
                 .setMaxThreadsPerHost(settings.getMaxThreadsPerHost())
+                .setResourceGroup(settings.getResourceGroup())
                 .setConnectTimeout(settings.getConnectTimeout())
                 .setWriteTimeout(settings.getWriteTimeout())
                 .setReadTimeout(settings.getReadTimeout())
                 .setMaxReadLength(settings.getMaxReadLength())
+                .setHedgeBudgetPercent(settings.getHedgeBudgetPercent())
+                .setHedgeMinDelay(settings.getHedgeMinDelay())
+                .setMaxRetries(settings.getMaxRetries())
+                .setRetryBudgetPercent(settings.getRetryBudgetPercent())
+                .setPreWarmConnections(settings.getPreWarmConnections())
+                .setPreWarmConcurrency(settings.getPreWarmConcurrency())
+                .setPreWarmUrlSuffix(settings.getPreWarmUrlSuffix())
+                .setMetrics(settings.getMetrics())
+                .setSingleFlightMaxWaiters(settings.getSingleFlightMaxWaiters())
+                .setSingleFlightLeaderTimeout(settings.getSingleFlightLeaderTimeout())
+                .setSingleFlightFollowerTimeout(settings.getSingleFlightFollowerTimeout())
+                .setResponseCacheMaxBytes(settings.getResponseCacheMaxBytes())
+                .setResponseCacheDiskDirectory(settings.getResponseCacheDiskDirectory())
+                .setResponseCacheDiskMaxBytes(settings.getResponseCacheDiskMaxBytes())
+                .setRequestCompression(settings.getRequestCompression())
+                .setRequestCompressionThreshold(settings.getRequestCompressionThreshold())
+                .setRequestCompressionUrlSuffixes(settings.getRequestCompressionUrlSuffixes())
                 .setHttpCodeNeedBlock(settings.getHttpCodeNeedBlock())
                 .setThrowableNeedBlock(settings.getThrowableNeedBlock())
                 .setTxTimerEnabled(settings.isTxTimerEnabled())
@@ -242,7 +267,10 @@ class HttpClientsImpl implements HttpClients, Closeable, InitializingBean, Dispo
                 .setCustomClientCertEncoded(settings.getCustomClientCertEncoded())
                 .setCustomClientCertsEncoded(settings.getCustomClientCertsEncoded())
                 .setCustomClientCertKeyEncoded(settings.getCustomClientCertKeyEncoded())
+                .setSslSessionCacheSize(settings.getSslSessionCacheSize())
+                .setSslSessionTimeout(settings.getSslSessionTimeout())
                 .setDns(settings.getDnsDescription())
+                .setHappyEyeballsDelay(settings.getHappyEyeballsDelay())
                 .setLogPrintUrl(settings.isLogPrintUrl())
                 .setLogPrintBlock(settings.isLogPrintBlock())
                 .setLogPrintPayload(settings.isLogPrintPayload())
@@ -427,6 +455,14 @@ class HttpClientsImpl implements HttpClients, Closeable, InitializingBean, Dispo
             }
         });
 
+        installUpdater(new SingleValueUpdater(
+                Arrays.asList("deadlineBudgetHeader", "deadline-budget-header")) {
+            @Override
+            public void applySetting(HttpClient client, String value) throws Exception {
+                client.setDeadlineBudgetHeader(value);
+            }
+        });
+
         installUpdater(new SingleValueUpdater(
                 Arrays.asList("initiativeInspectInterval", "initiative-inspect-interval")) {
             @Override
@@ -443,6 +479,54 @@ class HttpClientsImpl implements HttpClients, Closeable, InitializingBean, Dispo
             }
         });
 
+        installUpdater(new SingleValueUpdater(
+                Arrays.asList("tierFailoverThreshold", "tier-failover-threshold")) {
+            @Override
+            public void applySetting(HttpClient client, String value) throws Exception {
+                client.setTierFailoverThreshold(Double.parseDouble(value));
+            }
+        });
+
+        installUpdater(new SingleValueUpdater(
+                Arrays.asList("consistentHashVirtualNodes", "consistent-hash-virtual-nodes")) {
+            @Override
+            public void applySetting(HttpClient client, String value) throws Exception {
+                client.setConsistentHashVirtualNodes(Integer.parseInt(value));
+            }
+        });
+
+        installUpdater(new SingleValueUpdater(
+                Arrays.asList("hostSelectionStrategy", "host-selection-strategy")) {
+            @Override
+            public void applySetting(HttpClient client, String value) throws Exception {
+                client.setHostSelectionStrategy(value);
+            }
+        });
+
+        installUpdater(new SingleValueUpdater(
+                Arrays.asList("hostWeights", "host-weights")) {
+            @Override
+            public void applySetting(HttpClient client, String value) throws Exception {
+                client.setHostWeights(value);
+            }
+        });
+
+        installUpdater(new SingleValueUpdater(
+                Arrays.asList("concurrencyLimit", "concurrency-limit")) {
+            @Override
+            public void applySetting(HttpClient client, String value) throws Exception {
+                client.setConcurrencyLimit(value);
+            }
+        });
+
+        installUpdater(new SingleValueUpdater(
+                Arrays.asList("outlierDetection", "outlier-detection")) {
+            @Override
+            public void applySetting(HttpClient client, String value) throws Exception {
+                client.setOutlierDetection(value);
+            }
+        });
+
         installUpdater(new SingleValueUpdater(
                 Arrays.asList("httpGetInspectorUrlSuffix", "http-get-inspector-url-suffix")) {
             @Override
@@ -507,6 +591,14 @@ class HttpClientsImpl implements HttpClients, Closeable, InitializingBean, Dispo
             }
         });
 
+        installUpdater(new SingleValueUpdater(
+                Arrays.asList("resourceGroup", "resource-group")) {
+            @Override
+            public void applySetting(HttpClient client, String value) throws Exception {
+                client.setResourceGroup(value);
+            }
+        });
+
         installUpdater(new SingleValueUpdater(
                 Arrays.asList("connectTimeout", "connect-timeout")) {
             @Override
@@ -539,6 +631,142 @@ class HttpClientsImpl implements HttpClients, Closeable, InitializingBean, Dispo
             }
         });
 
+        installUpdater(new SingleValueUpdater(
+                Arrays.asList("hedgeBudgetPercent", "hedge-budget-percent")) {
+            @Override
+            public void applySetting(HttpClient client, String value) throws Exception {
+                client.setHedgeBudgetPercent(Integer.parseInt(value));
+            }
+        });
+
+        installUpdater(new SingleValueUpdater(
+                Arrays.asList("hedgeMinDelay", "hedge-min-delay")) {
+            @Override
+            public void applySetting(HttpClient client, String value) throws Exception {
+                client.setHedgeMinDelay(Long.parseLong(value));
+            }
+        });
+
+        installUpdater(new SingleValueUpdater(
+                Arrays.asList("maxRetries", "max-retries")) {
+            @Override
+            public void applySetting(HttpClient client, String value) throws Exception {
+                client.setMaxRetries(Integer.parseInt(value));
+            }
+        });
+
+        installUpdater(new SingleValueUpdater(
+                Arrays.asList("retryBudgetPercent", "retry-budget-percent")) {
+            @Override
+            public void applySetting(HttpClient client, String value) throws Exception {
+                client.setRetryBudgetPercent(Integer.parseInt(value));
+            }
+        });
+
+        installUpdater(new SingleValueUpdater(
+                Arrays.asList("preWarmConnections", "pre-warm-connections")) {
+            @Override
+            public void applySetting(HttpClient client, String value) throws Exception {
+                client.setPreWarmConnections(Integer.parseInt(value));
+            }
+        });
+
+        installUpdater(new SingleValueUpdater(
+                Arrays.asList("preWarmConcurrency", "pre-warm-concurrency")) {
+            @Override
+            public void applySetting(HttpClient client, String value) throws Exception {
+                client.setPreWarmConcurrency(Integer.parseInt(value));
+            }
+        });
+
+        installUpdater(new SingleValueUpdater(
+                Arrays.asList("preWarmUrlSuffix", "pre-warm-url-suffix")) {
+            @Override
+            public void applySetting(HttpClient client, String value) throws Exception {
+                client.setPreWarmUrlSuffix(value);
+            }
+        });
+
+        installUpdater(new SingleValueUpdater(
+                Arrays.asList("metrics")) {
+            @Override
+            public void applySetting(HttpClient client, String value) throws Exception {
+                client.setMetrics(value);
+            }
+        });
+
+        installUpdater(new SingleValueUpdater(
+                Arrays.asList("singleFlightMaxWaiters", "single-flight-max-waiters")) {
+            @Override
+            public void applySetting(HttpClient client, String value) throws Exception {
+                client.setSingleFlightMaxWaiters(Integer.parseInt(value));
+            }
+        });
+
+        installUpdater(new SingleValueUpdater(
+                Arrays.asList("singleFlightLeaderTimeout", "single-flight-leader-timeout")) {
+            @Override
+            public void applySetting(HttpClient client, String value) throws Exception {
+                client.setSingleFlightLeaderTimeout(Long.parseLong(value));
+            }
+        });
+
+        installUpdater(new SingleValueUpdater(
+                Arrays.asList("singleFlightFollowerTimeout", "single-flight-follower-timeout")) {
+            @Override
+            public void applySetting(HttpClient client, String value) throws Exception {
+                client.setSingleFlightFollowerTimeout(Long.parseLong(value));
+            }
+        });
+
+        installUpdater(new SingleValueUpdater(
+                Arrays.asList("responseCacheMaxBytes", "response-cache-max-bytes")) {
+            @Override
+            public void applySetting(HttpClient client, String value) throws Exception {
+                client.setResponseCacheMaxBytes(Long.parseLong(value));
+            }
+        });
+
+        installUpdater(new SingleValueUpdater(
+                Arrays.asList("responseCacheDiskDirectory", "response-cache-disk-directory")) {
+            @Override
+            public void applySetting(HttpClient client, String value) throws Exception {
+                client.setResponseCacheDiskDirectory(value);
+            }
+        });
+
+        installUpdater(new SingleValueUpdater(
+                Arrays.asList("responseCacheDiskMaxBytes", "response-cache-disk-max-bytes")) {
+            @Override
+            public void applySetting(HttpClient client, String value) throws Exception {
+                client.setResponseCacheDiskMaxBytes(Long.parseLong(value));
+            }
+        });
+
+        installUpdater(new SingleValueUpdater(
+                Arrays.asList("requestCompression", "request-compression")) {
+            @Override
+            public void applySetting(HttpClient client, String value) throws Exception {
+                client.setRequestCompression(value);
+            }
+        });
+
+        installUpdater(new SingleValueUpdater(
+                Arrays.asList("requestCompressionThreshold", "request-compression-threshold")) {
+            @Override
+            public void applySetting(HttpClient client, String value) throws Exception {
+                client.setRequestCompressionThreshold(Integer.parseInt(value));
+            }
+        });
+
+        installUpdater(new SingleValueUpdater(
+                Arrays.asList("requestCompressionUrlSuffixes", "request-compression-url-suffixes")) {
+            @Override
+            public void applySetting(HttpClient client, String value) throws Exception {
+                client.setRequestCompressionUrlSuffixes(value);
+            }
+        });
+
         installUpdater(new SingleValueUpdater(
                 Arrays.asList("httpCodeNeedBlock", "http-code-need-block")) {
             @Override
@@ -619,6 +847,22 @@ class HttpClientsImpl implements HttpClients, Closeable, InitializingBean, Dispo
             }
         });
 
+        installUpdater(new SingleValueUpdater(
+                Arrays.asList("sslSessionCacheSize", "ssl-session-cache-size")) {
+            @Override
+            public void applySetting(HttpClient client, String value) throws Exception {
+                client.setSslSessionCacheSize(Integer.parseInt(value));
+            }
+        });
+
+        installUpdater(new SingleValueUpdater(
+                Arrays.asList("sslSessionTimeout", "ssl-session-timeout")) {
+            @Override
+            public void applySetting(HttpClient client, String value) throws Exception {
+                client.setSslSessionTimeout(Integer.parseInt(value));
+            }
+        });
+
         installUpdater(new SingleOrSingleValueUpdater(
                 Arrays.asList("verifyServerDnByCustomDn", "verify-server-dn-by-custom-dn"),
                 Arrays.asList("verifyServerCnByCustomHostname", "verify-server-cn-by-custom-hostname")) {
@@ -644,6 +888,14 @@ class HttpClientsImpl implements HttpClients, Closeable, InitializingBean, Dispo
             }
         });
 
+        installUpdater(new SingleValueUpdater(
+                Arrays.asList("happyEyeballsDelay", "happy-eyeballs-delay")) {
+            @Override
+            public void applySetting(HttpClient client, String value) throws Exception {
+                client.setHappyEyeballsDelay(Long.parseLong(value));
+            }
+        });
+
         installUpdater(new SingleValueUpdater(
                 Arrays.asList("logPrintUrl", "log-print-url")) {
             @Override
@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.strategy;
+
+import com.github.shepherdviolet.glacimon.java.spi.api.annotation.ImplementationName;
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.HostSelectionContext;
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.HostSelectionStrategy;
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.LoadBalancedHostManager;
+
+/**
+ * <p>负载均衡--远端选择策略: 最少未完成请求数</p>
+ *
+ * <p>选择未完成请求数(已发出但未反馈的请求)最少的远端, 数量相同时从轮询位置开始取第一个, 避免总是压在第0个远端上.
+ * 未完成请求数由GlaciHttpClient在请求开始和feedback时维护.</p>
+ *
+ * @author shepherdviolet
+ */
+@ImplementationName(LeastOutstandingHostSelectionStrategy.NAME)
+public class LeastOutstandingHostSelectionStrategy implements HostSelectionStrategy {
+
+    public static final String NAME = "least-outstanding";
+
+    @Override
+    public int select(LoadBalancedHostManager.Host[] hosts, HostSelectionContext context, long currentTimeMillis) {
+        int length = hosts.length;
+        int start = context.nextCount() % length;
+        int selected = start;
+        int minOutstanding = Integer.MAX_VALUE;
+        for (int i = 0 ; i < length ; i++) {
+            int index = (start + i) % length;
+            int outstanding = hosts[index].getOutstanding();
+            if (outstanding < minOutstanding) {
+                minOutstanding = outstanding;
+                selected = index;
+                if (outstanding <= 0) {
+                    break;
+                }
+            }
+        }
+        return selected;
+    }
+
+    @Override
+    public String toString() {
+        return NAME;
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.strategy;
+
+import com.github.shepherdviolet.glacimon.java.spi.api.annotation.ImplementationName;
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.HostSelectionContext;
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.HostSelectionStrategy;
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.LoadBalancedHostManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * <p>负载均衡--远端选择策略: P2C (Power of two choices) + EWMA</p>
+ *
+ * <p>随机选两个不同的远端, 比较 EWMA响应时间 * (未完成请求数 + 1), 取较小的一个. 慢(但没有失败)的远端会自动获得更少的流量.
+ * EWMA响应时间由feedback反馈, 长时间没有样本的远端EWMA会衰减, 保证慢远端恢复后能重新获得流量.</p>
+ *
+ * @author shepherdviolet
+ */
+@ImplementationName(PowerOfTwoChoicesHostSelectionStrategy.NAME)
+public class PowerOfTwoChoicesHostSelectionStrategy implements HostSelectionStrategy {
+
+    public static final String NAME = "p2c-ewma";
+
+    @Override
+    public int select(LoadBalancedHostManager.Host[] hosts, HostSelectionContext context, long currentTimeMillis) {
+        int length = hosts.length;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int a = random.nextInt(length);
+        // 第二个下标与第一个不同
+        int b = random.nextInt(length - 1);
+        if (b >= a) {
+            b++;
+        }
+        return score(hosts[a], currentTimeMillis) <= score(hosts[b], currentTimeMillis) ? a : b;
+    }
+
+    private long score(LoadBalancedHostManager.Host host, long currentTimeMillis) {
+        // 没有样本的远端EWMA为0, 视为1ns, 保证未完成请求数仍然有效
+        long ewma = Math.max(host.getEwmaResponseTime(currentTimeMillis), 1L);
+        long outstanding = Math.max(host.getOutstanding(), 0) + 1L;
+        // 防溢出
+        if (ewma > Long.MAX_VALUE / outstanding) {
+            return Long.MAX_VALUE;
+        }
+        return ewma * outstanding;
+    }
+
+    @Override
+    public String toString() {
+        return NAME;
+    }
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.strategy;
+
+import com.github.shepherdviolet.glacimon.java.spi.api.annotation.ImplementationName;
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.HostSelectionContext;
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.HostSelectionStrategy;
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.LoadBalancedHostManager;
+
+/**
+ * 负载均衡--远端选择策略: 轮询(默认)
+ *
+ * @author shepherdviolet
+ */
+@ImplementationName(RoundRobinHostSelectionStrategy.NAME)
+public class RoundRobinHostSelectionStrategy implements HostSelectionStrategy {
+
+    public static final String NAME = "round-robin";
+
+    @Override
+    public int select(LoadBalancedHostManager.Host[] hosts, HostSelectionContext context, long currentTimeMillis) {
+        return context.nextCount() % hosts.length;
+    }
+
+    @Override
+    public String toString() {
+        return NAME;
+    }
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.strategy;
+
+import com.github.shepherdviolet.glacimon.java.spi.api.annotation.ImplementationName;
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.HostSelectionContext;
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.HostSelectionStrategy;
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.LoadBalancedHostManager;
+
+/**
+ * <p>负载均衡--远端选择策略: 加权轮询</p>
+ *
+ * <p>权重由LoadBalancedHostManager#setHostWeights设置, 未设置权重的远端权重为1. 加权轮询表(平滑加权, 远端交错排列)在设置远端/权重时
+ * 预先生成, 请求线程只做一次计数器自增和数组读取. 轮询表未生成时(例如刚切换策略), 退化为普通轮询.</p>
+ *
+ * @author shepherdviolet
+ */
+@ImplementationName(WeightedRoundRobinHostSelectionStrategy.NAME)
+public class WeightedRoundRobinHostSelectionStrategy implements HostSelectionStrategy {
+
+    public static final String NAME = "weighted-round-robin";
+
+    @Override
+    public int select(LoadBalancedHostManager.Host[] hosts, HostSelectionContext context, long currentTimeMillis) {
+        int[] schedule = context.getWeightedSchedule();
+        int count = context.nextCount();
+        if (schedule.length <= 0) {
+            return count % hosts.length;
+        }
+        // 轮询表和远端列表不是原子地一起替换的, 防止越界
+        return schedule[count % schedule.length] % hosts.length;
+    }
+
+    @Override
+    public String toString() {
+        return NAME;
+    }
+
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2022-2022 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance;
+
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.dns.BackgroundUpdatingDns;
+import org.xbill.DNS.ARecord;
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.Flags;
+import org.xbill.DNS.Message;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.Section;
+import org.xbill.DNS.Type;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * BackgroundUpdatingDns测试案例
+ * 1.热门记录在过期前预取, 预取线程数有限
+ * 2.关闭后预取线程池停止, 仍可以同步解析
+ *
+ * 测试要点:
+ * 1.无需外部DNS服务器, 本地启动一个UDP DNS服务端(127.0.0.1:15354), 每次A查询返回不同的地址(10.0.0.N), TTL 4秒
+ * 2.命中3次后, 在TTL剩余1/4时查询, 观察是否在过期前拿到新地址
+ * 3.观察预取线程数和关闭后的预取线程
+ */
+public class BackgroundUpdatingDnsTest {
+
+    private static final int PORT = 15354;
+    private static final String HOSTNAME = "prefetch.test";
+    private static final String THREAD_NAME_PREFIX = "Glacispring-LBDNS-Prefetch-";
+
+    private static final AtomicInteger queries = new AtomicInteger(0);
+
+    public static void main(String[] args) throws Exception {
+
+        startDnsServer();
+        String dnsDescription = "ip=127.0.0.1:" + PORT + ",minTtlSeconds=1,maxTtlSeconds=4,isBackgroundUpdate=false,shareCache=false";
+
+        // 预取
+        BackgroundUpdatingDns dns = new BackgroundUpdatingDns(dnsDescription);
+        List<InetAddress> first = dns.lookup(HOSTNAME);
+        for (int i = 0 ; i < 3 ; i++) {
+            check("cached lookup", first, dns.lookup(HOSTNAME));
+        }
+        int queriesBeforePrefetch = queries.get();
+        Thread.sleep(3200L);
+        // 到达预取时间, 本次仍返回缓存, 同时异步预取
+        check("lookup triggers prefetch", first, dns.lookup(HOSTNAME));
+        Thread.sleep(300L);
+        if (queries.get() <= queriesBeforePrefetch) {
+            throw new RuntimeException("prefetch did not query the dns server");
+        }
+        List<InetAddress> prefetched = dns.lookup(HOSTNAME);
+        if (prefetched.equals(first)) {
+            throw new RuntimeException("prefetched record not used, still " + first);
+        }
+        System.out.println("prefetched before expiry: " + first + " -> " + prefetched);
+        checkPrefetchThreads("prefetch threads", 1, 2);
+
+        // 关闭后仍可以同步解析, 不再预取
+        dns.close();
+        Thread.sleep(100L);
+        checkPrefetchThreads("prefetch threads after close", 0, 0);
+        Thread.sleep(4100L);
+        System.out.println("lookup after close: " + dns.lookup(HOSTNAME));
+        for (int i = 0 ; i < 5 ; i++) {
+            dns.lookup(HOSTNAME);
+        }
+        Thread.sleep(3200L);
+        dns.lookup(HOSTNAME);
+        Thread.sleep(300L);
+        checkPrefetchThreads("prefetch threads after close", 0, 0);
+
+        System.out.println("passed");
+        System.exit(0);
+
+    }
+
+    /**
+     * 本地DNS服务端, A查询每次返回不同的地址, AAAA查询返回空
+     */
+    private static void startDnsServer() throws Exception {
+        final DatagramSocket socket = new DatagramSocket(PORT, InetAddress.getByName("127.0.0.1"));
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                byte[] buffer = new byte[512];
+                while (true) {
+                    try {
+                        DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+                        socket.receive(packet);
+                        Message query = new Message(packet.getData());
+                        Record question = query.getQuestion();
+                        Message response = new Message(query.getHeader().getID());
+                        response.getHeader().setFlag(Flags.QR);
+                        response.getHeader().setFlag(Flags.RA);
+                        response.addRecord(question, Section.QUESTION);
+                        if (question.getType() == Type.A) {
+                            int count = queries.incrementAndGet();
+                            response.addRecord(new ARecord(question.getName(), DClass.IN, 4,
+                                    InetAddress.getByName("10.0.0." + count)), Section.ANSWER);
+                        }
+                        byte[] data = response.toWire();
+                        socket.send(new DatagramPacket(data, data.length, packet.getSocketAddress()));
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static void check(String name, List<InetAddress> expected, List<InetAddress> actual) {
+        if (!expected.equals(actual)) {
+            throw new RuntimeException(name + ": expected " + expected + ", actual " + actual);
+        }
+        System.out.println(name + ": " + actual);
+    }
+
+    private static void checkPrefetchThreads(String name, int min, int max) {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.isAlive() && thread.getName().startsWith(THREAD_NAME_PREFIX)) {
+                count++;
+            }
+        }
+        if (count < min || count > max) {
+            throw new RuntimeException(name + ": expected " + min + "~" + max + ", actual " + count);
+        }
+        System.out.println(name + ": " + count);
+    }
+
+}
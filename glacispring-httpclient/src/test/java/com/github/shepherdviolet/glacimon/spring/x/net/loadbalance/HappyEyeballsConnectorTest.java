@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2022-2022 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance;
+
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.connect.HappyEyeballsConnector;
+import okhttp3.Dns;
+
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import java.net.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * HappyEyeballsConnector测试案例
+ * 1.连接竞速后, 连接前设置的参数(soTimeout等)在胜出的连接上生效
+ *
+ * 测试要点:
+ * 1.无需后端, 本地启动一个只接受连接不返回数据的服务端(127.0.0.2), 127.0.0.1端口不通
+ * 2.连接127.0.0.1, 竞速到127.0.0.2, 观察getSoTimeout是否为连接前设置的值
+ * 3.观察读数据/TLS握手是否在soTimeout后超时(而不是一直卡住)
+ * 4.观察连接后调用setSoTimeout是否生效
+ */
+public class HappyEyeballsConnectorTest {
+
+    private static final int PORT = 18991;
+    private static final int SO_TIMEOUT = 500;
+
+    public static void main(String[] args) throws Exception {
+
+        // 只接受连接, 不返回任何数据
+        final ServerSocket server = new ServerSocket(PORT, 50, InetAddress.getByName("127.0.0.2"));
+        final List<Socket> accepted = new ArrayList<>();
+        Thread acceptor = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (true) {
+                        accepted.add(server.accept());
+                    }
+                } catch (Exception ignore) {
+                }
+            }
+        });
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        HappyEyeballsConnector connector = new HappyEyeballsConnector();
+        Dns dns = connector.wrap(new Dns() {
+            @Override
+            public List<InetAddress> lookup(String hostname) throws UnknownHostException {
+                return Arrays.asList(InetAddress.getByName("127.0.0.1"), InetAddress.getByName("127.0.0.2"));
+            }
+        });
+        List<InetAddress> addresses = dns.lookup("stalled.test");
+
+        // 读数据
+        Socket socket = connect(connector, addresses.get(0));
+        check("soTimeout after connect", SO_TIMEOUT, socket.getSoTimeout());
+        long startTime = System.currentTimeMillis();
+        try {
+            socket.getInputStream().read();
+            throw new RuntimeException("read should time out");
+        } catch (SocketTimeoutException e) {
+            System.out.println("read timed out in " + (System.currentTimeMillis() - startTime) + "ms");
+        }
+        socket.setSoTimeout(SO_TIMEOUT * 2);
+        check("setSoTimeout after connect", SO_TIMEOUT * 2, socket.getSoTimeout());
+        socket.close();
+
+        // TLS握手(OkHttp在连接后用原Socket创建SSLSocket)
+        socket = connect(connector, addresses.get(0));
+        SSLSocket sslSocket = (SSLSocket) ((SSLSocketFactory) SSLSocketFactory.getDefault()).createSocket(socket, "stalled.test", PORT, true);
+        startTime = System.currentTimeMillis();
+        try {
+            sslSocket.startHandshake();
+            throw new RuntimeException("handshake should time out");
+        } catch (SocketTimeoutException e) {
+            System.out.println("handshake timed out in " + (System.currentTimeMillis() - startTime) + "ms");
+        }
+        sslSocket.close();
+
+        server.close();
+        System.out.println("passed");
+
+    }
+
+    private static Socket connect(HappyEyeballsConnector connector, InetAddress address) throws Exception {
+        Socket socket = connector.getSocketFactory(50).createSocket();
+        // 与OkHttp一致, 连接前设置soTimeout
+        socket.setSoTimeout(SO_TIMEOUT);
+        socket.setReceiveBufferSize(32 * 1024);
+        socket.connect(new InetSocketAddress(address, PORT), 3000);
+        System.out.println("connected: " + socket);
+        return socket;
+    }
+
+    private static void check(String name, int expected, int actual) {
+        if (expected != actual) {
+            throw new RuntimeException(name + ": expected " + expected + ", actual " + actual);
+        }
+        System.out.println(name + ": " + actual);
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance;
+
+import ch.qos.logback.classic.Level;
+import com.github.shepherdviolet.glacimon.java.helper.logback.LogbackHelper;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * LoadBalancedHostManager测试案例
+ * 1.自适应并发限制
+ *
+ * 测试要点:
+ * 1.无需后端, 模拟后端: 8081处理能力为4并发, 8082处理能力为16并发, 超过处理能力后RTT随排队线性上涨
+ * 2.观察并发上限是否分别收敛到处理能力附近, 且请求更多地分配给8082, 部分请求因达到上限被拒绝
+ */
+public class HostManagerConcurrencyLimitTest {
+
+    private static final int THREADS = 64;
+    private static final long BASE_RTT = 10L;
+
+    public static void main(String[] args) throws InterruptedException {
+
+        LogbackHelper.setLevel("com.github.shepherdviolet.glacimon.spring.x.net.loadbalance", Level.ERROR);
+        System.setProperty("glacispring.loadbalance.warndisabled", "true");
+
+        final LoadBalancedHostManager manager = new LoadBalancedHostManager()
+                .setHostArray(new String[]{"http://127.0.0.1:8081", "http://127.0.0.1:8082"})
+                .setConcurrencyLimit(args.length > 0 ? args[0] : "algorithm=gradient,initialLimit=20,maxLimit=200");
+
+        final AtomicInteger rejected = new AtomicInteger(0);
+        final AtomicInteger[] counters = {new AtomicInteger(0), new AtomicInteger(0)};
+
+        for (int i = 0 ; i < THREADS ; i++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    while (true) {
+                        LoadBalancedHostManager.Host host = manager.nextHost();
+                        if (host == null || !host.tryAcquire()) {
+                            rejected.incrementAndGet();
+                            sleep(BASE_RTT);
+                            continue;
+                        }
+                        int index = host.getUrl().endsWith("8081") ? 0 : 1;
+                        int capacity = index == 0 ? 4 : 16;
+                        counters[index].incrementAndGet();
+                        long start = System.nanoTime();
+                        //超过处理能力后排队
+                        int inFlight = host.getOutstanding();
+                        sleep(BASE_RTT * Math.max(1, inFlight / capacity + 1));
+                        host.feedback(true, 0, 1, start);
+                    }
+                }
+            }).start();
+        }
+
+        for (int i = 0 ; i < 10 ; i++) {
+            Thread.sleep(2000L);
+            StringBuilder stringBuilder = new StringBuilder();
+            for (Map.Entry<String, int[]> entry : manager.getHostsConcurrency().entrySet()) {
+                stringBuilder.append(entry.getKey()).append(Arrays.toString(entry.getValue())).append(" ");
+            }
+            System.out.println(stringBuilder + "requests " + counters[0].getAndSet(0) + "/" + counters[1].getAndSet(0) +
+                    " rejected " + rejected.getAndSet(0));
+        }
+        System.exit(0);
+
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ignored) {
+        }
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2022-2026 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance;
+
+import ch.qos.logback.classic.Level;
+import com.github.shepherdviolet.glacimon.java.helper.logback.LogbackHelper;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * LoadBalancedHostManager测试案例
+ * 1.远端选择策略
+ *
+ * 测试要点:
+ * 1.无需后端
+ * 2.weighted-round-robin: 观察分配比例是否为 3:1:0:1
+ * 3.least-outstanding: 第0个远端未完成请求多, 观察流量是否避开第0个远端
+ * 4.p2c-ewma: 第0个远端响应慢, 观察流量是否偏向其他远端
+ */
+public class HostManagerSelectionStrategyTest {
+
+    private static final String[] HOSTS = {"http://127.0.0.1:8081", "http://127.0.0.1:8082", "http://127.0.0.1:8083", "http://127.0.0.1:8084"};
+
+    public static void main(String[] args) throws InterruptedException {
+
+        LogbackHelper.setLevel("com.github.shepherdviolet.glacimon.spring.x.net.loadbalance", Level.ERROR);
+        System.setProperty("glacispring.loadbalance.warndisabled", "true");
+
+        weightedRoundRobin();
+        leastOutstanding();
+        p2cEwma();
+
+    }
+
+    private static void weightedRoundRobin() {
+        LoadBalancedHostManager manager = new LoadBalancedHostManager()
+                .setHostArray(HOSTS)
+                .setSelectionStrategy("weighted-round-robin")
+                .setHostWeights("http://127.0.0.1:8081=3,http://127.0.0.1:8083=0");
+        print("weighted-round-robin", manager, 10000);
+    }
+
+    private static void leastOutstanding() {
+        LoadBalancedHostManager manager = new LoadBalancedHostManager()
+                .setHostArray(HOSTS)
+                .setSelectionStrategy("least-outstanding");
+        LoadBalancedHostManager.Host slowHost = manager.getHostArray()[0];
+        for (int i = 0 ; i < 5 ; i++) {
+            slowHost.onRequestStart();
+        }
+        print("least-outstanding", manager, 10000);
+    }
+
+    private static void p2cEwma() throws InterruptedException {
+        LoadBalancedHostManager manager = new LoadBalancedHostManager()
+                .setHostArray(HOSTS)
+                .setSelectionStrategy("p2c-ewma");
+        LoadBalancedHostManager.Host[] hosts = manager.getHostArray();
+        for (int i = 0 ; i < hosts.length ; i++) {
+            long start = hosts[i].onRequestStart();
+            Thread.sleep(i == 0 ? 50L : 5L);
+            hosts[i].feedback(true, 0, 1, start);
+        }
+        print("p2c-ewma", manager, 10000);
+    }
+
+    private static void print(String name, LoadBalancedHostManager manager, int times) {
+        Map<String, AtomicInteger> counters = new LinkedHashMap<>();
+        for (String host : HOSTS) {
+            counters.put(host, new AtomicInteger(0));
+        }
+        for (int i = 0 ; i < times ; i++) {
+            counters.get(manager.nextHost().getUrl()).incrementAndGet();
+        }
+        System.out.println(name + ": " + counters + " hosts " + Arrays.toString(HOSTS));
+    }
+
+}
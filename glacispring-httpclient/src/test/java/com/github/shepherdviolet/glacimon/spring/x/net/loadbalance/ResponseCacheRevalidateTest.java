@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2022-2022 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance;
+
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.DeadlineBudget;
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.GlaciHttpClient;
+import com.sun.net.httpserver.HttpServer;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 响应缓存后台重新验证(stale-while-revalidate)测试案例
+ * 1.后台重新验证不受调用者截止时间预算(DeadlineBudget)的约束
+ * 2.后台重新验证受请求的totalTimeout限制, 服务端很慢时到时中断, 之后的请求可以再次发起重新验证
+ *
+ * 测试要点:
+ * 1.无需后端, 本地启动一个HTTP服务端(127.0.0.1:18993), 响应max-age=1, stale-while-revalidate=10
+ * 2.缓存过期后, 在很短的DeadlineBudget下读取, 观察后台重新验证是否成功
+ * 3.服务端改为3秒后才响应, 用totalTimeout=500ms读取过期缓存, 1秒后再读取, 观察是否发起了新的重新验证
+ */
+public class ResponseCacheRevalidateTest {
+
+    private static final int PORT = 18993;
+    private static final long SLOW_RESPONSE_MILLIS = 3000L;
+    private static final long TOTAL_TIMEOUT = 500L;
+
+    private static final AtomicInteger version = new AtomicInteger(1);
+    private static final AtomicInteger requests = new AtomicInteger(0);
+    private static final AtomicBoolean slow = new AtomicBoolean(false);
+
+    public static void main(String[] args) throws Exception {
+
+        startServer();
+        GlaciHttpClient client = new GlaciHttpClient()
+                .setHosts("http://127.0.0.1:" + PORT)
+                .setInitiativeInspectInterval(0)
+                .setPassiveBlockDuration(0)
+                .setMaxRetries(0)
+                .setResponseCacheMaxBytes(1024 * 1024);
+
+        check("first request", "v1", send(client, 0));
+        Thread.sleep(1100L);
+
+        // 过期缓存 + 很短的DeadlineBudget, 后台重新验证不受影响
+        version.set(2);
+        try (DeadlineBudget.Scope scope = DeadlineBudget.attach(DeadlineBudget.ofTimeout(50L))) {
+            check("stale under 50ms deadline budget", "v1", send(client, 0));
+        }
+        Thread.sleep(300L);
+        check("revalidated in background", "v2", send(client, 0));
+        Thread.sleep(1100L);
+
+        // 服务端很慢, 后台重新验证在totalTimeout时中断
+        version.set(3);
+        slow.set(true);
+        int requestsBefore = requests.get();
+        check("stale with slow server", "v2", send(client, TOTAL_TIMEOUT));
+        Thread.sleep(TOTAL_TIMEOUT * 2);
+        check("stale after revalidation timeout", "v2", send(client, TOTAL_TIMEOUT));
+        Thread.sleep(100L);
+        int revalidations = requests.get() - requestsBefore;
+        if (revalidations != 2) {
+            throw new RuntimeException("slow revalidation was not cut off at totalTimeout, expected 2 revalidations, actual " + revalidations);
+        }
+        System.out.println("revalidations with slow server: " + revalidations);
+
+        client.close();
+        System.out.println("passed");
+        System.exit(0);
+
+    }
+
+    private static String send(GlaciHttpClient client, long totalTimeout) throws Exception {
+        GlaciHttpClient.Request request = client.get("/swr");
+        if (totalTimeout > 0) {
+            request.totalTimeout(totalTimeout);
+        }
+        return new String(request.sendForBytes());
+    }
+
+    private static void check(String name, String expected, String actual) {
+        if (!expected.equals(actual)) {
+            throw new RuntimeException(name + ": expected " + expected + ", actual " + actual);
+        }
+        System.out.println(name + ": " + actual);
+    }
+
+    private static void startServer() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", PORT), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            if (slow.get()) {
+                try {
+                    Thread.sleep(SLOW_RESPONSE_MILLIS);
+                } catch (InterruptedException ignore) {
+                }
+            }
+            byte[] body = ("v" + version.get()).getBytes();
+            exchange.getResponseHeaders().add("Cache-Control", "max-age=1, stale-while-revalidate=10");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+    }
+
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2022-2022 S.Violet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project GitHub: https://github.com/shepherdviolet/glacimon
+ * Email: shepherdviolet@163.com
+ */
+
+package com.github.shepherdviolet.glacimon.spring.x.net.loadbalance;
+
+import com.github.shepherdviolet.glacimon.spring.x.net.loadbalance.classic.GlaciHttpClient;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsExchange;
+import com.sun.net.httpserver.HttpsParameters;
+import com.sun.net.httpserver.HttpsServer;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import java.io.ByteArrayInputStream;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.security.KeyStore;
+import java.security.cert.X509Certificate;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+
+/**
+ * SslContextRegistry(共用SSLContext)/CachingX509TrustManager测试案例
+ * 1.连接同一个服务端的多个客户端(信任材料相同)共用SSLContext, 新连接会话恢复
+ * 2.客户端配置变更(重建OkHttpClient)后仍然会话恢复
+ * 3.信任材料不同的客户端不共用, 不信任服务端证书时握手失败(验证结果缓存不影响)
+ *
+ * 测试要点:
+ * 1.无需后端, 本地启动一个HTTPS服务端(127.0.0.1:18992, TLSv1.2, 自签名证书CN=localhost)
+ * 2.客户端不保留空闲连接, 每个请求都是新连接, 服务端记录每个连接的TLS会话ID
+ * 3.观察两个客户端的所有请求是否只产生了一个会话(第一次完整握手, 之后都是会话恢复)
+ */
+public class SslContextRegistryTest {
+
+    private static final int PORT = 18992;
+    private static final String PASSWORD = "changeit";
+
+    /**
+     * 自签名服务端证书(PKCS12, CN=localhost, 有效期100年)
+     */
+    private static final String KEY_STORE =
+            "MIIKJAIBAzCCCc4GCSqGSIb3DQEHAaCCCb8Eggm7MIIJtzCCBa4GCSqGSIb3DQEHAaCCBZ8EggWbMIIFlzCCBZMGCyqGSIb3DQEM" +
+            "CgECoIIFQDCCBTwwZgYJKoZIhvcNAQUNMFkwOAYJKoZIhvcNAQUMMCsEFANGHUZFUzlmgg41uEDZGb9nawlnAgInEAIBIDAMBggq" +
+            "hkiG9w0CCQUAMB0GCWCGSAFlAwQBKgQQ0I7xSnO3BGVlFniS4LDl2wSCBNCw+RXb+X1VHWbQvRFf197TdX8jNYdxvs3QlVVMhziG" +
+            "jlFUmf7zZ/W2ZFqGLkrTpgUALK6Z1y/561F9RjJBZ7ZWYCB4GbJJseE64w856fNrnLbbfAbRx6hHZ4DgRXQPC53fUQ+NAPchutrv" +
+            "0Sk3Pn2qAXYEwE46eJa7z6ERZmHin26LXo9fY1abMLaqJVilKF18VO/DkBj+eRaK0ky0wkWtrIHZOJWtCxEmgFaL8Q1KsImJmqxD" +
+            "i/3BdFQ3CBCBBrN1S4Nh0CfIeg19bKPrBQyDr6rOeR+P2fC3ScSEPAFHofzOLyCGdewox4V5BnEgF04a9rw7SS1pvUJwacElR+m5" +
+            "/d+nai4LrtNevxAleeC+lHtn8+NMZnErggLoMuzHcTPObks1eaKHNASiIJj0de/cUwZUVxPdqyg5zmDMYVD1qcfjpQu1oROzHRcw" +
+            "gcIzr3mcnMB7i80Y+oJWyH6bV3ndqEnw8hOXjIA/Imja3FxC4IM2EaDE/jK6v0Bo6O6+MmRrbpRU9G44fbzTD2IWh/Rbg2LS2F1w" +
+            "KV29E2oQleZN5tpXeprNCpqR0BRniGVK9nMLcDQ71pVs/juIvG9IaVbVQIO4uX2nEjC9+wpfDxzBWPSKSY+Dy18k7MkdJfMeuBQZ" +
+            "DOkROyxuKF1VILXCu2OOXhlInT1cSuWuGYwY34H3hB79CDFEdNRuisq9fBsRz3zXQnBjkHjvXM37kbguZsefov44cd1E53Al8ksH" +
+            "DgOkczykQ/rG1jnxxbvt5czijF9xRaqBU5nTT7Tr7hgbBVsDngFh1zHyMCh97vUehVuOKtzjAKS7Kf2Nu9X3uSO+2+UC7qzMkEPp" +
+            "X46WVDsNkKayadSOtjeoCgPhUWVSTWLYYr84a0tP8sFNqK8NlBuH2nN2n7U2ZAffn2grX1A6SKYhK5UzEqHA4iyM2PfKoKVEdzNI" +
+            "afzpl4u8gFw+z4FsBdRjF/IzsV92xoJxqWJPqqfP+Vy1z2RpWUlq7lnaAvypuR4J9kZcTNiYqoah9PuEK+NtGRZFHHKNPwUxxMJT" +
+            "N3J5LkLvg239ncm3Fh7c7W9RJ9aZGwdTJ/PmjLaejplWvfe/7w9QwlQgXNZkSCbiVuIgXLrLZX+vprFte2Y1A/km+5PltEhOfgM0" +
+            "HoLEPzhWBoG3XWDoVVdyGM1rsj8dHUZiIsRbixfeVwN4Hlf42dRwV+SrjhyjBc//v2/3WmGKpQxT4Vi7wM9I4f+15NY9zfRYlrKh" +
+            "zWR1y7KJ8hLOP0g0EMSvAQwxJOynyojPdXoI/uJnEGWkAe6vHhp3q3PSaDDYBJr1Z+8dzOjNERG/POXQvezt7pQ3rlHITGiI9DJk" +
+            "ZwTrI0DzIbWtPLH+KIwUbU+7Rm/K4nJDuvcwDfPtRBljCjGZdNbRBtmXsPf7Hk+maa3WuOsfPjtlF/rSAOeU1lssKIsQTp+mcVJk" +
+            "iQfZ4GPHGqKcTCfv+Gi4mPMW4rPWZTkfOR2hridlIfM/DUayP69l09b4Dh5S7oFv9fyo//IcM4rB4zX3zJP9sBY/UTrurFJqbieb" +
+            "g0FQU7Y3Q12KcdbxaQj6PrViL9v6oFLjkI50eKpHBQbruz9raFp4joQyYZi5AaSq+CudcLpZ4VdlJSLIXdK6GWae10dwBjx6N8pU" +
+            "pDFAMBsGCSqGSIb3DQEJFDEOHgwAcwBlAHIAdgBlAHIwIQYJKoZIhvcNAQkVMRQEElRpbWUgMTc5MjE5NzI0MTIwOTCCBAEGCSqG" +
+            "SIb3DQEHBqCCA/IwggPuAgEAMIID5wYJKoZIhvcNAQcBMGYGCSqGSIb3DQEFDTBZMDgGCSqGSIb3DQEFDDArBBTeB4ywlaJ6NOf7" +
+            "+hQZH1i7huI4FwICJxACASAwDAYIKoZIhvcNAgkFADAdBglghkgBZQMEASoEEPSK4frF1MG6kVO5YEOehrSAggNw69oSJm/hLjaR" +
+            "pJD3yAfd8cdQQKlJZGreOceysfvXwrfylipy8ImVrQSxZvQwcrt+ZmZFyXcpdfd/e/b8wgw4zouVTtXRre0rYYAQnRMVrpQJyChO" +
+            "IxYYOju1OMsEDn33ABVDW0Xf3aXzvD1pgIJXytWrVPN5P1Daei9BWXZCCjzO1cZOUEwRr2/TBa/aH7tbpAXxqmKNuDPm9og3j0OV" +
+            "ANMWogteqycqr5GNfmwpY/mukdzxf4QbIDJn55Ml7Ou5iKovXU3iD8pOEP7LZtanCg21Tk+Ed485tk3XOyz3OH/zntd+hrMFf9Uy" +
+            "MNzNryZcwImr6ziiMheBx2Ix6oMZxe0yrftYBWddiGJ3KP8Mf4QXo6gwXVH2Rvqp8Ii+xdVZJCaBLIMo5Loy2uVHU6ycePzeg7B2" +
+            "9nV3v4ypX3qDOlwHuGGGBhr4dCgwn31F/cPQs125EwJifpkWoRtzeNekvzhMkAEklHGYkAfIoZFZogDRZF9SCSmU5EoIgpZesJ6H" +
+            "yFGNHAyzgOE6xycjt/DN0+1VUrTl/ST1Bag/8PQ4iIAHJjH2lOJG4byQKJ0Us/q3Pk9/bSTUG4QpqhccNydI/vmJl8ZKnrK+7Vue" +
+            "slcm4/LtelDAN2zZLuThiqHnTAvsV9mD4VDPeLwg8Vf0NLxFO2NYi+Wo27xKJHSyf7h6+O4JaubAfvIL6fTFu5RURhe2uK28M0fm" +
+            "myEd5KliR1z46Y7scPPjzv/fYUzGdd8GJ2EFbC7GIEyegZjsJum25UmO1snJihKRdTI7S+x4vIlZOhBsbIOBfRvGAT3UvQveb6Ow" +
+            "u5Lacnna1e10VkbRU89FsKfJierRDiOxW/lmDsaMABkU1rq//6uIUim4n27bXPssvF4bd/jwolVwpv7nQghPCdoTNwGtswtfWZqv" +
+            "uPiYJHPS0ygwcD8g3WCUsVWmx5UQUCXllLunvUQW8q/54KHmAz5ACIvfTepLRGYZ1Xp+FseJ9WAtjGP2ldkYqvYhhch6q+fwXD+V" +
+            "c3iRFm5SDRJD1T5eW4R9uXHZ9Q+eIkkik6P3j7OzTHLEAphh1p3LT/eLPSgKaLGv8BF1jM1Is6kRv6gYwkiIDnX9VEAIZKQkMF7O" +
+            "1wR7tC2LSgcnYrlXyZEs0W8rpieZlweRFKTZb0nSBXOCQbUf0vSIyKEUX5h/4TBNMDEwDQYJYIZIAWUDBAIBBQAEIP1j85Ap5u1b" +
+            "UxtkembPBwXe4aUpP84daxKU9olk02OdBBRZXacTn64k/Wl2CT5RWO7CxBlf9wICJxA=";
+
+    private static final Set<String> sessionIds = ConcurrentHashMap.newKeySet();
+    private static final List<String> connections = new CopyOnWriteArrayList<>();
+
+    public static void main(String[] args) throws Exception {
+
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        keyStore.load(new ByteArrayInputStream(Base64.getDecoder().decode(KEY_STORE)), PASSWORD.toCharArray());
+        startServer(keyStore);
+        X509Certificate serverCert = (X509Certificate) keyStore.getCertificate("server");
+
+        GlaciHttpClient client1 = newClient().setCustomServerIssuer(serverCert);
+        GlaciHttpClient client2 = newClient().setCustomServerIssuer(serverCert);
+        for (int i = 0 ; i < 3 ; i++) {
+            send(client1, "client1");
+            send(client2, "client2");
+        }
+        check("sessions of two clients", 6, 1);
+
+        // 配置变更后重建OkHttpClient
+        client1.setReadTimeout(5000);
+        send(client1, "client1 (rebuilt)");
+        check("sessions after rebuild", 7, 1);
+
+        // 信任材料不同(系统默认), 不信任自签名证书
+        GlaciHttpClient untrusted = newClient();
+        try {
+            send(untrusted, "untrusted");
+            throw new RuntimeException("untrusted client should fail to handshake");
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            System.out.println("untrusted client rejected: " + e);
+        }
+        send(client2, "client2");
+        check("sessions after untrusted client", 8, 1);
+
+        client1.close();
+        client2.close();
+        untrusted.close();
+        System.out.println("passed");
+        System.exit(0);
+
+    }
+
+    private static GlaciHttpClient newClient() {
+        return new GlaciHttpClient()
+                .setHosts("https://localhost:" + PORT)
+                .setInitiativeInspectInterval(0)
+                .setMaxIdleConnections(0);
+    }
+
+    private static void send(GlaciHttpClient client, String name) throws Exception {
+        System.out.println(name + ": " + new String(client.get("/").sendForBytes()));
+    }
+
+    private static void check(String name, int expectedConnections, int expectedSessions) {
+        if (connections.size() != expectedConnections || sessionIds.size() != expectedSessions) {
+            throw new RuntimeException(name + ": expected " + expectedConnections + " connections / " + expectedSessions +
+                    " sessions, actual " + connections.size() + " connections / " + sessionIds.size() + " sessions");
+        }
+        System.out.println(name + ": " + connections.size() + " connections / " + sessionIds.size() + " sessions");
+    }
+
+    private static void startServer(KeyStore keyStore) throws Exception {
+        KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagerFactory.init(keyStore, PASSWORD.toCharArray());
+        SSLContext sslContext = SSLContext.getInstance("TLSv1.2");
+        sslContext.init(keyManagerFactory.getKeyManagers(), null, null);
+        HttpsServer server = HttpsServer.create(new InetSocketAddress("127.0.0.1", PORT), 0);
+        server.setHttpsConfigurator(new HttpsConfigurator(sslContext) {
+            @Override
+            public void configure(HttpsParameters params) {
+                // TLSv1.2会话ID在服务端可见, 便于观察会话恢复
+                params.setProtocols(new String[]{"TLSv1.2"});
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            String sessionId = new BigInteger(1, ((HttpsExchange) exchange).getSSLSession().getId()).toString(16);
+            String connection = String.valueOf(exchange.getRemoteAddress());
+            if (!connections.contains(connection)) {
+                connections.add(connection);
+            }
+            sessionIds.add(sessionId);
+            byte[] body = ("session " + sessionId.substring(0, 8) + " via " + connection).getBytes();
+            exchange.getResponseHeaders().add("Connection", "close");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+    }
+
+}